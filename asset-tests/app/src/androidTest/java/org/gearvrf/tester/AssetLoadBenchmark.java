@@ -0,0 +1,517 @@
+package org.gearvrf.tester;
+
+import android.os.Debug;
+import android.os.Environment;
+
+import org.gearvrf.GVRContext;
+import org.gearvrf.GVRSceneObject;
+import org.gearvrf.GVRTexture;
+import org.gearvrf.IAssetEvents;
+import org.gearvrf.unittestutils.GVRFrameStats;
+import org.gearvrf.unittestutils.GVRTestUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Loads models through GVRAssetLoader and times the stages of each load from
+ * the IAssetEvents callbacks.
+ * <p>
+ * The models are read from a copy of the corpus on the sdcard when there is one
+ * ("adb push jassimp /sdcard/"), so that the timings do not depend on the
+ * network, or else from {@link GVRTestUtils#GITHUB_URL}.
+ */
+class AssetLoadBenchmark
+{
+    static final String[] MODEL_EXTENSIONS = { ".dae", ".fbx", ".obj", ".3ds", ".gltf", ".glb", ".ply", ".x3d" };
+    private static final long MEMORY_SAMPLE_MILLIS = 2;
+
+    /**
+     * Timestamps of one load, relative to the call of loadModel.
+     */
+    static class Sample
+    {
+        String path;
+        /** until onModelLoaded, the scene graph is built */
+        long modelNanos = -1;
+        /** until the last onTextureLoaded or onTextureError, the model time without textures */
+        long texturesNanos = -1;
+        /** until onAssetLoaded */
+        long totalNanos = -1;
+        int textures;
+        int textureErrors;
+        int modelErrors;
+        String errors;
+        long peakJavaBytes;
+        long peakNativeBytes;
+
+        @Override
+        public String toString()
+        {
+            return String.format(Locale.US, "%s model %.1f ms, textures %.1f ms, total %.1f ms, %d textures, "
+                                 + "%d texture errors, peak java %.1f MB, native %.1f MB", path,
+                                 modelNanos / 1e6, texturesNanos / 1e6, totalNanos / 1e6, textures,
+                                 textureErrors, peakJavaBytes / 1048576.0, peakNativeBytes / 1048576.0);
+        }
+    }
+
+    /**
+     * Receives the events of one load.
+     */
+    static class Timing implements IAssetEvents
+    {
+        final Sample sample = new Sample();
+        final CountDownLatch done = new CountDownLatch(1);
+        GVRSceneObject model;
+        private final long mStart;
+        private long mLastTexture;
+
+        Timing(String path)
+        {
+            sample.path = path;
+            mStart = System.nanoTime();
+        }
+
+        public synchronized void onModelLoaded(GVRContext context, GVRSceneObject model, String filePath)
+        {
+            sample.modelNanos = System.nanoTime() - mStart;
+        }
+
+        public synchronized void onTextureLoaded(GVRContext context, GVRTexture texture, String filePath)
+        {
+            ++sample.textures;
+            mLastTexture = System.nanoTime();
+        }
+
+        public void onModelError(GVRContext context, String error, String filePath)
+        {
+            synchronized (this)
+            {
+                ++sample.modelErrors;
+                sample.totalNanos = System.nanoTime() - mStart;
+                sample.errors = error;
+            }
+            // a model which cannot be read does not always get onAssetLoaded
+            done.countDown();
+        }
+
+        public synchronized void onTextureError(GVRContext context, String error, String filePath)
+        {
+            ++sample.textureErrors;
+            mLastTexture = System.nanoTime();
+        }
+
+        public void onAssetLoaded(GVRContext context, GVRSceneObject model, String filePath, String errors)
+        {
+            synchronized (this)
+            {
+                sample.totalNanos = System.nanoTime() - mStart;
+                sample.texturesNanos = (mLastTexture != 0) ? mLastTexture - mStart : sample.modelNanos;
+                sample.errors = errors;
+                this.model = model;
+            }
+            done.countDown();
+        }
+    }
+
+    /**
+     * Samples the Java and native heap on a thread of its own while models load
+     * and keeps the largest growth over the heap at {@link #start()}.
+     */
+    static class MemorySampler implements Runnable
+    {
+        private final Runtime mRuntime = Runtime.getRuntime();
+        private volatile boolean mRunning;
+        private Thread mThread;
+        private long mJavaBase;
+        private long mNativeBase;
+        private long mPeakJava;
+        private long mPeakNative;
+
+        void start()
+        {
+            mJavaBase = mRuntime.totalMemory() - mRuntime.freeMemory();
+            mNativeBase = Debug.getNativeHeapAllocatedSize();
+            mPeakJava = 0;
+            mPeakNative = 0;
+            mRunning = true;
+            mThread = new Thread(this, "MemorySampler");
+            mThread.start();
+        }
+
+        void stop() throws InterruptedException
+        {
+            mRunning = false;
+            mThread.join();
+            sample();
+        }
+
+        long getPeakJavaBytes()
+        {
+            return mPeakJava;
+        }
+
+        long getPeakNativeBytes()
+        {
+            return mPeakNative;
+        }
+
+        public void run()
+        {
+            while (mRunning)
+            {
+                sample();
+                try
+                {
+                    Thread.sleep(MEMORY_SAMPLE_MILLIS);
+                }
+                catch (InterruptedException ex)
+                {
+                    return;
+                }
+            }
+        }
+
+        private void sample()
+        {
+            mPeakJava = Math.max(mPeakJava, mRuntime.totalMemory() - mRuntime.freeMemory() - mJavaBase);
+            mPeakNative = Math.max(mPeakNative, Debug.getNativeHeapAllocatedSize() - mNativeBase);
+        }
+    }
+
+    /**
+     * Returns the models of a corpus directory, e.g. "jassimp": every model file
+     * below /sdcard/&lt;corpus&gt; if it was copied there, or else the given models
+     * of the corpus on github.
+     * @param fallback paths of models relative to the corpus directory.
+     */
+    static List<String> findModels(String corpus, String[] fallback)
+    {
+        List<String> models = new ArrayList<String>();
+        File local = new File(Environment.getExternalStorageDirectory(), corpus);
+
+        if (local.isDirectory())
+        {
+            collectModels(local, corpus, models);
+            Collections.sort(models);
+            return models;
+        }
+        for (String path : fallback)
+        {
+            models.add(GVRTestUtils.GITHUB_URL + corpus + "/" + path);
+        }
+        return models;
+    }
+
+    private static void collectModels(File dir, String relative, List<String> models)
+    {
+        File[] files = dir.listFiles();
+        if (files == null)
+        {
+            return;
+        }
+        for (File file : files)
+        {
+            if (file.isDirectory())
+            {
+                collectModels(file, relative + "/" + file.getName(), models);
+                continue;
+            }
+            String name = file.getName().toLowerCase(Locale.US);
+            for (String extension : MODEL_EXTENSIONS)
+            {
+                if (name.endsWith(extension))
+                {
+                    // sd: paths are relative to the external storage directory
+                    models.add("sd:" + relative + "/" + file.getName());
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Short name of a model for tables and benchmark names, its path inside the
+     * corpus.
+     */
+    static String getModelName(String path, String corpus)
+    {
+        int index = path.indexOf(corpus + "/");
+        return (index >= 0) ? path.substring(index + corpus.length() + 1) : path;
+    }
+
+    /**
+     * Starts loading a model without adding it to a scene.
+     */
+    static Timing startLoad(GVRContext context, String path) throws IOException
+    {
+        Timing timing = new Timing(path);
+        context.getAssetLoader().loadModel(path, timing);
+        return timing;
+    }
+
+    /**
+     * Waits until a load started by {@link #startLoad(GVRContext, String)} is done.
+     */
+    static Sample waitForLoad(Timing timing, long timeoutMillis) throws InterruptedException, TimeoutException
+    {
+        if (!timing.done.await(timeoutMillis, TimeUnit.MILLISECONDS))
+        {
+            throw new TimeoutException(timing.sample.path + " did not load in " + timeoutMillis + " ms");
+        }
+        return timing.sample;
+    }
+
+    /**
+     * Loads a model and waits for it, measuring the peak memory of the load.
+     */
+    static Sample load(GVRContext context, String path, long timeoutMillis)
+            throws IOException, InterruptedException, TimeoutException
+    {
+        MemorySampler memory = new MemorySampler();
+        Sample sample;
+
+        memory.start();
+        try
+        {
+            sample = waitForLoad(startLoad(context, path), timeoutMillis);
+        }
+        finally
+        {
+            memory.stop();
+        }
+        sample.peakJavaBytes = memory.getPeakJavaBytes();
+        sample.peakNativeBytes = memory.getPeakNativeBytes();
+        return sample;
+    }
+
+    /**
+     * Releases the models of earlier loads so that the next load does not find
+     * their meshes and textures in the caches of the asset loader.
+     */
+    static void releaseModels(GVRTestUtils testUtils)
+    {
+        Runtime.getRuntime().gc();
+        Runtime.getRuntime().runFinalization();
+        Runtime.getRuntime().gc();
+        testUtils.waitForXFrames(2);
+    }
+
+    /**
+     * Outcome of loading a list of models with a fixed number of loads in flight.
+     */
+    static class Round
+    {
+        int concurrency;
+        /** models loaded without errors */
+        int loads;
+        int errors;
+        long elapsedNanos;
+        /** from the call of loadModel until onAssetLoaded of each model loaded without errors, in ms */
+        float[] latencies;
+        /**
+         * from the start of the round until the first frame which shows the first
+         * model loaded, -1 if no model loaded
+         */
+        long firstFrameNanos = -1;
+
+        double getModelsPerSecond()
+        {
+            return loads / (elapsedNanos / 1e9);
+        }
+
+        @Override
+        public String toString()
+        {
+            float[] sorted = sorted(latencies);
+            return String.format(Locale.US, "%d in flight: %d loads in %.0f ms, %.2f models/s, latency p50 %.0f ms, "
+                                 + "p90 %.0f ms, max %.0f ms, first frame %.0f ms, %d errors", concurrency,
+                                 loads, elapsedNanos / 1e6, getModelsPerSecond(),
+                                 GVRFrameStats.percentile(sorted, 50), GVRFrameStats.percentile(sorted, 90),
+                                 GVRFrameStats.percentile(sorted, 100), firstFrameNanos / 1e6, errors);
+        }
+    }
+
+    /**
+     * Returns at most count models spread evenly over the list.
+     */
+    static List<String> pickModels(List<String> models, int count)
+    {
+        if (models.size() <= count)
+        {
+            return models;
+        }
+        List<String> picked = new ArrayList<String>(count);
+        for (int i = 0; i < count; ++i)
+        {
+            picked.add(models.get(i * models.size() / count));
+        }
+        return picked;
+    }
+
+    /**
+     * Loads all models with the given number of loads in flight. Each of that
+     * many threads starts a load and waits for it before it starts the next one,
+     * so the loads overlap whether or not loadModel itself blocks. The first
+     * model to finish is added to the main scene until the frame showing it
+     * has been rendered. Loads which fail only count as errors; a load which
+     * throws anything else but an IOException ends the round.
+     * @throws ExecutionException with the exception which ended the round.
+     */
+    static Round loadConcurrently(final GVRTestUtils testUtils, final List<String> models, int concurrency,
+                                  final long timeoutMillis)
+            throws InterruptedException, TimeoutException, ExecutionException
+    {
+        final GVRContext context = testUtils.getGvrContext();
+        final Round round = new Round();
+        final AtomicInteger next = new AtomicInteger();
+        final AtomicInteger errors = new AtomicInteger();
+        final AtomicBoolean firstDone = new AtomicBoolean();
+        final AtomicLong firstFrame = new AtomicLong(-1);
+        final CountDownLatch frameShown = new CountDownLatch(1);
+        final AtomicReference<Exception> failure = new AtomicReference<Exception>();
+        final GVRSceneObject[] shown = new GVRSceneObject[1];
+        final float[] latencies = new float[models.size()];
+        final boolean[] loaded = new boolean[models.size()];
+        final Thread[] threads = new Thread[concurrency];
+        final long start = System.nanoTime();
+
+        for (int t = 0; t < concurrency; ++t)
+        {
+            threads[t] = new Thread("ConcurrentLoad" + t)
+            {
+                public void run()
+                {
+                    int index;
+                    while ((index = next.getAndIncrement()) < models.size() && failure.get() == null)
+                    {
+                        try
+                        {
+                            Timing timing = startLoad(context, models.get(index));
+                            Sample sample = waitForLoad(timing, timeoutMillis);
+
+                            if (sample.modelErrors > 0 || timing.model == null)
+                            {
+                                errors.incrementAndGet();
+                                continue;
+                            }
+                            latencies[index] = sample.totalNanos / 1e6f;
+                            loaded[index] = true;
+                            if (firstDone.compareAndSet(false, true))
+                            {
+                                showFirstModel(testUtils, timing.model, start, firstFrame, frameShown);
+                                shown[0] = timing.model;
+                            }
+                        }
+                        catch (IOException ex)
+                        {
+                            errors.incrementAndGet();
+                        }
+                        catch (Exception ex)
+                        {
+                            // a load which hangs or an interrupt ends the round
+                            failure.compareAndSet(null, ex);
+                        }
+                    }
+                }
+            };
+            threads[t].start();
+        }
+        for (Thread thread : threads)
+        {
+            thread.join();
+        }
+        round.elapsedNanos = System.nanoTime() - start;
+
+        try
+        {
+            Exception ex = failure.get();
+            if (ex instanceof TimeoutException)
+            {
+                throw (TimeoutException) ex;
+            }
+            else if (ex instanceof InterruptedException)
+            {
+                throw (InterruptedException) ex;
+            }
+            else if (ex != null)
+            {
+                throw new ExecutionException(ex);
+            }
+            if (firstDone.get() && !frameShown.await(timeoutMillis, TimeUnit.MILLISECONDS))
+            {
+                throw new TimeoutException("first model not rendered in " + timeoutMillis + " ms");
+            }
+        }
+        finally
+        {
+            testUtils.setOnRenderCallback(null);
+            if (shown[0] != null)
+            {
+                testUtils.getMainScene().removeSceneObject(shown[0]);
+            }
+        }
+
+        int loads = 0;
+        for (int i = 0; i < latencies.length; ++i)
+        {
+            if (loaded[i])
+            {
+                latencies[loads++] = latencies[i];
+            }
+        }
+        round.concurrency = concurrency;
+        round.loads = loads;
+        round.errors = errors.get();
+        round.latencies = Arrays.copyOf(latencies, loads);
+        round.firstFrameNanos = firstFrame.get();
+        return round;
+    }
+
+    /**
+     * Adds a model to the main scene and records when the frame which shows it
+     * has been rendered. onSceneRendered is called before a frame is drawn, so
+     * the frame with the model is done at the second call after it was added.
+     */
+    private static void showFirstModel(GVRTestUtils testUtils, GVRSceneObject model, final long start,
+                                       final AtomicLong firstFrame, final CountDownLatch frameShown)
+    {
+        final AtomicInteger frames = new AtomicInteger();
+        // added first, so a frame in flight before the add cannot be counted
+        testUtils.getMainScene().addSceneObject(model);
+        testUtils.setOnRenderCallback(new GVRTestUtils.OnRenderCallback()
+        {
+            public void onSceneRendered()
+            {
+                if (frames.incrementAndGet() == 2)
+                {
+                    firstFrame.set(System.nanoTime() - start);
+                    frameShown.countDown();
+                }
+            }
+        });
+    }
+
+    /**
+     * Returns a sorted copy of the values, for {@link GVRFrameStats#percentile(float[], int)}.
+     */
+    static float[] sorted(float[] values)
+    {
+        float[] sorted = Arrays.copyOf(values, values.length);
+        Arrays.sort(sorted);
+        return sorted;
+    }
+}
@@ -0,0 +1,263 @@
+package org.gearvrf.tester;
+
+import android.support.test.rule.ActivityTestRule;
+import android.support.test.runner.AndroidJUnit4;
+
+import net.jodah.concurrentunit.Waiter;
+
+import org.gearvrf.GVRContext;
+import org.gearvrf.unittestutils.GVRFrameStats;
+import org.gearvrf.unittestutils.GVRTestUtils;
+import org.gearvrf.unittestutils.GVRTestableActivity;
+import org.gearvrf.utility.Log;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Load time benchmarks of the model corpus.
+ * <p>
+ * Every model is loaded {@link #ITERATIONS} times through GVRAssetLoader.loadModel
+ * after one load which is not counted. The IAssetEvents callbacks give the time
+ * until the model is loaded, until its last texture is loaded and until the
+ * whole asset is loaded, and a sampler thread the peak growth of the Java and
+ * the native heap during the load. The medians are written to
+ * /sdcard/GearVRFTests/performance/&lt;corpus&gt;Load.csv, one row per model, and
+ * the samples are added to the benchmark results so that the loads can be
+ * compared across releases.
+ * <p>
+ * The concurrent benchmarks load up to {@link #CONCURRENT_MODELS} models of the
+ * jassimp and the x3d corpus with 1, 2, 4, 8 and 16 loads in flight, the way an
+ * application streams in many models at once. Each level reports the models
+ * loaded per second, the latency of every load, and the time until the frame
+ * showing the first model to finish. The lowest level within
+ * {@link #SATURATION} of the best throughput is where more loads in flight stop
+ * paying off; it is marked in /sdcard/GearVRFTests/performance/&lt;corpus&gt;ConcurrentLoad.csv.
+ * <p>
+ * Copy the corpora to the device first ("adb push jassimp x3d /sdcard/", runtest
+ * does this) to load every model in them without the network. Without the copy
+ * a fixed list of models is loaded from github.
+ */
+@RunWith(AndroidJUnit4.class)
+public class AssetLoadPerfTests
+{
+    private static final String TAG = "PERFORMANCE";
+    private static final String CSV_HEADER = "model,loads,model_p50_ms,textures_p50_ms,total_p50_ms,total_p90_ms,"
+                                             + "peak_java_mb,peak_native_mb,textures,texture_errors";
+    private static final String CONCURRENT_CSV_HEADER = "concurrency,loads,errors,elapsed_ms,models_per_s,"
+                                                        + "p50_ms,p90_ms,p99_ms,max_ms,first_frame_ms,saturated";
+    private static final int ITERATIONS = 5;
+    private static final long LOAD_TIMEOUT = 120000;
+    private static final int[] CONCURRENCY = { 1, 2, 4, 8, 16 };
+    private static final int CONCURRENT_MODELS = 32;
+    /** more loads in flight improve the throughput by less than this fraction */
+    private static final double SATURATION = 0.05;
+
+    private static final String[] JASSIMP_MODELS = {
+        "astroboy/astro_boy.dae",
+        "animals/bear-obj.obj",
+        "animals/wolf-obj.obj",
+        "astronaut/Astronaut.fbx",
+        "bench/bench.dae",
+        "bmw/bmw.FBX",
+        "gltf/2CylinderEngine-glTF-Binary/2CylinderEngine.glb",
+        "gltf/BoomBox/BoomBox.gltf",
+        "gltf/BoxTextured-glTF-Embedded/BoxTextured.gltf",
+        "gltf/WaterBottle/WaterBottle.gltf",
+        "hippo/hippo.obj",
+        "rowboat/RowBoatAnimated.fbx",
+        "trees/trees9.3ds",
+        "trex/TRex_NoGround.fbx"
+    };
+
+    private static final String[] X3D_MODELS = {
+        "animation/animation04.x3d",
+        "general/opacitytest01.x3d",
+        "general/twoplaneswithchildren.x3d",
+        "generate_normals/teapotandtorusnonormals.x3d",
+        "lighting/pointlightmultilights.x3d"
+    };
+
+    private GVRTestUtils mTestUtils;
+    private Waiter mWaiter;
+
+    @Rule
+    public ActivityTestRule<GVRTestableActivity> ActivityRule = new ActivityTestRule<GVRTestableActivity>(GVRTestableActivity.class);
+
+    @Before
+    public void setUp() throws TimeoutException
+    {
+        mTestUtils = new GVRTestUtils(ActivityRule.getActivity());
+        mTestUtils.waitForOnInit();
+        mWaiter = new Waiter();
+    }
+
+    @After
+    public void tearDown()
+    {
+        AssetLoadBenchmark.releaseModels(mTestUtils);
+    }
+
+    @Test
+    public void jassimpLoadTimes() throws Exception
+    {
+        measureLoadTimes("jassimp", JASSIMP_MODELS);
+    }
+
+    @Test
+    public void jassimpConcurrentLoads() throws Exception
+    {
+        measureConcurrentLoads("jassimp", JASSIMP_MODELS);
+    }
+
+    @Test
+    public void x3dConcurrentLoads() throws Exception
+    {
+        measureConcurrentLoads("x3d", X3D_MODELS);
+    }
+
+    private void measureLoadTimes(String corpus, String[] fallback) throws Exception
+    {
+        GVRContext ctx = mTestUtils.getGvrContext();
+        List<String> models = AssetLoadBenchmark.findModels(corpus, fallback);
+        List<String> failed = new ArrayList<String>();
+        StringBuilder csv = new StringBuilder(CSV_HEADER).append('\n');
+
+        for (String path : models)
+        {
+            String name = AssetLoadBenchmark.getModelName(path, corpus);
+            float[] modelTimes = new float[ITERATIONS];
+            float[] textureTimes = new float[ITERATIONS];
+            float[] totalTimes = new float[ITERATIONS];
+            long peakJava = 0;
+            long peakNative = 0;
+            AssetLoadBenchmark.Sample sample = null;
+
+            try
+            {
+                for (int i = -1; i < ITERATIONS; ++i)
+                {
+                    AssetLoadBenchmark.releaseModels(mTestUtils);
+                    sample = AssetLoadBenchmark.load(ctx, path, LOAD_TIMEOUT);
+                    if (sample.modelErrors > 0)
+                    {
+                        throw new IOException(sample.errors);
+                    }
+                    if (i < 0)
+                    {
+                        // the first load warms up the JIT and the file system caches
+                        continue;
+                    }
+                    modelTimes[i] = sample.modelNanos / 1e6f;
+                    textureTimes[i] = sample.texturesNanos / 1e6f;
+                    totalTimes[i] = sample.totalNanos / 1e6f;
+                    peakJava = Math.max(peakJava, sample.peakJavaBytes);
+                    peakNative = Math.max(peakNative, sample.peakNativeBytes);
+                    Log.e(TAG, "%sLoad %s", corpus, sample.toString());
+                }
+            }
+            catch (IOException ex)
+            {
+                Log.e(TAG, "%sLoad cannot load %s: %s", corpus, path, ex.getMessage());
+                failed.add(name);
+                continue;
+            }
+            catch (TimeoutException ex)
+            {
+                Log.e(TAG, "%sLoad %s", corpus, ex.getMessage());
+                failed.add(name);
+                continue;
+            }
+
+            float[] sortedTotals = AssetLoadBenchmark.sorted(totalTimes);
+            csv.append(String.format(Locale.US, "%s,%d,%.1f,%.1f,%.1f,%.1f,%.2f,%.2f,%d,%d\n", name, ITERATIONS,
+                                     GVRFrameStats.percentile(AssetLoadBenchmark.sorted(modelTimes), 50),
+                                     GVRFrameStats.percentile(AssetLoadBenchmark.sorted(textureTimes), 50),
+                                     GVRFrameStats.percentile(sortedTotals, 50),
+                                     GVRFrameStats.percentile(sortedTotals, 90),
+                                     peakJava / 1048576.0, peakNative / 1048576.0,
+                                     sample.textures, sample.textureErrors));
+            String series = corpus + "Load." + name;
+            mTestUtils.reportPerf("AssetLoadPerfTests", series + ".model", "ms", true, modelTimes);
+            mTestUtils.reportPerf("AssetLoadPerfTests", series + ".textures", "ms", true, textureTimes);
+            mTestUtils.reportPerf("AssetLoadPerfTests", series + ".total", "ms", true, totalTimes);
+            mTestUtils.reportPerf("AssetLoadPerfTests", series + ".peakMemory", "MB", true,
+                                  new float[] { (peakJava + peakNative) / 1048576.0f });
+        }
+
+        mTestUtils.writePerfTable(corpus + "Load.csv", csv.toString());
+        Log.e(TAG, "%sLoad\n%s", corpus, csv.toString());
+        if (!failed.isEmpty())
+        {
+            mWaiter.fail("cannot load " + failed);
+        }
+    }
+
+    /**
+     * Loads the same models with 1 to 16 loads in flight and finds the number
+     * of loads in flight after which the throughput stops improving.
+     */
+    private void measureConcurrentLoads(String corpus, String[] fallback) throws Exception
+    {
+        List<String> models = AssetLoadBenchmark.pickModels(AssetLoadBenchmark.findModels(corpus, fallback),
+                                                            CONCURRENT_MODELS);
+        List<AssetLoadBenchmark.Round> rounds = new ArrayList<AssetLoadBenchmark.Round>();
+        double bestThroughput = 0;
+
+        // warms up the JIT, the loader threads and the file system caches
+        AssetLoadBenchmark.loadConcurrently(mTestUtils, models, CONCURRENCY[CONCURRENCY.length - 1],
+                                            LOAD_TIMEOUT);
+        for (int concurrency : CONCURRENCY)
+        {
+            AssetLoadBenchmark.releaseModels(mTestUtils);
+            AssetLoadBenchmark.Round round = AssetLoadBenchmark.loadConcurrently(mTestUtils, models, concurrency,
+                                                                                 LOAD_TIMEOUT);
+            Log.e(TAG, "%sConcurrentLoad %s", corpus, round.toString());
+            mWaiter.assertTrue(round.loads > 0);
+            rounds.add(round);
+            bestThroughput = Math.max(bestThroughput, round.getModelsPerSecond());
+        }
+
+        int saturation = CONCURRENCY[CONCURRENCY.length - 1];
+        for (AssetLoadBenchmark.Round round : rounds)
+        {
+            if (round.getModelsPerSecond() >= (1.0 - SATURATION) * bestThroughput)
+            {
+                saturation = round.concurrency;
+                break;
+            }
+        }
+
+        StringBuilder csv = new StringBuilder(CONCURRENT_CSV_HEADER).append('\n');
+        for (AssetLoadBenchmark.Round round : rounds)
+        {
+            float[] latencies = AssetLoadBenchmark.sorted(round.latencies);
+            csv.append(String.format(Locale.US, "%d,%d,%d,%.0f,%.3f,%.1f,%.1f,%.1f,%.1f,%.1f,%b\n",
+                                     round.concurrency, round.loads, round.errors, round.elapsedNanos / 1e6,
+                                     round.getModelsPerSecond(),
+                                     GVRFrameStats.percentile(latencies, 50),
+                                     GVRFrameStats.percentile(latencies, 90),
+                                     GVRFrameStats.percentile(latencies, 99),
+                                     GVRFrameStats.percentile(latencies, 100),
+                                     round.firstFrameNanos / 1e6, round.concurrency == saturation));
+            String series = corpus + "ConcurrentLoad." + round.concurrency;
+            mTestUtils.reportPerf("AssetLoadPerfTests", series + ".throughput", "models/s", false,
+                                  new float[] { (float) round.getModelsPerSecond() });
+            mTestUtils.reportPerf("AssetLoadPerfTests", series + ".latency", "ms", true, round.latencies);
+            mTestUtils.reportPerf("AssetLoadPerfTests", series + ".firstFrame", "ms", true,
+                                  new float[] { round.firstFrameNanos / 1e6f });
+        }
+
+        mTestUtils.writePerfTable(corpus + "ConcurrentLoad.csv", csv.toString());
+        Log.e(TAG, "%sConcurrentLoad %d models, throughput stops improving at %d loads in flight\n%s", corpus,
+              models.size(), saturation, csv.toString());
+    }
+}
@@ -0,0 +1,276 @@
+package org.gearvrf.tester;
+
+import android.support.test.rule.ActivityTestRule;
+import android.support.test.runner.AndroidJUnit4;
+
+import net.jodah.concurrentunit.Waiter;
+
+import org.gearvrf.GVRContext;
+import org.gearvrf.GVRRenderData;
+import org.gearvrf.GVRScene;
+import org.gearvrf.GVRSceneObject;
+import org.gearvrf.unittestutils.GVRFrameStats;
+import org.gearvrf.unittestutils.GVRSceneIndex;
+import org.gearvrf.unittestutils.GVRTestUtils;
+import org.gearvrf.unittestutils.GVRTestableActivity;
+import org.gearvrf.utility.Log;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Compares finding scene objects by name with {@link GVRSceneIndex} against
+ * {@link GVRScene#getSceneObjectByName(String)}, which walks the hierarchy.
+ * <p>
+ * Every model of the jassimp corpus with at least {@link #MIN_NODES} scene
+ * objects, and bmw and theater whatever their size, is loaded into an empty
+ * scene. For each one the test times building the index, a lookup of a random
+ * name of the model and a lookup of a name which is not in the scene, the worst
+ * case of the walk, both ways. Before timing it checks that the index finds the
+ * same object as the walk for every name of the model and indexes the same
+ * render data. The results are written to
+ * /sdcard/GearVRFTests/performance/sceneIndex.csv and added to the benchmark
+ * results.
+ * <p>
+ * Copy the corpus to the device first ("adb push jassimp /sdcard/", runtest
+ * does this). Without the copy a few large models are loaded from github.
+ */
+@RunWith(AndroidJUnit4.class)
+public class SceneIndexPerfTests
+{
+    private static final String TAG = "PERFORMANCE";
+    private static final String CSV_HEADER = "model,nodes,names,build_ms,linear_hit_us,index_hit_us,"
+                                             + "linear_miss_us,index_miss_us,speedup,mismatches";
+    private static final long LOAD_TIMEOUT = 120000;
+    private static final int MIN_NODES = 1000;
+    private static final int REPEATS = 5;
+    private static final int LOOKUPS = 1000;
+    private static final long SEED = 20161;
+    private static final String MISSING_NAME = "SceneIndexPerfTests.missing";
+    /** measured whatever their size */
+    private static final String[] NAMED_MODELS = { "bmw/", "theater/" };
+
+    private static final String[] JASSIMP_MODELS = {
+        "astronaut/Astronaut.fbx",
+        "bmw/bmw.FBX",
+        "trees/trees9.3ds",
+        "trex/TRex_NoGround.fbx"
+    };
+
+    private GVRTestUtils mTestUtils;
+    private Waiter mWaiter;
+    private GVRScene mScene;
+
+    @Rule
+    public ActivityTestRule<GVRTestableActivity> ActivityRule = new ActivityTestRule<GVRTestableActivity>(GVRTestableActivity.class);
+
+    @Before
+    public void setUp() throws TimeoutException
+    {
+        mTestUtils = new GVRTestUtils(ActivityRule.getActivity());
+        mTestUtils.waitForOnInit();
+        mWaiter = new Waiter();
+        mScene = mTestUtils.getMainScene();
+        mWaiter.assertNotNull(mScene);
+    }
+
+    @After
+    public void tearDown()
+    {
+        GVRScene scene = mTestUtils.getMainScene();
+        if (scene != null)
+        {
+            scene.getRoot().detachComponent(GVRSceneIndex.getComponentType());
+            scene.clear();
+        }
+        AssetLoadBenchmark.releaseModels(mTestUtils);
+    }
+
+    private static List<GVRSceneObject> collectObjects(GVRSceneObject root)
+    {
+        List<GVRSceneObject> objects = new ArrayList<GVRSceneObject>();
+        Deque<GVRSceneObject> stack = new ArrayDeque<GVRSceneObject>();
+
+        stack.push(root);
+        while (!stack.isEmpty())
+        {
+            GVRSceneObject obj = stack.pop();
+            objects.add(obj);
+            for (int i = 0; i < obj.getChildrenCount(); ++i)
+            {
+                stack.push(obj.getChildByIndex(i));
+            }
+        }
+        return objects;
+    }
+
+    private static boolean isNamedModel(String path)
+    {
+        for (String name : NAMED_MODELS)
+        {
+            if (path.contains(name))
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /*
+     * Times "lookups" lookups of the names, each repeat in microseconds per lookup.
+     */
+    private float[] timeLookups(GVRSceneIndex index, String[] names)
+    {
+        float[] times = new float[REPEATS];
+
+        for (int r = 0; r < REPEATS; ++r)
+        {
+            long start = System.nanoTime();
+            for (String name : names)
+            {
+                if (index != null)
+                {
+                    index.getSceneObjectByName(name);
+                }
+                else
+                {
+                    mScene.getSceneObjectByName(name);
+                }
+            }
+            times[r] = (System.nanoTime() - start) / 1000.0f / names.length;
+        }
+        return times;
+    }
+
+    @Test
+    public void jassimpNameLookups() throws Exception
+    {
+        GVRContext ctx = mTestUtils.getGvrContext();
+        List<String> models = AssetLoadBenchmark.findModels("jassimp", JASSIMP_MODELS);
+        StringBuilder csv = new StringBuilder(CSV_HEADER).append('\n');
+        long renderData = GVRRenderData.getComponentType();
+        int measured = 0;
+        int mismatches = 0;
+
+        for (String path : models)
+        {
+            String name = AssetLoadBenchmark.getModelName(path, "jassimp");
+            AssetLoadBenchmark.Timing timing;
+
+            mScene.clear();
+            AssetLoadBenchmark.releaseModels(mTestUtils);
+            try
+            {
+                timing = AssetLoadBenchmark.startLoad(ctx, path);
+                AssetLoadBenchmark.waitForLoad(timing, LOAD_TIMEOUT);
+            }
+            catch (IOException ex)
+            {
+                Log.e(TAG, "sceneIndex cannot load %s: %s", path, ex.getMessage());
+                continue;
+            }
+            catch (TimeoutException ex)
+            {
+                Log.e(TAG, "sceneIndex %s", ex.getMessage());
+                continue;
+            }
+            if (timing.model == null)
+            {
+                continue;
+            }
+            List<GVRSceneObject> objects = collectObjects(timing.model);
+            if ((objects.size() < MIN_NODES) && !isNamedModel(path))
+            {
+                continue;
+            }
+            mScene.addSceneObject(timing.model);
+            mTestUtils.waitForXFrames(2);
+
+            long start = System.nanoTime();
+            GVRSceneIndex index = new GVRSceneIndex(ctx, renderData);
+            mScene.getRoot().attachComponent(index);
+            float buildMillis = (System.nanoTime() - start) / 1e6f;
+
+            Set<String> distinct = new LinkedHashSet<String>();
+            for (GVRSceneObject obj : objects)
+            {
+                String objName = obj.getName();
+                if ((objName != null) && !objName.isEmpty())
+                {
+                    distinct.add(objName);
+                }
+            }
+            int modelMismatches = 0;
+            for (String objName : distinct)
+            {
+                if (index.getSceneObjectByName(objName) != mScene.getSceneObjectByName(objName))
+                {
+                    Log.e(TAG, "sceneIndex %s finds another %s than the scene", name, objName);
+                    ++modelMismatches;
+                }
+            }
+            if (index.getSceneObjectsWith(renderData).size()
+                != mScene.getRoot().getAllComponents(renderData).size())
+            {
+                Log.e(TAG, "sceneIndex %s indexes other render data than the scene has", name);
+                ++modelMismatches;
+            }
+            mismatches += modelMismatches;
+
+            if (distinct.isEmpty())
+            {
+                distinct.add(timing.model.getName());
+            }
+            Random rnd = new Random(SEED);
+            String[] nameList = distinct.toArray(new String[distinct.size()]);
+            String[] hits = new String[LOOKUPS];
+            String[] misses = new String[LOOKUPS];
+            for (int i = 0; i < LOOKUPS; ++i)
+            {
+                hits[i] = nameList[rnd.nextInt(nameList.length)];
+                misses[i] = MISSING_NAME;
+            }
+            // the first round warms up the JIT for both lookups
+            timeLookups(null, hits);
+            timeLookups(index, hits);
+            float[] linearHits = timeLookups(null, hits);
+            float[] indexHits = timeLookups(index, hits);
+            float[] linearMisses = timeLookups(null, misses);
+            float[] indexMisses = timeLookups(index, misses);
+            float indexHit = GVRFrameStats.percentile(AssetLoadBenchmark.sorted(indexHits), 50);
+            float linearHit = GVRFrameStats.percentile(AssetLoadBenchmark.sorted(linearHits), 50);
+
+            csv.append(String.format(Locale.US, "%s,%d,%d,%.2f,%.3f,%.3f,%.3f,%.3f,%.1f,%d\n", name,
+                                     objects.size(), distinct.size(), buildMillis, linearHit, indexHit,
+                                     GVRFrameStats.percentile(AssetLoadBenchmark.sorted(linearMisses), 50),
+                                     GVRFrameStats.percentile(AssetLoadBenchmark.sorted(indexMisses), 50),
+                                     (indexHit > 0) ? linearHit / indexHit : 0.0f, modelMismatches));
+            String series = "sceneIndex." + name;
+            mTestUtils.reportPerf("SceneIndexPerfTests", series + ".build", "ms", true, new float[] { buildMillis });
+            mTestUtils.reportPerf("SceneIndexPerfTests", series + ".linearHit", "us", true, linearHits);
+            mTestUtils.reportPerf("SceneIndexPerfTests", series + ".indexHit", "us", true, indexHits);
+            mTestUtils.reportPerf("SceneIndexPerfTests", series + ".linearMiss", "us", true, linearMisses);
+            mTestUtils.reportPerf("SceneIndexPerfTests", series + ".indexMiss", "us", true, indexMisses);
+            mScene.getRoot().detachComponent(GVRSceneIndex.getComponentType());
+            ++measured;
+        }
+
+        mTestUtils.writePerfTable("sceneIndex.csv", csv.toString());
+        Log.e(TAG, "sceneIndex\n%s", csv.toString());
+        mWaiter.assertTrue(measured > 0);
+        mWaiter.assertEquals(0, mismatches);
+    }
+}
@@ -0,0 +1,89 @@
+package org.gearvrf.io;
+
+import android.view.MotionEvent;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded single producer, single consumer queue of motion events.
+ * <p>
+ * The producer and the consumer each publish their position once per batch
+ * with an ordered store, and each keeps a cached copy of the other's position
+ * so the shared counters are only read when the cached one says the ring is
+ * full or empty. Nothing is allocated after construction.
+ */
+final class MotionEventRing {
+
+    interface Consumer {
+        void accept(MotionEvent event);
+    }
+
+    private final MotionEvent[] mBuffer;
+    private final int mMask;
+    private final AtomicLong mHead = new AtomicLong();
+    private final AtomicLong mTail = new AtomicLong();
+    // producer only
+    private long mCachedHead = 0;
+    // consumer only
+    private long mCachedTail = 0;
+
+    /**
+     * @param capacity rounded up to a power of two.
+     */
+    MotionEventRing(int capacity) {
+        int size = Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1;
+        mBuffer = new MotionEvent[size];
+        mMask = size - 1;
+    }
+
+    int capacity() {
+        return mBuffer.length;
+    }
+
+    /**
+     * Adds events from the batch starting at index from, as many as fit.
+     * Producer thread only.
+     * @return the number of events added.
+     */
+    int offer(List<MotionEvent> batch, int from) {
+        final long tail = mTail.get();
+        int count = batch.size() - from;
+
+        if (tail + count - mCachedHead > mBuffer.length) {
+            mCachedHead = mHead.get();
+            count = Math.min(count, (int) (mBuffer.length - (tail - mCachedHead)));
+            if (count <= 0) {
+                return 0;
+            }
+        }
+        for (int i = 0; i < count; ++i) {
+            mBuffer[(int) (tail + i) & mMask] = batch.get(from + i);
+        }
+        mTail.lazySet(tail + count);
+        return count;
+    }
+
+    /**
+     * Hands every event queued so far to the consumer. Consumer thread only.
+     * @return the number of events consumed.
+     */
+    int drain(Consumer consumer) {
+        final long head = mHead.get();
+
+        if (head == mCachedTail) {
+            mCachedTail = mTail.get();
+            if (head == mCachedTail) {
+                return 0;
+            }
+        }
+        final int count = (int) (mCachedTail - head);
+        for (int i = 0; i < count; ++i) {
+            final int index = (int) (head + i) & mMask;
+            consumer.accept(mBuffer[index]);
+            mBuffer[index] = null;
+        }
+        mHead.lazySet(head + count);
+        return count;
+    }
+}
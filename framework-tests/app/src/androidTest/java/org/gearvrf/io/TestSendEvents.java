@@ -7,14 +7,114 @@ import android.view.MotionEvent;
 
 import org.gearvrf.GVRContext;
 import org.gearvrf.io.GVRCursorController;
+import org.gearvrf.unittestutils.GVRFrameStats;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Locale;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
 
 public class TestSendEvents {
 
-    volatile boolean doneProducing = false;
+    /** how long a run may take before it is given up */
+    private static final long TIMEOUT_SECONDS = 60;
+    /** empty polls the idle consumer or blocked producer spins before yielding */
+    private static final int SPINS = 100;
+    /** empty polls before parking */
+    private static final int YIELDS = 100;
+    private static final long PARK_NANOS = 20000;
+
+    public enum Transport {
+        /** GVRGearCursorController.SendEvents, as used by the controller */
+        SEND_EVENTS,
+        /** batched single producer, single consumer ring */
+        RING
+    }
+
+    /**
+     * Outcome of one run of the producer and consumer.
+     */
+    public static final class Result {
+        public final Transport transport;
+        public final int events;
+        public final int innerLoops;
+        /** from the first enqueue to the last dispatch */
+        public final long elapsedNanos;
+        /** enqueue to dispatch, sorted */
+        public final long[] latencyNanos;
+        /** true if every event was dispatched once, in the order it was produced */
+        public final boolean ordered;
+
+        Result(Transport transport, int events, int innerLoops, long elapsedNanos,
+               long[] latencyNanos, boolean ordered) {
+            this.transport = transport;
+            this.events = events;
+            this.innerLoops = innerLoops;
+            this.elapsedNanos = elapsedNanos;
+            this.latencyNanos = latencyNanos;
+            this.ordered = ordered;
+        }
+
+        public double getEventsPerSecond() {
+            return (elapsedNanos > 0) ? events * 1e9 / elapsedNanos : 0;
+        }
+
+        /**
+         * @param percentile 0 to 100.
+         * @return the latency in microseconds.
+         */
+        public float getLatencyPercentile(int percentile) {
+            return GVRFrameStats.percentile(latencyNanos, percentile) / 1000.0f;
+        }
+
+        /**
+         * @return the latencies in microseconds.
+         */
+        public float[] getLatencies() {
+            float[] latencies = new float[latencyNanos.length];
+            for (int i = 0; i < latencies.length; ++i) {
+                latencies[i] = latencyNanos[i] / 1000.0f;
+            }
+            return latencies;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US, "%s %d events in batches of %d: %.0f events/s, latency p50 %.1f us,"
+                                 + " p90 %.1f us, p99 %.1f us, max %.1f us%s",
+                                 transport, events, innerLoops, getEventsPerSecond(),
+                                 getLatencyPercentile(50), getLatencyPercentile(90),
+                                 getLatencyPercentile(99), getLatencyPercentile(100),
+                                 ordered ? "" : ", OUT OF ORDER");
+        }
+    }
+
+    /*
+     * Where the consumer puts the events. Event i has down time i + 1.
+     */
+    private static final class Recorder implements MotionEventRing.Consumer {
+        final long[] recorder;
+        final long[] dispatchNanos;
+        final AtomicInteger count = new AtomicInteger();
+        int index;
+
+        Recorder(int events) {
+            recorder = new long[events];
+            dispatchNanos = new long[events];
+        }
+
+        @Override
+        public void accept(MotionEvent event) {
+            if (index < recorder.length) {
+                recorder[index] = event.getDownTime();
+                dispatchNanos[index] = System.nanoTime();
+            }
+            count.lazySet(++index);
+        }
+    }
 
     /**
      * Tests thread-safety of producer and consumer side. Verifies the
@@ -26,81 +126,182 @@ public class TestSendEvents {
         final int outerLoops = 100;
         final int innerLoops = 10;
 
-        // store the consumed events here; need for results verification
-        Looper.prepare();
-        final long[] recorder = new long[outerLoops*innerLoops];
-        Arrays.fill(recorder, 0);
+        Result result = run(context, Transport.SEND_EVENTS, outerLoops, innerLoops);
+        return (result != null) && result.ordered;
+    }
+
+    /**
+     * Produces outerLoops batches of innerLoops motion events on one thread and
+     * consumes them on another through the given transport, timing each event
+     * from the moment its batch is enqueued to its dispatch. The events are made
+     * before the clock starts so only the hand-off is measured. An idle consumer
+     * and a producer facing a full ring back off from spinning to yielding to
+     * parking, so neither burns a core while waiting.
+     * @return the result, or null if the run timed out or was interrupted.
+     */
+    public Result run(final GVRContext context, Transport transport, final int outerLoops,
+                      final int innerLoops) {
+        final int events = outerLoops * innerLoops;
+        final Recorder recorder = new Recorder(events);
+        final long[] enqueueNanos = new long[events];
 
         // set up the test environment
+        final boolean prepared = (Looper.myLooper() == null);
+        if (prepared) {
+            Looper.prepare();
+        }
         final Activity dummyActivity = new Activity() {
             @Override
             public boolean dispatchKeyEvent(KeyEvent event) {
                 return true;
             }
 
-            int index;
             @Override
             public boolean dispatchTouchEvent(MotionEvent ev) {
-                recorder[index++] = ev.getDownTime();
+                recorder.accept(ev);
                 return true;
             }
         };
-        Looper.myLooper().quit();
-
-        final GVRGearCursorController.SendEvents sendEvents = new GVRGearCursorController.SendEvents(context);
-
-        final Runnable producer = new Runnable() {
-            @Override
-            public void run() {
-                int i = 0;
+        if (prepared) {
+            Looper.myLooper().quit();
+        }
 
-                final ArrayList<KeyEvent> keyEvents = new ArrayList<>();
-                final ArrayList<MotionEvent> motionEvents = new ArrayList<>();
+        final ArrayList<ArrayList<MotionEvent>> batches = new ArrayList<>(outerLoops);
+        int i = 0;
+        for (int j = 0; j < outerLoops; ++j) {
+            final ArrayList<MotionEvent> batch = new ArrayList<>(innerLoops);
+            for (int k = 0; k < innerLoops; ++k) {
+                batch.add(MotionEvent.obtain(++i, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0));
+            }
+            batches.add(batch);
+        }
 
-                for (int j = 0; j < outerLoops; ++j) {
-                    motionEvents.clear();
+        final Runnable producer;
+        final Runnable consumer;
+        if (transport == Transport.SEND_EVENTS) {
+            final GVRGearCursorController.SendEvents sendEvents = new GVRGearCursorController.SendEvents(context);
+            final ArrayList<KeyEvent> keyEvents = new ArrayList<>();
 
-                    for (int k = 0; k < innerLoops; ++k) {
-                        final MotionEvent event = MotionEvent.obtain(++i, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0);
-                        motionEvents.add(event);
+            producer = new Runnable() {
+                @Override
+                public void run() {
+                    for (int j = 0; j < outerLoops; ++j) {
+                        stamp(enqueueNanos, j * innerLoops, innerLoops);
+                        // produce
+                        sendEvents.init(keyEvents, batches.get(j));
                     }
-                    // produce
-                    sendEvents.init(keyEvents, motionEvents);
                 }
+            };
+            consumer = new Runnable() {
+                @Override
+                public void run() {
+                    int idle = 0;
+                    while (recorder.count.get() < events && !Thread.interrupted()) {
+                        final int before = recorder.count.get();
+                        // consume
+                        sendEvents.run();
+                        idle = (recorder.count.get() == before) ? backOff(idle) : 0;
+                    }
+                }
+            };
+        } else {
+            final MotionEventRing ring = new MotionEventRing(Math.max(1024, 4 * innerLoops));
+            // like SendEvents, hand every event to the activity so both transports do the same work
+            final MotionEventRing.Consumer dispatcher = new MotionEventRing.Consumer() {
+                @Override
+                public void accept(MotionEvent event) {
+                    dummyActivity.dispatchTouchEvent(event);
+                }
+            };
 
-                doneProducing = true;
-            }
-        };
+            producer = new Runnable() {
+                @Override
+                public void run() {
+                    for (int j = 0; j < outerLoops; ++j) {
+                        final ArrayList<MotionEvent> batch = batches.get(j);
+                        stamp(enqueueNanos, j * innerLoops, innerLoops);
+                        int offered = 0;
+                        int idle = 0;
+                        while (offered < batch.size()) {
+                            if (Thread.interrupted()) {
+                                return;
+                            }
+                            final int n = ring.offer(batch, offered);
+                            offered += n;
+                            idle = (n == 0) ? backOff(idle) : 0;
+                        }
+                    }
+                }
+            };
+            consumer = new Runnable() {
+                @Override
+                public void run() {
+                    int idle = 0;
+                    while (recorder.count.get() < events && !Thread.interrupted()) {
+                        idle = (ring.drain(dispatcher) == 0) ? backOff(idle) : 0;
+                    }
+                }
+            };
+        }
 
         final CountDownLatch done = new CountDownLatch(1);
-        final Runnable consumer = new Runnable() {
+        final Thread consumerThread = new Thread(new Runnable() {
             @Override
             public void run() {
-                while (!doneProducing) {
-                    // consume
-                    sendEvents.run();
-                }
+                consumer.run();
                 done.countDown();
             }
-        };
-
-        new Thread(consumer).start();
-        new Thread(producer).start();
+        });
+        final Thread producerThread = new Thread(producer);
+        consumerThread.start();
+        producerThread.start();
 
         try {
-            done.await();
+            if (!done.await(TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                consumerThread.interrupt();
+                producerThread.interrupt();
+                return null;
+            }
+            producerThread.join();
         } catch (InterruptedException e) {
-            return false;
+            return null;
         }
 
         // verification
-        int i = 0;
-        for (long el : recorder) {
+        boolean ordered = (recorder.count.get() == events);
+        i = 0;
+        for (long el : recorder.recorder) {
             if (el != ++i) {
-                return false;
+                ordered = false;
+                break;
             }
         }
 
-        return true;
+        final long[] latencies = new long[events];
+        for (int k = 0; k < events; ++k) {
+            latencies[k] = recorder.dispatchNanos[k] - enqueueNanos[k];
+        }
+        Arrays.sort(latencies);
+        final long elapsed = (events > 0) ? recorder.dispatchNanos[events - 1] - enqueueNanos[0] : 0;
+        return new Result(transport, events, innerLoops, elapsed, latencies, ordered);
+    }
+
+    private static void stamp(long[] enqueueNanos, int first, int count) {
+        Arrays.fill(enqueueNanos, first, first + count, System.nanoTime());
+    }
+
+    /*
+     * Waits a little longer the longer there has been nothing to do.
+     * @return the new idle count.
+     */
+    private static int backOff(int idle) {
+        if (idle < SPINS) {
+            // spin
+        } else if (idle < SPINS + YIELDS) {
+            Thread.yield();
+        } else {
+            LockSupport.parkNanos(PARK_NANOS);
+        }
+        return idle + 1;
     }
 }
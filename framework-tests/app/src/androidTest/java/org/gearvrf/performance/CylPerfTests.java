@@ -24,6 +24,7 @@ import org.gearvrf.GVRTextureParameters;
 import org.gearvrf.IAssetEvents;
 import org.gearvrf.scene_objects.GVRCylinderSceneObject;
 import org.gearvrf.tester.R;
+import org.gearvrf.unittestutils.GVRFrameStats;
 import org.gearvrf.unittestutils.GVRTestUtils;
 import org.gearvrf.unittestutils.GVRTestableActivity;
 import org.gearvrf.utility.Log;
@@ -55,6 +56,7 @@ public class CylPerfTests
     private GVRImage mBitmapImage = null;
     private GVRImage mCompressedImage = null;
     private GVRImage mCubemapImage = null;
+    private static final int WARMUP_FRAMES = 30;
 
     @Rule
     public ActivityTestRule<GVRTestableActivity> ActivityRule = new ActivityTestRule<GVRTestableActivity>(GVRTestableActivity.class);
@@ -84,13 +86,19 @@ public class CylPerfTests
         int nframes = (Integer) params.get("frames");
         float expectedFPS = (Float) params.get("fps");
         setup.createTestScene(ctx, params);
-        mTestUtils.waitForXFrames(2);
-        long startTime = System.currentTimeMillis();
-        mTestUtils.waitForXFrames(nframes);
-        long endTime = System.currentTimeMillis();
-        float fps =  (1000.0f * nframes) / ((float) (endTime - startTime));
-        Log.e("PERFORMANCE", testName + " FPS = %f, expected %f", fps, expectedFPS);
-        mWaiter.assertTrue(fps >= expectedFPS);
+        GVRFrameStats stats = mTestUtils.measureFrames(WARMUP_FRAMES, nframes);
+        Log.e("PERFORMANCE", testName + " FPS = %f, expected %f", stats.getFps(), expectedFPS);
+        Log.e("PERFORMANCE", testName + " " + stats.toString());
+        mTestUtils.reportPerf("CylPerfTests", testName, stats);
+        mWaiter.assertTrue(stats.getFps() >= expectedFPS);
+        if (params.containsKey("p99"))
+        {
+            mWaiter.assertTrue(stats.getP99() <= (Float) params.get("p99"));
+        }
+        if (params.containsKey("dropped"))
+        {
+            mWaiter.assertTrue(stats.getDroppedFrames() <= (Integer) params.get("dropped"));
+        }
     }
 
     @Test
@@ -0,0 +1,254 @@
+package org.gearvrf.performance;
+
+import org.gearvrf.GVRRenderData;
+import org.gearvrf.tester.R;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Describes a parameter sweep over the scenes made by
+ * {@link RenderSetup#createTestScene}.
+ * <p>
+ * Each axis holds a list of values and the sweep visits the cartesian product of
+ * all axes, grid size varying fastest so the points of one configuration are
+ * measured one after the other:
+ * <pre>
+ *     PerfSweep sweep = new PerfSweep("quadScaling")
+ *         .geometry(PerfSweep.Geometry.QUAD)
+ *         .sharing(PerfSweep.Sharing.ALL, PerfSweep.Sharing.NONE)
+ *         .texture(PerfSweep.Texture.BITMAP)
+ *         .grid(5, 10, 20, 40)
+ *         .lighting(PerfSweep.Lighting.OFF)
+ *         .frames(300);
+ *     for (PerfSweep.Point p : sweep.getPoints()) ...
+ * </pre>
+ */
+public class PerfSweep
+{
+    public enum Geometry
+    {
+        QUAD("quadgeometry"),
+        CYLINDER("cylindergeometry");
+
+        final String mParam;
+
+        Geometry(String param) { mParam = param; }
+    }
+
+    public enum Sharing
+    {
+        NONE(false, false),
+        GEOMETRY(true, false),
+        MATERIAL(false, true),
+        ALL(true, true);
+
+        final boolean mShareGeometry;
+        final boolean mShareMaterial;
+
+        Sharing(boolean geometry, boolean material)
+        {
+            mShareGeometry = geometry;
+            mShareMaterial = material;
+        }
+    }
+
+    public enum Texture
+    {
+        NONE(null, 0),
+        BITMAP("bitmap", R.drawable.checker),
+        COMPRESSED("compressedbitmap", R.raw.sunmap),
+        CUBEMAP("cubemap", R.raw.beach);
+
+        final String mParam;
+        final int mResource;
+
+        Texture(String param, int resource)
+        {
+            mParam = param;
+            mResource = resource;
+        }
+    }
+
+    public enum Lighting
+    {
+        OFF(null),
+        DIRECT("directlight"),
+        POINT("pointlight"),
+        SPOT("spotlight");
+
+        final String mParam;
+
+        Lighting(String param) { mParam = param; }
+    }
+
+    private final String mName;
+    private List<Geometry> mGeometry = Arrays.asList(Geometry.QUAD);
+    private List<Sharing> mSharing = Arrays.asList(Sharing.ALL);
+    private List<Texture> mTexture = Arrays.asList(Texture.NONE);
+    private List<Integer> mGrid = Arrays.asList(15);
+    private List<Lighting> mLighting = Arrays.asList(Lighting.OFF);
+    private int mFrames = 300;
+
+    public PerfSweep(String name)
+    {
+        mName = name;
+    }
+
+    public String getName() { return mName; }
+
+    public int getFrames() { return mFrames; }
+
+    public PerfSweep geometry(Geometry... values)
+    {
+        mGeometry = Arrays.asList(values);
+        return this;
+    }
+
+    public PerfSweep sharing(Sharing... values)
+    {
+        mSharing = Arrays.asList(values);
+        return this;
+    }
+
+    public PerfSweep texture(Texture... values)
+    {
+        mTexture = Arrays.asList(values);
+        return this;
+    }
+
+    /**
+     * Sets the grid sizes, each point has size x size objects.
+     */
+    public PerfSweep grid(Integer... sizes)
+    {
+        mGrid = Arrays.asList(sizes);
+        return this;
+    }
+
+    public PerfSweep lighting(Lighting... values)
+    {
+        mLighting = Arrays.asList(values);
+        return this;
+    }
+
+    /**
+     * Sets the number of frames measured at every point.
+     */
+    public PerfSweep frames(int frames)
+    {
+        mFrames = frames;
+        return this;
+    }
+
+    /**
+     * Returns all points of the sweep, grid size varying fastest.
+     */
+    public List<Point> getPoints()
+    {
+        List<Point> points = new ArrayList<Point>();
+
+        for (Geometry geometry : mGeometry)
+        {
+            for (Sharing sharing : mSharing)
+            {
+                for (Texture texture : mTexture)
+                {
+                    for (Lighting lighting : mLighting)
+                    {
+                        for (Integer size : mGrid)
+                        {
+                            points.add(new Point(geometry, sharing, texture, lighting, size, mFrames));
+                        }
+                    }
+                }
+            }
+        }
+        return points;
+    }
+
+    /**
+     * One scene configuration of a sweep.
+     */
+    public static class Point
+    {
+        public final Geometry geometry;
+        public final Sharing sharing;
+        public final Texture texture;
+        public final Lighting lighting;
+        public final int size;
+        public final int frames;
+
+        Point(Geometry geometry, Sharing sharing, Texture texture, Lighting lighting, int size, int frames)
+        {
+            this.geometry = geometry;
+            this.sharing = sharing;
+            this.texture = texture;
+            this.lighting = lighting;
+            this.size = size;
+            this.frames = frames;
+        }
+
+        /**
+         * Number of objects in the grid, each one is a separate draw call.
+         */
+        public int getObjectCount()
+        {
+            return size * size;
+        }
+
+        /**
+         * Identifies the configuration without the grid size, points with the same
+         * series only differ in the number of objects.
+         */
+        public String getSeries()
+        {
+            return geometry.name().toLowerCase(Locale.US) + "_"
+                   + sharing.name().toLowerCase(Locale.US) + "_"
+                   + texture.name().toLowerCase(Locale.US) + "_"
+                   + lighting.name().toLowerCase(Locale.US);
+        }
+
+        public String getName()
+        {
+            return getSeries() + "_" + size + "x" + size;
+        }
+
+        /**
+         * Returns the parameters for {@link RenderSetup#createTestScene}.
+         */
+        public Map<String, Object> getParams()
+        {
+            Map<String, Object> params = new HashMap<String, Object>();
+
+            params.put(geometry.mParam, 1);
+            if (sharing.mShareGeometry)
+            {
+                params.put("share_geometry", 1);
+            }
+            if (sharing.mShareMaterial)
+            {
+                params.put("share_material", 1);
+            }
+            if (texture.mParam != null)
+            {
+                params.put(texture.mParam, texture.mResource);
+            }
+            if (lighting.mParam != null)
+            {
+                params.put("enablelight", 1);
+                params.put("castshadows", 0);
+                params.put(lighting.mParam, 1);
+            }
+            params.put("rows", size);
+            params.put("columns", size);
+            params.put("frames", frames);
+            params.put("renderingorder", (int) GVRRenderData.GVRRenderingOrder.GEOMETRY);
+            return params;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package org.gearvrf.performance;
+
+import org.gearvrf.unittestutils.GVRFrameStats;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Collects the measurements of a {@link PerfSweep} into one table with a row per
+ * point. The table is written as CSV with a header line so it can be loaded by a
+ * spreadsheet or a script.
+ */
+public class PerfSweepResults
+{
+    public static final String HEADER = "sweep,series,geometry,sharing,texture,lighting,rows,columns,"
+            + "objects,frames,fps,mean_ms,p50_ms,p90_ms,p99_ms,max_ms,slow,dropped,budget_ms";
+
+    private final String mSweepName;
+    private final List<PerfSweep.Point> mPoints = new ArrayList<PerfSweep.Point>();
+    private final List<GVRFrameStats> mStats = new ArrayList<GVRFrameStats>();
+
+    public PerfSweepResults(String sweepName)
+    {
+        mSweepName = sweepName;
+    }
+
+    public void add(PerfSweep.Point point, GVRFrameStats stats)
+    {
+        mPoints.add(point);
+        mStats.add(stats);
+    }
+
+    public int size()
+    {
+        return mPoints.size();
+    }
+
+    /**
+     * Returns one CSV line for a measurement, without the line terminator.
+     */
+    public String getRow(int index)
+    {
+        PerfSweep.Point p = mPoints.get(index);
+        GVRFrameStats s = mStats.get(index);
+
+        return String.format(Locale.US, "%s,%s,%s,%s,%s,%s,%d,%d,%d,%d,%.2f,%.3f,%.3f,%.3f,%.3f,%.3f,%d,%d,%.3f",
+                             mSweepName, p.getSeries(), p.geometry.name().toLowerCase(Locale.US),
+                             p.sharing.name().toLowerCase(Locale.US), p.texture.name().toLowerCase(Locale.US),
+                             p.lighting.name().toLowerCase(Locale.US), p.size, p.size, p.getObjectCount(),
+                             s.getFrameCount(), s.getFps(), s.getMean(), s.getP50(), s.getP90(),
+                             s.getP99(), s.getMax(), s.getSlowFrames(), s.getDroppedFrames(),
+                             s.getFrameBudget());
+    }
+
+    /**
+     * Finds the scaling knee of every series: the smallest grid whose frames no longer
+     * fit the budget, i.e. the median frame time exceeds the frame budget. A few
+     * dropped frames do not make a knee, they are in the table. Series which stay
+     * within budget over the whole sweep are not listed.
+     * @return object count at the knee keyed by series name.
+     */
+    public Map<String, Integer> findKnees()
+    {
+        Map<String, Integer> knees = new LinkedHashMap<String, Integer>();
+
+        for (int i = 0; i < mPoints.size(); ++i)
+        {
+            PerfSweep.Point p = mPoints.get(i);
+            GVRFrameStats s = mStats.get(i);
+            boolean overBudget = s.getP50() > s.getFrameBudget();
+            Integer knee = knees.get(p.getSeries());
+
+            if (overBudget && ((knee == null) || (p.getObjectCount() < knee)))
+            {
+                knees.put(p.getSeries(), p.getObjectCount());
+            }
+        }
+        return knees;
+    }
+
+    /**
+     * Returns the header and a row for every point, one per line.
+     */
+    public String toCsv()
+    {
+        StringBuilder csv = new StringBuilder(HEADER).append('\n');
+        for (int i = 0; i < mPoints.size(); ++i)
+        {
+            csv.append(getRow(i)).append('\n');
+        }
+        return csv.toString();
+    }
+}
@@ -0,0 +1,124 @@
+package org.gearvrf.performance;
+
+import android.support.test.rule.ActivityTestRule;
+import android.support.test.runner.AndroidJUnit4;
+
+import net.jodah.concurrentunit.Waiter;
+
+import org.gearvrf.GVRContext;
+import org.gearvrf.GVRScene;
+import org.gearvrf.unittestutils.GVRFrameStats;
+import org.gearvrf.unittestutils.GVRTestUtils;
+import org.gearvrf.unittestutils.GVRTestableActivity;
+import org.gearvrf.utility.Log;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Runs {@link PerfSweep} parameter sweeps and writes one results table per sweep to
+ * /sdcard/GearVRFTests/performance/$sweep$.csv. These tests do not check a minimum
+ * frame rate, they measure where the frame rate starts to drop as the number of
+ * objects grows.
+ */
+@RunWith(AndroidJUnit4.class)
+public class PerfSweepTests
+{
+    private static final String TAG = "PERFORMANCE";
+    private static final int WARMUP_FRAMES = 30;
+    private GVRTestUtils mTestUtils;
+    private Waiter mWaiter;
+    private GVRScene mScene;
+
+    @Rule
+    public ActivityTestRule<GVRTestableActivity> ActivityRule = new ActivityTestRule<GVRTestableActivity>(GVRTestableActivity.class);
+
+    @After
+    public void tearDown() {
+        GVRScene scene = mTestUtils.getMainScene();
+        if (scene != null) {
+            scene.clear();
+        }
+    }
+
+    @Before
+    public void setUp() throws TimeoutException {
+        GVRTestableActivity activity = ActivityRule.getActivity();
+        mTestUtils = new GVRTestUtils(activity);
+        mTestUtils.waitForOnInit();
+        mWaiter = new Waiter();
+
+        mScene = mTestUtils.getMainScene();
+        mWaiter.assertNotNull(mScene);
+    }
+
+    private PerfSweepResults runSweep(PerfSweep sweep) throws IOException
+    {
+        GVRContext ctx = mTestUtils.getGvrContext();
+        // one setup for the whole sweep so the textures are loaded only once
+        RenderSetup setup = new RenderSetup(mWaiter, mTestUtils);
+        PerfSweepResults results = new PerfSweepResults(sweep.getName());
+
+        for (PerfSweep.Point point : sweep.getPoints())
+        {
+            Map<String, Object> params = point.getParams();
+
+            mScene.clear();
+            setup.createTestScene(ctx, params);
+            GVRFrameStats stats = mTestUtils.measureFrames(WARMUP_FRAMES, point.frames);
+            results.add(point, stats);
+            mTestUtils.reportPerf(sweep.getName(), point.getName(), stats);
+            Log.e(TAG, "%s %s", sweep.getName(), results.getRow(results.size() - 1));
+        }
+        for (Map.Entry<String, Integer> knee : results.findKnees().entrySet())
+        {
+            Log.e(TAG, "%s knee %s at %d objects", sweep.getName(), knee.getKey(), knee.getValue());
+        }
+
+        mTestUtils.writePerfTable(sweep.getName() + ".csv", results.toCsv());
+        mWaiter.assertEquals(sweep.getPoints().size(), results.size());
+        return results;
+    }
+
+    @Test
+    public void quadGridScaling() throws IOException
+    {
+        runSweep(new PerfSweep("quadGridScaling")
+                         .geometry(PerfSweep.Geometry.QUAD)
+                         .sharing(PerfSweep.Sharing.ALL, PerfSweep.Sharing.GEOMETRY,
+                                  PerfSweep.Sharing.MATERIAL, PerfSweep.Sharing.NONE)
+                         .texture(PerfSweep.Texture.NONE, PerfSweep.Texture.BITMAP)
+                         .grid(5, 10, 15, 20, 30, 40)
+                         .frames(300));
+    }
+
+    @Test
+    public void cylGridScaling() throws IOException
+    {
+        runSweep(new PerfSweep("cylGridScaling")
+                         .geometry(PerfSweep.Geometry.CYLINDER)
+                         .sharing(PerfSweep.Sharing.ALL, PerfSweep.Sharing.NONE)
+                         .texture(PerfSweep.Texture.NONE, PerfSweep.Texture.BITMAP)
+                         .grid(2, 4, 6, 8, 10, 12)
+                         .frames(300));
+    }
+
+    @Test
+    public void fullSweep() throws IOException
+    {
+        runSweep(new PerfSweep("fullSweep")
+                         .geometry(PerfSweep.Geometry.QUAD, PerfSweep.Geometry.CYLINDER)
+                         .sharing(PerfSweep.Sharing.values())
+                         .texture(PerfSweep.Texture.BITMAP, PerfSweep.Texture.COMPRESSED,
+                                  PerfSweep.Texture.CUBEMAP)
+                         .grid(5, 10, 15)
+                         .lighting(PerfSweep.Lighting.OFF, PerfSweep.Lighting.DIRECT)
+                         .frames(120));
+    }
+}
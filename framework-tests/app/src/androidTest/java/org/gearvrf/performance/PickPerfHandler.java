@@ -0,0 +1,168 @@
+package org.gearvrf.performance;
+
+import android.os.Debug;
+
+import org.gearvrf.GVRDrawFrameListener;
+import org.gearvrf.GVRPicker;
+import org.gearvrf.GVRSceneObject;
+import org.gearvrf.IPickEvents;
+import org.gearvrf.unittestutils.GVRFrameStats;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Measures how long a picker takes each frame and how many objects are allocated
+ * while it picks and sends its events.
+ * <p>
+ * The handler is a draw frame listener registered before the picker is enabled, so
+ * it runs first in each frame and takes the start time and the allocation count of
+ * the GL thread. Every pick event the picker sends takes the time and count again;
+ * the last event of a frame ends that frame's sample. Samples are kept in arrays
+ * allocated up front so the handler itself allocates nothing while it records.
+ */
+class PickPerfHandler implements IPickEvents, GVRDrawFrameListener
+{
+    private final long[] mLatencies;
+    private final int[] mAllocations;
+    private final int[] mEvents;
+    private int mCount = 0;
+    private boolean mRecording = false;
+    private long mFrameStart = 0;
+    private long mLastEvent = 0;
+    private int mAllocStart = 0;
+    private int mAllocLast = 0;
+    private int mFrameEvents = 0;
+
+    public PickPerfHandler(int maxFrames)
+    {
+        mLatencies = new long[maxFrames];
+        mAllocations = new int[maxFrames];
+        mEvents = new int[maxFrames];
+    }
+
+    public synchronized void start()
+    {
+        mCount = 0;
+        mFrameEvents = 0;
+        Debug.resetThreadAllocCount();
+        Debug.startAllocCounting();
+        mRecording = true;
+    }
+
+    public synchronized void stop()
+    {
+        mRecording = false;
+        Debug.stopAllocCounting();
+    }
+
+    @Override
+    public synchronized void onDrawFrame(float frameTime)
+    {
+        if (!mRecording)
+        {
+            return;
+        }
+        // the events of the previous frame are complete
+        if ((mFrameEvents > 0) && (mLastEvent >= mFrameStart) && (mCount < mLatencies.length))
+        {
+            mLatencies[mCount] = mLastEvent - mFrameStart;
+            mAllocations[mCount] = mAllocLast - mAllocStart;
+            mEvents[mCount] = mFrameEvents;
+            ++mCount;
+        }
+        mFrameEvents = 0;
+        mAllocStart = Debug.getThreadAllocCount();
+        mFrameStart = System.nanoTime();
+    }
+
+    private void event()
+    {
+        if (mRecording)
+        {
+            mLastEvent = System.nanoTime();
+            mAllocLast = Debug.getThreadAllocCount();
+            ++mFrameEvents;
+        }
+    }
+
+    public synchronized void onEnter(GVRSceneObject sceneObj, GVRPicker.GVRPickedObject pickInfo) { event(); }
+    public synchronized void onExit(GVRSceneObject sceneObj) { event(); }
+    public synchronized void onInside(GVRSceneObject sceneObj, GVRPicker.GVRPickedObject pickInfo) { event(); }
+    public synchronized void onPick(GVRPicker picker) { event(); }
+    public synchronized void onNoPick(GVRPicker picker) { event(); }
+
+    /**
+     * Number of frames measured.
+     */
+    public synchronized int getFrameCount()
+    {
+        return mCount;
+    }
+
+    /**
+     * Pick latency of each measured frame in microseconds.
+     */
+    public synchronized float[] getLatenciesMicros()
+    {
+        float[] latencies = new float[mCount];
+        for (int i = 0; i < mCount; ++i)
+        {
+            latencies[i] = mLatencies[i] / 1e3f;
+        }
+        return latencies;
+    }
+
+    /**
+     * Latency percentile in microseconds, in the same unit as
+     * {@link #getLatenciesMicros()}.
+     */
+    public synchronized float getLatencyPercentileMicros(int percent)
+    {
+        if (mCount == 0)
+        {
+            return 0.0f;
+        }
+        long[] sorted = Arrays.copyOf(mLatencies, mCount);
+        Arrays.sort(sorted);
+        return GVRFrameStats.percentile(sorted, percent) / 1e3f;
+    }
+
+    public synchronized float getAllocationsPerFrame()
+    {
+        return (mCount == 0) ? 0.0f : (float) sum(mAllocations) / mCount;
+    }
+
+    public synchronized float getEventsPerFrame()
+    {
+        return (mCount == 0) ? 0.0f : (float) sum(mEvents) / mCount;
+    }
+
+    /**
+     * Objects allocated on the GL thread per pick event the listeners received.
+     */
+    public synchronized float getAllocationsPerEvent()
+    {
+        long events = sum(mEvents);
+        return (events == 0) ? 0.0f : (float) sum(mAllocations) / events;
+    }
+
+    private long sum(int[] values)
+    {
+        long total = 0;
+        for (int i = 0; i < mCount; ++i)
+        {
+            total += values[i];
+        }
+        return total;
+    }
+
+    @Override
+    public synchronized String toString()
+    {
+        return String.format(Locale.US, "frames=%d p50=%.1fus p90=%.1fus p99=%.1fus max=%.1fus allocs/frame=%.1f events/frame=%.1f allocs/event=%.2f",
+                             mCount, getLatencyPercentileMicros(50), getLatencyPercentileMicros(90),
+                             getLatencyPercentileMicros(99), getLatencyPercentileMicros(100),
+                             getAllocationsPerFrame(), getEventsPerFrame(), getAllocationsPerEvent());
+    }
+}
@@ -0,0 +1,255 @@
+package org.gearvrf.performance;
+
+import android.support.test.rule.ActivityTestRule;
+import android.support.test.runner.AndroidJUnit4;
+
+import net.jodah.concurrentunit.Waiter;
+
+import org.gearvrf.GVRAndroidResource;
+import org.gearvrf.GVRBehavior;
+import org.gearvrf.GVRBoxCollider;
+import org.gearvrf.GVRContext;
+import org.gearvrf.GVREventReceiver;
+import org.gearvrf.GVRFrustumPicker;
+import org.gearvrf.GVRMesh;
+import org.gearvrf.GVRMeshCollider;
+import org.gearvrf.GVRPicker;
+import org.gearvrf.GVRScene;
+import org.gearvrf.GVRSceneObject;
+import org.gearvrf.GVRSphereCollider;
+import org.gearvrf.unittestutils.GVRTestUtils;
+import org.gearvrf.unittestutils.GVRTestableActivity;
+import org.gearvrf.utility.Log;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.IOException;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Measures how the cost of picking grows with the number of colliders and the
+ * complexity of the collision meshes.
+ * <p>
+ * Each point of a test makes a deterministic scene of pickable objects (seeded
+ * positions, sizes and rotations) with one kind of collider or a mix of them, then
+ * measures the per frame latency of a {@link GVRPicker} or {@link GVRFrustumPicker}
+ * and the allocations per pick event with {@link PickPerfHandler}. The objects have
+ * no render data so the frames measure picking rather than rendering. The scaling
+ * curve of each test is written to /sdcard/GearVRFTests/performance/$test$.csv and
+ * every point is added to the benchmark results.
+ */
+@RunWith(AndroidJUnit4.class)
+public class PickPerfTests
+{
+    private static final String TAG = "PERFORMANCE";
+    private static final String CSV_HEADER =
+            "series,objects,frames,p50_us,p90_us,p99_us,max_us,allocs_per_frame,events_per_frame,allocs_per_event";
+    private static final int WARMUP_FRAMES = 30;
+    private static final int MEASURE_FRAMES = 120;
+    private static final long SEED = 20161;
+    private static final int[] COUNTS = { 10, 100, 1000, 10000 };
+
+    enum ColliderType { SPHERE, BOX, MESH, BUNNY, MIXED }
+
+    private GVRTestUtils mTestUtils;
+    private Waiter mWaiter;
+    private GVRScene mScene;
+    private GVRMesh mSphereMesh;
+    private GVRMesh mBunnyMesh;
+
+    @Rule
+    public ActivityTestRule<GVRTestableActivity> ActivityRule = new ActivityTestRule<GVRTestableActivity>(GVRTestableActivity.class);
+
+    @After
+    public void tearDown()
+    {
+        GVRScene scene = mTestUtils.getMainScene();
+        if (scene != null)
+        {
+            scene.clear();
+        }
+    }
+
+    @Before
+    public void setUp() throws TimeoutException
+    {
+        mTestUtils = new GVRTestUtils(ActivityRule.getActivity());
+        mTestUtils.waitForOnInit();
+        mWaiter = new Waiter();
+        mScene = mTestUtils.getMainScene();
+        mWaiter.assertNotNull(mScene);
+
+        GVRContext context = mTestUtils.getGvrContext();
+        try
+        {
+            mSphereMesh = context.getAssetLoader().loadMesh(new GVRAndroidResource(context, "PickerTests/sphere.obj"));
+            mBunnyMesh = context.getAssetLoader().loadMesh(new GVRAndroidResource(context, "PickerTests/bunny.obj"));
+        }
+        catch (IOException ex)
+        {
+            mWaiter.fail(ex);
+        }
+    }
+
+    /*
+     * Makes "count" pickable objects in a box in front of the camera. The box grows
+     * with the cube root of the count so the density, and with it the number of
+     * objects on the pick ray, stays about the same at every scale.
+     */
+    private void createPickables(GVRContext context, ColliderType type, int count)
+    {
+        final Random rnd = new Random(SEED + count);
+        final float side = 3.0f * (float) Math.cbrt(count);
+        final ColliderType[] mixed = { ColliderType.SPHERE, ColliderType.BOX, ColliderType.MESH };
+
+        for (int i = 0; i < count; ++i)
+        {
+            GVRSceneObject obj = new GVRSceneObject(context);
+            ColliderType t = (type == ColliderType.MIXED) ? mixed[rnd.nextInt(mixed.length)] : type;
+            float size = 0.5f + rnd.nextFloat() * 0.5f;
+
+            obj.setName(t.name() + i);
+            obj.getTransform().setPosition((rnd.nextFloat() - 0.5f) * side,
+                                           (rnd.nextFloat() - 0.5f) * side,
+                                           -2.0f - rnd.nextFloat() * side);
+            obj.getTransform().setRotationByAxis(rnd.nextFloat() * 360.0f, 0, 1, 0);
+            switch (t)
+            {
+                case SPHERE:
+                    GVRSphereCollider sphere = new GVRSphereCollider(context);
+                    sphere.setRadius(size);
+                    obj.attachComponent(sphere);
+                    break;
+
+                case BOX:
+                    GVRBoxCollider box = new GVRBoxCollider(context);
+                    box.setHalfExtents(size, size, size);
+                    obj.attachComponent(box);
+                    break;
+
+                case MESH:
+                    obj.getTransform().setScale(size, size, size);
+                    obj.attachComponent(new GVRMeshCollider(context, mSphereMesh, true));
+                    break;
+
+                default:
+                    obj.getTransform().setScale(size, size, size);
+                    obj.attachComponent(new GVRMeshCollider(context, mBunnyMesh, true));
+                    break;
+            }
+            mScene.addSceneObject(obj);
+        }
+    }
+
+    private PickPerfHandler measure(GVRContext context, GVRBehavior picker, GVREventReceiver receiver)
+    {
+        PickPerfHandler handler = new PickPerfHandler(MEASURE_FRAMES + 1);
+
+        // registered before the picker starts picking so it runs first in the frame
+        context.registerDrawFrameListener(handler);
+        receiver.addListener(handler);
+        picker.setEnable(true);
+        mTestUtils.waitForXFrames(WARMUP_FRAMES);
+        handler.start();
+        // the sample of a frame is taken at the start of the next one
+        mTestUtils.waitForXFrames(MEASURE_FRAMES + 1);
+        handler.stop();
+        picker.setEnable(false);
+        context.unregisterDrawFrameListener(handler);
+        return handler;
+    }
+
+    private PickPerfHandler measureRayPick(GVRContext context)
+    {
+        GVRSceneObject origin = new GVRSceneObject(context);
+        GVRPicker picker = new GVRPicker(mScene, false);
+
+        mScene.addSceneObject(origin);
+        picker.setPickRay(0, 0, 0, 0, 0, -1);
+        origin.attachComponent(picker);
+        return measure(context, picker, picker.getEventReceiver());
+    }
+
+    private PickPerfHandler measureFrustumPick(GVRContext context)
+    {
+        GVRFrustumPicker picker = new GVRFrustumPicker(context, mScene);
+
+        picker.setEnable(false);
+        picker.setFrustum(45.0f, 1.0f, 0.1f, 1000.0f);
+        return measure(context, picker, picker.getEventReceiver());
+    }
+
+    private void runScaling(String testName, boolean frustum, ColliderType[] types, int[] counts)
+            throws IOException
+    {
+        GVRContext context = mTestUtils.getGvrContext();
+        StringBuilder csv = new StringBuilder(CSV_HEADER).append('\n');
+
+        for (ColliderType type : types)
+        {
+            String series = (frustum ? "frustum." : "ray.") + type.name().toLowerCase(Locale.US);
+            float previous = 0.0f;
+
+            for (int i = 0; i < counts.length; ++i)
+            {
+                mScene.clear();
+                createPickables(context, type, counts[i]);
+                // let the colliders reach the native scene
+                mTestUtils.waitForXFrames(1);
+
+                PickPerfHandler handler = frustum ? measureFrustumPick(context) : measureRayPick(context);
+                mWaiter.assertTrue(handler.getFrameCount() > 0);
+
+                float p50 = handler.getLatencyPercentileMicros(50);
+                csv.append(String.format(Locale.US, "%s,%d,%d,%.1f,%.1f,%.1f,%.1f,%.1f,%.1f,%.2f\n",
+                                         series, counts[i], handler.getFrameCount(), p50,
+                                         handler.getLatencyPercentileMicros(90), handler.getLatencyPercentileMicros(99),
+                                         handler.getLatencyPercentileMicros(100), handler.getAllocationsPerFrame(),
+                                         handler.getEventsPerFrame(), handler.getAllocationsPerEvent()));
+                Log.e(TAG, "%s %s %d objects %s", testName, series, counts[i], handler.toString());
+                if (i > 0 && previous > 0.0f)
+                {
+                    // slope of the log-log curve, 1 is linear in the number of objects
+                    double slope = Math.log(p50 / previous) / Math.log((double) counts[i] / counts[i - 1]);
+                    Log.e(TAG, "%s %s scales as n^%.2f from %d to %d objects", testName, series,
+                          slope, counts[i - 1], counts[i]);
+                }
+                previous = p50;
+                mTestUtils.reportPerf("PickPerfTests", series + "." + counts[i], "us", true,
+                                      handler.getLatenciesMicros());
+            }
+        }
+
+        mTestUtils.writePerfTable(testName + ".csv", csv.toString());
+    }
+
+    @Test
+    public void rayPickScaling() throws IOException
+    {
+        runScaling("rayPickScaling", false,
+                   new ColliderType[] { ColliderType.SPHERE, ColliderType.BOX, ColliderType.MESH, ColliderType.MIXED },
+                   COUNTS);
+    }
+
+    @Test
+    public void frustumPickScaling() throws IOException
+    {
+        runScaling("frustumPickScaling", true,
+                   new ColliderType[] { ColliderType.SPHERE, ColliderType.BOX, ColliderType.MESH, ColliderType.MIXED },
+                   COUNTS);
+    }
+
+    @Test
+    public void meshComplexityScaling() throws IOException
+    {
+        // sphere.obj has 512 faces, 960 triangles once its quads are split; bunny.obj 4968 triangles
+        runScaling("meshComplexityScaling", false,
+                   new ColliderType[] { ColliderType.MESH, ColliderType.BUNNY },
+                   new int[] { 10, 100, 1000 });
+    }
+}
@@ -209,10 +209,10 @@ public class RenderSetup
             Integer i = (Integer) params.get("enablelight");
             if (i != 0)
             {
-                i = (Integer) params.get("castshadows");
-                if (i != 0)
+                if (params.containsKey("castshadows"))
                 {
-                    castShadows = true;
+                    i = (Integer) params.get("castshadows");
+                    castShadows = (i != 0);
                 }
                 if (params.containsKey("spotlight"))
                 {
@@ -375,6 +375,10 @@ public class RenderSetup
         {
             doTexture = true;
         }
+        else if (params.containsKey("compressedbitmap"))
+        {
+            doTexture = true;
+        }
         else if (params.containsKey("cubemap"))
         {
             doTexture = true;
@@ -402,7 +406,7 @@ public class RenderSetup
         GVRSceneObject root = new GVRSceneObject(ctx);
 
         mScene.setBackgroundColor(0.8f, 1.0f, 0.8f, 1.0f);
-        //createLights(ctx, params);
+        createLights(ctx, params);
         for (int y = 0; y < nrows; ++y)
         {
             float ypos = (y - nrows / 2.0f);
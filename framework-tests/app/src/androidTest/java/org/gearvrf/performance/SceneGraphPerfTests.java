@@ -0,0 +1,255 @@
+package org.gearvrf.performance;
+
+import android.support.test.rule.ActivityTestRule;
+import android.support.test.runner.AndroidJUnit4;
+
+import net.jodah.concurrentunit.Waiter;
+
+import org.gearvrf.GVRContext;
+import org.gearvrf.GVRScene;
+import org.gearvrf.GVRSceneObject;
+import org.gearvrf.unittestutils.GVRFrameStats;
+import org.gearvrf.unittestutils.GVRSceneGenerator;
+import org.gearvrf.unittestutils.GVRTestUtils;
+import org.gearvrf.unittestutils.GVRTestableActivity;
+import org.gearvrf.utility.Log;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Measures how the cost of scene graph operations grows with the number of
+ * scene objects.
+ * <p>
+ * Each point of a test generates a hierarchy of 1k to 100k nodes with
+ * {@link GVRSceneGenerator} and times, on the test thread unless noted,
+ * <ul>
+ * <li>add: {@link GVRScene#addSceneObject(GVRSceneObject)} of the root,</li>
+ * <li>lookup: one {@link GVRScene#getSceneObjectByName(String)} of a random node,</li>
+ * <li>propagate: reading the model matrix of every node after the root moved,
+ * less reading them again without a move, all in one task on the GL thread so
+ * that rendering cannot update the matrices in between,</li>
+ * <li>wholeSceneObjects: {@link GVRScene#getWholeSceneObjects()},</li>
+ * <li>clear: {@link GVRScene#clear()}.</li>
+ * </ul>
+ * The wide hierarchy is a few levels of many children. The deep one is a tree
+ * up to 256 levels deep with mostly one or two children per node; at 100k nodes
+ * the mean depth of a node is about 170. The medians, the time per node and the
+ * slope of the log-log curve between two sizes are written to
+ * /sdcard/GearVRFTests/performance/$test$.csv and every point is added to the
+ * benchmark results. A slope above {@link #SUPERLINEAR} marks an operation which
+ * grows faster than the scene.
+ */
+@RunWith(AndroidJUnit4.class)
+public class SceneGraphPerfTests
+{
+    private static final String TAG = "PERFORMANCE";
+    private static final String CSV_HEADER = "operation,nodes,depth,p50_ms,per_node_us,slope,superlinear";
+    private static final String[] OPERATIONS = { "add", "lookup", "propagate", "wholeSceneObjects", "clear" };
+    private static final int ADD = 0;
+    private static final int LOOKUP = 1;
+    private static final int PROPAGATE = 2;
+    private static final int WHOLE = 3;
+    private static final int CLEAR = 4;
+    private static final long SEED = 20161;
+    private static final int[] COUNTS = { 1000, 3000, 10000, 30000, 100000 };
+    private static final int REPEATS = 3;
+    private static final int LOOKUPS = 100;
+    private static final double SUPERLINEAR = 1.2;
+    private static final long GL_TIMEOUT = 60000;
+
+    private GVRTestUtils mTestUtils;
+    private Waiter mWaiter;
+    private GVRScene mScene;
+
+    @Rule
+    public ActivityTestRule<GVRTestableActivity> ActivityRule = new ActivityTestRule<GVRTestableActivity>(GVRTestableActivity.class);
+
+    @After
+    public void tearDown()
+    {
+        GVRScene scene = mTestUtils.getMainScene();
+        if (scene != null)
+        {
+            scene.clear();
+        }
+    }
+
+    @Before
+    public void setUp() throws TimeoutException
+    {
+        mTestUtils = new GVRTestUtils(ActivityRule.getActivity());
+        mTestUtils.waitForOnInit();
+        mWaiter = new Waiter();
+        mScene = mTestUtils.getMainScene();
+        mWaiter.assertNotNull(mScene);
+    }
+
+    /*
+     * Generates, adds, queries, moves and clears one hierarchy and stores the
+     * time of every operation in milliseconds in "times[operation][repeat]".
+     */
+    private void measure(GVRSceneGenerator generator, int count, final int repeat, final float[][] times)
+            throws InterruptedException, TimeoutException
+    {
+        final Random rnd = new Random(SEED + repeat);
+        final GVRSceneObject root = generator.generate(count);
+        long start;
+
+        mScene.clear();
+        mTestUtils.waitForXFrames(2);
+
+        start = System.nanoTime();
+        mScene.addSceneObject(root);
+        times[ADD][repeat] = (System.nanoTime() - start) / 1e6f;
+        // let the hierarchy reach the native scene
+        mTestUtils.waitForXFrames(2);
+
+        start = System.nanoTime();
+        for (int i = 0; i < LOOKUPS; ++i)
+        {
+            GVRSceneObject found = mScene.getSceneObjectByName(GVRSceneGenerator.getNodeName(rnd.nextInt(count)));
+            mWaiter.assertNotNull(found);
+        }
+        times[LOOKUP][repeat] = (System.nanoTime() - start) / 1e6f / LOOKUPS;
+
+        start = System.nanoTime();
+        final GVRSceneObject[] nodes = mScene.getWholeSceneObjects();
+        times[WHOLE][repeat] = (System.nanoTime() - start) / 1e6f;
+        mWaiter.assertTrue(nodes.length >= count);
+
+        final CountDownLatch propagated = new CountDownLatch(1);
+        mTestUtils.getGvrContext().runOnGlThread(new Runnable()
+        {
+            public void run()
+            {
+                root.getTransform().setPositionX(repeat + 1.0f);
+                long start = System.nanoTime();
+                readModelMatrices(nodes);
+                long moved = System.nanoTime() - start;
+                start = System.nanoTime();
+                readModelMatrices(nodes);
+                long cached = System.nanoTime() - start;
+                times[PROPAGATE][repeat] = Math.max(moved - cached, 0) / 1e6f;
+                propagated.countDown();
+            }
+        });
+        if (!propagated.await(GL_TIMEOUT, TimeUnit.MILLISECONDS))
+        {
+            throw new TimeoutException("propagate not run on the GL thread in " + GL_TIMEOUT + " ms");
+        }
+
+        start = System.nanoTime();
+        mScene.clear();
+        times[CLEAR][repeat] = (System.nanoTime() - start) / 1e6f;
+        // let the native scene objects of the cleared hierarchy go
+        mTestUtils.waitForXFrames(2);
+    }
+
+    private static void readModelMatrices(GVRSceneObject[] nodes)
+    {
+        for (GVRSceneObject node : nodes)
+        {
+            node.getTransform().getModelMatrix();
+        }
+    }
+
+    private static float median(float[] values)
+    {
+        float[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return GVRFrameStats.percentile(sorted, 50);
+    }
+
+    private void runScaling(String testName, GVRSceneGenerator generator) throws Exception
+    {
+        StringBuilder csv = new StringBuilder(CSV_HEADER).append('\n');
+        float[][][] times = new float[COUNTS.length][OPERATIONS.length][REPEATS];
+        int[] depths = new int[COUNTS.length];
+
+        Log.e(TAG, "%s %s", testName, generator.toString());
+        for (int i = 0; i < COUNTS.length; ++i)
+        {
+            for (int r = 0; r < REPEATS; ++r)
+            {
+                measure(generator, COUNTS[i], r, times[i]);
+            }
+            depths[i] = generator.getDepth();
+        }
+
+        for (int op = 0; op < OPERATIONS.length; ++op)
+        {
+            String series = testName + "." + OPERATIONS[op];
+            float previous = 0.0f;
+
+            for (int i = 0; i < COUNTS.length; ++i)
+            {
+                float p50 = median(times[i][op]);
+                double slope = Double.NaN;
+
+                if (i > 0 && previous > 0.0f && p50 > 0.0f)
+                {
+                    // slope of the log-log curve, 1 is linear in the number of nodes
+                    slope = Math.log(p50 / previous) / Math.log((double) COUNTS[i] / COUNTS[i - 1]);
+                    Log.e(TAG, "%s scales as n^%.2f from %d to %d nodes", series, slope, COUNTS[i - 1],
+                          COUNTS[i]);
+                }
+                csv.append(String.format(Locale.US, "%s,%d,%d,%.3f,%.4f,%.2f,%b\n", OPERATIONS[op], COUNTS[i],
+                                         depths[i], p50, p50 * 1000.0f / COUNTS[i], slope,
+                                         slope > SUPERLINEAR));
+                previous = p50;
+                mTestUtils.reportPerf("SceneGraphPerfTests", series + "." + COUNTS[i], "ms", true,
+                                      times[i][op]);
+            }
+        }
+
+        mTestUtils.writePerfTable(testName + ".csv", csv.toString());
+        Log.e(TAG, "%s\n%s", testName, csv.toString());
+    }
+
+    @Test
+    public void wideSceneScaling() throws Exception
+    {
+        GVRContext ctx = mTestUtils.getGvrContext();
+        runScaling("wideSceneScaling", new GVRSceneGenerator(ctx, SEED)
+                .setMaxDepth(4)
+                .setBranching(8, 32)
+                .setMeshSharing(4)
+                .setMaterialSharing(16)
+                .setRenderableFraction(0.1f));
+    }
+
+    @Test
+    public void deepSceneScaling() throws Exception
+    {
+        GVRContext ctx = mTestUtils.getGvrContext();
+        runScaling("deepSceneScaling", new GVRSceneGenerator(ctx, SEED)
+                .setMaxDepth(256)
+                .setBranching(1, 1)
+                .setMeshSharing(4)
+                .setMaterialSharing(16)
+                .setRenderableFraction(0.1f));
+    }
+
+    @Test
+    public void unsharedSceneScaling() throws Exception
+    {
+        // every renderable node has its own mesh and material
+        GVRContext ctx = mTestUtils.getGvrContext();
+        runScaling("unsharedSceneScaling", new GVRSceneGenerator(ctx, SEED)
+                .setMaxDepth(8)
+                .setBranching(2, 4)
+                .setMeshSharing(0)
+                .setMaterialSharing(0)
+                .setRenderableFraction(0.1f));
+    }
+}
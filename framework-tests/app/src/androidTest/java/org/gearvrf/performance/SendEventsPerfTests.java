@@ -0,0 +1,89 @@
+package org.gearvrf.performance;
+
+import android.support.test.rule.ActivityTestRule;
+import android.support.test.runner.AndroidJUnit4;
+
+import net.jodah.concurrentunit.Waiter;
+
+import org.gearvrf.io.TestSendEvents;
+import org.gearvrf.unittestutils.GVRTestUtils;
+import org.gearvrf.unittestutils.GVRTestableActivity;
+import org.gearvrf.utility.Log;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.IOException;
+import java.util.Locale;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Measures the hand-off of controller events from the thread producing them to
+ * the thread dispatching them.
+ * <p>
+ * For each batch size the same number of motion events goes through
+ * GVRGearCursorController.SendEvents and through a batched single producer,
+ * single consumer ring, and the throughput and enqueue to dispatch latency
+ * percentiles of both are compared. Every run also checks that all events were
+ * dispatched in the order they were produced. The results are written to
+ * /sdcard/GearVRFTests/performance/sendEventsHandoff.csv and added to the
+ * benchmark results.
+ */
+@RunWith(AndroidJUnit4.class)
+public class SendEventsPerfTests
+{
+    private static final String TAG = "PERFORMANCE";
+    private static final String CSV_HEADER = "transport,batch,events,events_per_s,p50_us,p90_us,p99_us,max_us";
+    private static final int EVENTS = 20000;
+    private static final int[] BATCH_SIZES = { 1, 10, 100, 1000 };
+
+    private GVRTestUtils mTestUtils;
+    private Waiter mWaiter;
+
+    @Rule
+    public ActivityTestRule<GVRTestableActivity> ActivityRule = new ActivityTestRule<GVRTestableActivity>(GVRTestableActivity.class);
+
+    @Before
+    public void setUp() throws TimeoutException
+    {
+        mTestUtils = new GVRTestUtils(ActivityRule.getActivity());
+        mTestUtils.waitForOnInit();
+        mWaiter = new Waiter();
+    }
+
+    @Test
+    public void sendEventsHandoff() throws IOException
+    {
+        TestSendEvents bench = new TestSendEvents();
+        StringBuilder csv = new StringBuilder(CSV_HEADER).append('\n');
+
+        for (int innerLoops : BATCH_SIZES)
+        {
+            for (TestSendEvents.Transport transport : TestSendEvents.Transport.values())
+            {
+                // the first run warms up the JIT and the thread pool of the OS
+                bench.run(mTestUtils.getGvrContext(), transport, EVENTS / innerLoops / 10, innerLoops);
+                TestSendEvents.Result result = bench.run(mTestUtils.getGvrContext(), transport,
+                                                         EVENTS / innerLoops, innerLoops);
+
+                mWaiter.assertNotNull(result);
+                mWaiter.assertTrue(result.ordered);
+                Log.e(TAG, "sendEventsHandoff %s", result.toString());
+
+                String series = transport.name().toLowerCase(Locale.US) + "." + innerLoops;
+                csv.append(String.format(Locale.US, "%s,%d,%d,%.0f,%.1f,%.1f,%.1f,%.1f\n",
+                                         transport.name().toLowerCase(Locale.US), innerLoops,
+                                         result.events, result.getEventsPerSecond(),
+                                         result.getLatencyPercentile(50), result.getLatencyPercentile(90),
+                                         result.getLatencyPercentile(99), result.getLatencyPercentile(100)));
+                mTestUtils.reportPerf("SendEventsPerfTests", series + ".latency", "us", true,
+                                      result.getLatencies());
+                mTestUtils.reportPerf("SendEventsPerfTests", series + ".throughput", "events/s", false,
+                                      new float[] { (float) result.getEventsPerSecond() });
+            }
+        }
+
+        mTestUtils.writePerfTable("sendEventsHandoff.csv", csv.toString());
+    }
+}
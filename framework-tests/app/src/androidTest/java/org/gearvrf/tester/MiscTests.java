@@ -24,6 +24,7 @@ import org.gearvrf.GVRSceneObject;
 import org.gearvrf.GVRTexture;
 import org.gearvrf.io.TestSendEvents;
 import org.gearvrf.scene_objects.GVRCylinderSceneObject;
+import org.gearvrf.unittestutils.GVRSoakTest;
 import org.gearvrf.unittestutils.GVRTestUtils;
 import org.gearvrf.unittestutils.GVRTestableActivity;
 import org.junit.After;
@@ -45,6 +46,11 @@ import static junit.framework.Assert.fail;
 @RunWith(AndroidJUnit4.class)
 @FixMethodOrder(MethodSorters.NAME_ASCENDING)
 public class MiscTests {
+    // growth allowed by the soak tests, in bytes per iteration
+    private static final double SOAK_JAVA_BUDGET = 256;
+    private static final double SOAK_NATIVE_BUDGET = 1024;
+    private static final double SOAK_GRAPHICS_BUDGET = 1024;
+
     private GVRTestUtils mTestUtils;
     private Waiter mWaiter;
 
@@ -71,7 +77,8 @@ public class MiscTests {
     }
 
     /**
-     * Used to crash; verifies it doesn't anymore.
+     * Used to crash; verifies it doesn't anymore, and that the textures and scene
+     * objects made in every iteration do not leak.
      * @throws TimeoutException
      * @throws InterruptedException
      * @throws ExecutionException
@@ -87,39 +94,84 @@ public class MiscTests {
         final GVRRenderPass pass = new GVRRenderPass(ctx);
         pass.setMaterial(material);
 
+        GVRSoakTest.Result result = null;
         try {
-            for (int testRun = 0; testRun < 2000; ++testRun) {
-                GVRTexture t = new GVRTexture(ctx);
-                GVRBitmapImage bmap = new GVRBitmapImage(ctx, gearvr_logo);
-                t.setImage(bmap);
-                final GVRSceneObject so1 = new GVRSceneObject(ctx, 3, 2, t);
-                so1.getTransform().setPosition(0, 0, -3);
-                so1.getRenderData().setMaterial(material);
-                so1.getRenderData().setMesh(mesh);
-                so1.getRenderData().addPass(pass);
-                scene.addSceneObject(so1);
-
-                final GVRSceneObject so2 = new GVRSceneObject(ctx, 2, 1, t);
-                so2.getTransform().setPosition(-1, -1, -3);
-                so2.getRenderData().setMaterial(material);
-                so2.getRenderData().setMesh(mesh);
-                so2.getRenderData().addPass(pass);
-                scene.addSceneObject(so2);
-
-                //dirty the updateGPU data; allocate a big buffer to create some memory pressure
-                //and have the gc run sooner
-                scene.clear();
-                byte[] b = new byte[1*1024*1024];
-                pass.setCullFace(GVRRenderPass.GVRCullFaceEnum.None);
-                final float[] texCoords = mesh.getTexCoords();
-                mesh.setFloatArray("a_texcoord", texCoords);
-                material.setDiffuseColor(0, 0, 0, 0);
-                GVRNotifications.waitAfterStep();
-          }
+            result = new GVRSoakTest(mTestUtils, "stressRenderDataDirty")
+                    .setIterations(2000)
+                    .setJavaHeapBudget(SOAK_JAVA_BUDGET)
+                    .setNativeHeapBudget(SOAK_NATIVE_BUDGET)
+                    .setGraphicsBudget(SOAK_GRAPHICS_BUDGET)
+                    .run(new GVRSoakTest.Scenario() {
+                        @Override
+                        public void iterate(int iteration) {
+                            GVRTexture t = new GVRTexture(ctx);
+                            GVRBitmapImage bmap = new GVRBitmapImage(ctx, gearvr_logo);
+                            t.setImage(bmap);
+                            final GVRSceneObject so1 = new GVRSceneObject(ctx, 3, 2, t);
+                            so1.getTransform().setPosition(0, 0, -3);
+                            so1.getRenderData().setMaterial(material);
+                            so1.getRenderData().setMesh(mesh);
+                            so1.getRenderData().addPass(pass);
+                            scene.addSceneObject(so1);
+
+                            final GVRSceneObject so2 = new GVRSceneObject(ctx, 2, 1, t);
+                            so2.getTransform().setPosition(-1, -1, -3);
+                            so2.getRenderData().setMaterial(material);
+                            so2.getRenderData().setMesh(mesh);
+                            so2.getRenderData().addPass(pass);
+                            scene.addSceneObject(so2);
+
+                            //dirty the updateGPU data; allocate a big buffer to create some memory pressure
+                            //and have the gc run sooner
+                            scene.clear();
+                            byte[] b = new byte[1*1024*1024];
+                            pass.setCullFace(GVRRenderPass.GVRCullFaceEnum.None);
+                            final float[] texCoords = mesh.getTexCoords();
+                            mesh.setFloatArray("a_texcoord", texCoords);
+                            material.setDiffuseColor(0, 0, 0, 0);
+                            GVRNotifications.waitAfterStep();
+                        }
+                    });
         } catch (final Throwable t) {
             t.printStackTrace();
             mWaiter.assertTrue(false);
         }
+        mWaiter.assertTrue(result.isWithinBudget());
+    }
+
+    /**
+     * Makes and drops a mesh, a render pass and the scene object using them in
+     * every iteration, and checks that their native objects are released.
+     */
+    @Test
+    public void soakRenderPassAndMeshLifecycle() throws Exception {
+        final GVRContext ctx = mTestUtils.getGvrContext();
+        final GVRScene scene = mTestUtils.getMainScene();
+        final GVRMaterial material = new GVRMaterial(ctx);
+
+        GVRSoakTest.Result result = new GVRSoakTest(mTestUtils, "renderPassAndMeshLifecycle")
+                .setIterations(5000)
+                .setWarmupIterations(500)
+                .setJavaHeapBudget(SOAK_JAVA_BUDGET)
+                .setNativeHeapBudget(SOAK_NATIVE_BUDGET)
+                .setGraphicsBudget(SOAK_GRAPHICS_BUDGET)
+                .run(new GVRSoakTest.Scenario() {
+                    @Override
+                    public void iterate(int iteration) {
+                        final GVRMesh mesh = ctx.createQuad(1 + iteration % 3, 1);
+                        final GVRRenderPass pass = new GVRRenderPass(ctx);
+                        pass.setMaterial(material);
+
+                        final GVRSceneObject so = new GVRSceneObject(ctx, mesh);
+                        so.getTransform().setPosition(0, 0, -3);
+                        so.getRenderData().setMaterial(material);
+                        so.getRenderData().addPass(pass);
+                        scene.addSceneObject(so);
+                        GVRNotifications.waitAfterStep();
+                        scene.removeSceneObject(so);
+                    }
+                });
+        mWaiter.assertTrue(result.isWithinBudget());
     }
 
     @Test
@@ -8,6 +8,7 @@ import net.jodah.concurrentunit.Waiter;
 import org.gearvrf.GVRAndroidResource;
 import org.gearvrf.GVRContext;
 import org.gearvrf.GVRMaterial;
+import org.gearvrf.GVRRenderData;
 import org.gearvrf.GVRScene;
 import org.gearvrf.GVRSceneObject;
 import org.gearvrf.GVRTexture;
@@ -17,6 +18,8 @@ import org.gearvrf.scene_objects.GVRCylinderSceneObject;
 import org.gearvrf.scene_objects.GVRSphereSceneObject;
 import org.gearvrf.GVRBillboard;
 import org.gearvrf.scene_objects.GVRTextViewSceneObject;
+import org.gearvrf.unittestutils.GVRSceneGenerator;
+import org.gearvrf.unittestutils.GVRSceneIndex;
 import org.gearvrf.unittestutils.GVRTestUtils;
 import org.gearvrf.unittestutils.GVRTestableActivity;
 import org.joml.Vector3f;
@@ -28,6 +31,8 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.MethodSorters;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.TimeoutException;
 
 import static java.lang.Thread.sleep;
@@ -366,4 +371,81 @@ public class SceneObjectTests
         mWaiter.assertTrue(Math.abs(1 - zs) < epsilon);
    }
 
+    private static void collectDescendants(GVRSceneObject root, List<GVRSceneObject> objects)
+    {
+        objects.add(root);
+        for (int i = 0; i < root.getChildrenCount(); ++i)
+        {
+            collectDescendants(root.getChildByIndex(i), objects);
+        }
+    }
+
+    private List<GVRSceneObject> findLinear(GVRSceneObject root, String name)
+    {
+        List<GVRSceneObject> all = new ArrayList<GVRSceneObject>();
+        List<GVRSceneObject> found = new ArrayList<GVRSceneObject>();
+        collectDescendants(root, all);
+        for (GVRSceneObject obj : all)
+        {
+            if (name.equals(obj.getName()))
+            {
+                found.add(obj);
+            }
+        }
+        return found;
+    }
+
+    @Test
+    public void sceneIndexMatchesLinearLookup() throws TimeoutException
+    {
+        GVRContext ctx  = mTestUtils.getGvrContext();
+        GVRScene scene = mTestUtils.getMainScene();
+        GVRSceneObject model = new GVRSceneGenerator(ctx, 7)
+                .setMaxDepth(6)
+                .setBranching(1, 5)
+                .setRenderableFraction(0.3f)
+                .generate(2000);
+        List<GVRSceneObject> objects = new ArrayList<GVRSceneObject>();
+        collectDescendants(model, objects);
+
+        // 100 names shared by 20 objects each
+        for (int i = 0; i < objects.size(); ++i)
+        {
+            objects.get(i).setName("part" + (i % 100));
+        }
+        scene.addSceneObject(model);
+        GVRSceneIndex index = new GVRSceneIndex(ctx, GVRRenderData.getComponentType());
+        mRoot.attachComponent(index);
+        mTestUtils.waitForXFrames(2);
+
+        for (int i = 0; i < 100; ++i)
+        {
+            String name = "part" + i;
+            mWaiter.assertEquals(scene.getSceneObjectByName(name), index.getSceneObjectByName(name));
+            mWaiter.assertEquals(findLinear(mRoot, name), index.getSceneObjectsByName(name));
+        }
+        mWaiter.assertNull(index.getSceneObjectByName("missing"));
+        mWaiter.assertEquals(model.getAllComponents(GVRRenderData.getComponentType()).size(),
+                             index.getSceneObjectsWith(GVRRenderData.getComponentType()).size());
+
+        // incremental updates
+        GVRSceneObject branch = model.getChildByIndex(0);
+        GVRSceneObject parent = branch.getParent();
+        index.removeChildObject(branch);
+        mWaiter.assertFalse(index.getSceneObjectsByName(branch.getName()).contains(branch));
+        mWaiter.assertEquals(findLinear(mRoot, "part50"), index.getSceneObjectsByName("part50"));
+        index.addChildObject(parent, branch);
+        mWaiter.assertTrue(index.getSceneObjectsByName(branch.getName()).contains(branch));
+
+        GVRSceneObject renamed = objects.get(objects.size() - 1);
+        renamed.setName("renamed");
+        mWaiter.assertNull(index.getSceneObjectByName("renamed"));
+        index.update(renamed);
+        mWaiter.assertEquals(renamed, index.getSceneObjectByName("renamed"));
+
+        scene.removeSceneObject(model);
+        mWaiter.assertNull(index.getSceneObjectByName("part1"));
+        mRoot.detachComponent(GVRSceneIndex.getComponentType());
+    }
+
 }
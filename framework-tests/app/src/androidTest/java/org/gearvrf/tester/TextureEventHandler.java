@@ -7,52 +7,93 @@ import org.gearvrf.GVRScene;
 import org.gearvrf.GVRSceneObject;
 import org.gearvrf.GVRTexture;
 import org.gearvrf.IAssetEvents;
+import org.gearvrf.unittestutils.GVRAssetFuture;
 import org.gearvrf.unittestutils.GVRTestUtils;
 import org.gearvrf.utility.FileNameUtils;
 
 import java.io.IOException;
 import java.util.concurrent.TimeoutException;
 
+/**
+ * Counts the texture events of a test and signals {@link GVRTestUtils#waitForAssetLoad()}
+ * once the expected number of textures loaded or failed. The textures load on
+ * several threads, so the counts are updated under the lock of the handler.
+ * {@link #getFuture()} completes at the same time, for tests which wait for the
+ * textures together with other assets.
+ */
 public class TextureEventHandler implements IAssetEvents
 {
     public int TexturesLoaded = 0;
     public int TextureErrors = 0;
     protected GVRTestUtils mTester;
     protected int mNumTextures = 0;
+    private GVRAssetFuture<Integer> mFuture;
 
     public TextureEventHandler(GVRTestUtils tester, int numTex)
     {
         mTester = tester;
         mNumTextures = numTex;
+        mFuture = new GVRAssetFuture<Integer>(numTex + " textures");
+    }
+
+    public synchronized void reset()
+    {
+        TexturesLoaded = 0;
+        TextureErrors = 0;
+        mFuture = new GVRAssetFuture<Integer>(mNumTextures + " textures");
+    }
+
+    /**
+     * Returns a future which completes with the number of textures loaded once
+     * all expected textures loaded or failed.
+     */
+    public synchronized GVRAssetFuture<Integer> getFuture()
+    {
+        return mFuture;
     }
 
-    public void reset() { TexturesLoaded = 0; TextureErrors = 0; }
     public void onAssetLoaded(GVRContext context, GVRSceneObject model, String filePath, String errors) { }
     public void onModelLoaded(GVRContext context, GVRSceneObject model, String filePath) { }
     public void onModelError(GVRContext context, String error, String filePath) { }
 
     public void onTextureLoaded(GVRContext context, GVRTexture texture, String filePath)
     {
-        TexturesLoaded++;
-        if ((TexturesLoaded + TextureErrors) == mNumTextures)
-        {
-            mTester.onAssetLoaded(null);
-        }
+        textureDone(true);
     }
 
     public void onTextureError(GVRContext context, String error, String filePath)
     {
-        TextureErrors++;
-        if ((TexturesLoaded + TextureErrors) == mNumTextures)
+        textureDone(false);
+    }
+
+    private void textureDone(boolean loaded)
+    {
+        GVRAssetFuture<Integer> future;
+        int count;
+        synchronized (this)
         {
-            mTester.onAssetLoaded(null);
+            if (loaded)
+            {
+                TexturesLoaded++;
+            }
+            else
+            {
+                TextureErrors++;
+            }
+            if ((TexturesLoaded + TextureErrors) != mNumTextures)
+            {
+                return;
+            }
+            future = mFuture;
+            count = TexturesLoaded;
         }
+        future.complete(count);
+        mTester.onAssetLoaded(null);
     }
 
-    public void checkTextureLoaded(Waiter waiter)
+    public synchronized void checkTextureLoaded(Waiter waiter)
     {
         waiter.assertEquals(1, TexturesLoaded);
     }
 
 };
-
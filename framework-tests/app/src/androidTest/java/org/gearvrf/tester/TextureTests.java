@@ -32,7 +32,12 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import org.gearvrf.unittestutils.GVRAssetFuture;
 import org.gearvrf.unittestutils.GVRTestUtils;
 import org.gearvrf.unittestutils.GVRTestableActivity;
 
@@ -40,6 +45,7 @@ import org.gearvrf.unittestutils.GVRTestableActivity;
 @RunWith(AndroidJUnit4.class)
 public class TextureTests
 {
+    private static final long ASSET_TIMEOUT = 10000;
     private GVRTestUtils mTestUtils;
     private Waiter mWaiter;
     private GVRSceneObject mRoot;
@@ -612,28 +618,33 @@ public class TextureTests
 
 
     @Test
-    public void testSwitchTextures() throws TimeoutException
+    public void testSwitchTextures() throws TimeoutException, InterruptedException
     {
         GVRContext ctx  = mTestUtils.getGvrContext();
         GVRScene scene = mTestUtils.getMainScene();
         String[] texFiles = new String[] { "NumberOne.png", "NumberTwo.png" };
         GVRTexture[] textures = new GVRTexture[texFiles.length];
-        TextureEventHandler texHandler = new TextureEventHandler(mTestUtils, texFiles.length);
+        List<GVRAssetFuture<GVRTexture>> loads = new ArrayList<GVRAssetFuture<GVRTexture>>();
         int i = 0;
-        ctx.getEventReceiver().addListener(texHandler);
         try
         {
+            // both textures load at once, the test waits for the pair
             for (String texFile : texFiles)
             {
                 GVRAndroidResource r = new GVRAndroidResource(ctx, texFile);
+                loads.add(mTestUtils.getAssetTracker().expectTexture(r));
                 textures[i++] = ctx.getAssetLoader().loadTexture(r);
             }
+            GVRAssetFuture.allOf(loads).get(ASSET_TIMEOUT, TimeUnit.MILLISECONDS);
         }
         catch (IOException ex)
         {
             mWaiter.fail(ex);
         }
-        mTestUtils.waitForAssetLoad();
+        catch (ExecutionException ex)
+        {
+            mWaiter.fail(ex.getCause());
+        }
         GVRTexture tex = new GVRTexture(ctx);
         GVRSceneObject quad = new GVRSceneObject(ctx, 2, 2, tex);
         quad.getTransform().setPositionZ(-4.0f);
@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2016. Samsung Electronics Co., LTD
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf.imagediff;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the diff throughput on real golden masters. The {@code megapixels}
+ * counter is reported per second, which is the number to track.
+ * <p>
+ * Each benchmark compares the S7Edge master of a test against the Note4 master of
+ * the same test, which gives a realistic amount of differing pixels.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class GVRImageDiffBenchmark
+{
+    @State(Scope.Benchmark)
+    public static class Images
+    {
+        @Param({ "AssetImportTests/jassimpDeerOBJ", "AssetImportTests/x3dTeapotTorus",
+                 "AssetLightTests/jassimpCubeAmbientTexture" })
+        public String test;
+
+        @Param({ "1", "2", "4", "8" })
+        public int workers;
+
+        GVRImageDiff diff;
+        int[] golden;
+        int[] screenshot;
+        int[] work;
+        int width;
+        int height;
+
+        @Setup(Level.Trial)
+        public void load() throws IOException
+        {
+            File masters = new File(System.getProperty("gvrf.goldenMasters", "../golden_masters"));
+            GVRPixelImage g = GVRPixelImageIO.read(new File(masters, "S7Edge/" + test + ".png"));
+            GVRPixelImage s = GVRPixelImageIO.read(new File(masters, "Note4/" + test + ".png"));
+
+            if ((g.getWidth() != s.getWidth()) || (g.getHeight() != s.getHeight()))
+            {
+                throw new IllegalStateException("Golden masters differ in size for " + test);
+            }
+            width = g.getWidth();
+            height = g.getHeight();
+            golden = g.getPixels();
+            screenshot = s.getPixels();
+            work = new int[width * height];
+            diff = new GVRImageDiff(workers);
+        }
+
+        @Setup(Level.Invocation)
+        public void restoreGolden()
+        {
+            System.arraycopy(golden, 0, work, 0, work.length);
+        }
+
+        @TearDown(Level.Trial)
+        public void shutdown()
+        {
+            diff.shutdown();
+        }
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Pixels
+    {
+        public double megapixels;
+
+        @Setup(Level.Iteration)
+        public void reset()
+        {
+            megapixels = 0;
+        }
+    }
+
+    @Benchmark
+    public float tiledWorkers(Images images, Pixels pixels) throws InterruptedException
+    {
+        pixels.megapixels += images.width * images.height / 1e6;
+        return images.diff.compare(images.work, images.screenshot, images.width, images.height);
+    }
+
+    @Benchmark
+    public float singleThreaded(Images images, Pixels pixels)
+    {
+        pixels.megapixels += images.width * images.height / 1e6;
+        return GVRImageDiff.compareSingleThreaded(images.work, images.screenshot,
+                                                  images.width * images.height);
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2016. Samsung Electronics Co., LTD
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf.imagediff;
+
+/**
+ * Measures the largest cluster of connected pixels which differ by more than a
+ * tolerance in any color channel. Isolated noisy pixels, as produced by different
+ * anti-aliasing or dithering, form tiny clusters and do not fail the test while a
+ * missing or misplaced object does.
+ * <p>
+ * Pixels are connected to their horizontal and vertical neighbours. The difference
+ * image is white for differing pixels and red for the largest cluster.
+ */
+public final class GVRClusterComparator implements GVRImageComparator {
+    private static final int DIFFERS = 1;
+    private static final int VISITED = 2;
+
+    private final int mTolerance;
+    private final float mDiffImageThreshold;
+    private final float mFailThreshold;
+    private byte[] mMask = new byte[0];
+    private int[] mQueue = new int[0];
+    private int[] mCluster = new int[0];
+
+    /**
+     * @param tolerance          allowed difference of every channel, 0 - 255.
+     * @param diffImageThreshold cluster size in pixels above which the diff image is saved.
+     * @param failThreshold      cluster size in pixels above which the test fails.
+     */
+    public GVRClusterComparator(int tolerance, float diffImageThreshold, float failThreshold) {
+        mTolerance = tolerance;
+        mDiffImageThreshold = diffImageThreshold;
+        mFailThreshold = failThreshold;
+    }
+
+    @Override
+    public synchronized GVRCompareResult compare(int[] golden, int[] screenshot,
+                                                 int width, int height) {
+        final int size = width * height;
+        if (mMask.length < size) {
+            mMask = new byte[size];
+            mQueue = new int[size];
+            mCluster = new int[size];
+        }
+
+        final byte[] mask = mMask;
+        for (int i = 0; i < size; ++i) {
+            final int p1 = golden[i];
+            final int p2 = screenshot[i];
+            final boolean differs = (Math.abs(((p1 >> 16) & 0xFF) - ((p2 >> 16) & 0xFF)) > mTolerance)
+                    || (Math.abs(((p1 >> 8) & 0xFF) - ((p2 >> 8) & 0xFF)) > mTolerance)
+                    || (Math.abs((p1 & 0xFF) - (p2 & 0xFF)) > mTolerance);
+
+            mask[i] = differs ? (byte) DIFFERS : 0;
+            golden[i] = differs ? 0xFFFFFFFF : 0xFF000000;
+        }
+
+        int largestStart = -1;
+        int largest = 0;
+        for (int i = 0; i < size; ++i) {
+            if (mask[i] == DIFFERS) {
+                final int clusterSize = fill(i, width, height, mQueue);
+                if (clusterSize > largest) {
+                    largest = clusterSize;
+                    largestStart = i;
+                }
+            }
+        }
+
+        if (largestStart >= 0) {
+            for (int i = 0; i < size; ++i) {
+                if (mask[i] != 0) {
+                    mask[i] = DIFFERS;
+                }
+            }
+            final int n = fill(largestStart, width, height, mCluster);
+            for (int i = 0; i < n; ++i) {
+                golden[mCluster[i]] = 0xFFFF0000;
+            }
+        }
+        return new GVRCompareResult("largest cluster", largest, mDiffImageThreshold,
+                                    mFailThreshold);
+    }
+
+    /**
+     * Marks the cluster containing {@code start} as visited and returns its size.
+     * On return the first entries of {@code visited} hold the cluster pixels.
+     */
+    private int fill(int start, int width, int height, int[] visited) {
+        final byte[] mask = mMask;
+        int count = 0;
+        int next = 0;
+
+        mask[start] = VISITED;
+        visited[count++] = start;
+        while (next < count) {
+            final int i = visited[next++];
+            final int x = i % width;
+
+            if ((x > 0) && (mask[i - 1] == DIFFERS)) {
+                mask[i - 1] = VISITED;
+                visited[count++] = i - 1;
+            }
+            if ((x < width - 1) && (mask[i + 1] == DIFFERS)) {
+                mask[i + 1] = VISITED;
+                visited[count++] = i + 1;
+            }
+            if ((i >= width) && (mask[i - width] == DIFFERS)) {
+                mask[i - width] = VISITED;
+                visited[count++] = i - width;
+            }
+            if ((i < (height - 1) * width) && (mask[i + width] == DIFFERS)) {
+                mask[i + width] = VISITED;
+                visited[count++] = i + width;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright (c) 2016. Samsung Electronics Co., LTD
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf.imagediff;
+
+/**
+ * Outcome of a {@link GVRImageComparator}. Scores grow with the difference
+ * between the images; a score above the diff image threshold asks for the diff
+ * image to be saved and a score above the fail threshold fails the test.
+ */
+public final class GVRCompareResult {
+    private final String mMetric;
+    private final float mScore;
+    private final float mDiffImageThreshold;
+    private final float mFailThreshold;
+
+    public GVRCompareResult(String metric, float score, float diffImageThreshold,
+                            float failThreshold) {
+        mMetric = metric;
+        mScore = score;
+        mDiffImageThreshold = diffImageThreshold;
+        mFailThreshold = failThreshold;
+    }
+
+    /**
+     * Name of the metric which produced the score, used in the test log.
+     */
+    public String getMetric() {
+        return mMetric;
+    }
+
+    public float getScore() {
+        return mScore;
+    }
+
+    public boolean needsDiffImage() {
+        return mScore > mDiffImageThreshold;
+    }
+
+    public boolean passed() {
+        return mScore <= mFailThreshold;
+    }
+
+    @Override
+    public String toString() {
+        return mMetric + " = " + mScore + (passed() ? "" : " (limit " + mFailThreshold + ")");
+    }
+}
@@ -0,0 +1,265 @@
+/*
+ * Copyright (c) 2016. Samsung Electronics Co., LTD
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf.imagediff;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Golden masters read from a local copy of the {@code golden_masters} tree.
+ * <p>
+ * The tree holds one directory per device type, with a directory per test category
+ * containing {@code <testname>.png}, and redirect files named after a device model
+ * whose first line is the device type to use instead. Every master is indexed by the
+ * SHA-1 of its content and decoded masters are kept in a least recently used cache
+ * bounded by their size in bytes, so masters shared by several device types or used
+ * by several tests of a run are only decoded once.
+ * <p>
+ * Decoded masters are shared, callers must copy the pixels before modifying them.
+ */
+public final class GVRGoldenMasterStore {
+    /**
+     * Decodes a golden master file, with BitmapFactory on the device or
+     * {@link GVRPixelImageIO#read(File)} on the host.
+     */
+    public interface Decoder {
+        GVRPixelImage decode(File file) throws IOException;
+    }
+
+    private static final int MAX_REDIRECTS = 8;
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private final File mRoot;
+    private final Decoder mDecoder;
+    private final long mMaxCacheBytes;
+    private final Map<String, IndexEntry> mIndex = new HashMap<String, IndexEntry>();
+    private final LinkedHashMap<String, GVRPixelImage> mCache =
+            new LinkedHashMap<String, GVRPixelImage>(16, 0.75f, true);
+    private long mCacheBytes;
+
+    /**
+     * @param root          directory holding the golden master tree.
+     * @param decoder       decoder for the PNG files.
+     * @param maxCacheBytes upper bound of the memory used by decoded masters.
+     */
+    public GVRGoldenMasterStore(File root, Decoder decoder, long maxCacheBytes) {
+        mRoot = root;
+        mDecoder = decoder;
+        mMaxCacheBytes = maxCacheBytes;
+    }
+
+    public File getRoot() {
+        return mRoot;
+    }
+
+    /**
+     * Returns true if the golden master tree is present.
+     */
+    public boolean exists() {
+        return mRoot.isDirectory();
+    }
+
+    /**
+     * Returns the device type whose masters should be used for a device model.
+     * A directory named after the model is used directly, a redirect file is
+     * followed, anything else gives the default type.
+     * @param model       device model, usually {@code Build.MODEL}.
+     * @param defaultType device type used if the model is unknown.
+     */
+    public String resolveDeviceType(String model, String defaultType) throws IOException {
+        String type = model;
+
+        for (int i = 0; i < MAX_REDIRECTS; ++i) {
+            File f = new File(mRoot, type);
+            if (f.isDirectory()) {
+                return type;
+            }
+            if (!f.isFile()) {
+                return defaultType;
+            }
+            BufferedReader reader = new BufferedReader(new FileReader(f));
+            try {
+                String line = reader.readLine();
+                if ((line == null) || line.trim().isEmpty()) {
+                    return defaultType;
+                }
+                type = line.trim();
+            } finally {
+                reader.close();
+            }
+        }
+        throw new IOException("Too many golden master redirects for " + model);
+    }
+
+    /**
+     * Returns the file of a golden master, which may not exist.
+     */
+    public File getFile(String deviceType, String category, String testName) {
+        return new File(mRoot, deviceType + File.separator + category + File.separator
+                + testName + ".png");
+    }
+
+    /**
+     * Returns the decoded golden master of a test.
+     * @throws FileNotFoundException if there is no master for the test.
+     */
+    public synchronized GVRPixelImage getMaster(String deviceType, String category,
+                                                String testName) throws IOException {
+        File file = getFile(deviceType, category, testName);
+        if (!file.isFile()) {
+            throw new FileNotFoundException("No golden master " + file);
+        }
+
+        String hash = getContentHash(file);
+        GVRPixelImage image = mCache.get(hash);
+        if (image == null) {
+            image = mDecoder.decode(file);
+            mCache.put(hash, image);
+            mCacheBytes += sizeOf(image);
+            evict();
+        }
+        return image;
+    }
+
+    /**
+     * Returns the SHA-1 of a file as a hex string. Hashes are remembered until the
+     * length or modification time of the file changes.
+     */
+    public synchronized String getContentHash(File file) throws IOException {
+        String key = file.getAbsolutePath();
+        IndexEntry entry = mIndex.get(key);
+
+        if ((entry == null) || (entry.length != file.length())
+                || (entry.lastModified != file.lastModified())) {
+            entry = new IndexEntry(file.length(), file.lastModified(), hash(file));
+            mIndex.put(key, entry);
+        }
+        return entry.hash;
+    }
+
+    /**
+     * Hashes every golden master of the tree ahead of time.
+     * @return number of indexed masters.
+     */
+    public synchronized int indexAll() throws IOException {
+        return indexDirectory(mRoot);
+    }
+
+    /**
+     * Returns the number of decoded masters held in memory.
+     */
+    public synchronized int getCachedCount() {
+        return mCache.size();
+    }
+
+    /**
+     * Returns the memory used by decoded masters in bytes.
+     */
+    public synchronized long getCachedBytes() {
+        return mCacheBytes;
+    }
+
+    /**
+     * Drops all decoded masters.
+     */
+    public synchronized void clearCache() {
+        mCache.clear();
+        mCacheBytes = 0;
+    }
+
+    private int indexDirectory(File dir) throws IOException {
+        File[] files = dir.listFiles();
+        int count = 0;
+
+        if (files == null) {
+            return 0;
+        }
+        for (File f : files) {
+            if (f.isDirectory()) {
+                count += indexDirectory(f);
+            } else if (f.getName().endsWith(".png")) {
+                getContentHash(f);
+                ++count;
+            }
+        }
+        return count;
+    }
+
+    private void evict() {
+        Iterator<Map.Entry<String, GVRPixelImage>> it = mCache.entrySet().iterator();
+
+        // keep the most recent master even if it alone exceeds the limit
+        while ((mCacheBytes > mMaxCacheBytes) && (mCache.size() > 1) && it.hasNext()) {
+            mCacheBytes -= sizeOf(it.next().getValue());
+            it.remove();
+        }
+    }
+
+    private static long sizeOf(GVRPixelImage image) {
+        return 4L * image.getPixels().length;
+    }
+
+    private static String hash(File file) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+
+        byte[] buffer = new byte[64 * 1024];
+        InputStream in = new FileInputStream(file);
+        try {
+            int n;
+            while ((n = in.read(buffer)) > 0) {
+                digest.update(buffer, 0, n);
+            }
+        } finally {
+            in.close();
+        }
+
+        byte[] bytes = digest.digest();
+        char[] hex = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; ++i) {
+            hex[2 * i] = HEX_DIGITS[(bytes[i] >> 4) & 0xF];
+            hex[2 * i + 1] = HEX_DIGITS[bytes[i] & 0xF];
+        }
+        return new String(hex);
+    }
+
+    private static final class IndexEntry {
+        final long length;
+        final long lastModified;
+        final String hash;
+
+        IndexEntry(long length, long lastModified, String hash) {
+            this.length = length;
+            this.lastModified = lastModified;
+            this.hash = hash;
+        }
+    }
+}
@@ -0,0 +1,29 @@
+/*
+ * Copyright (c) 2016. Samsung Electronics Co., LTD
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf.imagediff;
+
+/**
+ * Strategy used to decide whether a screenshot matches its golden master.
+ * <p>
+ * Both buffers hold at least {@code width * height} ARGB pixels in row major order.
+ * Implementations overwrite the golden buffer with a difference image that is
+ * written next to the screenshot when {@link GVRCompareResult#needsDiffImage()}.
+ * Use {@link GVRImageComparators} to select the comparator of a test category.
+ */
+public interface GVRImageComparator {
+    GVRCompareResult compare(int[] golden, int[] screenshot, int width, int height)
+            throws InterruptedException;
+}
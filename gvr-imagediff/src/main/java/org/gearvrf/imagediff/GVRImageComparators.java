@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2016. Samsung Electronics Co., LTD
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf.imagediff;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Selects the {@link GVRImageComparator} used for the screenshots of a test category.
+ * Categories without a comparator of their own use the summed difference with the
+ * {@link GVRImageDiff} thresholds.
+ * <p>
+ * A test class usually registers its comparator before its first screenshot:
+ * <pre>
+ *     GVRImageComparators.register("AssetImportTests",
+ *             new GVRClusterComparator(16, 50, 400));
+ * </pre>
+ */
+public final class GVRImageComparators {
+    private static final GVRImageDiff sEngine = new GVRImageDiff();
+    private static final ConcurrentHashMap<String, GVRImageComparator> sComparators =
+            new ConcurrentHashMap<String, GVRImageComparator>();
+    private static volatile GVRImageComparator sDefault = new GVRSummedDiffComparator(sEngine);
+
+    private GVRImageComparators() {
+    }
+
+    /**
+     * Returns the diff engine shared by the default comparator. Its pixel buffers can
+     * be used to avoid allocating new ones for every screenshot.
+     */
+    public static GVRImageDiff getSharedEngine() {
+        return sEngine;
+    }
+
+    /**
+     * Returns the comparator for a category, or the default one.
+     */
+    public static GVRImageComparator forCategory(String category) {
+        GVRImageComparator comparator = sComparators.get(category);
+        return (comparator != null) ? comparator : sDefault;
+    }
+
+    /**
+     * Sets the comparator for a category.
+     */
+    public static void register(String category, GVRImageComparator comparator) {
+        if (comparator == null) {
+            throw new IllegalArgumentException("comparator cannot be null");
+        }
+        sComparators.put(category, comparator);
+    }
+
+    /**
+     * Restores the default comparator for a category.
+     */
+    public static void unregister(String category) {
+        sComparators.remove(category);
+    }
+
+    /**
+     * Sets the comparator used by categories without a comparator of their own.
+     */
+    public static void setDefault(GVRImageComparator comparator) {
+        if (comparator == null) {
+            throw new IllegalArgumentException("comparator cannot be null");
+        }
+        sDefault = comparator;
+    }
+}
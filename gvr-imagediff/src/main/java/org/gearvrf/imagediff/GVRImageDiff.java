@@ -0,0 +1,257 @@
+/*
+ * Copyright (c) 2016. Samsung Electronics Co., LTD
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf.imagediff;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Computes the difference between a golden master and a captured screenshot.
+ * <p>
+ * Images are plain {@code int[]} buffers of ARGB pixels in row major order, so this
+ * class runs both on the device and on a host JVM.
+ * <p>
+ * The image is split into horizontal tiles which are handed out to a fixed pool of
+ * workers. Each worker accumulates its share of the difference in a primitive local
+ * and the partial sums are reduced once all workers are done, so no lock is taken
+ * while comparing pixels. The engine owns a pair of pixel buffers which are reused
+ * across comparisons; use {@link #getGoldenBuffer(int)} and
+ * {@link #getScreenshotBuffer(int)} to obtain them.
+ * <p>
+ * The difference of a pixel is the sum of the absolute red, green and blue
+ * differences, each normalized to [0, 1]. After a comparison the golden buffer holds
+ * the per-pixel difference image.
+ */
+public final class GVRImageDiff {
+    /**
+     * Above this difference the diff image should be written next to the screenshot.
+     */
+    public static final float DIFF_IMAGE_THRESHOLD = 2000.0f;
+
+    /**
+     * Above this difference the screenshot test fails.
+     */
+    public static final float FAIL_THRESHOLD = 30000.0f;
+
+    private static final int TILE_ROWS = 16;
+
+    private final ExecutorService mWorkers;
+    private final List<DiffWorker> mTasks;
+    private final long[] mPartialDiffs;
+    private final AtomicInteger mNextTile = new AtomicInteger();
+
+    private int[] mGoldenBuffer = new int[0];
+    private int[] mScreenshotBuffer = new int[0];
+    private int[] mGoldenPixels;
+    private int[] mScreenshotPixels;
+    private int mWidth;
+    private int mHeight;
+    private int mNumTiles;
+
+    /**
+     * Creates an engine with one worker per available processor.
+     */
+    public GVRImageDiff() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Creates an engine with a fixed number of workers.
+     * @param numWorkers number of worker threads, at least 1.
+     */
+    public GVRImageDiff(int numWorkers) {
+        if (numWorkers < 1) {
+            throw new IllegalArgumentException("numWorkers must be at least 1");
+        }
+        mWorkers = Executors.newFixedThreadPool(numWorkers, new WorkerFactory());
+        mPartialDiffs = new long[numWorkers];
+        mTasks = new ArrayList<DiffWorker>(numWorkers);
+        for (int i = 0; i < numWorkers; ++i) {
+            mTasks.add(new DiffWorker(i));
+        }
+    }
+
+    /**
+     * Returns the buffer the golden master pixels should be copied into. The buffer is
+     * reused by later comparisons, do not keep a reference to it.
+     * @param size number of pixels of the image.
+     */
+    public synchronized int[] getGoldenBuffer(int size) {
+        if (mGoldenBuffer.length < size) {
+            mGoldenBuffer = new int[size];
+        }
+        return mGoldenBuffer;
+    }
+
+    /**
+     * Returns the buffer the screenshot pixels should be copied into. The buffer is
+     * reused by later comparisons, do not keep a reference to it.
+     * @param size number of pixels of the image.
+     */
+    public synchronized int[] getScreenshotBuffer(int size) {
+        if (mScreenshotBuffer.length < size) {
+            mScreenshotBuffer = new int[size];
+        }
+        return mScreenshotBuffer;
+    }
+
+    /**
+     * Compares the contents of the buffers returned by {@link #getGoldenBuffer(int)}
+     * and {@link #getScreenshotBuffer(int)}.
+     * @param width  width of both images.
+     * @param height height of both images.
+     * @return the accumulated difference.
+     */
+    public synchronized float compare(int width, int height) throws InterruptedException {
+        return compare(mGoldenBuffer, mScreenshotBuffer, width, height);
+    }
+
+    /**
+     * Compares two images. Both buffers hold at least {@code width * height} ARGB pixels
+     * in row major order. On return the golden buffer holds the difference image.
+     * @param golden     pixels of the golden master, overwritten with the difference.
+     * @param screenshot pixels of the screenshot.
+     * @param width      width of both images.
+     * @param height     height of both images.
+     * @return the accumulated difference.
+     */
+    public synchronized float compare(int[] golden, int[] screenshot, int width, int height)
+            throws InterruptedException {
+        final int size = width * height;
+        if (golden.length < size || screenshot.length < size) {
+            throw new IllegalArgumentException("pixel buffers are smaller than " + width + "x" + height);
+        }
+
+        mGoldenPixels = golden;
+        mScreenshotPixels = screenshot;
+        mWidth = width;
+        mHeight = height;
+        mNumTiles = (height + TILE_ROWS - 1) / TILE_ROWS;
+        mNextTile.set(0);
+
+        try {
+            for (Future<Void> f : mWorkers.invokeAll(mTasks)) {
+                f.get();
+            }
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            mGoldenPixels = null;
+            mScreenshotPixels = null;
+        }
+
+        long total = 0;
+        for (long partial : mPartialDiffs) {
+            total += partial;
+        }
+        return total / 255.0f;
+    }
+
+    /**
+     * Compares two images on the calling thread. Produces the same result and
+     * difference image as {@link #compare(int[], int[], int, int)}.
+     * @param golden     pixels of the golden master, overwritten with the difference.
+     * @param screenshot pixels of the screenshot.
+     * @param size       number of pixels to compare.
+     * @return the accumulated difference.
+     */
+    public static float compareSingleThreaded(int[] golden, int[] screenshot, int size) {
+        return diffRange(golden, screenshot, 0, size) / 255.0f;
+    }
+
+    /**
+     * Returns true if a comparison with this difference should write a diff image.
+     */
+    public static boolean needsDiffImage(float diff) {
+        return diff > DIFF_IMAGE_THRESHOLD;
+    }
+
+    /**
+     * Returns true if a comparison with this difference passes.
+     */
+    public static boolean passes(float diff) {
+        return diff <= FAIL_THRESHOLD;
+    }
+
+    /**
+     * Stops the worker threads. The engine can not be used afterwards.
+     */
+    public void shutdown() {
+        mWorkers.shutdown();
+    }
+
+    private static long diffRange(int[] golden, int[] screenshot, int start, int end) {
+        long sum = 0;
+
+        for (int i = start; i < end; ++i) {
+            final int p1 = golden[i];
+            final int p2 = screenshot[i];
+            final int r = Math.abs(((p1 >> 16) & 0xFF) - ((p2 >> 16) & 0xFF));
+            final int g = Math.abs(((p1 >> 8) & 0xFF) - ((p2 >> 8) & 0xFF));
+            final int b = Math.abs((p1 & 0xFF) - (p2 & 0xFF));
+
+            golden[i] = 0xFF000000 | (r << 16) | (g << 8) | b;
+            sum += r + g + b;
+        }
+        return sum;
+    }
+
+    private final class DiffWorker implements Callable<Void> {
+        private final int mIndex;
+
+        DiffWorker(int index) {
+            mIndex = index;
+        }
+
+        @Override
+        public Void call() {
+            final int[] golden = mGoldenPixels;
+            final int[] screenshot = mScreenshotPixels;
+            final int width = mWidth;
+            final int height = mHeight;
+            final int numTiles = mNumTiles;
+            long sum = 0;
+
+            for (int tile = mNextTile.getAndIncrement(); tile < numTiles;
+                 tile = mNextTile.getAndIncrement()) {
+                final int start = tile * TILE_ROWS * width;
+                final int end = Math.min((tile + 1) * TILE_ROWS, height) * width;
+
+                sum += diffRange(golden, screenshot, start, end);
+            }
+            mPartialDiffs[mIndex] = sum;
+            return null;
+        }
+    }
+
+    private static final class WorkerFactory implements ThreadFactory {
+        private final AtomicInteger mCount = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, "GVRImageDiff-" + mCount.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        }
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright (c) 2016. Samsung Electronics Co., LTD
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf.imagediff;
+
+/**
+ * An image held as ARGB pixels in row major order.
+ * <p>
+ * This class is used on the device as well; {@link GVRPixelImageIO} reads and
+ * writes PNG files on the host.
+ */
+public final class GVRPixelImage {
+    private final int mWidth;
+    private final int mHeight;
+    private final int[] mPixels;
+
+    public GVRPixelImage(int width, int height, int[] pixels) {
+        if (pixels.length < width * height) {
+            throw new IllegalArgumentException("pixel buffer is smaller than " + width + "x" + height);
+        }
+        mWidth = width;
+        mHeight = height;
+        mPixels = pixels;
+    }
+
+    public int getWidth() {
+        return mWidth;
+    }
+
+    public int getHeight() {
+        return mHeight;
+    }
+
+    public int[] getPixels() {
+        return mPixels;
+    }
+
+    /**
+     * Returns a copy of the pixels, useful because comparisons overwrite the golden buffer.
+     */
+    public int[] copyPixels() {
+        return mPixels.clone();
+    }
+}
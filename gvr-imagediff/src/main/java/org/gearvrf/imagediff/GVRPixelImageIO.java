@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2016. Samsung Electronics Co., LTD
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf.imagediff;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+
+import javax.imageio.ImageIO;
+
+/**
+ * Reads and writes {@link GVRPixelImage}s as PNG files with {@code javax.imageio}.
+ * Only available on a host JVM, not on the device.
+ */
+public final class GVRPixelImageIO {
+    /**
+     * Host decoder for a {@link GVRGoldenMasterStore}.
+     */
+    public static final GVRGoldenMasterStore.Decoder HOST_DECODER =
+            new GVRGoldenMasterStore.Decoder() {
+                @Override
+                public GVRPixelImage decode(File file) throws IOException {
+                    return read(file);
+                }
+            };
+
+    private GVRPixelImageIO() {
+    }
+
+    /**
+     * Decodes a PNG file.
+     */
+    public static GVRPixelImage read(File file) throws IOException {
+        BufferedImage image = ImageIO.read(file);
+        if (image == null) {
+            throw new IOException("Cannot decode image " + file);
+        }
+        return fromBufferedImage(image);
+    }
+
+    /**
+     * Decodes a PNG stream. The stream is not closed.
+     */
+    public static GVRPixelImage read(InputStream stream) throws IOException {
+        BufferedImage image = ImageIO.read(stream);
+        if (image == null) {
+            throw new IOException("Cannot decode image stream");
+        }
+        return fromBufferedImage(image);
+    }
+
+    /**
+     * Encodes an image as a PNG file.
+     */
+    public static void write(GVRPixelImage image, File file) throws IOException {
+        final int width = image.getWidth();
+        final int height = image.getHeight();
+        BufferedImage buffered = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        buffered.setRGB(0, 0, width, height, image.getPixels(), 0, width);
+        if (!ImageIO.write(buffered, "png", file)) {
+            throw new IOException("No PNG writer available for " + file);
+        }
+    }
+
+    private static GVRPixelImage fromBufferedImage(BufferedImage image) {
+        final int width = image.getWidth();
+        final int height = image.getHeight();
+        final int[] pixels = image.getRGB(0, 0, width, height, null, 0, width);
+        return new GVRPixelImage(width, height, pixels);
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2016. Samsung Electronics Co., LTD
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf.imagediff;
+
+/**
+ * Compares the structural similarity (SSIM) of the luminance of both images.
+ * <p>
+ * The image is split into square tiles and the SSIM of every tile is computed from
+ * the tile means, variances and covariance. The score is {@code 1 - mean SSIM}, so it
+ * is 0 for identical images and grows as the structure of the images diverges. SSIM
+ * is much less sensitive to small intensity shifts than the summed difference.
+ * <p>
+ * The difference image shades every tile by its dissimilarity.
+ */
+public final class GVRSSIMComparator implements GVRImageComparator {
+    private static final double C1 = (0.01 * 255) * (0.01 * 255);
+    private static final double C2 = (0.03 * 255) * (0.03 * 255);
+
+    private final int mTileSize;
+    private final float mDiffImageThreshold;
+    private final float mFailThreshold;
+
+    /**
+     * @param tileSize           width and height of the tiles in pixels.
+     * @param diffImageThreshold dissimilarity above which the diff image is saved.
+     * @param failThreshold      dissimilarity above which the test fails.
+     */
+    public GVRSSIMComparator(int tileSize, float diffImageThreshold, float failThreshold) {
+        if (tileSize < 2) {
+            throw new IllegalArgumentException("tileSize must be at least 2");
+        }
+        mTileSize = tileSize;
+        mDiffImageThreshold = diffImageThreshold;
+        mFailThreshold = failThreshold;
+    }
+
+    @Override
+    public GVRCompareResult compare(int[] golden, int[] screenshot, int width, int height) {
+        double ssimSum = 0;
+        int numTiles = 0;
+
+        for (int ty = 0; ty < height; ty += mTileSize) {
+            final int yEnd = Math.min(ty + mTileSize, height);
+
+            for (int tx = 0; tx < width; tx += mTileSize) {
+                final int xEnd = Math.min(tx + mTileSize, width);
+                final double ssim = tileSSIM(golden, screenshot, width, tx, ty, xEnd, yEnd);
+                final int shade = (int) Math.round(Math.min(1.0, Math.max(0.0, 1.0 - ssim)) * 255);
+                final int color = 0xFF000000 | (shade << 16) | (shade << 8) | shade;
+
+                for (int y = ty; y < yEnd; ++y) {
+                    for (int x = tx; x < xEnd; ++x) {
+                        golden[y * width + x] = color;
+                    }
+                }
+                ssimSum += ssim;
+                ++numTiles;
+            }
+        }
+
+        float score = (numTiles == 0) ? 0.0f : (float) (1.0 - ssimSum / numTiles);
+        return new GVRCompareResult("ssim dissimilarity", score, mDiffImageThreshold,
+                                    mFailThreshold);
+    }
+
+    private static double tileSSIM(int[] golden, int[] screenshot, int width,
+                                   int x0, int y0, int x1, int y1) {
+        double sum1 = 0, sum2 = 0, sumSq1 = 0, sumSq2 = 0, sumProd = 0;
+        final int n = (x1 - x0) * (y1 - y0);
+
+        for (int y = y0; y < y1; ++y) {
+            for (int x = x0, i = y * width + x0; x < x1; ++x, ++i) {
+                final double l1 = luminance(golden[i]);
+                final double l2 = luminance(screenshot[i]);
+
+                sum1 += l1;
+                sum2 += l2;
+                sumSq1 += l1 * l1;
+                sumSq2 += l2 * l2;
+                sumProd += l1 * l2;
+            }
+        }
+
+        final double mean1 = sum1 / n;
+        final double mean2 = sum2 / n;
+        final double var1 = sumSq1 / n - mean1 * mean1;
+        final double var2 = sumSq2 / n - mean2 * mean2;
+        final double covar = sumProd / n - mean1 * mean2;
+
+        return ((2 * mean1 * mean2 + C1) * (2 * covar + C2))
+                / ((mean1 * mean1 + mean2 * mean2 + C1) * (var1 + var2 + C2));
+    }
+
+    private static double luminance(int pixel) {
+        return 0.299 * ((pixel >> 16) & 0xFF) + 0.587 * ((pixel >> 8) & 0xFF)
+                + 0.114 * (pixel & 0xFF);
+    }
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright (c) 2016. Samsung Electronics Co., LTD
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf.imagediff;
+
+/**
+ * Sums the absolute red, green and blue differences of all pixels using a
+ * {@link GVRImageDiff}. This is the original screenshot metric and the default of
+ * every category.
+ */
+public final class GVRSummedDiffComparator implements GVRImageComparator {
+    private final GVRImageDiff mEngine;
+    private final float mDiffImageThreshold;
+    private final float mFailThreshold;
+
+    /**
+     * Uses the thresholds of {@link GVRImageDiff}.
+     */
+    public GVRSummedDiffComparator(GVRImageDiff engine) {
+        this(engine, GVRImageDiff.DIFF_IMAGE_THRESHOLD, GVRImageDiff.FAIL_THRESHOLD);
+    }
+
+    public GVRSummedDiffComparator(GVRImageDiff engine, float diffImageThreshold,
+                                   float failThreshold) {
+        mEngine = engine;
+        mDiffImageThreshold = diffImageThreshold;
+        mFailThreshold = failThreshold;
+    }
+
+    @Override
+    public GVRCompareResult compare(int[] golden, int[] screenshot, int width, int height)
+            throws InterruptedException {
+        float diff = mEngine.compare(golden, screenshot, width, height);
+        return new GVRCompareResult("diff", diff, mDiffImageThreshold, mFailThreshold);
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2016. Samsung Electronics Co., LTD
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf.imagediff;
+
+/**
+ * Counts the pixels where any color channel differs by more than its tolerance.
+ * Small differences caused by dithering or a slightly different rasterizer are
+ * ignored entirely instead of adding up over the whole image.
+ * <p>
+ * The difference image is white where a pixel is out of band and black elsewhere.
+ */
+public final class GVRToleranceBandComparator implements GVRImageComparator {
+    private final int mRedTolerance;
+    private final int mGreenTolerance;
+    private final int mBlueTolerance;
+    private final float mDiffImageThreshold;
+    private final float mFailThreshold;
+
+    /**
+     * @param tolerance          allowed difference of every channel, 0 - 255.
+     * @param diffImageThreshold number of out of band pixels above which the diff
+     *                           image is saved.
+     * @param failThreshold      number of out of band pixels above which the test fails.
+     */
+    public GVRToleranceBandComparator(int tolerance, float diffImageThreshold,
+                                      float failThreshold) {
+        this(tolerance, tolerance, tolerance, diffImageThreshold, failThreshold);
+    }
+
+    public GVRToleranceBandComparator(int redTolerance, int greenTolerance, int blueTolerance,
+                                      float diffImageThreshold, float failThreshold) {
+        mRedTolerance = redTolerance;
+        mGreenTolerance = greenTolerance;
+        mBlueTolerance = blueTolerance;
+        mDiffImageThreshold = diffImageThreshold;
+        mFailThreshold = failThreshold;
+    }
+
+    @Override
+    public GVRCompareResult compare(int[] golden, int[] screenshot, int width, int height) {
+        final int size = width * height;
+        int outOfBand = 0;
+
+        for (int i = 0; i < size; ++i) {
+            final int p1 = golden[i];
+            final int p2 = screenshot[i];
+            final boolean out = (Math.abs(((p1 >> 16) & 0xFF) - ((p2 >> 16) & 0xFF)) > mRedTolerance)
+                    || (Math.abs(((p1 >> 8) & 0xFF) - ((p2 >> 8) & 0xFF)) > mGreenTolerance)
+                    || (Math.abs((p1 & 0xFF) - (p2 & 0xFF)) > mBlueTolerance);
+
+            if (out) {
+                ++outOfBand;
+                golden[i] = 0xFFFFFFFF;
+            } else {
+                golden[i] = 0xFF000000;
+            }
+        }
+        return new GVRCompareResult("out of band pixels", outOfBand, mDiffImageThreshold,
+                                    mFailThreshold);
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2016. Samsung Electronics Co., LTD
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf.imagediff;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class GVRGoldenMasterStoreTest
+{
+    private static final File GOLDEN_MASTERS =
+            new File(System.getProperty("gvrf.goldenMasters", "../golden_masters"));
+    private static final long MASTER_BYTES = 4L * 1024 * 1024;
+
+    private static class CountingDecoder implements GVRGoldenMasterStore.Decoder
+    {
+        int decoded = 0;
+
+        @Override
+        public GVRPixelImage decode(File file) throws IOException
+        {
+            ++decoded;
+            return GVRPixelImageIO.read(file);
+        }
+    }
+
+    @Test
+    public void resolvesRedirects() throws Exception
+    {
+        GVRGoldenMasterStore store = new GVRGoldenMasterStore(GOLDEN_MASTERS,
+                GVRPixelImageIO.HOST_DECODER, MASTER_BYTES);
+
+        assertTrue(store.exists());
+        assertEquals("S7Euro", store.resolveDeviceType("SM-G930F", "S7Edge"));
+        assertEquals("Note4", store.resolveDeviceType("SM-N910V", "S7Edge"));
+        assertEquals("Note4", store.resolveDeviceType("Note4", "S7Edge"));
+        assertEquals("S7Edge", store.resolveDeviceType("Unknown-Model", "S7Edge"));
+    }
+
+    @Test
+    public void sharesMastersWithIdenticalContent() throws Exception
+    {
+        CountingDecoder decoder = new CountingDecoder();
+        GVRGoldenMasterStore store = new GVRGoldenMasterStore(GOLDEN_MASTERS, decoder,
+                                                              4 * MASTER_BYTES);
+
+        GVRPixelImage note4 = store.getMaster("Note4", "TextureTests", "testSpecularTextureUnlit");
+        GVRPixelImage s7 = store.getMaster("S7Edge", "TextureTests", "testSpecularTextureUnlit");
+
+        assertSame(note4, s7);
+        assertEquals(1, decoder.decoded);
+        assertEquals(store.getContentHash(store.getFile("Note4", "TextureTests", "testSpecularTextureUnlit")),
+                     store.getContentHash(store.getFile("S7Euro", "TextureTests", "testSpecularTextureUnlit")));
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsed() throws Exception
+    {
+        CountingDecoder decoder = new CountingDecoder();
+        GVRGoldenMasterStore store = new GVRGoldenMasterStore(GOLDEN_MASTERS, decoder,
+                                                              2 * MASTER_BYTES);
+
+        GVRPixelImage deer = store.getMaster("S7Edge", "AssetImportTests", "jassimpDeerOBJ");
+        store.getMaster("S7Edge", "AssetImportTests", "x3dOpacity");
+        assertSame(deer, store.getMaster("S7Edge", "AssetImportTests", "jassimpDeerOBJ"));
+        assertEquals(2, decoder.decoded);
+
+        // x3dOpacity is now the least recently used master
+        store.getMaster("S7Edge", "AssetImportTests", "x3dTeapotTorus");
+        assertEquals(2, store.getCachedCount());
+        assertTrue(store.getCachedBytes() <= 2 * MASTER_BYTES);
+        assertSame(deer, store.getMaster("S7Edge", "AssetImportTests", "jassimpDeerOBJ"));
+        assertEquals(3, decoder.decoded);
+
+        GVRPixelImage opacity = store.getMaster("S7Edge", "AssetImportTests", "x3dOpacity");
+        assertEquals(4, decoder.decoded);
+        assertNotSame(deer, opacity);
+    }
+
+    @Test
+    public void indexesWholeTree() throws Exception
+    {
+        GVRGoldenMasterStore store = new GVRGoldenMasterStore(GOLDEN_MASTERS,
+                GVRPixelImageIO.HOST_DECODER, MASTER_BYTES);
+
+        assertTrue(store.indexAll() > 500);
+        assertEquals(0, store.getCachedCount());
+    }
+
+    @Test(expected = FileNotFoundException.class)
+    public void missingMaster() throws Exception
+    {
+        new GVRGoldenMasterStore(GOLDEN_MASTERS, GVRPixelImageIO.HOST_DECODER, MASTER_BYTES)
+                .getMaster("S7Edge", "RenderTests", "noSuchTest");
+    }
+}
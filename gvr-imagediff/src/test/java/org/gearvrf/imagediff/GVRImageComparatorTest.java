@@ -0,0 +1,170 @@
+/*
+ * Copyright (c) 2016. Samsung Electronics Co., LTD
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf.imagediff;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class GVRImageComparatorTest
+{
+    private static final File GOLDEN_MASTERS =
+            new File(System.getProperty("gvrf.goldenMasters", "../golden_masters"));
+    private static final int WIDTH = 64;
+    private static final int HEIGHT = 48;
+
+    private static int[] solid(int color)
+    {
+        int[] pixels = new int[WIDTH * HEIGHT];
+        java.util.Arrays.fill(pixels, color);
+        return pixels;
+    }
+
+    private static int[] withNoise(int[] pixels, int delta, int count)
+    {
+        int[] noisy = pixels.clone();
+        java.util.Random random = new java.util.Random(42);
+        for (int i = 0; i < count; ++i)
+        {
+            // every other pixel on even rows so no two noisy pixels touch
+            int x = 2 * random.nextInt(WIDTH / 2);
+            int y = 2 * random.nextInt(HEIGHT / 2);
+            int p = pixels[y * WIDTH + x];
+            noisy[y * WIDTH + x] = (p & 0xFFFFFF00) | Math.min(255, (p & 0xFF) + delta);
+        }
+        return noisy;
+    }
+
+    private static int[] withBlock(int[] pixels, int x0, int y0, int size, int color)
+    {
+        int[] block = pixels.clone();
+        for (int y = y0; y < y0 + size; ++y)
+        {
+            for (int x = x0; x < x0 + size; ++x)
+            {
+                block[y * WIDTH + x] = color;
+            }
+        }
+        return block;
+    }
+
+    private static GVRPixelImage readMaster(String device, String name) throws IOException
+    {
+        return GVRPixelImageIO.read(new File(GOLDEN_MASTERS, device + "/" + name + ".png"));
+    }
+
+    @Test
+    public void toleranceBandIgnoresSmallDeltas() throws Exception
+    {
+        int[] golden = solid(0xFF808080);
+        GVRImageComparator band = new GVRToleranceBandComparator(8, 0, 10);
+
+        GVRCompareResult small = band.compare(golden.clone(), withNoise(golden, 8, 200), WIDTH, HEIGHT);
+        assertEquals(0.0f, small.getScore(), 0.0f);
+        assertTrue(small.passed());
+
+        GVRCompareResult large = band.compare(golden.clone(), withBlock(golden, 0, 0, 4, 0xFF000000),
+                                              WIDTH, HEIGHT);
+        assertEquals(16.0f, large.getScore(), 0.0f);
+        assertTrue(large.needsDiffImage());
+        assertFalse(large.passed());
+    }
+
+    @Test
+    public void perChannelToleranceBand() throws Exception
+    {
+        int[] golden = solid(0xFF808080);
+        int[] shifted = solid(0xFF908080);
+
+        assertEquals(0.0f, new GVRToleranceBandComparator(16, 0, 0, 0, 0)
+                .compare(golden.clone(), shifted, WIDTH, HEIGHT).getScore(), 0.0f);
+        assertEquals(WIDTH * HEIGHT, new GVRToleranceBandComparator(0, 16, 16, 0, 0)
+                .compare(golden.clone(), shifted, WIDTH, HEIGHT).getScore(), 0.0f);
+    }
+
+    @Test
+    public void clusterIgnoresIsolatedNoise() throws Exception
+    {
+        int[] golden = solid(0xFF404040);
+        int[] noisy = withBlock(withNoise(golden, 100, 300), 10, 20, 5, 0xFFFFFFFF);
+        int[] diffImage = golden.clone();
+        GVRImageComparator cluster = new GVRClusterComparator(16, 4, 10);
+
+        GVRCompareResult result = cluster.compare(diffImage, noisy, WIDTH, HEIGHT);
+        assertEquals(25.0f, result.getScore(), 0.0f);
+        assertFalse(result.passed());
+        assertEquals(0xFFFF0000, diffImage[22 * WIDTH + 12]);
+
+        result = cluster.compare(golden.clone(), withNoise(golden, 100, 300), WIDTH, HEIGHT);
+        assertEquals(1.0f, result.getScore(), 0.0f);
+        assertTrue(result.passed());
+    }
+
+    @Test
+    public void ssimOfIdenticalImagesIsZero() throws Exception
+    {
+        GVRPixelImage golden = readMaster("S7Edge", "AssetImportTests/jassimpDeerOBJ");
+        GVRCompareResult result = new GVRSSIMComparator(8, 0.01f, 0.1f)
+                .compare(golden.copyPixels(), golden.getPixels(), golden.getWidth(), golden.getHeight());
+
+        assertEquals(0.0f, result.getScore(), 1e-6f);
+        assertTrue(result.passed());
+        assertFalse(result.needsDiffImage());
+    }
+
+    @Test
+    public void ssimToleratesIntensityShift() throws Exception
+    {
+        int[] golden = withBlock(solid(0xFF202020), 8, 8, 16, 0xFFC0C0C0);
+        int[] brighter = withBlock(solid(0xFF242424), 8, 8, 16, 0xFFC4C4C4);
+        int[] missing = solid(0xFF202020);
+        GVRImageComparator ssim = new GVRSSIMComparator(8, 0.01f, 0.05f);
+
+        assertTrue(ssim.compare(golden.clone(), brighter, WIDTH, HEIGHT).passed());
+        assertFalse(ssim.compare(golden.clone(), missing, WIDTH, HEIGHT).passed());
+    }
+
+    @Test
+    public void categoriesSelectTheirComparator()
+    {
+        GVRImageComparator cluster = new GVRClusterComparator(16, 50, 400);
+
+        assertTrue(GVRImageComparators.forCategory("ComparatorTest") instanceof GVRSummedDiffComparator);
+        GVRImageComparators.register("ComparatorTest", cluster);
+        assertSame(cluster, GVRImageComparators.forCategory("ComparatorTest"));
+        GVRImageComparators.unregister("ComparatorTest");
+        assertTrue(GVRImageComparators.forCategory("ComparatorTest") instanceof GVRSummedDiffComparator);
+    }
+
+    @Test
+    public void summedDiffKeepsOriginalThresholds() throws Exception
+    {
+        int[] golden = solid(0xFF000000);
+        GVRImageComparator summed = new GVRSummedDiffComparator(GVRImageComparators.getSharedEngine());
+
+        // 255 * 3 / 255 = 3 per pixel
+        GVRCompareResult result = summed.compare(golden.clone(), solid(0xFFFFFFFF), WIDTH, HEIGHT);
+        assertEquals(3.0f * WIDTH * HEIGHT, result.getScore(), 0.0f);
+        assertTrue(result.needsDiffImage());
+        assertTrue(result.passed());
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2016. Samsung Electronics Co., LTD
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf.imagediff;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class GVRImageDiffTest
+{
+    private static final File GOLDEN_MASTERS =
+            new File(System.getProperty("gvrf.goldenMasters", "../golden_masters"));
+    private static GVRImageDiff sDiff;
+
+    @BeforeClass
+    public static void setUp()
+    {
+        sDiff = new GVRImageDiff(4);
+    }
+
+    @AfterClass
+    public static void tearDown()
+    {
+        sDiff.shutdown();
+    }
+
+    private static GVRPixelImage readMaster(String device, String category, String test)
+            throws IOException
+    {
+        return GVRPixelImageIO.read(new File(GOLDEN_MASTERS, device + "/" + category + "/" + test + ".png"));
+    }
+
+    @Test
+    public void identicalImagesHaveNoDifference() throws Exception
+    {
+        GVRPixelImage golden = readMaster("S7Edge", "RenderTests", "testBlendFunc");
+        int[] pixels = golden.copyPixels();
+
+        float diff = sDiff.compare(pixels, golden.getPixels(), golden.getWidth(), golden.getHeight());
+        assertEquals(0.0f, diff, 0.0f);
+        assertTrue(GVRImageDiff.passes(diff));
+        assertFalse(GVRImageDiff.needsDiffImage(diff));
+    }
+
+    @Test
+    public void singlePixelDifference() throws Exception
+    {
+        final int width = 37;
+        final int height = 53;
+        int[] golden = new int[width * height];
+        int[] screenshot = new int[width * height];
+
+        golden[width * 40 + 3] = 0xFF102030;
+        screenshot[width * 40 + 3] = 0xFF403020;
+
+        float diff = sDiff.compare(golden, screenshot, width, height);
+        assertEquals((0x30 + 0x10 + 0x10) / 255.0f, diff, 1e-6f);
+        assertEquals(0xFF301010, golden[width * 40 + 3]);
+        assertEquals(0xFF000000, golden[0]);
+    }
+
+    @Test
+    public void matchesSingleThreadedReference() throws Exception
+    {
+        GVRPixelImage s7 = readMaster("S7Edge", "AssetImportTests", "jassimpDeerOBJ");
+        GVRPixelImage note4 = readMaster("Note4", "AssetImportTests", "jassimpDeerOBJ");
+        int[] parallelPixels = s7.copyPixels();
+        int[] serialPixels = s7.copyPixels();
+        int size = s7.getWidth() * s7.getHeight();
+
+        float parallel = sDiff.compare(parallelPixels, note4.getPixels(), s7.getWidth(), s7.getHeight());
+        float serial = GVRImageDiff.compareSingleThreaded(serialPixels, note4.getPixels(), size);
+
+        assertEquals(serial, parallel, 0.0f);
+        assertArrayEquals(serialPixels, parallelPixels);
+    }
+
+    @Test
+    public void reusesOwnBuffers() throws Exception
+    {
+        GVRPixelImage golden = readMaster("S7Edge", "AssetImportTests", "x3dOpacity");
+        GVRPixelImage other = readMaster("Note4", "AssetImportTests", "x3dOpacity");
+        int size = golden.getWidth() * golden.getHeight();
+
+        int[] goldenBuffer = sDiff.getGoldenBuffer(size);
+        int[] screenshotBuffer = sDiff.getScreenshotBuffer(size);
+        System.arraycopy(golden.getPixels(), 0, goldenBuffer, 0, size);
+        System.arraycopy(other.getPixels(), 0, screenshotBuffer, 0, size);
+        float first = sDiff.compare(golden.getWidth(), golden.getHeight());
+
+        assertTrue(goldenBuffer == sDiff.getGoldenBuffer(size));
+        assertTrue(screenshotBuffer == sDiff.getScreenshotBuffer(size / 2));
+
+        System.arraycopy(golden.getPixels(), 0, goldenBuffer, 0, size);
+        assertEquals(first, sDiff.compare(golden.getWidth(), golden.getHeight()), 0.0f);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsShortBuffers() throws Exception
+    {
+        sDiff.compare(new int[10], new int[10], 4, 4);
+    }
+}
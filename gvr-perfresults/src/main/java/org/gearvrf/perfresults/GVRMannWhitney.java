@@ -0,0 +1,163 @@
+/*
+ * Copyright (c) 2016. Samsung Electronics Co., LTD
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf.perfresults;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Mann-Whitney U test of two independent samples.
+ * <p>
+ * The test does not assume a distribution, which suits frame times with their long
+ * tail of slow frames. The p-value uses the normal approximation with tie correction
+ * and is only meaningful for samples of more than about 20 values each.
+ */
+public final class GVRMannWhitney {
+    private final double mU;
+    private final double mZ;
+    private final double mProbabilityGreater;
+    private final double mPValueGreater;
+    private final double mPValueLess;
+
+    private GVRMannWhitney(double u, double z, double probabilityGreater) {
+        mU = u;
+        mZ = z;
+        mProbabilityGreater = probabilityGreater;
+        mPValueGreater = 1.0 - normalCdf(z);
+        mPValueLess = normalCdf(z);
+    }
+
+    /**
+     * Compares sample {@code a} with sample {@code b}.
+     */
+    public static GVRMannWhitney test(float[] a, float[] b) {
+        final int n1 = a.length;
+        final int n2 = b.length;
+        if (n1 == 0 || n2 == 0) {
+            throw new IllegalArgumentException("both samples need at least one value");
+        }
+
+        // rank the pooled values, remembering which sample each one came from
+        final int n = n1 + n2;
+        final double[] values = new double[n];
+        final boolean[] fromA = new boolean[n];
+        Integer[] order = new Integer[n];
+        for (int i = 0; i < n1; ++i) {
+            values[i] = a[i];
+            fromA[i] = true;
+        }
+        for (int i = 0; i < n2; ++i) {
+            values[n1 + i] = b[i];
+        }
+        for (int i = 0; i < n; ++i) {
+            order[i] = i;
+        }
+        Arrays.sort(order, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer x, Integer y) {
+                return Double.compare(values[x], values[y]);
+            }
+        });
+
+        double rankSumA = 0.0;
+        double tieCorrection = 0.0;
+        for (int i = 0; i < n; ) {
+            int j = i + 1;
+            while (j < n && values[order[j]] == values[order[i]]) {
+                ++j;
+            }
+            // values i..j-1 are tied and share the average rank
+            final double rank = (i + 1 + j) / 2.0;
+            final int ties = j - i;
+            for (int k = i; k < j; ++k) {
+                if (fromA[order[k]]) {
+                    rankSumA += rank;
+                }
+            }
+            tieCorrection += (double) ties * ties * ties - ties;
+            i = j;
+        }
+
+        final double u = rankSumA - n1 * (n1 + 1) / 2.0;
+        final double mean = n1 * (double) n2 / 2.0;
+        final double variance = n1 * (double) n2 / 12.0
+                                * ((n + 1) - tieCorrection / ((double) n * (n - 1)));
+        double z = 0.0;
+        if (variance > 0.0) {
+            // continuity correction towards the mean
+            final double delta = u - mean;
+            z = (delta - Math.signum(delta) * 0.5) / Math.sqrt(variance);
+        }
+        return new GVRMannWhitney(u, z, u / (n1 * (double) n2));
+    }
+
+    /**
+     * The U statistic of the first sample.
+     */
+    public double getU() {
+        return mU;
+    }
+
+    public double getZ() {
+        return mZ;
+    }
+
+    /**
+     * Probability that a random value of the first sample is greater than a random
+     * value of the second one, ties counting half. 0.5 means no difference.
+     */
+    public double getProbabilityGreater() {
+        return mProbabilityGreater;
+    }
+
+    /**
+     * One sided p-value for the first sample tending to larger values.
+     */
+    public double getPValueGreater() {
+        return mPValueGreater;
+    }
+
+    /**
+     * One sided p-value for the first sample tending to smaller values.
+     */
+    public double getPValueLess() {
+        return mPValueLess;
+    }
+
+    /**
+     * Two sided p-value.
+     */
+    public double getPValue() {
+        return Math.min(1.0, 2.0 * Math.min(mPValueGreater, mPValueLess));
+    }
+
+    static double normalCdf(double z) {
+        return 0.5 * erfc(-z / Math.sqrt(2.0));
+    }
+
+    /**
+     * Complementary error function with a fractional error below 1.2e-7
+     * (Numerical Recipes, erfcc).
+     */
+    static double erfc(double x) {
+        final double z = Math.abs(x);
+        final double t = 1.0 / (1.0 + 0.5 * z);
+        final double r = t * Math.exp(-z * z - 1.26551223 + t * (1.00002368 + t * (0.37409196
+                + t * (0.09678418 + t * (-0.18628806 + t * (0.27886807 + t * (-1.13520398
+                + t * (1.48851587 + t * (-0.82215223 + t * 0.17087277)))))))));
+        return (x >= 0.0) ? r : 2.0 - r;
+    }
+}
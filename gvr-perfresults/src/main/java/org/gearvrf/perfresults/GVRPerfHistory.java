@@ -0,0 +1,291 @@
+/*
+ * Copyright (c) 2016. Samsung Electronics Co., LTD
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf.perfresults;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The benchmark results of many runs, stored column by column.
+ * <p>
+ * Runs and benchmark names are kept once in tables; each series of samples is a row
+ * of three int columns (run, benchmark, sample count) and the samples of all series
+ * are one float column. The file is a {@link DataOutputStream} of these tables and
+ * columns, which keeps years of results small and fast to load.
+ */
+public final class GVRPerfHistory {
+    private static final int MAGIC = 0x47565250; // "GVRP"
+    private static final int VERSION = 1;
+
+    private final List<GVRPerfRun> mRuns = new ArrayList<GVRPerfRun>();
+    private final Map<GVRPerfRun, Integer> mRunIndex = new HashMap<GVRPerfRun, Integer>();
+    private final List<String> mBenchmarks = new ArrayList<String>();
+    private final List<String> mUnits = new ArrayList<String>();
+    private final List<Boolean> mLowerIsBetter = new ArrayList<Boolean>();
+    private final Map<String, Integer> mBenchmarkIndex = new HashMap<String, Integer>();
+    private final Map<Long, Integer> mSeriesIndex = new HashMap<Long, Integer>();
+
+    private int mNumSeries = 0;
+    private int[] mSeriesRun = new int[64];
+    private int[] mSeriesBenchmark = new int[64];
+    private int[] mSeriesCount = new int[64];
+    private int[] mSeriesOffset = new int[64];
+    private int mNumValues = 0;
+    private float[] mValues = new float[4096];
+
+    /**
+     * Adds the samples of a record. A record for a run and benchmark already in the
+     * history is ignored, so merging the same results twice does no harm.
+     * @return true if the record was added.
+     */
+    public boolean add(GVRPerfRecord record) {
+        final int run = indexOfRun(record.getRun());
+        final int benchmark = indexOfBenchmark(record.getBenchmark(), record.getUnit(),
+                                               record.isLowerBetter());
+        final Long key = seriesKey(run, benchmark);
+
+        if (mSeriesIndex.containsKey(key)) {
+            return false;
+        }
+        addSeries(run, benchmark, record.getSamples(), 0, record.getSamples().length);
+        return true;
+    }
+
+    /**
+     * Returns all runs in the order they were added.
+     */
+    public List<GVRPerfRun> getRuns() {
+        return Collections.unmodifiableList(mRuns);
+    }
+
+    /**
+     * Returns the runs of a device model ordered by run id.
+     */
+    public List<GVRPerfRun> getRuns(String model) {
+        List<GVRPerfRun> runs = new ArrayList<GVRPerfRun>();
+        for (GVRPerfRun run : mRuns) {
+            if (run.getModel().equals(model)) {
+                runs.add(run);
+            }
+        }
+        Collections.sort(runs, new Comparator<GVRPerfRun>() {
+            @Override
+            public int compare(GVRPerfRun a, GVRPerfRun b) {
+                return a.getId().compareTo(b.getId());
+            }
+        });
+        return runs;
+    }
+
+    public List<String> getBenchmarks() {
+        return Collections.unmodifiableList(mBenchmarks);
+    }
+
+    public String getUnit(String benchmark) {
+        Integer index = mBenchmarkIndex.get(benchmark);
+        return (index != null) ? mUnits.get(index) : null;
+    }
+
+    public boolean isLowerBetter(String benchmark) {
+        Integer index = mBenchmarkIndex.get(benchmark);
+        return (index == null) || mLowerIsBetter.get(index);
+    }
+
+    /**
+     * Returns the samples of a benchmark in a run or null if it was not measured.
+     */
+    public float[] getSamples(GVRPerfRun run, String benchmark) {
+        Integer r = mRunIndex.get(run);
+        Integer b = mBenchmarkIndex.get(benchmark);
+        if (r == null || b == null) {
+            return null;
+        }
+        Integer series = mSeriesIndex.get(seriesKey(r, b));
+        if (series == null) {
+            return null;
+        }
+        final int offset = mSeriesOffset[series];
+        return Arrays.copyOfRange(mValues, offset, offset + mSeriesCount[series]);
+    }
+
+    public int getSeriesCount() {
+        return mNumSeries;
+    }
+
+    public int getSampleCount() {
+        return mNumValues;
+    }
+
+    public void write(File file) throws IOException {
+        File tmp = new File(file.getPath() + ".tmp");
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)));
+        try {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(mRuns.size());
+            for (GVRPerfRun run : mRuns) {
+                out.writeUTF(run.getId());
+                out.writeUTF(run.getModel());
+                out.writeUTF(run.getFingerprint());
+                out.writeUTF(run.getGearVRfCommit());
+                out.writeUTF(run.getTestsCommit());
+            }
+            out.writeInt(mBenchmarks.size());
+            for (int i = 0; i < mBenchmarks.size(); ++i) {
+                out.writeUTF(mBenchmarks.get(i));
+                out.writeUTF(mUnits.get(i));
+                out.writeBoolean(mLowerIsBetter.get(i));
+            }
+            out.writeInt(mNumSeries);
+            writeColumn(out, mSeriesRun, mNumSeries);
+            writeColumn(out, mSeriesBenchmark, mNumSeries);
+            writeColumn(out, mSeriesCount, mNumSeries);
+            out.writeInt(mNumValues);
+            for (int i = 0; i < mNumValues; ++i) {
+                out.writeFloat(mValues[i]);
+            }
+        } finally {
+            out.close();
+        }
+        if (file.exists() && !file.delete()) {
+            throw new IOException("Cannot replace " + file);
+        }
+        if (!tmp.renameTo(file)) {
+            throw new IOException("Cannot rename " + tmp + " to " + file);
+        }
+    }
+
+    /**
+     * Reads a history file, a missing file is an empty history.
+     */
+    public static GVRPerfHistory read(File file) throws IOException {
+        GVRPerfHistory history = new GVRPerfHistory();
+        if (!file.exists()) {
+            return history;
+        }
+
+        DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+        try {
+            if (in.readInt() != MAGIC) {
+                throw new IOException(file + " is not a benchmark history file");
+            }
+            int version = in.readInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported history version " + version + " in " + file);
+            }
+            int numRuns = in.readInt();
+            for (int i = 0; i < numRuns; ++i) {
+                history.indexOfRun(new GVRPerfRun(in.readUTF(), in.readUTF(), in.readUTF(),
+                                                  in.readUTF(), in.readUTF()));
+            }
+            int numBenchmarks = in.readInt();
+            for (int i = 0; i < numBenchmarks; ++i) {
+                history.indexOfBenchmark(in.readUTF(), in.readUTF(), in.readBoolean());
+            }
+            int numSeries = in.readInt();
+            int[] runs = readColumn(in, numSeries);
+            int[] benchmarks = readColumn(in, numSeries);
+            int[] counts = readColumn(in, numSeries);
+            float[] values = new float[in.readInt()];
+            for (int i = 0; i < values.length; ++i) {
+                values[i] = in.readFloat();
+            }
+
+            int offset = 0;
+            for (int i = 0; i < numSeries; ++i) {
+                history.addSeries(runs[i], benchmarks[i], values, offset, counts[i]);
+                offset += counts[i];
+            }
+        } finally {
+            in.close();
+        }
+        return history;
+    }
+
+    private int indexOfRun(GVRPerfRun run) {
+        Integer index = mRunIndex.get(run);
+        if (index == null) {
+            index = mRuns.size();
+            mRuns.add(run);
+            mRunIndex.put(run, index);
+        }
+        return index;
+    }
+
+    private int indexOfBenchmark(String name, String unit, boolean lowerIsBetter) {
+        Integer index = mBenchmarkIndex.get(name);
+        if (index == null) {
+            index = mBenchmarks.size();
+            mBenchmarks.add(name);
+            mUnits.add(unit);
+            mLowerIsBetter.add(lowerIsBetter);
+            mBenchmarkIndex.put(name, index);
+        }
+        return index;
+    }
+
+    private void addSeries(int run, int benchmark, float[] values, int offset, int count) {
+        if (mNumSeries == mSeriesRun.length) {
+            final int capacity = mNumSeries * 2;
+            mSeriesRun = Arrays.copyOf(mSeriesRun, capacity);
+            mSeriesBenchmark = Arrays.copyOf(mSeriesBenchmark, capacity);
+            mSeriesCount = Arrays.copyOf(mSeriesCount, capacity);
+            mSeriesOffset = Arrays.copyOf(mSeriesOffset, capacity);
+        }
+        if (mNumValues + count > mValues.length) {
+            mValues = Arrays.copyOf(mValues, Math.max(mValues.length * 2, mNumValues + count));
+        }
+        System.arraycopy(values, offset, mValues, mNumValues, count);
+        mSeriesRun[mNumSeries] = run;
+        mSeriesBenchmark[mNumSeries] = benchmark;
+        mSeriesCount[mNumSeries] = count;
+        mSeriesOffset[mNumSeries] = mNumValues;
+        mSeriesIndex.put(seriesKey(run, benchmark), mNumSeries);
+        ++mNumSeries;
+        mNumValues += count;
+    }
+
+    private static Long seriesKey(int run, int benchmark) {
+        return ((long) run << 32) | (benchmark & 0xFFFFFFFFL);
+    }
+
+    private static void writeColumn(DataOutputStream out, int[] column, int count) throws IOException {
+        for (int i = 0; i < count; ++i) {
+            out.writeInt(column[i]);
+        }
+    }
+
+    private static int[] readColumn(DataInputStream in, int count) throws IOException {
+        int[] column = new int[count];
+        for (int i = 0; i < count; ++i) {
+            column[i] = in.readInt();
+        }
+        return column;
+    }
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright (c) 2016. Samsung Electronics Co., LTD
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf.perfresults;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Host command line tool for benchmark results pulled from the devices.
+ * <pre>
+ * merge &lt;history&gt; &lt;file or directory&gt;...
+ *     adds every results.csv found below the arguments to the history file.
+ *     Commits missing from a record are taken from the GearVRf.branch and
+ *     GearVRf-Tests.branch files scripts/runtest writes next to the results.
+ * check &lt;history&gt; [-alpha a] [-window n] [-threshold percent]
+ *     compares the latest run of every device with the previous runs and exits
+ *     with status 1 if a benchmark regressed, or 2 if an option is invalid.
+ * list &lt;history&gt;
+ *     prints the runs and benchmarks in the history.
+ * </pre>
+ */
+public final class GVRPerfHistoryTool {
+    public static final String RESULTS_FILE = "results.csv";
+
+    private static final double DEFAULT_ALPHA = 0.01;
+    private static final int DEFAULT_WINDOW = 5;
+    private static final float DEFAULT_THRESHOLD = 5.0f;
+
+    private GVRPerfHistoryTool() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            usage();
+            return;
+        }
+
+        final File historyFile = new File(args[1]);
+        final GVRPerfHistory history = GVRPerfHistory.read(historyFile);
+
+        if ("merge".equals(args[0])) {
+            int added = 0;
+            for (int i = 2; i < args.length; ++i) {
+                added += merge(history, new File(args[i]));
+            }
+            history.write(historyFile);
+            System.out.println("Added " + added + " series, " + history.getRuns().size()
+                               + " runs and " + history.getSeriesCount() + " series in "
+                               + historyFile);
+        } else if ("check".equals(args[0])) {
+            double alpha = DEFAULT_ALPHA;
+            int window = DEFAULT_WINDOW;
+            float threshold = DEFAULT_THRESHOLD;
+
+            for (int i = 2; i < args.length; i += 2) {
+                if (i + 1 == args.length) {
+                    System.err.println("missing value for " + args[i]);
+                    usage();
+                    System.exit(2);
+                }
+                if ("-alpha".equals(args[i])) {
+                    alpha = Double.parseDouble(args[i + 1]);
+                } else if ("-window".equals(args[i])) {
+                    window = Integer.parseInt(args[i + 1]);
+                } else if ("-threshold".equals(args[i])) {
+                    threshold = Float.parseFloat(args[i + 1]);
+                } else {
+                    System.err.println("unknown option " + args[i]);
+                    usage();
+                    System.exit(2);
+                }
+            }
+
+            GVRRegressionDetector detector = new GVRRegressionDetector(alpha, window,
+                                                                       threshold / 100.0f);
+            boolean regressed = false;
+            for (GVRRegressionDetector.Finding finding : detector.check(history)) {
+                System.out.println(finding);
+                regressed |= (finding.verdict == GVRRegressionDetector.Verdict.REGRESSION);
+            }
+            if (regressed) {
+                System.exit(1);
+            }
+        } else if ("list".equals(args[0])) {
+            for (GVRPerfRun run : history.getRuns()) {
+                System.out.println("run " + run + " " + run.getFingerprint());
+            }
+            for (String benchmark : history.getBenchmarks()) {
+                System.out.println("benchmark " + benchmark + " [" + history.getUnit(benchmark) + "]");
+            }
+        } else {
+            usage();
+        }
+    }
+
+    /**
+     * Adds all results files found at or below a path to the history.
+     * @return number of series added.
+     */
+    public static int merge(GVRPerfHistory history, File path) throws IOException {
+        List<File> files = new ArrayList<File>();
+        collect(path, files);
+
+        int added = 0;
+        for (File file : files) {
+            String gearVRfCommit = findCommit(file.getParentFile(), "GearVRf.branch");
+            String testsCommit = findCommit(file.getParentFile(), "GearVRf-Tests.branch");
+            BufferedReader reader = new BufferedReader(new FileReader(file));
+            try {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.isEmpty() || line.startsWith(GVRPerfRecord.CSV_HEADER)) {
+                        continue;
+                    }
+                    GVRPerfRecord record = GVRPerfRecord.fromCsv(line);
+                    GVRPerfRun run = record.getRun().withCommits(gearVRfCommit, testsCommit);
+                    if (history.add(new GVRPerfRecord(run, record.getBenchmark(), record.getUnit(),
+                                                      record.isLowerBetter(), record.getSamples()))) {
+                        ++added;
+                    }
+                }
+            } finally {
+                reader.close();
+            }
+        }
+        return added;
+    }
+
+    private static void collect(File path, List<File> files) {
+        if (path.isDirectory()) {
+            File[] children = path.listFiles();
+            if (children != null) {
+                for (File child : children) {
+                    collect(child, files);
+                }
+            }
+        } else if (path.getName().equals(RESULTS_FILE)) {
+            files.add(path);
+        }
+    }
+
+    /**
+     * Looks for the output of "git show" written by scripts/runtest in the directory
+     * and its parents and returns the commit hash, or an empty string.
+     */
+    private static String findCommit(File dir, String name) throws IOException {
+        for (; dir != null; dir = dir.getParentFile()) {
+            File file = new File(dir, name);
+            if (!file.isFile()) {
+                continue;
+            }
+            BufferedReader reader = new BufferedReader(new FileReader(file));
+            try {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.startsWith("commit ")) {
+                        return line.substring(7).trim();
+                    }
+                }
+            } finally {
+                reader.close();
+            }
+        }
+        return "";
+    }
+
+    private static void usage() {
+        System.err.println("usage: merge <history> <file or directory>...");
+        System.err.println("       check <history> [-alpha a] [-window n] [-threshold percent]");
+        System.err.println("       list <history>");
+    }
+}
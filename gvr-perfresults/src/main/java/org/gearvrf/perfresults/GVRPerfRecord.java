@@ -0,0 +1,183 @@
+/*
+ * Copyright (c) 2016. Samsung Electronics Co., LTD
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf.perfresults;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * The samples of one benchmark measured in one test run.
+ * <p>
+ * A run is identified by the run id, the device model, the build fingerprint and the
+ * GearVRf commit. Records are stored one per line, either as CSV for the history
+ * tool or as JSON for anything else reading the results:
+ * <pre>
+ * run,model,fingerprint,gearvrf_commit,tests_commit,benchmark,unit,better,count,samples
+ * </pre>
+ * The samples column holds all values separated by ';'.
+ */
+public final class GVRPerfRecord {
+    public static final String CSV_HEADER =
+            "run,model,fingerprint,gearvrf_commit,tests_commit,benchmark,unit,better,count,samples";
+
+    private static final int NUM_COLUMNS = 10;
+
+    private final GVRPerfRun mRun;
+    private final String mBenchmark;
+    private final String mUnit;
+    private final boolean mLowerIsBetter;
+    private final float[] mSamples;
+
+    /**
+     * @param run           the run the samples were measured in.
+     * @param benchmark     benchmark name, usually "$category$.$test$".
+     * @param unit          unit of the samples, e.g. "ms".
+     * @param lowerIsBetter true if smaller samples are better, as for frame times.
+     * @param samples       the measured values.
+     */
+    public GVRPerfRecord(GVRPerfRun run, String benchmark, String unit, boolean lowerIsBetter,
+                         float[] samples) {
+        mRun = run;
+        mBenchmark = GVRPerfRun.clean(benchmark);
+        mUnit = GVRPerfRun.clean(unit);
+        mLowerIsBetter = lowerIsBetter;
+        mSamples = samples;
+    }
+
+    public GVRPerfRun getRun() {
+        return mRun;
+    }
+
+    public String getBenchmark() {
+        return mBenchmark;
+    }
+
+    public String getUnit() {
+        return mUnit;
+    }
+
+    public boolean isLowerBetter() {
+        return mLowerIsBetter;
+    }
+
+    public float[] getSamples() {
+        return mSamples;
+    }
+
+    /**
+     * Returns the record as a CSV line without the line terminator.
+     */
+    public String toCsv() {
+        StringBuilder sb = new StringBuilder(64 + mSamples.length * 8);
+
+        sb.append(mRun.getId()).append(',')
+          .append(mRun.getModel()).append(',')
+          .append(mRun.getFingerprint()).append(',')
+          .append(mRun.getGearVRfCommit()).append(',')
+          .append(mRun.getTestsCommit()).append(',')
+          .append(mBenchmark).append(',')
+          .append(mUnit).append(',')
+          .append(mLowerIsBetter ? "lower" : "higher").append(',')
+          .append(mSamples.length).append(',');
+        for (int i = 0; i < mSamples.length; ++i) {
+            if (i > 0) {
+                sb.append(';');
+            }
+            sb.append(String.format(Locale.US, "%.4f", mSamples[i]));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Returns the record as a single line JSON object with a summary of the samples.
+     */
+    public String toJson() {
+        float[] sorted = mSamples.clone();
+        Arrays.sort(sorted);
+
+        StringBuilder sb = new StringBuilder(256 + mSamples.length * 8);
+        sb.append('{');
+        appendJson(sb, "run", mRun.getId()).append(',');
+        appendJson(sb, "model", mRun.getModel()).append(',');
+        appendJson(sb, "fingerprint", mRun.getFingerprint()).append(',');
+        appendJson(sb, "gearvrf_commit", mRun.getGearVRfCommit()).append(',');
+        appendJson(sb, "tests_commit", mRun.getTestsCommit()).append(',');
+        appendJson(sb, "benchmark", mBenchmark).append(',');
+        appendJson(sb, "unit", mUnit).append(',');
+        appendJson(sb, "better", mLowerIsBetter ? "lower" : "higher").append(',');
+        sb.append(String.format(Locale.US, "\"count\":%d,\"median\":%.4f,\"min\":%.4f,\"max\":%.4f,",
+                                sorted.length, median(sorted),
+                                (sorted.length == 0) ? 0.0f : sorted[0],
+                                (sorted.length == 0) ? 0.0f : sorted[sorted.length - 1]));
+        sb.append("\"samples\":[");
+        for (int i = 0; i < mSamples.length; ++i) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append(String.format(Locale.US, "%.4f", mSamples[i]));
+        }
+        sb.append("]}");
+        return sb.toString();
+    }
+
+    /**
+     * Parses a line written by {@link #toCsv()}.
+     * @throws IllegalArgumentException if the line is not a valid record.
+     */
+    public static GVRPerfRecord fromCsv(String line) {
+        String[] columns = line.split(",", -1);
+        if (columns.length != NUM_COLUMNS) {
+            throw new IllegalArgumentException("expected " + NUM_COLUMNS + " columns: " + line);
+        }
+
+        GVRPerfRun run = new GVRPerfRun(columns[0], columns[1], columns[2], columns[3], columns[4]);
+        int count = Integer.parseInt(columns[8]);
+        float[] samples = new float[count];
+        if (count > 0) {
+            String[] values = columns[9].split(";");
+            if (values.length != count) {
+                throw new IllegalArgumentException("expected " + count + " samples for " + columns[5]);
+            }
+            for (int i = 0; i < count; ++i) {
+                samples[i] = Float.parseFloat(values[i]);
+            }
+        }
+        return new GVRPerfRecord(run, columns[5], columns[6], "lower".equals(columns[7]), samples);
+    }
+
+    /**
+     * Returns the median of sorted values.
+     */
+    static float median(float[] sorted) {
+        final int n = sorted.length;
+        if (n == 0) {
+            return 0.0f;
+        }
+        return ((n & 1) != 0) ? sorted[n / 2] : (sorted[n / 2 - 1] + sorted[n / 2]) / 2.0f;
+    }
+
+    private static StringBuilder appendJson(StringBuilder sb, String key, String value) {
+        sb.append('"').append(key).append("\":\"");
+        for (int i = 0; i < value.length(); ++i) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                sb.append('\\');
+            }
+            sb.append(c);
+        }
+        return sb.append('"');
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2016. Samsung Electronics Co., LTD
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf.perfresults;
+
+/**
+ * Identifies a test run: when it started, on which device and build, and which
+ * GearVRf and GearVRf-Tests commits were tested. Unknown values are empty strings.
+ */
+public final class GVRPerfRun {
+    private final String mId;
+    private final String mModel;
+    private final String mFingerprint;
+    private final String mGearVRfCommit;
+    private final String mTestsCommit;
+
+    /**
+     * @param id            run id, runs of a device are ordered by it.
+     * @param model         device model, e.g. "SM-G935F".
+     * @param fingerprint   build fingerprint of the device.
+     * @param gearVRfCommit commit of the GearVRf tree the tests ran against.
+     * @param testsCommit   commit of the GearVRf-Tests tree.
+     */
+    public GVRPerfRun(String id, String model, String fingerprint, String gearVRfCommit,
+                      String testsCommit) {
+        mId = clean(id);
+        mModel = clean(model);
+        mFingerprint = clean(fingerprint);
+        mGearVRfCommit = clean(gearVRfCommit);
+        mTestsCommit = clean(testsCommit);
+    }
+
+    public String getId() {
+        return mId;
+    }
+
+    public String getModel() {
+        return mModel;
+    }
+
+    public String getFingerprint() {
+        return mFingerprint;
+    }
+
+    public String getGearVRfCommit() {
+        return mGearVRfCommit;
+    }
+
+    public String getTestsCommit() {
+        return mTestsCommit;
+    }
+
+    /**
+     * Returns a copy of this run with the commits filled in where they are unknown.
+     */
+    public GVRPerfRun withCommits(String gearVRfCommit, String testsCommit) {
+        return new GVRPerfRun(mId, mModel, mFingerprint,
+                              mGearVRfCommit.isEmpty() ? gearVRfCommit : mGearVRfCommit,
+                              mTestsCommit.isEmpty() ? testsCommit : mTestsCommit);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof GVRPerfRun)) {
+            return false;
+        }
+        GVRPerfRun other = (GVRPerfRun) o;
+        return mId.equals(other.mId) && mModel.equals(other.mModel)
+               && mFingerprint.equals(other.mFingerprint)
+               && mGearVRfCommit.equals(other.mGearVRfCommit)
+               && mTestsCommit.equals(other.mTestsCommit);
+    }
+
+    @Override
+    public int hashCode() {
+        int h = mId.hashCode();
+        h = 31 * h + mModel.hashCode();
+        h = 31 * h + mFingerprint.hashCode();
+        h = 31 * h + mGearVRfCommit.hashCode();
+        return 31 * h + mTestsCommit.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return mModel + " " + mId + " (GearVRf " + shortCommit(mGearVRfCommit) + ")";
+    }
+
+    static String shortCommit(String commit) {
+        return (commit.length() > 10) ? commit.substring(0, 10) : commit;
+    }
+
+    /**
+     * Removes the characters the CSV format uses as separators.
+     */
+    static String clean(String value) {
+        if (value == null) {
+            return "";
+        }
+        return value.trim().replace(',', '_').replace(';', '_').replace('\n', ' ').replace('\r', ' ');
+    }
+}
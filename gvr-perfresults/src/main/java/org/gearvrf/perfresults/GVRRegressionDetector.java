@@ -0,0 +1,205 @@
+/*
+ * Copyright (c) 2016. Samsung Electronics Co., LTD
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf.perfresults;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Compares the latest run of every device with the runs before it.
+ * <p>
+ * For each benchmark the samples of the previous runs of the same device model are
+ * pooled into a baseline and tested against the samples of the latest run with a
+ * {@link GVRMannWhitney} test. A change is reported when it is significant at the
+ * given level and the medians differ by at least the given fraction, so that a tiny
+ * but consistent shift over thousands of frames is not flagged.
+ */
+public final class GVRRegressionDetector {
+    public enum Verdict {
+        REGRESSION,
+        IMPROVEMENT,
+        UNCHANGED
+    }
+
+    private final double mAlpha;
+    private final int mWindow;
+    private final float mMinChange;
+
+    /**
+     * @param alpha     significance level of the one sided tests.
+     * @param window    maximum number of previous runs in the baseline.
+     * @param minChange smallest relative change of the median to report, e.g. 0.05.
+     */
+    public GVRRegressionDetector(double alpha, int window, float minChange) {
+        mAlpha = alpha;
+        mWindow = window;
+        mMinChange = minChange;
+    }
+
+    /**
+     * Checks the latest run of every device model in the history. A benchmark is
+     * taken from the latest run which measured it, so a benchmark which was not
+     * part of the last run is still checked against the runs before its own
+     * latest one.
+     */
+    public List<Finding> check(GVRPerfHistory history) {
+        List<Finding> findings = new ArrayList<Finding>();
+        Set<String> models = new TreeSet<String>();
+
+        for (GVRPerfRun run : history.getRuns()) {
+            models.add(run.getModel());
+        }
+        for (String model : models) {
+            List<GVRPerfRun> runs = history.getRuns(model);
+            for (String benchmark : history.getBenchmarks()) {
+                List<GVRPerfRun> measured = new ArrayList<GVRPerfRun>();
+                for (GVRPerfRun run : runs) {
+                    if (history.getSamples(run, benchmark) != null) {
+                        measured.add(run);
+                    }
+                }
+                if (measured.size() < 2) {
+                    continue;
+                }
+                GVRPerfRun latest = measured.get(measured.size() - 1);
+                List<GVRPerfRun> baseline = measured.subList(Math.max(0, measured.size() - 1 - mWindow),
+                                                             measured.size() - 1);
+                Finding finding = check(history, latest, baseline, benchmark);
+                if (finding != null) {
+                    findings.add(finding);
+                }
+            }
+        }
+        return findings;
+    }
+
+    /**
+     * Checks all benchmarks of one run against a set of baseline runs.
+     */
+    public List<Finding> check(GVRPerfHistory history, GVRPerfRun candidate,
+                               List<GVRPerfRun> baseline) {
+        List<Finding> findings = new ArrayList<Finding>();
+
+        for (String benchmark : history.getBenchmarks()) {
+            Finding finding = check(history, candidate, baseline, benchmark);
+            if (finding != null) {
+                findings.add(finding);
+            }
+        }
+        return findings;
+    }
+
+    /**
+     * Checks one benchmark of a run against a set of baseline runs.
+     * @return null if the run or the baseline have no samples of the benchmark.
+     */
+    private Finding check(GVRPerfHistory history, GVRPerfRun candidate, List<GVRPerfRun> baseline,
+                          String benchmark) {
+        float[] current = history.getSamples(candidate, benchmark);
+        float[] previous = pool(history, baseline, benchmark);
+        if (current == null || current.length == 0 || previous.length == 0) {
+            return null;
+        }
+        return compare(candidate, benchmark, history.isLowerBetter(benchmark), previous, current);
+    }
+
+    Finding compare(GVRPerfRun run, String benchmark, boolean lowerIsBetter, float[] baseline,
+                    float[] current) {
+        GVRMannWhitney test = GVRMannWhitney.test(current, baseline);
+        float baselineMedian = median(baseline);
+        float currentMedian = median(current);
+        float change = (baselineMedian != 0.0f)
+                       ? (currentMedian - baselineMedian) / Math.abs(baselineMedian) : 0.0f;
+        double pWorse = lowerIsBetter ? test.getPValueGreater() : test.getPValueLess();
+        double pBetter = lowerIsBetter ? test.getPValueLess() : test.getPValueGreater();
+        float worseChange = lowerIsBetter ? change : -change;
+        Verdict verdict = Verdict.UNCHANGED;
+
+        if (pWorse < mAlpha && worseChange >= mMinChange) {
+            verdict = Verdict.REGRESSION;
+        } else if (pBetter < mAlpha && -worseChange >= mMinChange) {
+            verdict = Verdict.IMPROVEMENT;
+        }
+        return new Finding(run, benchmark, verdict, baselineMedian, currentMedian, change,
+                           Math.min(pWorse, pBetter), baseline.length, current.length);
+    }
+
+    private static float[] pool(GVRPerfHistory history, List<GVRPerfRun> runs, String benchmark) {
+        List<float[]> parts = new ArrayList<float[]>();
+        int total = 0;
+
+        for (GVRPerfRun run : runs) {
+            float[] samples = history.getSamples(run, benchmark);
+            if (samples != null) {
+                parts.add(samples);
+                total += samples.length;
+            }
+        }
+        float[] pooled = new float[total];
+        int offset = 0;
+        for (float[] part : parts) {
+            System.arraycopy(part, 0, pooled, offset, part.length);
+            offset += part.length;
+        }
+        return pooled;
+    }
+
+    private static float median(float[] values) {
+        float[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return GVRPerfRecord.median(sorted);
+    }
+
+    /**
+     * Result of comparing one benchmark of a run with its baseline.
+     */
+    public static final class Finding {
+        public final GVRPerfRun run;
+        public final String benchmark;
+        public final Verdict verdict;
+        public final float baselineMedian;
+        public final float currentMedian;
+        public final float change;
+        public final double pValue;
+        public final int baselineCount;
+        public final int currentCount;
+
+        Finding(GVRPerfRun run, String benchmark, Verdict verdict, float baselineMedian,
+                float currentMedian, float change, double pValue, int baselineCount,
+                int currentCount) {
+            this.run = run;
+            this.benchmark = benchmark;
+            this.verdict = verdict;
+            this.baselineMedian = baselineMedian;
+            this.currentMedian = currentMedian;
+            this.change = change;
+            this.pValue = pValue;
+            this.baselineCount = baselineCount;
+            this.currentCount = currentCount;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US, "%-11s %s %s: median %.3f -> %.3f (%+.1f%%), p = %.2g, n = %d/%d",
+                                 verdict, run, benchmark, baselineMedian, currentMedian,
+                                 change * 100.0f, pValue, baselineCount, currentCount);
+        }
+    }
+}
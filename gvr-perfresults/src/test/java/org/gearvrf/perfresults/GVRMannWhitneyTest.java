@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2016. Samsung Electronics Co., LTD
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf.perfresults;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class GVRMannWhitneyTest
+{
+    private static float[] frameTimes(Random rnd, int n, float mean)
+    {
+        float[] samples = new float[n];
+        for (int i = 0; i < n; ++i)
+        {
+            // mostly on budget with an occasional slow frame
+            samples[i] = mean + (float) rnd.nextGaussian() * 0.5f
+                         + ((rnd.nextInt(50) == 0) ? 16.6f : 0.0f);
+        }
+        return samples;
+    }
+
+    @Test
+    public void separatedSamples()
+    {
+        float[] a = { 1, 2, 3, 4, 5 };
+        float[] b = { 6, 7, 8, 9, 10 };
+        GVRMannWhitney test = GVRMannWhitney.test(a, b);
+
+        assertEquals(0.0, test.getU(), 0.0);
+        assertEquals(0.0, test.getProbabilityGreater(), 0.0);
+        // normal approximation with continuity correction
+        assertEquals(-2.5067, test.getZ(), 1e-4);
+        assertEquals(0.00609, test.getPValueLess(), 1e-4);
+        assertEquals(0.99391, test.getPValueGreater(), 1e-4);
+    }
+
+    @Test
+    public void tiesShareRanks()
+    {
+        float[] a = { 1, 1, 1, 1 };
+        float[] b = { 1, 1, 1, 1 };
+        GVRMannWhitney test = GVRMannWhitney.test(a, b);
+
+        assertEquals(8.0, test.getU(), 0.0);
+        assertEquals(0.5, test.getProbabilityGreater(), 0.0);
+        assertEquals(1.0, test.getPValue(), 1e-6);
+    }
+
+    @Test
+    public void detectsShiftOfFrameTimes()
+    {
+        Random rnd = new Random(42);
+        float[] baseline = frameTimes(rnd, 600, 16.6f);
+        float[] same = frameTimes(rnd, 600, 16.6f);
+        float[] slower = frameTimes(rnd, 600, 17.4f);
+
+        assertTrue(GVRMannWhitney.test(same, baseline).getPValueGreater() > 0.01);
+        assertTrue(GVRMannWhitney.test(slower, baseline).getPValueGreater() < 1e-6);
+        assertTrue(GVRMannWhitney.test(slower, baseline).getProbabilityGreater() > 0.75);
+    }
+
+    @Test
+    public void erfcMatchesKnownValues()
+    {
+        assertEquals(1.0, GVRMannWhitney.erfc(0.0), 1e-7);
+        assertEquals(0.157299207, GVRMannWhitney.erfc(1.0), 1e-7);
+        assertEquals(1.842700793, GVRMannWhitney.erfc(-1.0), 1e-7);
+        assertEquals(0.975, GVRMannWhitney.normalCdf(1.959964), 1e-6);
+        assertEquals(0.5, GVRMannWhitney.normalCdf(0.0), 1e-7);
+    }
+}
@@ -0,0 +1,194 @@
+/*
+ * Copyright (c) 2016. Samsung Electronics Co., LTD
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf.perfresults;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.Writer;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class GVRPerfHistoryTest
+{
+    private static GVRPerfRecord record(String id, String model, String benchmark, Random rnd,
+                                        float mean)
+    {
+        GVRPerfRun run = new GVRPerfRun(id, model, "samsung/" + model + ":7.0/user", "", "");
+        float[] samples = new float[300];
+        for (int i = 0; i < samples.length; ++i)
+        {
+            samples[i] = mean + (float) rnd.nextGaussian() * 0.4f;
+        }
+        return new GVRPerfRecord(run, benchmark, "ms", true, samples);
+    }
+
+    @Test
+    public void csvRoundTrip()
+    {
+        GVRPerfRun run = new GVRPerfRun("20171020", "SM-G935F", "a,b", "0123abc", "");
+        GVRPerfRecord record = new GVRPerfRecord(run, "QuadPerfTests.quad15x15", "ms", true,
+                                                 new float[] { 16.5f, 16.75f, 33.25f });
+        GVRPerfRecord parsed = GVRPerfRecord.fromCsv(record.toCsv());
+
+        assertEquals(run, parsed.getRun());
+        assertEquals("a_b", parsed.getRun().getFingerprint());
+        assertEquals("QuadPerfTests.quad15x15", parsed.getBenchmark());
+        assertTrue(parsed.isLowerBetter());
+        assertArrayEquals(record.getSamples(), parsed.getSamples(), 1e-4f);
+        assertTrue(record.toJson().contains("\"median\":16.7500"));
+    }
+
+    @Test
+    public void historyRoundTrip() throws Exception
+    {
+        Random rnd = new Random(7);
+        GVRPerfHistory history = new GVRPerfHistory();
+        GVRPerfRecord first = record("1", "SM-G935F", "QuadPerfTests.quad15x15", rnd, 16.6f);
+
+        assertTrue(history.add(first));
+        assertFalse(history.add(first));
+        assertTrue(history.add(record("1", "SM-G935F", "CylPerfTests.cyl10x10", rnd, 20.0f)));
+        assertTrue(history.add(record("2", "SM-G935F", "QuadPerfTests.quad15x15", rnd, 16.7f)));
+
+        File file = File.createTempFile("history", ".gvrp");
+        try
+        {
+            history.write(file);
+            GVRPerfHistory loaded = GVRPerfHistory.read(file);
+
+            assertEquals(2, loaded.getRuns().size());
+            assertEquals(2, loaded.getBenchmarks().size());
+            assertEquals(3, loaded.getSeriesCount());
+            assertEquals(900, loaded.getSampleCount());
+            assertArrayEquals(first.getSamples(),
+                              loaded.getSamples(first.getRun(), "QuadPerfTests.quad15x15"), 0.0f);
+        }
+        finally
+        {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void flagsRegressionOfLatestRun()
+    {
+        Random rnd = new Random(11);
+        GVRPerfHistory history = new GVRPerfHistory();
+
+        for (int i = 1; i <= 5; ++i)
+        {
+            history.add(record("0" + i, "SM-G935F", "quad", rnd, 16.6f));
+            history.add(record("0" + i, "SM-G935F", "cyl", rnd, 20.0f));
+        }
+        history.add(record("06", "SM-G935F", "quad", rnd, 16.6f));
+        history.add(record("06", "SM-G935F", "cyl", rnd, 22.0f));
+
+        List<GVRRegressionDetector.Finding> findings =
+                new GVRRegressionDetector(0.01, 5, 0.05f).check(history);
+
+        assertEquals(2, findings.size());
+        for (GVRRegressionDetector.Finding finding : findings)
+        {
+            assertEquals("06", finding.run.getId());
+            assertEquals(finding.benchmark.equals("cyl") ? GVRRegressionDetector.Verdict.REGRESSION
+                                                         : GVRRegressionDetector.Verdict.UNCHANGED,
+                         finding.verdict);
+        }
+    }
+
+    @Test
+    public void checksBenchmarksMissingFromLatestRun()
+    {
+        Random rnd = new Random(12);
+        GVRPerfHistory history = new GVRPerfHistory();
+
+        for (int i = 1; i <= 5; ++i)
+        {
+            history.add(record("0" + i, "SM-G935F", "quad", rnd, 16.6f));
+            history.add(record("0" + i, "SM-G935F", "cyl", rnd, 20.0f));
+        }
+        // the latest run only measured quad, cyl regressed in the run before
+        history.add(record("06", "SM-G935F", "cyl", rnd, 22.0f));
+        history.add(record("07", "SM-G935F", "quad", rnd, 16.6f));
+
+        List<GVRRegressionDetector.Finding> findings =
+                new GVRRegressionDetector(0.01, 5, 0.05f).check(history);
+
+        assertEquals(2, findings.size());
+        for (GVRRegressionDetector.Finding finding : findings)
+        {
+            if (finding.benchmark.equals("cyl"))
+            {
+                assertEquals("06", finding.run.getId());
+                assertEquals(GVRRegressionDetector.Verdict.REGRESSION, finding.verdict);
+            }
+            else
+            {
+                assertEquals("07", finding.run.getId());
+                assertEquals(GVRRegressionDetector.Verdict.UNCHANGED, finding.verdict);
+            }
+        }
+    }
+
+    @Test
+    public void mergeFillsCommitsFromRunLog() throws Exception
+    {
+        File dir = File.createTempFile("TestResults", "");
+        dir.delete();
+        File resultDir = new File(dir, "SM-G935F/framework-tests/QuadPerfTests");
+        File perfDir = new File(resultDir, "GearVRFTests/perf");
+        perfDir.mkdirs();
+        try
+        {
+            Writer branch = new FileWriter(new File(resultDir, "GearVRf.branch"));
+            branch.write("On branch master\nnothing to commit\ncommit 0123456789abcdef\nAuthor: x\n");
+            branch.close();
+
+            Writer results = new FileWriter(new File(perfDir, GVRPerfHistoryTool.RESULTS_FILE));
+            results.write(GVRPerfRecord.CSV_HEADER + "\n");
+            results.write(record("1", "SM-G935F", "quad", new Random(1), 16.6f).toCsv() + "\n");
+            results.close();
+
+            GVRPerfHistory history = new GVRPerfHistory();
+            assertEquals(1, GVRPerfHistoryTool.merge(history, dir));
+            assertEquals("0123456789abcdef", history.getRuns().get(0).getGearVRfCommit());
+        }
+        finally
+        {
+            deleteAll(dir);
+        }
+    }
+
+    private static void deleteAll(File file)
+    {
+        File[] children = file.listFiles();
+        if (children != null)
+        {
+            for (File child : children)
+            {
+                deleteAll(child);
+            }
+        }
+        file.delete();
+    }
+}
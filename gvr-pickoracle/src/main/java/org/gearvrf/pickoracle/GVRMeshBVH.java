@@ -0,0 +1,321 @@
+/*
+ * Copyright (c) 2016. Samsung Electronics Co., LTD
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf.pickoracle;
+
+import java.util.Arrays;
+
+/**
+ * Bounding volume hierarchy over the triangles of a {@link GVRObjMesh}.
+ * <p>
+ * Nodes are axis aligned boxes split at the median triangle centroid along their
+ * longest axis until at most {@link #LEAF_SIZE} triangles are left. The tree is
+ * stored in flat arrays and is immutable once built, so any number of threads may
+ * cast rays against it at the same time. Intersections are computed in double
+ * precision with the two sided Moller-Trumbore test.
+ */
+public final class GVRMeshBVH {
+    static final int LEAF_SIZE = 4;
+    private static final int MAX_DEPTH = 64;
+    private static final double EPSILON = 1e-12;
+
+    private final GVRObjMesh mMesh;
+    private final int[] mOrder;
+    private final float[] mCentroids;
+    private float[] mBounds;
+    private int[] mLeft;
+    private int[] mFirst;
+    private int[] mCount;
+    private int mNodeCount = 0;
+
+    /**
+     * Result of a ray cast in the coordinates of the mesh. The ray parameter is
+     * the distance along the ray direction as given, so it is a world distance when
+     * the ray was transformed into the mesh from a normalized world ray.
+     */
+    public static final class Hit {
+        public double t = Double.POSITIVE_INFINITY;
+        public int triangle = -1;
+        /** weights of the second and third corner of the triangle */
+        public double u;
+        public double v;
+    }
+
+    public GVRMeshBVH(GVRObjMesh mesh) {
+        final int count = mesh.getTriangleCount();
+        final float[] p = mesh.getPositions();
+        final int[] tris = mesh.getTriangles();
+
+        mMesh = mesh;
+        mOrder = new int[count];
+        mCentroids = new float[count * 3];
+        for (int i = 0; i < count; ++i) {
+            mOrder[i] = i;
+            for (int axis = 0; axis < 3; ++axis) {
+                mCentroids[i * 3 + axis] = (p[tris[i * 3] * 3 + axis] + p[tris[i * 3 + 1] * 3 + axis]
+                                            + p[tris[i * 3 + 2] * 3 + axis]) / 3.0f;
+            }
+        }
+
+        final int maxNodes = Math.max(1, 2 * ((count + LEAF_SIZE - 1) / LEAF_SIZE) * 2);
+        mBounds = new float[maxNodes * 6];
+        mLeft = new int[maxNodes];
+        mFirst = new int[maxNodes];
+        mCount = new int[maxNodes];
+        build(newNode(), 0, count, 0);
+    }
+
+    public GVRObjMesh getMesh() {
+        return mMesh;
+    }
+
+    public int getNodeCount() {
+        return mNodeCount;
+    }
+
+    /**
+     * Bounds of the mesh as min x, y, z, max x, y, z.
+     */
+    public float[] getBounds() {
+        float[] bounds = new float[6];
+        System.arraycopy(mBounds, 0, bounds, 0, 6);
+        return bounds;
+    }
+
+    private int newNode() {
+        if (mNodeCount == mLeft.length) {
+            int capacity = mLeft.length * 2;
+            mBounds = Arrays.copyOf(mBounds, capacity * 6);
+            mLeft = Arrays.copyOf(mLeft, capacity);
+            mFirst = Arrays.copyOf(mFirst, capacity);
+            mCount = Arrays.copyOf(mCount, capacity);
+        }
+        return mNodeCount++;
+    }
+
+    private void build(int node, int first, int count, int depth) {
+        final float[] p = mMesh.getPositions();
+        final int[] tris = mMesh.getTriangles();
+        float[] b = { Float.MAX_VALUE, Float.MAX_VALUE, Float.MAX_VALUE,
+                      -Float.MAX_VALUE, -Float.MAX_VALUE, -Float.MAX_VALUE };
+        float[] c = { Float.MAX_VALUE, Float.MAX_VALUE, Float.MAX_VALUE,
+                      -Float.MAX_VALUE, -Float.MAX_VALUE, -Float.MAX_VALUE };
+
+        for (int i = first; i < first + count; ++i) {
+            final int tri = mOrder[i];
+            for (int corner = 0; corner < 3; ++corner) {
+                final int vertex = tris[tri * 3 + corner] * 3;
+                for (int axis = 0; axis < 3; ++axis) {
+                    b[axis] = Math.min(b[axis], p[vertex + axis]);
+                    b[axis + 3] = Math.max(b[axis + 3], p[vertex + axis]);
+                }
+            }
+            for (int axis = 0; axis < 3; ++axis) {
+                c[axis] = Math.min(c[axis], mCentroids[tri * 3 + axis]);
+                c[axis + 3] = Math.max(c[axis + 3], mCentroids[tri * 3 + axis]);
+            }
+        }
+        System.arraycopy(b, 0, mBounds, node * 6, 6);
+
+        int axis = 0;
+        for (int a = 1; a < 3; ++a) {
+            if (c[a + 3] - c[a] > c[axis + 3] - c[axis]) {
+                axis = a;
+            }
+        }
+        if (count <= LEAF_SIZE || depth >= MAX_DEPTH - 2 || c[axis + 3] <= c[axis]) {
+            mFirst[node] = first;
+            mCount[node] = count;
+            return;
+        }
+
+        final int half = count / 2;
+        select(first, first + count - 1, first + half, axis);
+        // children are allocated next to each other, right = left + 1
+        final int left = newNode();
+        newNode();
+        mLeft[node] = left;
+        mCount[node] = 0;
+        build(left, first, half, depth + 1);
+        build(left + 1, first + half, count - half, depth + 1);
+    }
+
+    /*
+     * Partially sorts mOrder[lo..hi] so the element at nth has the centroid it would
+     * have if the range were sorted along the axis (quickselect).
+     */
+    private void select(int lo, int hi, int nth, int axis) {
+        while (hi > lo) {
+            final float pivot = mCentroids[mOrder[(lo + hi) >>> 1] * 3 + axis];
+            int i = lo;
+            int j = hi;
+            while (i <= j) {
+                while (mCentroids[mOrder[i] * 3 + axis] < pivot) {
+                    ++i;
+                }
+                while (mCentroids[mOrder[j] * 3 + axis] > pivot) {
+                    --j;
+                }
+                if (i <= j) {
+                    int t = mOrder[i];
+                    mOrder[i++] = mOrder[j];
+                    mOrder[j--] = t;
+                }
+            }
+            if (nth <= j) {
+                hi = j;
+            } else if (nth >= i) {
+                lo = i;
+            } else {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Finds the closest triangle hit by the ray closer than hit.t and stores it in
+     * hit.
+     * @return true if a triangle was hit.
+     */
+    public boolean intersect(double ox, double oy, double oz, double dx, double dy, double dz,
+                             Hit hit) {
+        final double ix = 1.0 / dx;
+        final double iy = 1.0 / dy;
+        final double iz = 1.0 / dz;
+        final int[] stack = new int[MAX_DEPTH];
+        int top = 0;
+        boolean found = false;
+
+        if (mOrder.length == 0 || !hitsBox(0, ox, oy, oz, ix, iy, iz, hit.t)) {
+            return false;
+        }
+        stack[top++] = 0;
+        while (top > 0) {
+            final int node = stack[--top];
+            if (mCount[node] > 0) {
+                for (int i = mFirst[node]; i < mFirst[node] + mCount[node]; ++i) {
+                    found |= intersectTriangle(mOrder[i], ox, oy, oz, dx, dy, dz, hit);
+                }
+                continue;
+            }
+            final int left = mLeft[node];
+            final double tl = boxDistance(left, ox, oy, oz, ix, iy, iz, hit.t);
+            final double tr = boxDistance(left + 1, ox, oy, oz, ix, iy, iz, hit.t);
+            // visit the nearer child first, it is pushed last
+            if (tl <= tr) {
+                if (tr < Double.POSITIVE_INFINITY) {
+                    stack[top++] = left + 1;
+                }
+                if (tl < Double.POSITIVE_INFINITY) {
+                    stack[top++] = left;
+                }
+            } else {
+                if (tl < Double.POSITIVE_INFINITY) {
+                    stack[top++] = left;
+                }
+                stack[top++] = left + 1;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Tests every triangle; the reference the BVH is checked against.
+     */
+    public boolean intersectAll(double ox, double oy, double oz, double dx, double dy, double dz,
+                                Hit hit) {
+        boolean found = false;
+        for (int i = 0; i < mMesh.getTriangleCount(); ++i) {
+            found |= intersectTriangle(i, ox, oy, oz, dx, dy, dz, hit);
+        }
+        return found;
+    }
+
+    private boolean hitsBox(int node, double ox, double oy, double oz, double ix, double iy,
+                            double iz, double tMax) {
+        return boxDistance(node, ox, oy, oz, ix, iy, iz, tMax) < Double.POSITIVE_INFINITY;
+    }
+
+    /*
+     * Slab test, returns the entry distance or infinity if the box is missed or
+     * further away than tMax.
+     */
+    private double boxDistance(int node, double ox, double oy, double oz, double ix, double iy,
+                               double iz, double tMax) {
+        final int b = node * 6;
+        double t0 = (mBounds[b] - ox) * ix;
+        double t1 = (mBounds[b + 3] - ox) * ix;
+        double tNear = Math.min(t0, t1);
+        double tFar = Math.max(t0, t1);
+
+        t0 = (mBounds[b + 1] - oy) * iy;
+        t1 = (mBounds[b + 4] - oy) * iy;
+        tNear = Math.max(tNear, Math.min(t0, t1));
+        tFar = Math.min(tFar, Math.max(t0, t1));
+
+        t0 = (mBounds[b + 2] - oz) * iz;
+        t1 = (mBounds[b + 5] - oz) * iz;
+        tNear = Math.max(tNear, Math.min(t0, t1));
+        tFar = Math.min(tFar, Math.max(t0, t1));
+
+        // NaN from 0 * infinity on a slab boundary fails both tests and counts as a hit
+        if (tNear > tFar || tFar < 0 || tNear > tMax) {
+            return Double.POSITIVE_INFINITY;
+        }
+        return Math.max(tNear, 0);
+    }
+
+    private boolean intersectTriangle(int tri, double ox, double oy, double oz, double dx,
+                                      double dy, double dz, Hit hit) {
+        final float[] p = mMesh.getPositions();
+        final int[] tris = mMesh.getTriangles();
+        final int a = tris[tri * 3] * 3;
+        final int b = tris[tri * 3 + 1] * 3;
+        final int c = tris[tri * 3 + 2] * 3;
+
+        final double e1x = p[b] - p[a], e1y = p[b + 1] - p[a + 1], e1z = p[b + 2] - p[a + 2];
+        final double e2x = p[c] - p[a], e2y = p[c + 1] - p[a + 1], e2z = p[c + 2] - p[a + 2];
+        final double px = dy * e2z - dz * e2y;
+        final double py = dz * e2x - dx * e2z;
+        final double pz = dx * e2y - dy * e2x;
+        final double det = e1x * px + e1y * py + e1z * pz;
+
+        if (Math.abs(det) < EPSILON) {
+            return false;
+        }
+        final double inv = 1.0 / det;
+        final double sx = ox - p[a], sy = oy - p[a + 1], sz = oz - p[a + 2];
+        final double u = (sx * px + sy * py + sz * pz) * inv;
+        if (u < 0 || u > 1) {
+            return false;
+        }
+        final double qx = sy * e1z - sz * e1y;
+        final double qy = sz * e1x - sx * e1z;
+        final double qz = sx * e1y - sy * e1x;
+        final double v = (dx * qx + dy * qy + dz * qz) * inv;
+        if (v < 0 || u + v > 1) {
+            return false;
+        }
+        final double t = (e2x * qx + e2y * qy + e2z * qz) * inv;
+        if (t < 0 || t >= hit.t) {
+            return false;
+        }
+        hit.t = t;
+        hit.triangle = tri;
+        hit.u = u;
+        hit.v = v;
+        return true;
+    }
+}
@@ -0,0 +1,221 @@
+/*
+ * Copyright (c) 2016. Samsung Electronics Co., LTD
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf.pickoracle;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+/**
+ * Triangle mesh read from a Wavefront OBJ file with the exact vertices and faces
+ * of the file.
+ * <p>
+ * Only the "v", "vt" and "f" statements are used; polygons are split into
+ * triangle fans like the asset loader does. Each triangle corner keeps its own
+ * texture coordinate index because OBJ files index positions and texture
+ * coordinates separately.
+ */
+public final class GVRObjMesh {
+    private final float[] mPositions;
+    private final float[] mTexCoords;
+    private final int[] mTriangles;
+    private final int[] mTriangleTexCoords;
+
+    GVRObjMesh(float[] positions, float[] texCoords, int[] triangles, int[] triangleTexCoords) {
+        mPositions = positions;
+        mTexCoords = texCoords;
+        mTriangles = triangles;
+        mTriangleTexCoords = triangleTexCoords;
+    }
+
+    /**
+     * Makes a mesh from positions (x, y, z per vertex), texture coordinates (u, v
+     * per vertex, may be null) and vertex indices (three per triangle). The texture
+     * coordinates use the vertex indices.
+     */
+    public static GVRObjMesh create(float[] positions, float[] texCoords, int[] triangles) {
+        return new GVRObjMesh(positions, texCoords, triangles,
+                              (texCoords != null) ? triangles : null);
+    }
+
+    public static GVRObjMesh read(File file) throws IOException {
+        Reader reader = new FileReader(file);
+        try {
+            return read(reader);
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * Reads an OBJ description. The reader is not closed.
+     * @throws IOException on read errors and malformed statements.
+     */
+    public static GVRObjMesh read(Reader in) throws IOException {
+        BufferedReader reader = new BufferedReader(in);
+        FloatList positions = new FloatList();
+        FloatList texCoords = new FloatList();
+        IntList triangles = new IntList();
+        IntList triangleTexCoords = new IntList();
+        int[] faceV = new int[16];
+        int[] faceT = new int[16];
+        boolean hasTexCoords = true;
+        String line;
+        int lineNumber = 0;
+
+        while ((line = reader.readLine()) != null) {
+            ++lineNumber;
+            String[] tokens = line.trim().split("\\s+");
+            try {
+                if (tokens[0].equals("v")) {
+                    positions.add(Float.parseFloat(tokens[1]));
+                    positions.add(Float.parseFloat(tokens[2]));
+                    positions.add(Float.parseFloat(tokens[3]));
+                } else if (tokens[0].equals("vt")) {
+                    texCoords.add(Float.parseFloat(tokens[1]));
+                    texCoords.add(Float.parseFloat(tokens[2]));
+                } else if (tokens[0].equals("f")) {
+                    final int corners = tokens.length - 1;
+                    if (corners < 3) {
+                        throw new IOException("face with " + corners + " corners at line " + lineNumber);
+                    }
+                    if (corners > faceV.length) {
+                        faceV = new int[corners];
+                        faceT = new int[corners];
+                    }
+                    for (int i = 0; i < corners; ++i) {
+                        String[] parts = tokens[i + 1].split("/");
+                        faceV[i] = index(parts[0], positions.size() / 3);
+                        faceT[i] = (parts.length > 1 && !parts[1].isEmpty()) ?
+                                index(parts[1], texCoords.size() / 2) : -1;
+                        hasTexCoords &= (faceT[i] >= 0);
+                    }
+                    for (int i = 1; i + 1 < corners; ++i) {
+                        triangles.add(faceV[0]);
+                        triangles.add(faceV[i]);
+                        triangles.add(faceV[i + 1]);
+                        triangleTexCoords.add(faceT[0]);
+                        triangleTexCoords.add(faceT[i]);
+                        triangleTexCoords.add(faceT[i + 1]);
+                    }
+                }
+            } catch (NumberFormatException e) {
+                throw new IOException("bad number at line " + lineNumber + ": " + e.getMessage());
+            } catch (ArrayIndexOutOfBoundsException e) {
+                throw new IOException("missing value at line " + lineNumber);
+            }
+        }
+
+        final int vertexCount = positions.size() / 3;
+        for (int i = 0; i < triangles.size(); ++i) {
+            if (triangles.get(i) < 0 || triangles.get(i) >= vertexCount) {
+                throw new IOException("face refers to vertex " + (triangles.get(i) + 1)
+                                      + " of " + vertexCount);
+            }
+        }
+        return new GVRObjMesh(positions.toArray(), hasTexCoords ? texCoords.toArray() : null,
+                              triangles.toArray(), hasTexCoords ? triangleTexCoords.toArray() : null);
+    }
+
+    // OBJ indices start at 1, negative ones count back from the last element
+    private static int index(String token, int count) {
+        int i = Integer.parseInt(token);
+        return (i < 0) ? count + i : i - 1;
+    }
+
+    public int getVertexCount() {
+        return mPositions.length / 3;
+    }
+
+    public int getTriangleCount() {
+        return mTriangles.length / 3;
+    }
+
+    public boolean hasTexCoords() {
+        return mTexCoords != null;
+    }
+
+    /**
+     * Vertex positions, x, y, z per vertex.
+     */
+    public float[] getPositions() {
+        return mPositions;
+    }
+
+    /**
+     * Vertex indices, three per triangle.
+     */
+    public int[] getTriangles() {
+        return mTriangles;
+    }
+
+    /**
+     * Stores the texture coordinates of a triangle corner in uv[offset] and
+     * uv[offset + 1].
+     */
+    void getTexCoord(int triangle, int corner, float[] uv, int offset) {
+        int t = mTriangleTexCoords[triangle * 3 + corner];
+        uv[offset] = mTexCoords[t * 2];
+        uv[offset + 1] = mTexCoords[t * 2 + 1];
+    }
+
+    private static final class FloatList {
+        float[] mValues = new float[1024];
+        int mSize = 0;
+
+        void add(float value) {
+            if (mSize == mValues.length) {
+                mValues = Arrays.copyOf(mValues, mSize * 2);
+            }
+            mValues[mSize++] = value;
+        }
+
+        int size() {
+            return mSize;
+        }
+
+        float[] toArray() {
+            return Arrays.copyOf(mValues, mSize);
+        }
+    }
+
+    private static final class IntList {
+        int[] mValues = new int[1024];
+        int mSize = 0;
+
+        void add(int value) {
+            if (mSize == mValues.length) {
+                mValues = Arrays.copyOf(mValues, mSize * 2);
+            }
+            mValues[mSize++] = value;
+        }
+
+        int get(int index) {
+            return mValues[index];
+        }
+
+        int size() {
+            return mSize;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(mValues, mSize);
+        }
+    }
+}
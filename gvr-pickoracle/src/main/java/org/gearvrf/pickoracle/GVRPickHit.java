@@ -0,0 +1,51 @@
+/*
+ * Copyright (c) 2016. Samsung Electronics Co., LTD
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf.pickoracle;
+
+import java.util.Locale;
+
+/**
+ * Expected result of picking one object, with the same meaning as the fields of
+ * GVRPicker.GVRPickedObject: the hit location is in the coordinates of the object's
+ * mesh and the distance is along the world space pick ray.
+ */
+public final class GVRPickHit {
+    public final String name;
+    public final float hitDistance;
+    public final float[] hitLocation;
+    /** weights of the three corners of the hit triangle */
+    public final float[] barycentricCoords;
+    /** interpolated texture coordinates, null if the mesh has none */
+    public final float[] textureCoords;
+    public final int faceIndex;
+
+    GVRPickHit(String name, float hitDistance, float[] hitLocation, float[] barycentricCoords,
+               float[] textureCoords, int faceIndex) {
+        this.name = name;
+        this.hitDistance = hitDistance;
+        this.hitLocation = hitLocation;
+        this.barycentricCoords = barycentricCoords;
+        this.textureCoords = textureCoords;
+        this.faceIndex = faceIndex;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.US, "%s d=%.5f at (%.5f, %.5f, %.5f) face %d",
+                             name, hitDistance, hitLocation[0], hitLocation[1], hitLocation[2],
+                             faceIndex);
+    }
+}
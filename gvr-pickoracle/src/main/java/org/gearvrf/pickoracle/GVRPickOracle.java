@@ -0,0 +1,360 @@
+/*
+ * Copyright (c) 2016. Samsung Electronics Co., LTD
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf.pickoracle;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Reference ray and frustum caster for a scene of mesh colliders.
+ * <p>
+ * Each object of the scene is a {@link GVRMeshBVH} placed by a model matrix (column
+ * major like JOML and GVRTransform). A ray is transformed into each object so the
+ * hit location comes out in the coordinates of the mesh, as GVRPicker reports it,
+ * and the distance along a normalized world ray stays a world distance. Batches of
+ * rays are cast in parallel with fork/join; the scene must not change meanwhile.
+ */
+public final class GVRPickOracle {
+    /** rays per fork/join task below which a batch is not split any further */
+    static final int BATCH_THRESHOLD = 64;
+
+    private final List<Instance> mInstances = new ArrayList<Instance>();
+    private final ForkJoinPool mPool;
+
+    private static final class Instance {
+        final String name;
+        final GVRMeshBVH bvh;
+        final double[] model;
+        final double[] inverse;
+        final double[] worldBounds;
+
+        Instance(String name, GVRMeshBVH bvh, float[] modelMatrix) {
+            this.name = name;
+            this.bvh = bvh;
+            model = new double[16];
+            for (int i = 0; i < 16; ++i) {
+                model[i] = modelMatrix[i];
+            }
+            inverse = invert(model);
+            worldBounds = transformBounds(model, bvh.getBounds());
+        }
+    }
+
+    public GVRPickOracle() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param parallelism number of threads casting batches of rays.
+     */
+    public GVRPickOracle(int parallelism) {
+        mPool = new ForkJoinPool(parallelism);
+    }
+
+    /**
+     * Adds an object to the scene.
+     * @param modelMatrix 4x4 column major model matrix of the object.
+     */
+    public void addObject(String name, GVRMeshBVH bvh, float[] modelMatrix) {
+        mInstances.add(new Instance(name, bvh, modelMatrix));
+    }
+
+    public int getObjectCount() {
+        return mInstances.size();
+    }
+
+    /**
+     * Makes a column major model matrix from a position, a rotation quaternion and a
+     * scale, composed like GVRTransform: translate * rotate * scale.
+     */
+    public static float[] modelMatrix(float px, float py, float pz,
+                                      float qw, float qx, float qy, float qz,
+                                      float sx, float sy, float sz) {
+        final float n = (float) Math.sqrt(qw * qw + qx * qx + qy * qy + qz * qz);
+        qw /= n;
+        qx /= n;
+        qy /= n;
+        qz /= n;
+        return new float[] {
+            (1 - 2 * (qy * qy + qz * qz)) * sx, 2 * (qx * qy + qw * qz) * sx, 2 * (qx * qz - qw * qy) * sx, 0,
+            2 * (qx * qy - qw * qz) * sy, (1 - 2 * (qx * qx + qz * qz)) * sy, 2 * (qy * qz + qw * qx) * sy, 0,
+            2 * (qx * qz + qw * qy) * sz, 2 * (qy * qz - qw * qx) * sz, (1 - 2 * (qx * qx + qy * qy)) * sz, 0,
+            px, py, pz, 1
+        };
+    }
+
+    /**
+     * Casts a ray and returns the closest hit or null, like GVRPicker with pick
+     * closest on. The direction has to be normalized for the hit distance to be a
+     * world distance.
+     */
+    public GVRPickHit pickClosest(float ox, float oy, float oz, float dx, float dy, float dz) {
+        List<GVRPickHit> hits = pick(ox, oy, oz, dx, dy, dz);
+        return hits.isEmpty() ? null : hits.get(0);
+    }
+
+    /**
+     * Casts a ray and returns the closest hit on every object it hits, sorted by
+     * distance, like GVRPicker.pickObjects.
+     */
+    public List<GVRPickHit> pick(float ox, float oy, float oz, float dx, float dy, float dz) {
+        List<GVRPickHit> hits = new ArrayList<GVRPickHit>();
+        GVRMeshBVH.Hit hit = new GVRMeshBVH.Hit();
+
+        for (Instance instance : mInstances) {
+            if (!hitsBounds(instance.worldBounds, ox, oy, oz, dx, dy, dz)) {
+                continue;
+            }
+            final double[] m = instance.inverse;
+            final double lox = m[0] * ox + m[4] * oy + m[8] * oz + m[12];
+            final double loy = m[1] * ox + m[5] * oy + m[9] * oz + m[13];
+            final double loz = m[2] * ox + m[6] * oy + m[10] * oz + m[14];
+            final double ldx = m[0] * dx + m[4] * dy + m[8] * dz;
+            final double ldy = m[1] * dx + m[5] * dy + m[9] * dz;
+            final double ldz = m[2] * dx + m[6] * dy + m[10] * dz;
+
+            hit.t = Double.POSITIVE_INFINITY;
+            if (instance.bvh.intersect(lox, loy, loz, ldx, ldy, ldz, hit)) {
+                hits.add(makeHit(instance, hit, lox, loy, loz, ldx, ldy, ldz));
+            }
+        }
+        Collections.sort(hits, new Comparator<GVRPickHit>() {
+            @Override
+            public int compare(GVRPickHit a, GVRPickHit b) {
+                return Float.compare(a.hitDistance, b.hitDistance);
+            }
+        });
+        return hits;
+    }
+
+    private static GVRPickHit makeHit(Instance instance, GVRMeshBVH.Hit hit, double ox, double oy,
+                                      double oz, double dx, double dy, double dz) {
+        final GVRObjMesh mesh = instance.bvh.getMesh();
+        final float[] location = { (float) (ox + dx * hit.t), (float) (oy + dy * hit.t),
+                                   (float) (oz + dz * hit.t) };
+        final float w0 = (float) (1.0 - hit.u - hit.v);
+        final float[] barycentric = { w0, (float) hit.u, (float) hit.v };
+        float[] texCoords = null;
+
+        if (mesh.hasTexCoords()) {
+            float[] uv = new float[6];
+            for (int corner = 0; corner < 3; ++corner) {
+                mesh.getTexCoord(hit.triangle, corner, uv, corner * 2);
+            }
+            texCoords = new float[] {
+                barycentric[0] * uv[0] + barycentric[1] * uv[2] + barycentric[2] * uv[4],
+                barycentric[0] * uv[1] + barycentric[1] * uv[3] + barycentric[2] * uv[5]
+            };
+        }
+        return new GVRPickHit(instance.name, (float) hit.t, location, barycentric, texCoords,
+                              hit.triangle);
+    }
+
+    /**
+     * Casts a batch of rays in parallel.
+     * @param rays origin and normalized direction of each ray, six floats per ray.
+     * @return the closest hit of each ray, null where nothing was hit.
+     */
+    public GVRPickHit[] pickClosest(final float[] rays) {
+        final GVRPickHit[] results = new GVRPickHit[rays.length / 6];
+        mPool.invoke(new PickTask(rays, results, 0, results.length));
+        return results;
+    }
+
+    /**
+     * Casts a batch of rays one after the other on the calling thread.
+     */
+    public GVRPickHit[] pickClosestSerial(float[] rays) {
+        final GVRPickHit[] results = new GVRPickHit[rays.length / 6];
+        for (int i = 0; i < results.length; ++i) {
+            results[i] = pickClosest(rays[i * 6], rays[i * 6 + 1], rays[i * 6 + 2],
+                                     rays[i * 6 + 3], rays[i * 6 + 4], rays[i * 6 + 5]);
+        }
+        return results;
+    }
+
+    private final class PickTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final float[] mRays;
+        private final GVRPickHit[] mResults;
+        private final int mFirst;
+        private final int mEnd;
+
+        PickTask(float[] rays, GVRPickHit[] results, int first, int end) {
+            mRays = rays;
+            mResults = results;
+            mFirst = first;
+            mEnd = end;
+        }
+
+        @Override
+        protected void compute() {
+            if (mEnd - mFirst <= BATCH_THRESHOLD) {
+                for (int i = mFirst; i < mEnd; ++i) {
+                    final int r = i * 6;
+                    mResults[i] = pickClosest(mRays[r], mRays[r + 1], mRays[r + 2],
+                                              mRays[r + 3], mRays[r + 4], mRays[r + 5]);
+                }
+                return;
+            }
+            final int middle = (mFirst + mEnd) >>> 1;
+            invokeAll(new PickTask(mRays, mResults, mFirst, middle),
+                      new PickTask(mRays, mResults, middle, mEnd));
+        }
+    }
+
+    /**
+     * Returns the names of the objects whose world bounds intersect a view frustum
+     * at the origin looking down -Z, like GVRFrustumPicker.setFrustum on a picker
+     * without a transform. Objects are tested by their axis aligned world bounds;
+     * keep generated objects clear of the frustum planes since the device may test a
+     * tighter bounding volume.
+     * @param fovy   vertical field of view in degrees.
+     * @param aspect width / height of the view.
+     */
+    public List<String> pickFrustum(float fovy, float aspect, float near, float far) {
+        final double tanY = Math.tan(Math.toRadians(fovy) / 2);
+        final double tanX = tanY * aspect;
+        // inward plane normals and offsets, n . p + d >= 0 inside
+        final double[][] planes = {
+            { 0, 0, -1, -near },
+            { 0, 0, 1, far },
+            { 1, 0, -tanX, 0 },
+            { -1, 0, -tanX, 0 },
+            { 0, 1, -tanY, 0 },
+            { 0, -1, -tanY, 0 }
+        };
+        List<String> names = new ArrayList<String>();
+
+        for (Instance instance : mInstances) {
+            final double[] b = instance.worldBounds;
+            boolean inside = true;
+            for (double[] plane : planes) {
+                // the corner furthest along the plane normal
+                double x = (plane[0] >= 0) ? b[3] : b[0];
+                double y = (plane[1] >= 0) ? b[4] : b[1];
+                double z = (plane[2] >= 0) ? b[5] : b[2];
+                if (plane[0] * x + plane[1] * y + plane[2] * z + plane[3] < 0) {
+                    inside = false;
+                    break;
+                }
+            }
+            if (inside) {
+                names.add(instance.name);
+            }
+        }
+        return names;
+    }
+
+    public void shutdown() {
+        mPool.shutdown();
+    }
+
+    /*
+     * Slab test of a ray against world bounds, which skips the transform into
+     * objects the ray cannot hit.
+     */
+    private static boolean hitsBounds(double[] b, double ox, double oy, double oz, double dx,
+                                      double dy, double dz) {
+        double tNear = 0;
+        double tFar = Double.POSITIVE_INFINITY;
+        final double[] o = { ox, oy, oz };
+        final double[] d = { dx, dy, dz };
+
+        for (int axis = 0; axis < 3; ++axis) {
+            if (d[axis] == 0) {
+                if (o[axis] < b[axis] || o[axis] > b[axis + 3]) {
+                    return false;
+                }
+                continue;
+            }
+            double t0 = (b[axis] - o[axis]) / d[axis];
+            double t1 = (b[axis + 3] - o[axis]) / d[axis];
+            tNear = Math.max(tNear, Math.min(t0, t1));
+            tFar = Math.min(tFar, Math.max(t0, t1));
+        }
+        return tNear <= tFar;
+    }
+
+    private static double[] transformBounds(double[] m, float[] local) {
+        double[] world = { Double.MAX_VALUE, Double.MAX_VALUE, Double.MAX_VALUE,
+                           -Double.MAX_VALUE, -Double.MAX_VALUE, -Double.MAX_VALUE };
+        for (int corner = 0; corner < 8; ++corner) {
+            final double x = local[(corner & 1) != 0 ? 3 : 0];
+            final double y = local[(corner & 2) != 0 ? 4 : 1];
+            final double z = local[(corner & 4) != 0 ? 5 : 2];
+            for (int axis = 0; axis < 3; ++axis) {
+                double v = m[axis] * x + m[4 + axis] * y + m[8 + axis] * z + m[12 + axis];
+                world[axis] = Math.min(world[axis], v);
+                world[axis + 3] = Math.max(world[axis + 3], v);
+            }
+        }
+        return world;
+    }
+
+    /*
+     * General 4x4 inverse by cofactors, column major.
+     */
+    static double[] invert(double[] m) {
+        final double[] inv = new double[16];
+        inv[0] = m[5] * m[10] * m[15] - m[5] * m[11] * m[14] - m[9] * m[6] * m[15]
+                + m[9] * m[7] * m[14] + m[13] * m[6] * m[11] - m[13] * m[7] * m[10];
+        inv[4] = -m[4] * m[10] * m[15] + m[4] * m[11] * m[14] + m[8] * m[6] * m[15]
+                - m[8] * m[7] * m[14] - m[12] * m[6] * m[11] + m[12] * m[7] * m[10];
+        inv[8] = m[4] * m[9] * m[15] - m[4] * m[11] * m[13] - m[8] * m[5] * m[15]
+                + m[8] * m[7] * m[13] + m[12] * m[5] * m[11] - m[12] * m[7] * m[9];
+        inv[12] = -m[4] * m[9] * m[14] + m[4] * m[10] * m[13] + m[8] * m[5] * m[14]
+                - m[8] * m[6] * m[13] - m[12] * m[5] * m[10] + m[12] * m[6] * m[9];
+        inv[1] = -m[1] * m[10] * m[15] + m[1] * m[11] * m[14] + m[9] * m[2] * m[15]
+                - m[9] * m[3] * m[14] - m[13] * m[2] * m[11] + m[13] * m[3] * m[10];
+        inv[5] = m[0] * m[10] * m[15] - m[0] * m[11] * m[14] - m[8] * m[2] * m[15]
+                + m[8] * m[3] * m[14] + m[12] * m[2] * m[11] - m[12] * m[3] * m[10];
+        inv[9] = -m[0] * m[9] * m[15] + m[0] * m[11] * m[13] + m[8] * m[1] * m[15]
+                - m[8] * m[3] * m[13] - m[12] * m[1] * m[11] + m[12] * m[3] * m[9];
+        inv[13] = m[0] * m[9] * m[14] - m[0] * m[10] * m[13] - m[8] * m[1] * m[14]
+                + m[8] * m[2] * m[13] + m[12] * m[1] * m[10] - m[12] * m[2] * m[9];
+        inv[2] = m[1] * m[6] * m[15] - m[1] * m[7] * m[14] - m[5] * m[2] * m[15]
+                + m[5] * m[3] * m[14] + m[13] * m[2] * m[7] - m[13] * m[3] * m[6];
+        inv[6] = -m[0] * m[6] * m[15] + m[0] * m[7] * m[14] + m[4] * m[2] * m[15]
+                - m[4] * m[3] * m[14] - m[12] * m[2] * m[7] + m[12] * m[3] * m[6];
+        inv[10] = m[0] * m[5] * m[15] - m[0] * m[7] * m[13] - m[4] * m[1] * m[15]
+                + m[4] * m[3] * m[13] + m[12] * m[1] * m[7] - m[12] * m[3] * m[5];
+        inv[14] = -m[0] * m[5] * m[14] + m[0] * m[6] * m[13] + m[4] * m[1] * m[14]
+                - m[4] * m[2] * m[13] - m[12] * m[1] * m[6] + m[12] * m[2] * m[5];
+        inv[3] = -m[1] * m[6] * m[11] + m[1] * m[7] * m[10] + m[5] * m[2] * m[11]
+                - m[5] * m[3] * m[10] - m[9] * m[2] * m[7] + m[9] * m[3] * m[6];
+        inv[7] = m[0] * m[6] * m[11] - m[0] * m[7] * m[10] - m[4] * m[2] * m[11]
+                + m[4] * m[3] * m[10] + m[8] * m[2] * m[7] - m[8] * m[3] * m[6];
+        inv[11] = -m[0] * m[5] * m[11] + m[0] * m[7] * m[9] + m[4] * m[1] * m[11]
+                - m[4] * m[3] * m[9] - m[8] * m[1] * m[7] + m[8] * m[3] * m[5];
+        inv[15] = m[0] * m[5] * m[10] - m[0] * m[6] * m[9] - m[4] * m[1] * m[10]
+                + m[4] * m[2] * m[9] + m[8] * m[1] * m[6] - m[8] * m[2] * m[5];
+
+        final double det = m[0] * inv[0] + m[1] * inv[4] + m[2] * inv[8] + m[3] * inv[12];
+        if (det == 0) {
+            throw new IllegalArgumentException("model matrix is not invertible");
+        }
+        for (int i = 0; i < 16; ++i) {
+            inv[i] /= det;
+        }
+        return inv;
+    }
+}
@@ -0,0 +1,180 @@
+/*
+ * Copyright (c) 2016. Samsung Electronics Co., LTD
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf.pickoracle;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Host command line tool generating randomized picking tests.
+ * <pre>
+ * generate &lt;mesh.obj&gt; &lt;objects&gt; &lt;rays&gt; &lt;seed&gt; &lt;cases.csv&gt;
+ *     places copies of the mesh at random and writes them and the expected
+ *     closest hit of each random ray from the origin:
+ *       object,name,px,py,pz,qw,qx,qy,qz,scale
+ *       ray,dx,dy,dz,name,distance,hx,hy,hz,u,v
+ *     name is "-" and the other hit values are empty for rays that hit nothing.
+ * bench &lt;mesh.obj&gt; &lt;rays&gt;
+ *     times the ray casts against a scene of 100 copies, serial and parallel.
+ * </pre>
+ */
+public final class GVRPickOracleTool {
+    private GVRPickOracleTool() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 6 && "generate".equals(args[0])) {
+            generate(new File(args[1]), Integer.parseInt(args[2]), Integer.parseInt(args[3]),
+                     Long.parseLong(args[4]), new File(args[5]));
+        } else if (args.length == 3 && "bench".equals(args[0])) {
+            bench(new File(args[1]), Integer.parseInt(args[2]));
+        } else {
+            usage();
+        }
+    }
+
+    /**
+     * Places copies of a mesh in front of the origin with random rotations and
+     * sizes and adds them to the oracle.
+     * @return the object placements, ten floats each as in the generated file.
+     */
+    public static float[] placeObjects(GVRPickOracle oracle, GVRMeshBVH bvh, int count,
+                                       Random rnd) {
+        final float side = 4.0f * (float) Math.cbrt(count);
+        final float[] placements = new float[count * 10];
+        final float[] bounds = bvh.getBounds();
+        // scales are relative to the mesh so every copy is 0.5 to 2 units across
+        final float size = Math.max(bounds[3] - bounds[0],
+                                    Math.max(bounds[4] - bounds[1], bounds[5] - bounds[2]));
+
+        for (int i = 0; i < count; ++i) {
+            final int p = i * 10;
+            placements[p] = (rnd.nextFloat() - 0.5f) * side;
+            placements[p + 1] = (rnd.nextFloat() - 0.5f) * side;
+            placements[p + 2] = -3.0f - rnd.nextFloat() * side;
+            placements[p + 3] = rnd.nextFloat() * 2 - 1;
+            placements[p + 4] = rnd.nextFloat() * 2 - 1;
+            placements[p + 5] = rnd.nextFloat() * 2 - 1;
+            placements[p + 6] = rnd.nextFloat() * 2 - 1;
+            placements[p + 7] = (0.5f + rnd.nextFloat() * 1.5f) / size;
+            oracle.addObject("object" + i, bvh,
+                             GVRPickOracle.modelMatrix(placements[p], placements[p + 1], placements[p + 2],
+                                                       placements[p + 3], placements[p + 4],
+                                                       placements[p + 5], placements[p + 6],
+                                                       placements[p + 7], placements[p + 7],
+                                                       placements[p + 7]));
+        }
+        return placements;
+    }
+
+    /**
+     * Makes random normalized rays from the origin into the -Z half space.
+     * @return six floats per ray, origin and direction.
+     */
+    public static float[] randomRays(int count, Random rnd) {
+        final float[] rays = new float[count * 6];
+        for (int i = 0; i < count; ++i) {
+            float x = (rnd.nextFloat() - 0.5f) * 1.5f;
+            float y = (rnd.nextFloat() - 0.5f) * 1.5f;
+            float n = (float) Math.sqrt(x * x + y * y + 1);
+            rays[i * 6 + 3] = x / n;
+            rays[i * 6 + 4] = y / n;
+            rays[i * 6 + 5] = -1 / n;
+        }
+        return rays;
+    }
+
+    private static void generate(File obj, int objects, int rays, long seed, File out)
+            throws IOException {
+        final Random rnd = new Random(seed);
+        final GVRPickOracle oracle = new GVRPickOracle();
+        final GVRMeshBVH bvh = new GVRMeshBVH(GVRObjMesh.read(obj));
+        final float[] placements = placeObjects(oracle, bvh, objects, rnd);
+        final float[] directions = randomRays(rays, rnd);
+        final GVRPickHit[] hits = oracle.pickClosest(directions);
+        int hitCount = 0;
+
+        Writer writer = new FileWriter(out);
+        try {
+            for (int i = 0; i < objects; ++i) {
+                writer.write("object,object" + i);
+                for (int j = 0; j < 8; ++j) {
+                    writer.write(",");
+                    writer.write(Float.toString(placements[i * 10 + j]));
+                }
+                writer.write('\n');
+            }
+            for (int i = 0; i < hits.length; ++i) {
+                GVRPickHit hit = hits[i];
+                writer.write(String.format(Locale.US, "ray,%s,%s,%s", directions[i * 6 + 3],
+                                           directions[i * 6 + 4], directions[i * 6 + 5]));
+                if (hit == null) {
+                    writer.write(",-,,,,,,\n");
+                    continue;
+                }
+                ++hitCount;
+                writer.write(String.format(Locale.US, ",%s,%s,%s,%s,%s,%s,%s\n", hit.name,
+                                           hit.hitDistance, hit.hitLocation[0], hit.hitLocation[1],
+                                           hit.hitLocation[2],
+                                           (hit.textureCoords != null) ? hit.textureCoords[0] : "",
+                                           (hit.textureCoords != null) ? hit.textureCoords[1] : ""));
+            }
+        } finally {
+            writer.close();
+            oracle.shutdown();
+        }
+        System.out.println(objects + " objects, " + rays + " rays, " + hitCount + " hits in " + out);
+    }
+
+    private static void bench(File obj, int rays) throws IOException {
+        final Random rnd = new Random(1);
+        final GVRPickOracle oracle = new GVRPickOracle();
+        final GVRObjMesh mesh = GVRObjMesh.read(obj);
+
+        long start = System.nanoTime();
+        final GVRMeshBVH bvh = new GVRMeshBVH(mesh);
+        long built = System.nanoTime();
+        placeObjects(oracle, bvh, 100, rnd);
+        final float[] directions = randomRays(rays, rnd);
+
+        System.out.println(String.format(Locale.US, "%s: %d triangles, %d nodes, built in %.2f ms",
+                                         obj.getName(), mesh.getTriangleCount(), bvh.getNodeCount(),
+                                         (built - start) / 1e6));
+        // the second round of each is the one reported, the first one warms up the JIT
+        for (int round = 0; round < 2; ++round) {
+            start = System.nanoTime();
+            oracle.pickClosestSerial(directions);
+            long serial = System.nanoTime();
+            oracle.pickClosest(directions);
+            long parallel = System.nanoTime();
+            if (round == 1) {
+                System.out.println(String.format(Locale.US, "serial %.2f ms, parallel %.2f ms, %.0f rays/s",
+                                                 (serial - start) / 1e6, (parallel - serial) / 1e6,
+                                                 rays * 1e9 / (parallel - serial)));
+            }
+        }
+        oracle.shutdown();
+    }
+
+    private static void usage() {
+        System.err.println("usage: generate <mesh.obj> <objects> <rays> <seed> <cases.csv>");
+        System.err.println("       bench <mesh.obj> <rays>");
+    }
+}
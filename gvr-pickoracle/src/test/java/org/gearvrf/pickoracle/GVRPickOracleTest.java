@@ -0,0 +1,175 @@
+/*
+ * Copyright (c) 2016. Samsung Electronics Co., LTD
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf.pickoracle;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class GVRPickOracleTest
+{
+    private static final String ASSETS = "../framework-tests/app/src/main/assets/PickerTests/";
+
+    // unit quad in the XY plane facing +Z, like GVRSceneObject(context, 2, 2) scaled by 0.5
+    private static GVRObjMesh quad() throws IOException
+    {
+        return GVRObjMesh.read(new StringReader("v -0.5 -0.5 0\nv 0.5 -0.5 0\nv 0.5 0.5 0\nv -0.5 0.5 0\n"
+                                                + "vt 0 0\nvt 1 0\nvt 1 1\nvt 0 1\n"
+                                                + "f 1/1 2/2 3/3 4/4\n"));
+    }
+
+    private static void checkAgainstBruteForce(GVRMeshBVH bvh, long seed)
+    {
+        Random rnd = new Random(seed);
+        float[] b = bvh.getBounds();
+        int hits = 0;
+
+        for (int i = 0; i < 2000; ++i)
+        {
+            // rays from a shell around the mesh towards a random point in its bounds
+            double ox = (rnd.nextDouble() - 0.5) * 6, oy = (rnd.nextDouble() - 0.5) * 6, oz = (rnd.nextDouble() - 0.5) * 6;
+            double tx = b[0] + rnd.nextDouble() * (b[3] - b[0]);
+            double ty = b[1] + rnd.nextDouble() * (b[4] - b[1]);
+            double tz = b[2] + rnd.nextDouble() * (b[5] - b[2]);
+            GVRMeshBVH.Hit expected = new GVRMeshBVH.Hit();
+            GVRMeshBVH.Hit actual = new GVRMeshBVH.Hit();
+            boolean hit = bvh.intersectAll(ox, oy, oz, tx - ox, ty - oy, tz - oz, expected);
+
+            assertEquals("ray " + i, hit, bvh.intersect(ox, oy, oz, tx - ox, ty - oy, tz - oz, actual));
+            if (hit)
+            {
+                ++hits;
+                assertEquals("ray " + i, expected.t, actual.t, 1e-12);
+            }
+        }
+        assertTrue(hits > 100);
+    }
+
+    @Test
+    public void bvhMatchesBruteForceOnSphere() throws IOException
+    {
+        GVRMeshBVH bvh = new GVRMeshBVH(GVRObjMesh.read(new File(ASSETS + "sphere.obj")));
+        assertEquals(960, bvh.getMesh().getTriangleCount());
+        checkAgainstBruteForce(bvh, 1);
+    }
+
+    @Test
+    public void bvhMatchesBruteForceOnBunny() throws IOException
+    {
+        GVRMeshBVH bvh = new GVRMeshBVH(GVRObjMesh.read(new File(ASSETS + "bunny.obj")));
+        assertEquals(4968, bvh.getMesh().getTriangleCount());
+        checkAgainstBruteForce(bvh, 2);
+    }
+
+    @Test
+    public void hitsAreInMeshCoordinates() throws IOException
+    {
+        GVRPickOracle oracle = new GVRPickOracle(1);
+        oracle.addObject("quad", new GVRMeshBVH(quad()), GVRPickOracle.modelMatrix(0, 0, -5, 1, 0, 0, 0, 2, 2, 2));
+
+        // like PickerTests.canPickQuad
+        GVRPickHit hit = oracle.pickClosest(0, 0, 0, 0, 0, -1);
+        assertNotNull(hit);
+        assertEquals("quad", hit.name);
+        assertEquals(5.0f, hit.hitDistance, 1e-6f);
+        assertEquals(0.0f, hit.hitLocation[2], 1e-6f);
+        assertEquals(0.5f, hit.textureCoords[0], 1e-6f);
+        assertEquals(0.5f, hit.textureCoords[1], 1e-6f);
+
+        // like PickerTests.pickQuadFromLeftAndRight
+        float x = -2.999f, z = -5.0f, n = (float) Math.sqrt(x * x + z * z);
+        oracle = new GVRPickOracle(1);
+        oracle.addObject("quad1", new GVRMeshBVH(quad()), GVRPickOracle.modelMatrix(-2, 0, -5, 1, 0, 0, 0, 2, 2, 2));
+        hit = oracle.pickClosest(0, 0, 0, x / n, 0, z / n);
+        assertNotNull(hit);
+        assertEquals(-0.4995f, hit.hitLocation[0], 1e-5f);
+        assertEquals(0.0005f, hit.textureCoords[0], 1e-5f);
+        assertNull(oracle.pickClosest(0, 0, 0, -3.05f / n, 0, z / n));
+    }
+
+    @Test
+    public void picksClosestOfOverlappingObjects() throws IOException
+    {
+        GVRPickOracle oracle = new GVRPickOracle(1);
+        GVRMeshBVH sphere = new GVRMeshBVH(GVRObjMesh.read(new File(ASSETS + "sphere.obj")));
+        float r = sphere.getBounds()[5];
+
+        oracle.addObject("far", sphere, GVRPickOracle.modelMatrix(0, 0, -4, 1, 0, 0, 0, 1, 1, 1));
+        oracle.addObject("near", sphere, GVRPickOracle.modelMatrix(0, 0, -2, 1, 0, 0, 0, 1, 1, 1));
+        List<GVRPickHit> hits = oracle.pick(0, 0, 0, 0, 0, -1);
+        assertEquals(2, hits.size());
+        assertEquals("near", hits.get(0).name);
+        assertEquals(2 - r, hits.get(0).hitDistance, 1e-4f);
+        assertEquals(r, hits.get(0).hitLocation[2], 1e-4f);
+        assertEquals("far", hits.get(1).name);
+        float[] w = hits.get(0).barycentricCoords;
+        assertEquals(1.0f, w[0] + w[1] + w[2], 1e-5f);
+    }
+
+    @Test
+    public void parallelMatchesSerial() throws IOException
+    {
+        GVRPickOracle oracle = new GVRPickOracle(4);
+        GVRMeshBVH bunny = new GVRMeshBVH(GVRObjMesh.read(new File(ASSETS + "bunny.obj")));
+        Random rnd = new Random(3);
+
+        GVRPickOracleTool.placeObjects(oracle, bunny, 50, rnd);
+        float[] rays = GVRPickOracleTool.randomRays(5000, rnd);
+        GVRPickHit[] serial = oracle.pickClosestSerial(rays);
+        GVRPickHit[] parallel = oracle.pickClosest(rays);
+        int hits = 0;
+
+        for (int i = 0; i < serial.length; ++i)
+        {
+            if (serial[i] == null)
+            {
+                assertNull(parallel[i]);
+                continue;
+            }
+            ++hits;
+            assertEquals(serial[i].name, parallel[i].name);
+            assertEquals(serial[i].faceIndex, parallel[i].faceIndex);
+            assertEquals(serial[i].hitDistance, parallel[i].hitDistance, 0);
+        }
+        assertTrue(hits > 0);
+        oracle.shutdown();
+    }
+
+    @Test
+    public void frustumSelectsObjectsInView() throws IOException
+    {
+        GVRPickOracle oracle = new GVRPickOracle(1);
+        GVRMeshBVH sphere = new GVRMeshBVH(GVRObjMesh.read(new File(ASSETS + "sphere.obj")));
+
+        // like PickerTests.canPickWithFrustum
+        oracle.addObject("sphere", sphere, GVRPickOracle.modelMatrix(0, 0, -2, 1, 0, 0, 0, 1, 1, 1));
+        oracle.addObject("box", sphere, GVRPickOracle.modelMatrix(-2, 0, -1, 1, 0, 0, 0, 1, 1, 1));
+        oracle.addObject("behind", sphere, GVRPickOracle.modelMatrix(0, 0, 2, 1, 0, 0, 0, 1, 1, 1));
+        oracle.addObject("toofar", sphere, GVRPickOracle.modelMatrix(0, 0, -200, 1, 0, 0, 0, 1, 1, 1));
+        List<String> names = oracle.pickFrustum(45.0f, 1.0f, 0.1f, 100.0f);
+        assertEquals(1, names.size());
+        assertEquals("sphere", names.get(0));
+    }
+}
@@ -0,0 +1,318 @@
+/*
+ * Copyright (c) 2016. Samsung Electronics Co., LTD
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf.sceneformat;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Binary form of a scene description tree.
+ * <p>
+ * A scene description is a tree of {@code Map<String, Object>}, {@code List<Object>},
+ * {@code String}, {@code Double}, {@code Boolean} and {@code null} values as in
+ * JSON, except that the geometry arrays are {@code float[]} or {@code int[]} (see
+ * {@link GVRSceneJson}). The file starts with the magic "GVRS" and a version,
+ * followed by the root value. Each value is a one byte tag and its payload, all
+ * little endian:
+ * <pre>
+ * NULL, FALSE, TRUE  -
+ * NUMBER             float64
+ * STRING             int32 length, UTF-8 bytes
+ * OBJECT             int32 count, count * (STRING key without tag, value)
+ * ARRAY              int32 count, count * value
+ * FLOATS, INTS       int32 count, padding to 4 bytes, count * float32 / int32
+ * </pre>
+ * The primitive arrays are aligned so they are read from a memory mapped file with
+ * a single bulk {@link java.nio.FloatBuffer} or {@link java.nio.IntBuffer} get.
+ */
+public final class GVRSceneBinary {
+    public static final int MAGIC = 0x53525647; // "GVRS" read little endian
+    public static final int VERSION = 1;
+
+    static final byte TAG_NULL = 0;
+    static final byte TAG_FALSE = 1;
+    static final byte TAG_TRUE = 2;
+    static final byte TAG_NUMBER = 3;
+    static final byte TAG_STRING = 4;
+    static final byte TAG_OBJECT = 5;
+    static final byte TAG_ARRAY = 6;
+    static final byte TAG_FLOATS = 7;
+    static final byte TAG_INTS = 8;
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private GVRSceneBinary() {
+    }
+
+    /**
+     * Memory maps a binary scene file and reads its tree.
+     */
+    public static Map<String, Object> read(File file) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            FileChannel channel = raf.getChannel();
+            return read(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        } finally {
+            raf.close();
+        }
+    }
+
+    /**
+     * Reads the tree of a binary scene from a buffer starting at its position.
+     * @throws IOException if the buffer does not hold a binary scene.
+     */
+    @SuppressWarnings("unchecked")
+    public static Map<String, Object> read(ByteBuffer data) throws IOException {
+        // offsets in the slice are file offsets, which the array alignment refers to
+        final ByteBuffer buffer = data.slice().order(ByteOrder.LITTLE_ENDIAN);
+        if (buffer.remaining() < 9 || buffer.getInt() != MAGIC) {
+            throw new IOException("not a binary scene");
+        }
+        int version = buffer.getInt();
+        if (version != VERSION) {
+            throw new IOException("unsupported binary scene version " + version);
+        }
+        try {
+            Object root = readValue(buffer);
+            if (!(root instanceof Map)) {
+                throw new IOException("the root of a binary scene must be an object");
+            }
+            return (Map<String, Object>) root;
+        } catch (RuntimeException e) {
+            // BufferUnderflowException, IllegalArgumentException on corrupt counts
+            throw new IOException("corrupt binary scene: " + e);
+        }
+    }
+
+    private static Object readValue(ByteBuffer buffer) throws IOException {
+        final byte tag = buffer.get();
+
+        switch (tag) {
+            case TAG_NULL:
+                return null;
+            case TAG_FALSE:
+                return Boolean.FALSE;
+            case TAG_TRUE:
+                return Boolean.TRUE;
+            case TAG_NUMBER:
+                return buffer.getDouble();
+            case TAG_STRING:
+                return readString(buffer);
+            case TAG_OBJECT: {
+                final int count = buffer.getInt();
+                Map<String, Object> map = new LinkedHashMap<String, Object>();
+                for (int i = 0; i < count; ++i) {
+                    String key = readString(buffer);
+                    map.put(key, readValue(buffer));
+                }
+                return map;
+            }
+            case TAG_ARRAY: {
+                final int count = buffer.getInt();
+                List<Object> list = new ArrayList<Object>(count);
+                for (int i = 0; i < count; ++i) {
+                    list.add(readValue(buffer));
+                }
+                return list;
+            }
+            case TAG_FLOATS: {
+                final int count = buffer.getInt();
+                align(buffer);
+                float[] values = new float[count];
+                buffer.asFloatBuffer().get(values);
+                buffer.position(buffer.position() + count * 4);
+                return values;
+            }
+            case TAG_INTS: {
+                final int count = buffer.getInt();
+                align(buffer);
+                int[] values = new int[count];
+                buffer.asIntBuffer().get(values);
+                buffer.position(buffer.position() + count * 4);
+                return values;
+            }
+            default:
+                throw new IOException("unknown tag " + tag + " at " + (buffer.position() - 1));
+        }
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        final int length = buffer.getInt();
+        String s;
+        if (buffer.hasArray()) {
+            s = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, UTF8);
+            buffer.position(buffer.position() + length);
+        } else {
+            byte[] bytes = new byte[length];
+            buffer.get(bytes);
+            s = new String(bytes, UTF8);
+        }
+        return s;
+    }
+
+    private static void align(ByteBuffer buffer) {
+        buffer.position((buffer.position() + 3) & ~3);
+    }
+
+    /**
+     * Writes a tree to a file.
+     */
+    public static void write(Map<String, Object> root, File file) throws IOException {
+        OutputStream out = new FileOutputStream(file);
+        try {
+            write(root, out);
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * Writes a tree to a stream.
+     * @throws IllegalArgumentException if the tree holds values of other types.
+     */
+    public static void write(Map<String, Object> root, OutputStream out) throws IOException {
+        Writer writer = new Writer();
+        writer.putInt(MAGIC);
+        writer.putInt(VERSION);
+        writer.writeValue(root);
+        out.write(writer.mBuffer.array(), 0, writer.mBuffer.position());
+    }
+
+    /**
+     * Reads a whole file into a heap buffer, for platforms where mapping is not wanted.
+     */
+    public static Map<String, Object> readFully(File file) throws IOException {
+        byte[] bytes = new byte[(int) file.length()];
+        FileInputStream in = new FileInputStream(file);
+        try {
+            int offset = 0;
+            while (offset < bytes.length) {
+                int n = in.read(bytes, offset, bytes.length - offset);
+                if (n < 0) {
+                    throw new IOException("unexpected end of " + file);
+                }
+                offset += n;
+            }
+        } finally {
+            in.close();
+        }
+        return read(ByteBuffer.wrap(bytes));
+    }
+
+    /*
+     * Serializes into a growing little endian heap buffer; positions in the buffer
+     * are file offsets which the array alignment depends on.
+     */
+    private static final class Writer {
+        ByteBuffer mBuffer = ByteBuffer.allocate(64 * 1024).order(ByteOrder.LITTLE_ENDIAN);
+
+        void ensure(int bytes) {
+            if (mBuffer.remaining() < bytes) {
+                int capacity = Math.max(mBuffer.capacity() * 2, mBuffer.position() + bytes);
+                ByteBuffer larger = ByteBuffer.allocate(capacity).order(ByteOrder.LITTLE_ENDIAN);
+                mBuffer.flip();
+                larger.put(mBuffer);
+                mBuffer = larger;
+            }
+        }
+
+        void putInt(int value) {
+            ensure(4);
+            mBuffer.putInt(value);
+        }
+
+        void putTag(byte tag) {
+            ensure(1);
+            mBuffer.put(tag);
+        }
+
+        void putString(String s) {
+            byte[] bytes = s.getBytes(UTF8);
+            ensure(4 + bytes.length);
+            mBuffer.putInt(bytes.length);
+            mBuffer.put(bytes);
+        }
+
+        void align() {
+            int padding = ((mBuffer.position() + 3) & ~3) - mBuffer.position();
+            ensure(padding);
+            for (int i = 0; i < padding; ++i) {
+                mBuffer.put((byte) 0);
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        void writeValue(Object value) {
+            if (value == null) {
+                putTag(TAG_NULL);
+            } else if (value instanceof Boolean) {
+                putTag(((Boolean) value) ? TAG_TRUE : TAG_FALSE);
+            } else if (value instanceof Number) {
+                putTag(TAG_NUMBER);
+                ensure(8);
+                mBuffer.putDouble(((Number) value).doubleValue());
+            } else if (value instanceof String) {
+                putTag(TAG_STRING);
+                putString((String) value);
+            } else if (value instanceof Map) {
+                Map<String, Object> map = (Map<String, Object>) value;
+                putTag(TAG_OBJECT);
+                putInt(map.size());
+                for (Map.Entry<String, Object> entry : map.entrySet()) {
+                    putString(entry.getKey());
+                    writeValue(entry.getValue());
+                }
+            } else if (value instanceof List) {
+                List<Object> list = (List<Object>) value;
+                putTag(TAG_ARRAY);
+                putInt(list.size());
+                for (Object element : list) {
+                    writeValue(element);
+                }
+            } else if (value instanceof float[]) {
+                float[] values = (float[]) value;
+                putTag(TAG_FLOATS);
+                putInt(values.length);
+                align();
+                ensure(values.length * 4);
+                mBuffer.asFloatBuffer().put(values);
+                mBuffer.position(mBuffer.position() + values.length * 4);
+            } else if (value instanceof int[]) {
+                int[] values = (int[]) value;
+                putTag(TAG_INTS);
+                putInt(values.length);
+                align();
+                ensure(values.length * 4);
+                mBuffer.asIntBuffer().put(values);
+                mBuffer.position(mBuffer.position() + values.length * 4);
+            } else {
+                throw new IllegalArgumentException("cannot store " + value.getClass().getName());
+            }
+        }
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) 2016. Samsung Electronics Co., LTD
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf.sceneformat;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.Map;
+
+/**
+ * Host command line tool for binary scene files.
+ * <pre>
+ * json2bin &lt;scene.json&gt; &lt;scene.gvrs&gt;
+ *     converts a GVRSceneMaker scene description to the binary format.
+ * bin2json &lt;scene.gvrs&gt; &lt;scene.json&gt;
+ *     converts a binary scene back to JSON.
+ * check &lt;scene.json&gt;
+ *     converts a description to the binary format and back, verifies that nothing
+ *     changed and prints the parse and load times of both formats.
+ * </pre>
+ */
+public final class GVRSceneConverter {
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private GVRSceneConverter() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 3 && "json2bin".equals(args[0])) {
+            GVRSceneBinary.write(readJson(new File(args[1])), new File(args[2]));
+        } else if (args.length == 3 && "bin2json".equals(args[0])) {
+            writeJson(GVRSceneBinary.read(new File(args[1])), new File(args[2]));
+        } else if (args.length == 2 && "check".equals(args[0])) {
+            if (!check(new File(args[1]))) {
+                System.exit(1);
+            }
+        } else {
+            usage();
+        }
+    }
+
+    public static Map<String, Object> readJson(File file) throws IOException {
+        Reader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), UTF8));
+        try {
+            return GVRSceneJson.parse(reader);
+        } finally {
+            reader.close();
+        }
+    }
+
+    public static void writeJson(Map<String, Object> root, File file) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), UTF8));
+        try {
+            GVRSceneJson.write(root, writer);
+        } finally {
+            writer.close();
+        }
+    }
+
+    /**
+     * Round trips a JSON description through the binary format and the binary back
+     * through JSON, printing the timings.
+     * @return true if both round trips preserve the description.
+     */
+    public static boolean check(File json) throws IOException {
+        File binary = File.createTempFile("scene", ".gvrs");
+        File back = File.createTempFile("scene", ".json");
+        try {
+            long start = System.nanoTime();
+            Map<String, Object> original = readJson(json);
+            long parsed = System.nanoTime();
+            GVRSceneBinary.write(original, binary);
+            long written = System.nanoTime();
+            Map<String, Object> loaded = GVRSceneBinary.read(binary);
+            long mapped = System.nanoTime();
+
+            System.out.println(String.format("%s: %d array elements, json %d bytes, binary %d bytes",
+                    json.getName(), GVRSceneTrees.countArrayElements(original), json.length(),
+                    binary.length()));
+            System.out.println(String.format("parse json %.2f ms, write binary %.2f ms, load binary %.2f ms",
+                    (parsed - start) / 1e6, (written - parsed) / 1e6, (mapped - written) / 1e6));
+
+            String difference = GVRSceneTrees.findDifference(original, loaded);
+            if (difference != null) {
+                System.out.println("binary round trip differs at " + difference);
+                return false;
+            }
+            writeJson(loaded, back);
+            difference = GVRSceneTrees.findDifference(original, readJson(back));
+            if (difference != null) {
+                System.out.println("json round trip differs at " + difference);
+                return false;
+            }
+            System.out.println("round trip ok");
+            return true;
+        } finally {
+            binary.delete();
+            back.delete();
+        }
+    }
+
+    private static void usage() {
+        System.err.println("usage: json2bin <scene.json> <scene.gvrs>");
+        System.err.println("       bin2json <scene.gvrs> <scene.json>");
+        System.err.println("       check <scene.json>");
+    }
+}
@@ -0,0 +1,383 @@
+/*
+ * Copyright (c) 2016. Samsung Electronics Co., LTD
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf.sceneformat;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Reads and writes the JSON scene descriptions of GVRSceneMaker as trees without
+ * any Android dependency.
+ * <p>
+ * The parser accepts the same lenient JSON as the scene maker: names and string
+ * values do not need quotes and numbers may carry a trailing 'f'. Numbers are
+ * {@code Double}s, except in the geometry arrays: "vertices", "normals" and
+ * "bone_weights" become {@code float[]}, "triangles" and "bone_indices" become
+ * {@code int[]} and "texcoords" becomes a list of {@code float[]}.
+ */
+public final class GVRSceneJson {
+    static final Set<String> FLOAT_ARRAYS =
+            new HashSet<String>(Arrays.asList("vertices", "normals", "bone_weights"));
+    static final Set<String> INT_ARRAYS =
+            new HashSet<String>(Arrays.asList("triangles", "bone_indices"));
+    static final String TEXCOORDS = "texcoords";
+
+    private final Reader mReader;
+    private int mPeek = -2;
+    private int mLine = 1;
+    private float[] mFloats = new float[1024];
+    private int[] mInts = new int[1024];
+    private final StringBuilder mToken = new StringBuilder();
+
+    private GVRSceneJson(Reader reader) {
+        mReader = reader;
+    }
+
+    /**
+     * Parses a scene description. The reader is not closed.
+     * @throws IOException on read errors and malformed descriptions.
+     */
+    @SuppressWarnings("unchecked")
+    public static Map<String, Object> parse(Reader reader) throws IOException {
+        GVRSceneJson parser = new GVRSceneJson(reader);
+        Object root = parser.readValue(null);
+        if (!(root instanceof Map)) {
+            throw parser.error("a scene description must be an object");
+        }
+        if (parser.peekSignificant() != -1) {
+            throw parser.error("unexpected text after the scene description");
+        }
+        return (Map<String, Object>) root;
+    }
+
+    /**
+     * Writes a tree as JSON. Floats are written with the shortest text that reads
+     * back to the same float.
+     */
+    public static void write(Map<String, Object> root, Appendable out) throws IOException {
+        writeValue(root, out);
+    }
+
+    private int peek() throws IOException {
+        if (mPeek == -2) {
+            mPeek = mReader.read();
+        }
+        return mPeek;
+    }
+
+    private int next() throws IOException {
+        int c = peek();
+        mPeek = -2;
+        if (c == '\n') {
+            ++mLine;
+        }
+        return c;
+    }
+
+    private int peekSignificant() throws IOException {
+        while (true) {
+            int c = peek();
+            if (c == ' ' || c == '\t' || c == '\n' || c == '\r') {
+                next();
+            } else {
+                return c;
+            }
+        }
+    }
+
+    private void expect(char expected) throws IOException {
+        int c = peekSignificant();
+        if (c != expected) {
+            throw error("expected '" + expected + "'");
+        }
+        next();
+    }
+
+    private IOException error(String message) {
+        return new IOException(message + " at line " + mLine);
+    }
+
+    private Object readValue(String name) throws IOException {
+        int c = peekSignificant();
+
+        if (c == '{') {
+            return readObject();
+        } else if (c == '[') {
+            if (FLOAT_ARRAYS.contains(name)) {
+                return readFloats();
+            } else if (INT_ARRAYS.contains(name)) {
+                return readInts();
+            } else if (TEXCOORDS.equals(name)) {
+                List<Object> sets = new ArrayList<Object>();
+                next();
+                while (peekSignificant() != ']') {
+                    sets.add(readFloats());
+                    if (peekSignificant() == ',') {
+                        next();
+                    }
+                }
+                next();
+                return sets;
+            }
+            return readArray();
+        } else if (c == '"' || c == '\'') {
+            return readQuoted();
+        } else if (c == -1) {
+            throw error("unexpected end of the scene description");
+        }
+        return literal(readUnquoted());
+    }
+
+    private Map<String, Object> readObject() throws IOException {
+        Map<String, Object> map = new LinkedHashMap<String, Object>();
+
+        expect('{');
+        while (peekSignificant() != '}') {
+            int c = peekSignificant();
+            String name = (c == '"' || c == '\'') ? readQuoted() : readUnquoted();
+            expect(':');
+            map.put(name, readValue(name));
+            c = peekSignificant();
+            if (c == ',') {
+                next();
+            } else if (c != '}') {
+                throw error("expected ',' or '}'");
+            }
+        }
+        next();
+        return map;
+    }
+
+    private List<Object> readArray() throws IOException {
+        List<Object> list = new ArrayList<Object>();
+
+        expect('[');
+        while (peekSignificant() != ']') {
+            list.add(readValue(null));
+            int c = peekSignificant();
+            if (c == ',') {
+                next();
+            } else if (c != ']') {
+                throw error("expected ',' or ']'");
+            }
+        }
+        next();
+        return list;
+    }
+
+    private float[] readFloats() throws IOException {
+        int n = 0;
+
+        expect('[');
+        while (peekSignificant() != ']') {
+            if (n == mFloats.length) {
+                mFloats = Arrays.copyOf(mFloats, n * 2);
+            }
+            mFloats[n++] = (float) number(readUnquoted());
+            if (peekSignificant() == ',') {
+                next();
+            }
+        }
+        next();
+        return Arrays.copyOf(mFloats, n);
+    }
+
+    private int[] readInts() throws IOException {
+        int n = 0;
+
+        expect('[');
+        while (peekSignificant() != ']') {
+            if (n == mInts.length) {
+                mInts = Arrays.copyOf(mInts, n * 2);
+            }
+            mInts[n++] = (int) number(readUnquoted());
+            if (peekSignificant() == ',') {
+                next();
+            }
+        }
+        next();
+        return Arrays.copyOf(mInts, n);
+    }
+
+    private String readQuoted() throws IOException {
+        final int quote = next();
+        mToken.setLength(0);
+
+        while (true) {
+            int c = next();
+            if (c == -1) {
+                throw error("unterminated string");
+            } else if (c == quote) {
+                return mToken.toString();
+            } else if (c == '\\') {
+                c = next();
+                switch (c) {
+                    case 'n': mToken.append('\n'); break;
+                    case 't': mToken.append('\t'); break;
+                    case 'r': mToken.append('\r'); break;
+                    case 'b': mToken.append('\b'); break;
+                    case 'f': mToken.append('\f'); break;
+                    case 'u':
+                        char[] hex = new char[4];
+                        for (int i = 0; i < 4; ++i) {
+                            hex[i] = (char) next();
+                        }
+                        mToken.append((char) Integer.parseInt(new String(hex), 16));
+                        break;
+                    default:
+                        mToken.append((char) c);
+                }
+            } else {
+                mToken.append((char) c);
+            }
+        }
+    }
+
+    private String readUnquoted() throws IOException {
+        mToken.setLength(0);
+        while (true) {
+            int c = peek();
+            if (c == -1 || c == ',' || c == ':' || c == '}' || c == ']' || c == ' '
+                    || c == '\t' || c == '\n' || c == '\r') {
+                break;
+            }
+            mToken.append((char) next());
+        }
+        if (mToken.length() == 0) {
+            throw error("expected a value");
+        }
+        return mToken.toString();
+    }
+
+    private double number(String token) throws IOException {
+        try {
+            return Double.parseDouble(token);
+        } catch (NumberFormatException e) {
+            throw error("expected a number instead of " + token);
+        }
+    }
+
+    private static Object literal(String token) {
+        if (token.equals("true")) {
+            return Boolean.TRUE;
+        } else if (token.equals("false")) {
+            return Boolean.FALSE;
+        } else if (token.equals("null")) {
+            return null;
+        }
+        char c = token.charAt(0);
+        if ((c >= '0' && c <= '9') || c == '-' || c == '+' || c == '.') {
+            try {
+                return Double.parseDouble(token);
+            } catch (NumberFormatException e) {
+                // not a number, an unquoted string
+            }
+        }
+        return token;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void writeValue(Object value, Appendable out) throws IOException {
+        if (value == null) {
+            out.append("null");
+        } else if (value instanceof Boolean) {
+            out.append(value.toString());
+        } else if (value instanceof Number) {
+            double d = ((Number) value).doubleValue();
+            if (d == Math.rint(d) && Math.abs(d) < 1e15) {
+                out.append(Long.toString((long) d));
+            } else {
+                out.append(Double.toString(d));
+            }
+        } else if (value instanceof String) {
+            writeString((String) value, out);
+        } else if (value instanceof Map) {
+            out.append('{');
+            boolean first = true;
+            for (Map.Entry<String, Object> entry : ((Map<String, Object>) value).entrySet()) {
+                if (!first) {
+                    out.append(',');
+                }
+                first = false;
+                writeString(entry.getKey(), out);
+                out.append(':');
+                writeValue(entry.getValue(), out);
+            }
+            out.append('}');
+        } else if (value instanceof List) {
+            out.append('[');
+            boolean first = true;
+            for (Object element : (List<Object>) value) {
+                if (!first) {
+                    out.append(',');
+                }
+                first = false;
+                writeValue(element, out);
+            }
+            out.append(']');
+        } else if (value instanceof float[]) {
+            float[] values = (float[]) value;
+            out.append('[');
+            for (int i = 0; i < values.length; ++i) {
+                if (i > 0) {
+                    out.append(',');
+                }
+                out.append(Float.toString(values[i]));
+            }
+            out.append(']');
+        } else if (value instanceof int[]) {
+            int[] values = (int[]) value;
+            out.append('[');
+            for (int i = 0; i < values.length; ++i) {
+                if (i > 0) {
+                    out.append(',');
+                }
+                out.append(Integer.toString(values[i]));
+            }
+            out.append(']');
+        } else {
+            throw new IllegalArgumentException("cannot write " + value.getClass().getName());
+        }
+    }
+
+    private static void writeString(String s, Appendable out) throws IOException {
+        out.append('"');
+        for (int i = 0; i < s.length(); ++i) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"': out.append("\\\""); break;
+                case '\\': out.append("\\\\"); break;
+                case '\n': out.append("\\n"); break;
+                case '\r': out.append("\\r"); break;
+                case '\t': out.append("\\t"); break;
+                default:
+                    if (c < 0x20) {
+                        out.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.append(c);
+                    }
+            }
+        }
+        out.append('"');
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2016. Samsung Electronics Co., LTD
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf.sceneformat;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compares scene description trees, e.g. a scene converted to the binary format and
+ * back with the original.
+ */
+public final class GVRSceneTrees {
+    private GVRSceneTrees() {
+    }
+
+    /**
+     * Returns the path of the first difference between two trees, such as
+     * "objects[3].geometry.vertices[12]", or null if they are equivalent. Numbers
+     * are compared by value and the geometry arrays element by element.
+     */
+    public static String findDifference(Object expected, Object actual) {
+        return findDifference("", expected, actual);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static String findDifference(String path, Object expected, Object actual) {
+        if (expected == null || actual == null) {
+            return (expected == actual) ? null : describe(path);
+        } else if (expected instanceof Number && actual instanceof Number) {
+            double e = ((Number) expected).doubleValue();
+            double a = ((Number) actual).doubleValue();
+            return (Double.compare(e, a) == 0) ? null : describe(path);
+        } else if (expected instanceof Map && actual instanceof Map) {
+            Map<String, Object> e = (Map<String, Object>) expected;
+            Map<String, Object> a = (Map<String, Object>) actual;
+            if (!e.keySet().equals(a.keySet())) {
+                return describe(path) + " keys";
+            }
+            for (Map.Entry<String, Object> entry : e.entrySet()) {
+                String name = path.isEmpty() ? entry.getKey() : path + "." + entry.getKey();
+                String difference = findDifference(name, entry.getValue(), a.get(entry.getKey()));
+                if (difference != null) {
+                    return difference;
+                }
+            }
+            return null;
+        } else if (expected instanceof List && actual instanceof List) {
+            List<Object> e = (List<Object>) expected;
+            List<Object> a = (List<Object>) actual;
+            if (e.size() != a.size()) {
+                return describe(path) + " size";
+            }
+            Iterator<Object> ia = a.iterator();
+            int index = 0;
+            for (Object element : e) {
+                String difference = findDifference(path + "[" + index++ + "]", element, ia.next());
+                if (difference != null) {
+                    return difference;
+                }
+            }
+            return null;
+        } else if (expected instanceof float[] && actual instanceof float[]) {
+            float[] e = (float[]) expected;
+            float[] a = (float[]) actual;
+            if (e.length != a.length) {
+                return describe(path) + " size";
+            }
+            for (int i = 0; i < e.length; ++i) {
+                if (Float.compare(e[i], a[i]) != 0) {
+                    return path + "[" + i + "]";
+                }
+            }
+            return null;
+        } else if (expected instanceof int[] && actual instanceof int[]) {
+            int[] e = (int[]) expected;
+            int[] a = (int[]) actual;
+            if (e.length != a.length) {
+                return describe(path) + " size";
+            }
+            return Arrays.equals(e, a) ? null : describe(path);
+        }
+        return expected.equals(actual) ? null : describe(path);
+    }
+
+    private static String describe(String path) {
+        return path.isEmpty() ? "<root>" : path;
+    }
+
+    /**
+     * Counts the elements of the geometry arrays in a tree.
+     */
+    @SuppressWarnings("unchecked")
+    public static long countArrayElements(Object tree) {
+        if (tree instanceof float[]) {
+            return ((float[]) tree).length;
+        } else if (tree instanceof int[]) {
+            return ((int[]) tree).length;
+        }
+        long count = 0;
+        if (tree instanceof Map) {
+            for (Object value : ((Map<String, Object>) tree).values()) {
+                count += countArrayElements(value);
+            }
+        } else if (tree instanceof List) {
+            for (Object value : (List<Object>) tree) {
+                count += countArrayElements(value);
+            }
+        }
+        return count;
+    }
+}
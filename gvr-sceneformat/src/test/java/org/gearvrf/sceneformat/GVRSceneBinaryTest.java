@@ -0,0 +1,178 @@
+/*
+ * Copyright (c) 2016. Samsung Electronics Co., LTD
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf.sceneformat;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class GVRSceneBinaryTest
+{
+    // written like the descriptions in the framework tests, without quotes
+    private static final String SCENE =
+            "{\n"
+          + "  id: \"polygon scene\",\n"
+          + "  bgcolor: {r: 0.5, g: 0.5, b: 0.5, a: 1.0f},\n"
+          + "  materials: [{id: red, color: {r: 1, g: 0, b: 0}, shader: texture_shader}],\n"
+          + "  objects: [\n"
+          + "    {name: quad, material: red, position: {z: -2.0f}, visible: true,\n"
+          + "     geometry: {type: polygon,\n"
+          + "                vertices: [-1.0, 1.0, 0.0, -1.0, -1.0, 0.0, 1.0, -1.0, 0.0],\n"
+          + "                normals: [0, 0, 1, 0, 0, 1, 0, 0, 1],\n"
+          + "                texcoords: [[0, 0, 0, 1, 1, 1]],\n"
+          + "                triangles: [0, 1, 2]}},\n"
+          + "    {name: 'cube \\\"a\\\"', geometry: {type: cube}, parent: null}\n"
+          + "  ]\n"
+          + "}\n";
+
+    private static Map<String, Object> roundTrip(Map<String, Object> root) throws IOException
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        GVRSceneBinary.write(root, out);
+        return GVRSceneBinary.read(ByteBuffer.wrap(out.toByteArray()));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void parsesLenientJson() throws IOException
+    {
+        Map<String, Object> root = GVRSceneJson.parse(new StringReader(SCENE));
+        Map<String, Object> bgcolor = (Map<String, Object>) root.get("bgcolor");
+        assertEquals(1.0, (Double) bgcolor.get("a"), 0);
+
+        List<Object> objects = (List<Object>) root.get("objects");
+        Map<String, Object> quad = (Map<String, Object>) objects.get(0);
+        Map<String, Object> geometry = (Map<String, Object>) quad.get("geometry");
+        assertEquals("polygon", geometry.get("type"));
+        assertEquals(Boolean.TRUE, quad.get("visible"));
+        assertArrayEquals(new float[] { -1, 1, 0, -1, -1, 0, 1, -1, 0 },
+                          (float[]) geometry.get("vertices"), 0);
+        assertArrayEquals(new int[] { 0, 1, 2 }, (int[]) geometry.get("triangles"));
+        assertArrayEquals(new float[] { 0, 0, 0, 1, 1, 1 },
+                          (float[]) ((List<Object>) geometry.get("texcoords")).get(0), 0);
+
+        Map<String, Object> cube = (Map<String, Object>) objects.get(1);
+        assertEquals("cube \"a\"", cube.get("name"));
+        assertTrue(cube.containsKey("parent"));
+        assertNull(cube.get("parent"));
+    }
+
+    @Test
+    public void roundTripsThroughBinaryAndJson() throws IOException
+    {
+        Map<String, Object> original = GVRSceneJson.parse(new StringReader(SCENE));
+        assertNull(GVRSceneTrees.findDifference(original, roundTrip(original)));
+
+        StringBuilder json = new StringBuilder();
+        GVRSceneJson.write(original, json);
+        assertNull(GVRSceneTrees.findDifference(original,
+                                                GVRSceneJson.parse(new StringReader(json.toString()))));
+    }
+
+    @Test
+    public void reportsFirstDifference() throws IOException
+    {
+        Map<String, Object> original = GVRSceneJson.parse(new StringReader(SCENE));
+        Map<String, Object> changed = GVRSceneJson.parse(new StringReader(SCENE.replace("1.0, -1.0, 0.0]", "1.0, -1.5, 0.0]")));
+        assertEquals("objects[0].geometry.vertices[7]", GVRSceneTrees.findDifference(original, changed));
+    }
+
+    @Test
+    public void rejectsCorruptData() throws IOException
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        GVRSceneBinary.write(GVRSceneJson.parse(new StringReader(SCENE)), out);
+        byte[] bytes = out.toByteArray();
+
+        try
+        {
+            GVRSceneBinary.read(ByteBuffer.wrap(bytes, 0, bytes.length / 2));
+            fail("read a truncated scene");
+        }
+        catch (IOException e)
+        {
+            // expected
+        }
+        bytes[0] = 'X';
+        try
+        {
+            GVRSceneBinary.read(ByteBuffer.wrap(bytes));
+            fail("read a scene without magic");
+        }
+        catch (IOException e)
+        {
+            // expected
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void mapsLargeScene() throws IOException
+    {
+        Random rnd = new Random(42);
+        Map<String, Object> root = new LinkedHashMap<String, Object>();
+        List<Object> objects = new ArrayList<Object>();
+        root.put("id", "large");
+        root.put("objects", objects);
+
+        for (int i = 0; i < 50; ++i)
+        {
+            float[] vertices = new float[3 * (1000 + rnd.nextInt(1000))];
+            int[] triangles = new int[vertices.length];
+            for (int j = 0; j < vertices.length; ++j)
+            {
+                vertices[j] = rnd.nextFloat() * 100 - 50;
+                triangles[j] = rnd.nextInt(vertices.length / 3);
+            }
+            Map<String, Object> geometry = new LinkedHashMap<String, Object>();
+            geometry.put("type", "polygon");
+            geometry.put("vertices", vertices);
+            geometry.put("triangles", triangles);
+            Map<String, Object> object = new LinkedHashMap<String, Object>();
+            // odd name lengths so the arrays need padding
+            object.put("name", "object" + i + (i % 2 == 0 ? "" : "x"));
+            object.put("geometry", geometry);
+            objects.add(object);
+        }
+
+        File file = File.createTempFile("large", ".gvrs");
+        try
+        {
+            GVRSceneBinary.write(root, file);
+            assertNull(GVRSceneTrees.findDifference(root, GVRSceneBinary.read(file)));
+            assertNull(GVRSceneTrees.findDifference(root, GVRSceneBinary.readFully(file)));
+        }
+        finally
+        {
+            file.delete();
+        }
+    }
+}
@@ -0,0 +1,334 @@
+/*
+ * Copyright (c) 2016. Samsung Electronics Co., LTD
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf.testshard;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.Timer;
+import java.util.TimerTask;
+
+/**
+ * A phone attached through adb, driven the way scripts/runtest drives it.
+ * <p>
+ * Installing a group builds its application and test APKs with gradle in the
+ * GearVRf framework directory, once for all devices, and installs them with
+ * {@code adb install}. A test runs with {@code am instrument}, which reports the
+ * outcome of each test; afterwards the logcat and the files the test wrote to
+ * sdcard/GearVRFTests are stored in the result directory. Before each test the
+ * run.properties of the session is pushed, so the benchmark results of all
+ * tests on all devices share one run id and carry the commits under test, as
+ * with scripts/runtest. Every adb and gradle
+ * command is killed when it takes longer than its timeout, so a hung device
+ * does not stall the other shards.
+ */
+public final class GVRAdbDevice implements GVRDevice {
+    public static final String PACKAGE = "org.gearvrf.tester";
+    public static final String RUNNER = PACKAGE + ".test/android.support.test.runner.AndroidJUnitRunner";
+    public static final long COMMAND_TIMEOUT = 5 * 60 * 1000;
+    public static final long TEST_TIMEOUT = 30 * 60 * 1000;
+    public static final long BUILD_TIMEOUT = 60 * 60 * 1000;
+    public static final String RUN_PROPERTIES = "run.properties";
+    private static final String[] MODEL_CORPORA = { "jassimp", "x3d" };
+
+    // gradle cannot build the same project for several devices at once
+    private static final Object sBuildLock = new Object();
+    private static final Timer sWatchdog = new Timer("adb watchdog", true);
+
+    private final String mSerial;
+    private final File mTestsRoot;
+    private final File mGradleDir;
+    private final File mRunProperties;
+    private String mModel;
+
+    /**
+     * @param serial        serial number from {@code adb devices}.
+     * @param testsRoot     the GearVRf-Tests directory.
+     * @param gradleDir     directory with the gradle wrapper which builds the test
+     *                      groups, GearVRf/GVRf/Framework for runtest.
+     * @param runProperties run.properties of the session, see
+     *                      {@link #writeRunProperties(File, File, File)}.
+     */
+    public GVRAdbDevice(String serial, File testsRoot, File gradleDir, File runProperties) {
+        mSerial = serial;
+        mTestsRoot = testsRoot;
+        mGradleDir = gradleDir;
+        mRunProperties = runProperties;
+    }
+
+    /**
+     * Writes the run.properties of a session to the results directory, with the
+     * content pre-test of scripts/runtest pushes: a run id taken from the current
+     * time and the HEAD commits of GearVRf and GearVRf-Tests.
+     * @param gradleDir a directory inside the GearVRf checkout.
+     * @return the file written.
+     */
+    public static File writeRunProperties(File resultsRoot, File testsRoot, File gradleDir)
+            throws IOException, InterruptedException {
+        String runId = new SimpleDateFormat("yyyyMMddHHmmss", Locale.US).format(new Date());
+        File file = new File(resultsRoot, RUN_PROPERTIES);
+
+        resultsRoot.mkdirs();
+        Writer out = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+        try {
+            out.write(formatRunProperties(runId, gitHead(gradleDir), gitHead(testsRoot)));
+        } finally {
+            out.close();
+        }
+        return file;
+    }
+
+    static String formatRunProperties(String runId, String gearvrfCommit, String testsCommit) {
+        return "run=" + runId + "\ngearvrf.commit=" + gearvrfCommit + "\ngearvrf-tests.commit="
+               + testsCommit + "\n";
+    }
+
+    /**
+     * Returns the HEAD commit of the git checkout containing the directory, or
+     * an empty string if there is none.
+     */
+    private static String gitHead(File dir) throws IOException, InterruptedException {
+        Process process = new ProcessBuilder("git", "rev-parse", "HEAD").directory(dir)
+                .redirectErrorStream(true).start();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream(), "UTF-8"));
+        String head;
+        try {
+            head = reader.readLine();
+        } finally {
+            reader.close();
+        }
+        if (process.waitFor() != 0 || head == null) {
+            return "";
+        }
+        return head.trim();
+    }
+
+    @Override
+    public String getSerial() {
+        return mSerial;
+    }
+
+    @Override
+    public synchronized String getModel() throws IOException, InterruptedException {
+        if (mModel == null) {
+            mModel = adb(COMMAND_TIMEOUT, null, "shell", "getprop", "ro.product.model").trim();
+            if (mModel.isEmpty()) {
+                throw new IOException("no model for " + mSerial);
+            }
+        }
+        return mModel;
+    }
+
+    @Override
+    public void install(String group, File resultDir) throws IOException, InterruptedException {
+        File log = new File(resultDir, "install-" + mSerial + ".txt");
+        File apks = new File(mTestsRoot, group + "/app/build/outputs/apk");
+
+        synchronized (sBuildLock) {
+            exec(mGradleDir, BUILD_TIMEOUT, log, "./gradlew", ":" + group + ":assembleDebug",
+                 ":" + group + ":assembleDebugAndroidTest");
+        }
+        adb(COMMAND_TIMEOUT, log, "uninstall", PACKAGE);
+        adb(COMMAND_TIMEOUT, log, "uninstall", PACKAGE + ".test");
+        adb(COMMAND_TIMEOUT, log, "install", "-r", "-g",
+            new File(apks, "debug/app-debug.apk").getPath());
+        adb(COMMAND_TIMEOUT, log, "install", "-r", "-g",
+            new File(apks, "androidTest/debug/app-debug-androidTest.apk").getPath());
+        // tests read golden masters from sdcard/golden_masters instead of github
+        adb(COMMAND_TIMEOUT, log, "push", "--sync",
+            new File(mTestsRoot, "golden_masters").getPath(), "sdcard/");
+        // load benchmarks read the model corpora from sdcard instead of github
+        for (String corpus : MODEL_CORPORA) {
+            adb(COMMAND_TIMEOUT, log, "push", "--sync", new File(mTestsRoot, corpus).getPath(), "sdcard/");
+        }
+    }
+
+    @Override
+    public GVRTestResult run(GVRTestCase test, File resultDir) throws IOException, InterruptedException {
+        adb(COMMAND_TIMEOUT, null, "shell", "rm", "-rf", "sdcard/GearVRFTests/*");
+        adb(COMMAND_TIMEOUT, null, "shell", "mkdir", "-p", "sdcard/GearVRFTests");
+        adb(COMMAND_TIMEOUT, null, "push", mRunProperties.getPath(), "sdcard/GearVRFTests/" + RUN_PROPERTIES);
+        adb(COMMAND_TIMEOUT, null, "logcat", "-c");
+
+        File output = new File(resultDir, "instrument.txt");
+        long start = System.nanoTime();
+        try {
+            adb(TEST_TIMEOUT, output, "shell", "am", "instrument", "-w", "-r", "-e", "class",
+                test.getInstrumentationName(), RUNNER);
+        } catch (IOException e) {
+            return new GVRTestResult(test, mSerial, GVRTestResult.Status.ERROR,
+                                     (System.nanoTime() - start) / 1e9, e.getMessage());
+        } finally {
+            adb(COMMAND_TIMEOUT, new File(resultDir, "logcat.txt"), "logcat", "-d");
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        adb(COMMAND_TIMEOUT, null, "pull", "sdcard/GearVRFTests", resultDir.getPath());
+
+        return parseInstrumentation(test, mSerial, seconds, readLines(output));
+    }
+
+    /**
+     * Reads the outcome of one test from the raw output of {@code am instrument -r}.
+     */
+    static GVRTestResult parseInstrumentation(GVRTestCase test, String serial, double seconds,
+                                              List<String> lines) {
+        GVRTestResult.Status status = null;
+        StringBuilder stack = new StringBuilder();
+        boolean inStack = false;
+
+        for (String line : lines) {
+            if (line.startsWith("INSTRUMENTATION_STATUS: stack=")) {
+                inStack = true;
+                stack.setLength(0);
+                stack.append(line.substring("INSTRUMENTATION_STATUS: stack=".length()));
+                continue;
+            }
+            if (line.startsWith("INSTRUMENTATION_")) {
+                inStack = false;
+            } else if (inStack) {
+                stack.append('\n').append(line);
+                continue;
+            }
+            if (line.startsWith("INSTRUMENTATION_STATUS_CODE: ")) {
+                int code = Integer.parseInt(line.substring("INSTRUMENTATION_STATUS_CODE: ".length()).trim());
+                switch (code) {
+                    case 0:
+                        status = GVRTestResult.Status.PASSED;
+                        break;
+                    case -2:
+                        status = GVRTestResult.Status.FAILED;
+                        break;
+                    case -3:
+                    case -4:
+                        status = GVRTestResult.Status.SKIPPED;
+                        break;
+                    case -1:
+                        status = GVRTestResult.Status.ERROR;
+                        break;
+                    default:
+                        // 1 is the start of the test
+                        break;
+                }
+            } else if (line.startsWith("INSTRUMENTATION_RESULT: shortMsg=")) {
+                // the process crashed
+                return new GVRTestResult(test, serial, GVRTestResult.Status.ERROR, seconds,
+                                         line.substring("INSTRUMENTATION_RESULT: shortMsg=".length()));
+            }
+        }
+        if (status == null) {
+            return new GVRTestResult(test, serial, GVRTestResult.Status.ERROR, seconds,
+                                     "no result from am instrument");
+        }
+        return new GVRTestResult(test, serial, status, seconds, stack.toString().trim());
+    }
+
+    private String adb(long timeout, File output, String... args) throws IOException, InterruptedException {
+        List<String> command = new ArrayList<String>();
+        command.add("adb");
+        command.add("-s");
+        command.add(mSerial);
+        command.addAll(Arrays.asList(args));
+        return exec(null, timeout, output, command.toArray(new String[command.size()]));
+    }
+
+    /**
+     * Runs a command and returns its output, which is also appended to the
+     * output file if there is one.
+     * @throws IOException if the command fails or takes longer than the timeout.
+     */
+    private String exec(File dir, long timeout, File output, String... command)
+            throws IOException, InterruptedException {
+        ProcessBuilder builder = new ProcessBuilder(command).redirectErrorStream(true);
+        if (dir != null) {
+            builder.directory(dir);
+        }
+        builder.environment().put("ANDROID_SERIAL", mSerial);
+
+        final Process process = builder.start();
+        final boolean[] killed = new boolean[1];
+        TimerTask kill = new TimerTask() {
+            @Override
+            public void run() {
+                synchronized (killed) {
+                    killed[0] = true;
+                }
+                process.destroy();
+            }
+        };
+        sWatchdog.schedule(kill, timeout);
+
+        ByteArrayOutputStream text = new ByteArrayOutputStream();
+        OutputStream file = (output != null) ? new FileOutputStream(output, true) : null;
+        try {
+            InputStream in = process.getInputStream();
+            byte[] buffer = new byte[8192];
+            int n;
+            while ((n = in.read(buffer)) > 0) {
+                text.write(buffer, 0, n);
+                if (file != null) {
+                    file.write(buffer, 0, n);
+                }
+            }
+            int exit = process.waitFor();
+            synchronized (killed) {
+                if (killed[0]) {
+                    throw new IOException(Arrays.toString(command) + " timed out after "
+                                          + timeout / 1000 + " s on " + mSerial);
+                }
+            }
+            if (exit != 0) {
+                throw new IOException(Arrays.toString(command) + " failed with " + exit + " on " + mSerial);
+            }
+        } catch (InterruptedException e) {
+            process.destroy();
+            throw e;
+        } finally {
+            kill.cancel();
+            if (file != null) {
+                file.close();
+            }
+        }
+        return text.toString("UTF-8");
+    }
+
+    private static List<String> readLines(File file) throws IOException {
+        List<String> lines = new ArrayList<String>();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), "UTF-8"));
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lines.add(line);
+            }
+        } finally {
+            reader.close();
+        }
+        return lines;
+    }
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright (c) 2016. Samsung Electronics Co., LTD
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf.testshard;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * A device the orchestrator runs tests on. {@link GVRAdbDevice} drives a phone
+ * through adb, {@link GVRFakeDevice} simulates one on the host.
+ * <p>
+ * Each device is used by one thread of the orchestrator at a time.
+ */
+public interface GVRDevice {
+    /**
+     * Serial number, unique among the devices of a run.
+     */
+    String getSerial();
+
+    /**
+     * Model name, ro.product.model on a phone. Results are stored under
+     * TestResults/&lt;model&gt;.
+     */
+    String getModel() throws IOException, InterruptedException;
+
+    /**
+     * Installs the application and the tests of a group, replacing the ones of
+     * any other group.
+     * @param resultDir directory for the output of the install.
+     */
+    void install(String group, File resultDir) throws IOException, InterruptedException;
+
+    /**
+     * Runs one test and stores its logs and the files it wrote on the device in
+     * resultDir.
+     */
+    GVRTestResult run(GVRTestCase test, File resultDir) throws IOException, InterruptedException;
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright (c) 2016. Samsung Electronics Co., LTD
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf.testshard;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A device simulated on the host, to try out the sharding and the result layout
+ * without phones.
+ * <p>
+ * A test takes its duration from {@link #setDuration(GVRTestCase, double)}, or
+ * the default duration, scaled by the time scale so that a simulated run can be
+ * much faster than a real one. It writes a logcat.txt like a phone would and
+ * fails if it was {@link #setFailing(GVRTestCase) set to fail}.
+ */
+public final class GVRFakeDevice implements GVRDevice {
+    private final String mSerial;
+    private final String mModel;
+    private final Map<String, Double> mDurations = new HashMap<String, Double>();
+    private final Set<String> mFailing = new HashSet<String>();
+    private final List<String> mInstalls = new ArrayList<String>();
+    private final List<GVRTestCase> mExecuted = new ArrayList<GVRTestCase>();
+    private double mDefaultSeconds = 1.0;
+    private double mInstallSeconds = 0;
+    private double mTimeScale = 0;
+    private String mInstalled;
+
+    public GVRFakeDevice(String serial, String model) {
+        mSerial = serial;
+        mModel = model;
+    }
+
+    /**
+     * Sets the duration the device reports for a test, in seconds.
+     */
+    public GVRFakeDevice setDuration(GVRTestCase test, double seconds) {
+        mDurations.put(test.getId(), seconds);
+        return this;
+    }
+
+    public GVRFakeDevice setDefaultDuration(double seconds) {
+        mDefaultSeconds = seconds;
+        return this;
+    }
+
+    public GVRFakeDevice setInstallDuration(double seconds) {
+        mInstallSeconds = seconds;
+        return this;
+    }
+
+    /**
+     * Sets the real time spent per simulated second. 0, the default, does not
+     * sleep at all.
+     */
+    public GVRFakeDevice setTimeScale(double scale) {
+        mTimeScale = scale;
+        return this;
+    }
+
+    public GVRFakeDevice setFailing(GVRTestCase test) {
+        mFailing.add(test.getId());
+        return this;
+    }
+
+    @Override
+    public String getSerial() {
+        return mSerial;
+    }
+
+    @Override
+    public String getModel() {
+        return mModel;
+    }
+
+    /**
+     * Groups installed so far, in order.
+     */
+    public synchronized List<String> getInstalls() {
+        return Collections.unmodifiableList(new ArrayList<String>(mInstalls));
+    }
+
+    /**
+     * Tests run so far, in order.
+     */
+    public synchronized List<GVRTestCase> getExecuted() {
+        return Collections.unmodifiableList(new ArrayList<GVRTestCase>(mExecuted));
+    }
+
+    @Override
+    public void install(String group, File resultDir) throws InterruptedException {
+        sleep(mInstallSeconds);
+        synchronized (this) {
+            mInstalls.add(group);
+            mInstalled = group;
+        }
+    }
+
+    @Override
+    public GVRTestResult run(GVRTestCase test, File resultDir) throws IOException, InterruptedException {
+        synchronized (this) {
+            if (!test.getGroup().equals(mInstalled)) {
+                return new GVRTestResult(test, mSerial, GVRTestResult.Status.ERROR, 0,
+                                         test.getGroup() + " is not installed");
+            }
+            mExecuted.add(test);
+        }
+
+        Double duration = mDurations.get(test.getId());
+        double seconds = (duration != null) ? duration : mDefaultSeconds;
+        sleep(seconds);
+
+        boolean failing = mFailing.contains(test.getId());
+        Writer writer = new FileWriter(new File(resultDir, "logcat.txt"));
+        try {
+            writer.write("I/TestRunner: started: " + test.getInstrumentationName() + "\n");
+            if (failing) {
+                writer.write("E/TestRunner: failed: " + test.getInstrumentationName() + "\n");
+            }
+            writer.write("I/TestRunner: finished: " + test.getInstrumentationName() + "\n");
+        } finally {
+            writer.close();
+        }
+
+        if (failing) {
+            return new GVRTestResult(test, mSerial, GVRTestResult.Status.FAILED, seconds,
+                                     "java.lang.AssertionError: simulated failure");
+        }
+        return new GVRTestResult(test, mSerial, GVRTestResult.Status.PASSED, seconds, null);
+    }
+
+    private void sleep(double seconds) throws InterruptedException {
+        long millis = (long) (seconds * mTimeScale * 1000);
+        if (millis > 0) {
+            Thread.sleep(millis);
+        }
+    }
+}
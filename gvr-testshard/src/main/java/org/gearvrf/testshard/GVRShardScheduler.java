@@ -0,0 +1,286 @@
+/*
+ * Copyright (c) 2016. Samsung Electronics Co., LTD
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf.testshard;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Splits tests into one shard per device so that all devices finish at about
+ * the same time.
+ * <p>
+ * The tests are packed longest first, each onto the device where it would end
+ * earliest (the LPT heuristic, at most 4/3 of the optimal makespan). All groups
+ * install the same application package, so a device pays
+ * {@link #setInstallSeconds(double) the install cost} once for every group in its
+ * shard. To keep the installs down the scheduler also packs whole groups, splits
+ * the group on the critical path into more chunks as long as that shortens the
+ * run, and keeps whichever packing ends first.
+ */
+public final class GVRShardScheduler {
+    public static final double DEFAULT_INSTALL_SECONDS = 90.0;
+
+    private final GVRTestTimings mTimings;
+    private double mInstallSeconds = DEFAULT_INSTALL_SECONDS;
+
+    /**
+     * The tests one device runs, in the order it runs them: by group, then class,
+     * then method.
+     */
+    public static final class Shard {
+        private final int mIndex;
+        private final List<GVRTestCase> mTests = new ArrayList<GVRTestCase>();
+        private final Set<String> mGroups = new TreeSet<String>();
+        private double mSeconds = 0;
+
+        Shard(int index) {
+            mIndex = index;
+        }
+
+        public int getIndex() {
+            return mIndex;
+        }
+
+        public List<GVRTestCase> getTests() {
+            return Collections.unmodifiableList(mTests);
+        }
+
+        public Set<String> getGroups() {
+            return Collections.unmodifiableSet(mGroups);
+        }
+
+        /**
+         * Estimated duration of the shard including the installs, in seconds.
+         */
+        public double getEstimatedSeconds() {
+            return mSeconds;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US, "shard %d: %d tests, groups %s, %.0f s", mIndex,
+                                 mTests.size(), mGroups, mSeconds);
+        }
+    }
+
+    public GVRShardScheduler(GVRTestTimings timings) {
+        mTimings = timings;
+    }
+
+    public GVRShardScheduler setInstallSeconds(double seconds) {
+        mInstallSeconds = seconds;
+        return this;
+    }
+
+    /**
+     * @return one shard for every device, some may be empty.
+     */
+    public List<Shard> schedule(List<GVRTestCase> tests, int devices) {
+        if (devices < 1) {
+            throw new IllegalArgumentException("no devices");
+        }
+        // the estimates of untimed tests average over other tests, compute them once
+        final Map<GVRTestCase, Double> costs = new HashMap<GVRTestCase, Double>();
+        final Map<String, List<GVRTestCase>> groups = new TreeMap<String, List<GVRTestCase>>();
+
+        for (GVRTestCase test : tests) {
+            costs.put(test, mTimings.estimate(test));
+            List<GVRTestCase> group = groups.get(test.getGroup());
+            if (group == null) {
+                group = new ArrayList<GVRTestCase>();
+                groups.put(test.getGroup(), group);
+            }
+            group.add(test);
+        }
+
+        /*
+         * Packing single tests mixes the groups as soon as the first device is
+         * ahead, so also try packing each group in a few chunks and split the
+         * group which lowers the makespan most until splitting does not help.
+         */
+        List<Shard> best = pack(splitEach(groups), costs, devices);
+        final Map<String, Integer> splits = new HashMap<String, Integer>();
+        for (String group : groups.keySet()) {
+            splits.put(group, 1);
+        }
+        List<Shard> current = pack(split(groups, splits, costs), costs, devices);
+
+        while (true) {
+            if (getMakespan(current) < getMakespan(best)) {
+                best = current;
+            }
+            List<Shard> next = null;
+            String nextGroup = null;
+            for (Map.Entry<String, List<GVRTestCase>> group : groups.entrySet()) {
+                int count = splits.get(group.getKey());
+                if (count >= Math.min(devices, group.getValue().size())) {
+                    continue;
+                }
+                splits.put(group.getKey(), count + 1);
+                List<Shard> candidate = pack(split(groups, splits, costs), costs, devices);
+                splits.put(group.getKey(), count);
+                if (next == null || getMakespan(candidate) < getMakespan(next)) {
+                    next = candidate;
+                    nextGroup = group.getKey();
+                }
+            }
+            if (next == null || getMakespan(next) >= getMakespan(current)) {
+                break;
+            }
+            splits.put(nextGroup, splits.get(nextGroup) + 1);
+            current = next;
+        }
+
+        for (Shard shard : best) {
+            Collections.sort(shard.mTests);
+        }
+        return best;
+    }
+
+    /**
+     * Every test of every group in a chunk of its own.
+     */
+    private static List<List<GVRTestCase>> splitEach(Map<String, List<GVRTestCase>> groups) {
+        List<List<GVRTestCase>> chunks = new ArrayList<List<GVRTestCase>>();
+        for (List<GVRTestCase> group : groups.values()) {
+            for (GVRTestCase test : group) {
+                chunks.add(Collections.singletonList(test));
+            }
+        }
+        return chunks;
+    }
+
+    /**
+     * Splits every group into the given number of chunks of about the same
+     * duration.
+     */
+    private static List<List<GVRTestCase>> split(Map<String, List<GVRTestCase>> groups,
+                                                 Map<String, Integer> splits,
+                                                 Map<GVRTestCase, Double> costs) {
+        List<List<GVRTestCase>> chunks = new ArrayList<List<GVRTestCase>>();
+        for (Map.Entry<String, List<GVRTestCase>> group : groups.entrySet()) {
+            int count = splits.get(group.getKey());
+            List<GVRTestCase> sorted = sortByCost(group.getValue(), costs);
+            List<List<GVRTestCase>> groupChunks = new ArrayList<List<GVRTestCase>>();
+            double[] seconds = new double[count];
+
+            for (int i = 0; i < count; ++i) {
+                groupChunks.add(new ArrayList<GVRTestCase>());
+            }
+            for (GVRTestCase test : sorted) {
+                int shortest = 0;
+                for (int i = 1; i < count; ++i) {
+                    if (seconds[i] < seconds[shortest]) {
+                        shortest = i;
+                    }
+                }
+                groupChunks.get(shortest).add(test);
+                seconds[shortest] += costs.get(test);
+            }
+            chunks.addAll(groupChunks);
+        }
+        return chunks;
+    }
+
+    /**
+     * Packs chunks of tests of one group longest first, each onto the shard
+     * where it would end earliest including the install of its group.
+     */
+    private List<Shard> pack(List<List<GVRTestCase>> chunks, final Map<GVRTestCase, Double> costs,
+                             int devices) {
+        final Map<List<GVRTestCase>, Double> chunkCosts = new IdentityHashMap<List<GVRTestCase>, Double>();
+        final List<List<GVRTestCase>> sorted = new ArrayList<List<GVRTestCase>>(chunks);
+        final List<Shard> shards = new ArrayList<Shard>();
+
+        for (List<GVRTestCase> chunk : chunks) {
+            double cost = 0;
+            for (GVRTestCase test : chunk) {
+                cost += costs.get(test);
+            }
+            chunkCosts.put(chunk, cost);
+        }
+        for (int i = 0; i < devices; ++i) {
+            shards.add(new Shard(i));
+        }
+        Collections.sort(sorted, new Comparator<List<GVRTestCase>>() {
+            @Override
+            public int compare(List<GVRTestCase> a, List<GVRTestCase> b) {
+                int c = Double.compare(chunkCosts.get(b), chunkCosts.get(a));
+                if (c != 0 || a.isEmpty() || b.isEmpty()) {
+                    return c;
+                }
+                return a.get(0).compareTo(b.get(0));
+            }
+        });
+
+        for (List<GVRTestCase> chunk : sorted) {
+            if (chunk.isEmpty()) {
+                continue;
+            }
+            final String group = chunk.get(0).getGroup();
+            final double cost = chunkCosts.get(chunk);
+            Shard best = null;
+            double bestEnd = Double.MAX_VALUE;
+
+            for (Shard shard : shards) {
+                double end = shard.mSeconds + cost;
+                if (!shard.mGroups.contains(group)) {
+                    end += mInstallSeconds;
+                }
+                if (end < bestEnd) {
+                    bestEnd = end;
+                    best = shard;
+                }
+            }
+            best.mTests.addAll(chunk);
+            best.mGroups.add(group);
+            best.mSeconds = bestEnd;
+        }
+        return shards;
+    }
+
+    private static List<GVRTestCase> sortByCost(List<GVRTestCase> tests, final Map<GVRTestCase, Double> costs) {
+        List<GVRTestCase> sorted = new ArrayList<GVRTestCase>(tests);
+        Collections.sort(sorted, new Comparator<GVRTestCase>() {
+            @Override
+            public int compare(GVRTestCase a, GVRTestCase b) {
+                int c = Double.compare(costs.get(b), costs.get(a));
+                return (c != 0) ? c : a.compareTo(b);
+            }
+        });
+        return sorted;
+    }
+
+    /**
+     * Estimated time until the last device is done, in seconds.
+     */
+    public static double getMakespan(List<Shard> shards) {
+        double makespan = 0;
+        for (Shard shard : shards) {
+            makespan = Math.max(makespan, shard.getEstimatedSeconds());
+        }
+        return makespan;
+    }
+}
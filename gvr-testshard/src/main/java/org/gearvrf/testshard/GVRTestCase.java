@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2016. Samsung Electronics Co., LTD
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf.testshard;
+
+/**
+ * One test method of a test group, e.g. framework-tests
+ * org.gearvrf.tester.MiscTests#testSendEvents.
+ */
+public final class GVRTestCase implements Comparable<GVRTestCase> {
+    private final String mGroup;
+    private final String mClassName;
+    private final String mMethod;
+
+    /**
+     * @param group     directory of the test project, e.g. "framework-tests".
+     * @param className fully qualified name of the test class.
+     * @param method    name of the test method.
+     */
+    public GVRTestCase(String group, String className, String method) {
+        mGroup = group;
+        mClassName = className;
+        mMethod = method;
+    }
+
+    public String getGroup() {
+        return mGroup;
+    }
+
+    public String getClassName() {
+        return mClassName;
+    }
+
+    public String getSimpleClassName() {
+        return mClassName.substring(mClassName.lastIndexOf('.') + 1);
+    }
+
+    public String getMethod() {
+        return mMethod;
+    }
+
+    /**
+     * Returns the test as the instrumentation runner selects it, class#method.
+     */
+    public String getInstrumentationName() {
+        return mClassName + "#" + mMethod;
+    }
+
+    /**
+     * Returns group:class#method, unique over all groups.
+     */
+    public String getId() {
+        return mGroup + ":" + getInstrumentationName();
+    }
+
+    @Override
+    public int compareTo(GVRTestCase other) {
+        int c = mGroup.compareTo(other.mGroup);
+        if (c == 0) {
+            c = mClassName.compareTo(other.mClassName);
+        }
+        return (c != 0) ? c : mMethod.compareTo(other.mMethod);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof GVRTestCase)) {
+            return false;
+        }
+        GVRTestCase other = (GVRTestCase) o;
+        return mGroup.equals(other.mGroup) && mClassName.equals(other.mClassName)
+               && mMethod.equals(other.mMethod);
+    }
+
+    @Override
+    public int hashCode() {
+        return getId().hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return getId();
+    }
+}
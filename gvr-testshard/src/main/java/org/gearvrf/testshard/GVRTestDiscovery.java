@@ -0,0 +1,144 @@
+/*
+ * Copyright (c) 2016. Samsung Electronics Co., LTD
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf.testshard;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Finds the JUnit 4 test methods in the androidTest sources of a test group.
+ * <p>
+ * The sources are scanned rather than compiled, so discovery works on a host
+ * without the Android SDK. A test is a method annotated with {@code @Test} in a
+ * class that is not abstract; methods also annotated with {@code @Ignore} and
+ * classes annotated with {@code @Ignore} are left out.
+ */
+public final class GVRTestDiscovery {
+    public static final String TEST_SOURCES = "app/src/androidTest/java";
+
+    private static final Pattern PACKAGE = Pattern.compile("^\\s*package\\s+([\\w.]+)\\s*;");
+    private static final Pattern CLASS =
+            Pattern.compile("^\\s*(?:public\\s+)?(?:final\\s+)?(abstract\\s+)?class\\s+(\\w+)");
+    private static final Pattern METHOD =
+            Pattern.compile("^\\s*public\\s+(?:final\\s+)?void\\s+(\\w+)\\s*\\(");
+    private static final Pattern ANNOTATION = Pattern.compile("^\\s*@(\\w+)");
+
+    private GVRTestDiscovery() {
+    }
+
+    /**
+     * Finds the tests of a group, sorted by class and method.
+     * @param testsRoot the GearVRf-Tests directory.
+     * @param group     name of a test project in it, e.g. "framework-tests".
+     */
+    public static List<GVRTestCase> discover(File testsRoot, String group) throws IOException {
+        List<GVRTestCase> tests = new ArrayList<GVRTestCase>();
+        File sources = new File(new File(testsRoot, group), TEST_SOURCES);
+
+        if (!sources.isDirectory()) {
+            throw new IOException("no test sources in " + sources);
+        }
+        scan(sources, group, tests);
+        Collections.sort(tests);
+        return tests;
+    }
+
+    private static void scan(File dir, String group, List<GVRTestCase> tests) throws IOException {
+        File[] files = dir.listFiles();
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            if (file.isDirectory()) {
+                scan(file, group, tests);
+            } else if (file.getName().endsWith(".java")) {
+                Reader reader = new FileReader(file);
+                try {
+                    tests.addAll(parse(group, reader));
+                } finally {
+                    reader.close();
+                }
+            }
+        }
+    }
+
+    /**
+     * Finds the tests of the top level class in one source file.
+     */
+    public static List<GVRTestCase> parse(String group, Reader source) throws IOException {
+        List<GVRTestCase> tests = new ArrayList<GVRTestCase>();
+        BufferedReader reader = new BufferedReader(source);
+        String packageName = "";
+        String className = null;
+        boolean classIgnored = false;
+        boolean isTest = false;
+        boolean isIgnored = false;
+        String line;
+
+        while ((line = reader.readLine()) != null) {
+            Matcher m = PACKAGE.matcher(line);
+            if (m.find()) {
+                packageName = m.group(1) + ".";
+                continue;
+            }
+            m = ANNOTATION.matcher(line);
+            if (m.find()) {
+                if ("Test".equals(m.group(1))) {
+                    isTest = true;
+                } else if ("Ignore".equals(m.group(1))) {
+                    isIgnored = true;
+                }
+                continue;
+            }
+            if (className == null) {
+                m = CLASS.matcher(line);
+                if (m.find()) {
+                    if (m.group(1) != null) {
+                        return tests;
+                    }
+                    className = packageName + m.group(2);
+                    classIgnored = isIgnored;
+                    isTest = false;
+                    isIgnored = false;
+                }
+                continue;
+            }
+            m = METHOD.matcher(line);
+            if (m.find()) {
+                if (isTest && !isIgnored && !classIgnored) {
+                    tests.add(new GVRTestCase(group, className, m.group(1)));
+                }
+                isTest = false;
+                isIgnored = false;
+            } else if (!line.trim().isEmpty() && !line.trim().startsWith("//")) {
+                // an annotation applies to the declaration that follows it
+                if (!line.trim().startsWith("*") && !line.trim().startsWith("/*")) {
+                    isTest = false;
+                    isIgnored = false;
+                }
+            }
+        }
+        return tests;
+    }
+}
@@ -0,0 +1,244 @@
+/*
+ * Copyright (c) 2016. Samsung Electronics Co., LTD
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf.testshard;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Runs tests on several devices in parallel.
+ * <p>
+ * The tests are split by {@link GVRShardScheduler} using the timings of earlier
+ * runs in TestResults/{@value GVRTestTimings#FILE_NAME}. Every device runs its
+ * shard on its own thread, one group at a time, installing each group once. The
+ * results land where scripts/runtest puts them,
+ * TestResults/&lt;model&gt;/&lt;group&gt;/&lt;class&gt;/&lt;method&gt;, with a
+ * line for every test in TestResults/&lt;model&gt;/runlog. When all devices are
+ * done the timings are updated with the durations of the tests which ran and a
+ * summary comparing the estimated and the actual duration of every shard is
+ * written to TestResults/{@value #SUMMARY_FILE}.
+ */
+public final class GVRTestOrchestrator {
+    public static final String RESULT_FILE = "result.txt";
+    public static final String SUMMARY_FILE = "shards.txt";
+
+    private final File mResultsRoot;
+    private final GVRTestTimings mTimings;
+    private final GVRShardScheduler mScheduler;
+    private final Object mRunlogLock = new Object();
+
+    /**
+     * @param resultsRoot the TestResults directory.
+     */
+    public GVRTestOrchestrator(File resultsRoot) throws IOException {
+        mResultsRoot = resultsRoot;
+        mTimings = GVRTestTimings.read(new File(resultsRoot, GVRTestTimings.FILE_NAME));
+        mScheduler = new GVRShardScheduler(mTimings);
+    }
+
+    public GVRShardScheduler getScheduler() {
+        return mScheduler;
+    }
+
+    public GVRTestTimings getTimings() {
+        return mTimings;
+    }
+
+    /**
+     * Runs the tests and returns their results in the order of the tests.
+     */
+    public List<GVRTestResult> run(List<GVRTestCase> tests, List<? extends GVRDevice> devices)
+            throws IOException, InterruptedException {
+        final List<GVRShardScheduler.Shard> shards = mScheduler.schedule(tests, devices.size());
+        final List<Future<List<GVRTestResult>>> futures = new ArrayList<Future<List<GVRTestResult>>>();
+        final ExecutorService executor = Executors.newFixedThreadPool(devices.size());
+        final long[] elapsed = new long[devices.size()];
+
+        mResultsRoot.mkdirs();
+        try {
+            for (int i = 0; i < devices.size(); ++i) {
+                final GVRDevice device = devices.get(i);
+                final GVRShardScheduler.Shard shard = shards.get(i);
+                final int index = i;
+                futures.add(executor.submit(new Callable<List<GVRTestResult>>() {
+                    @Override
+                    public List<GVRTestResult> call() throws Exception {
+                        long start = System.nanoTime();
+                        try {
+                            return runShard(device, shard);
+                        } finally {
+                            elapsed[index] = System.nanoTime() - start;
+                        }
+                    }
+                }));
+            }
+
+            Map<GVRTestCase, GVRTestResult> byTest = new LinkedHashMap<GVRTestCase, GVRTestResult>();
+            for (Future<List<GVRTestResult>> future : futures) {
+                try {
+                    for (GVRTestResult result : future.get()) {
+                        byTest.put(result.getTest(), result);
+                    }
+                } catch (ExecutionException e) {
+                    throw new IOException("a shard failed", e.getCause());
+                }
+            }
+
+            List<GVRTestResult> results = new ArrayList<GVRTestResult>();
+            for (GVRTestCase test : tests) {
+                GVRTestResult result = byTest.get(test);
+                results.add(result);
+                // errors say nothing about how long a test takes
+                if (result.getStatus() != GVRTestResult.Status.ERROR) {
+                    mTimings.add(test, result.getSeconds());
+                }
+            }
+            mTimings.write(new File(mResultsRoot, GVRTestTimings.FILE_NAME));
+            writeSummary(devices, shards, elapsed, results);
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private List<GVRTestResult> runShard(GVRDevice device, GVRShardScheduler.Shard shard)
+            throws IOException, InterruptedException {
+        final List<GVRTestResult> results = new ArrayList<GVRTestResult>();
+        if (shard.getTests().isEmpty()) {
+            return results;
+        }
+        final File modelDir = new File(mResultsRoot, device.getModel());
+
+        for (String group : shard.getGroups()) {
+            File groupDir = new File(modelDir, group);
+            groupDir.mkdirs();
+            String installError = null;
+            try {
+                runlog(modelDir, device, "install " + group);
+                device.install(group, groupDir);
+            } catch (IOException e) {
+                installError = "install failed: " + e.getMessage();
+            }
+
+            for (GVRTestCase test : shard.getTests()) {
+                if (!test.getGroup().equals(group)) {
+                    continue;
+                }
+                File testDir = new File(new File(groupDir, test.getSimpleClassName()), test.getMethod());
+                testDir.mkdirs();
+                GVRTestResult result;
+
+                if (installError != null) {
+                    result = new GVRTestResult(test, device.getSerial(), GVRTestResult.Status.ERROR, 0,
+                                               installError);
+                } else {
+                    runlog(modelDir, device, "run " + group + " " + test.getSimpleClassName() + " "
+                                             + test.getMethod());
+                    try {
+                        result = device.run(test, testDir);
+                    } catch (IOException e) {
+                        result = new GVRTestResult(test, device.getSerial(), GVRTestResult.Status.ERROR, 0,
+                                                   e.getMessage());
+                    }
+                }
+                writeResult(testDir, result);
+                results.add(result);
+            }
+        }
+        return results;
+    }
+
+    private void runlog(File modelDir, GVRDevice device, String line) throws IOException {
+        synchronized (mRunlogLock) {
+            modelDir.mkdirs();
+            Writer writer = new FileWriter(new File(modelDir, "runlog"), true);
+            try {
+                writer.write(new Date() + " " + device.getSerial() + " " + line + "\n");
+            } finally {
+                writer.close();
+            }
+        }
+    }
+
+    private static void writeResult(File testDir, GVRTestResult result) throws IOException {
+        Writer writer = new FileWriter(new File(testDir, RESULT_FILE));
+        try {
+            writer.write(String.format(Locale.US, "test=%s\ndevice=%s\nstatus=%s\nseconds=%.3f\n",
+                                       result.getTest().getId(), result.getDevice(), result.getStatus(),
+                                       result.getSeconds()));
+            if (!result.getMessage().isEmpty()) {
+                writer.write("\n" + result.getMessage() + "\n");
+            }
+        } finally {
+            writer.close();
+        }
+    }
+
+    private void writeSummary(List<? extends GVRDevice> devices, List<GVRShardScheduler.Shard> shards,
+                              long[] elapsed, List<GVRTestResult> results) throws IOException {
+        Writer writer = new FileWriter(new File(mResultsRoot, SUMMARY_FILE));
+        try {
+            writer.write(String.format(Locale.US, "%s\nestimated makespan %.0f s\n\n", new Date(),
+                                       GVRShardScheduler.getMakespan(shards)));
+            for (int i = 0; i < shards.size(); ++i) {
+                GVRShardScheduler.Shard shard = shards.get(i);
+                writer.write(String.format(Locale.US, "%s %s: %d tests, groups %s, estimated %.0f s, took %.0f s\n",
+                                           devices.get(i).getSerial(), devices.get(i).getModel(),
+                                           shard.getTests().size(), shard.getGroups(),
+                                           shard.getEstimatedSeconds(), elapsed[i] / 1e9));
+            }
+
+            List<GVRTestResult> failed = getFailures(results);
+            writer.write(String.format(Locale.US, "\n%d tests, %d failed\n", results.size(), failed.size()));
+            for (GVRTestResult result : failed) {
+                writer.write(result + "\n");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("interrupted", e);
+        } finally {
+            writer.close();
+        }
+    }
+
+    /**
+     * @return the results which did not pass or get skipped.
+     */
+    public static List<GVRTestResult> getFailures(List<GVRTestResult> results) {
+        List<GVRTestResult> failed = new ArrayList<GVRTestResult>();
+        for (GVRTestResult result : results) {
+            if (result.getStatus() == GVRTestResult.Status.FAILED
+                || result.getStatus() == GVRTestResult.Status.ERROR) {
+                failed.add(result);
+            }
+        }
+        return Collections.unmodifiableList(failed);
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2016. Samsung Electronics Co., LTD
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf.testshard;
+
+import java.util.Locale;
+
+/**
+ * Outcome of running one test on one device.
+ */
+public final class GVRTestResult {
+    public enum Status {
+        PASSED,
+        FAILED,
+        /** the test was skipped by an assumption */
+        SKIPPED,
+        /** the test could not be run, e.g. the install or the device failed */
+        ERROR
+    }
+
+    private final GVRTestCase mTest;
+    private final String mDevice;
+    private final Status mStatus;
+    private final double mSeconds;
+    private final String mMessage;
+
+    /**
+     * @param test    the test.
+     * @param device  serial number of the device which ran it.
+     * @param status  the outcome.
+     * @param seconds how long the test ran.
+     * @param message failure message or stack trace, may be empty.
+     */
+    public GVRTestResult(GVRTestCase test, String device, Status status, double seconds,
+                         String message) {
+        mTest = test;
+        mDevice = device;
+        mStatus = status;
+        mSeconds = seconds;
+        mMessage = (message != null) ? message : "";
+    }
+
+    public GVRTestCase getTest() {
+        return mTest;
+    }
+
+    public String getDevice() {
+        return mDevice;
+    }
+
+    public Status getStatus() {
+        return mStatus;
+    }
+
+    public double getSeconds() {
+        return mSeconds;
+    }
+
+    public String getMessage() {
+        return mMessage;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.US, "%s %s on %s in %.1f s%s", mStatus, mTest, mDevice, mSeconds,
+                             mMessage.isEmpty() ? "" : ": " + mMessage.split("\n")[0]);
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2016. Samsung Electronics Co., LTD
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf.testshard;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Host command line tool which runs the device tests on several devices.
+ * <pre>
+ * plan &lt;GearVRf-Tests&gt; &lt;TestResults&gt; &lt;devices&gt; [group...]
+ *     prints how the tests would be split across the given number of devices.
+ * run &lt;GearVRf-Tests&gt; &lt;TestResults&gt; &lt;gradle dir&gt; &lt;serial&gt;,&lt;serial&gt;... [group...]
+ *     runs the tests on the devices with the given serial numbers. The gradle
+ *     directory is the one scripts/runtest builds in, GearVRf/GVRf/Framework.
+ *     Exits with status 1 if a test failed.
+ * fake &lt;GearVRf-Tests&gt; &lt;TestResults&gt; &lt;devices&gt; [group...]
+ *     runs the tests on simulated devices which take the estimated time of each
+ *     test, a thousand times faster. It updates the timings like a real run,
+ *     so give it a scratch TestResults directory.
+ * </pre>
+ * The groups default to all groups which install org.gearvrf.tester.
+ */
+public final class GVRTestShardTool {
+    public static final List<String> DEFAULT_GROUPS =
+            Arrays.asList("framework-tests", "asset-tests", "physics-tests", "gvr-tester");
+
+    private static final double FAKE_TIME_SCALE = 0.001;
+
+    private GVRTestShardTool() {
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 4) {
+            usage();
+            return;
+        }
+
+        final File testsRoot = new File(args[1]);
+        final File resultsRoot = new File(args[2]);
+        final int firstGroup = "run".equals(args[0]) ? 5 : 4;
+        if (args.length < firstGroup) {
+            usage();
+            return;
+        }
+        final List<String> groups = (args.length > firstGroup)
+                ? Arrays.asList(args).subList(firstGroup, args.length) : DEFAULT_GROUPS;
+        final List<GVRTestCase> tests = new ArrayList<GVRTestCase>();
+        for (String group : groups) {
+            tests.addAll(GVRTestDiscovery.discover(testsRoot, group));
+        }
+        final GVRTestOrchestrator orchestrator = new GVRTestOrchestrator(resultsRoot);
+
+        if ("plan".equals(args[0])) {
+            List<GVRShardScheduler.Shard> shards = orchestrator.getScheduler()
+                    .schedule(tests, Integer.parseInt(args[3]));
+            System.out.println(String.format(Locale.US, "%d tests, %d timed, estimated makespan %.0f s",
+                                             tests.size(), orchestrator.getTimings().size(),
+                                             GVRShardScheduler.getMakespan(shards)));
+            for (GVRShardScheduler.Shard shard : shards) {
+                System.out.println(shard);
+                for (GVRTestCase test : shard.getTests()) {
+                    System.out.println("    " + test.getId());
+                }
+            }
+        } else if ("run".equals(args[0]) || "fake".equals(args[0])) {
+            List<GVRDevice> devices = new ArrayList<GVRDevice>();
+            if ("run".equals(args[0])) {
+                final File gradleDir = new File(args[3]);
+                // one run id for the session, so the benchmark results of all shards form one run
+                final File runProperties = GVRAdbDevice.writeRunProperties(resultsRoot, testsRoot, gradleDir);
+                for (String serial : args[4].split(",")) {
+                    devices.add(new GVRAdbDevice(serial, testsRoot, gradleDir, runProperties));
+                }
+            } else {
+                GVRTestTimings timings = orchestrator.getTimings();
+                int count = Integer.parseInt(args[3]);
+                for (int i = 0; i < count; ++i) {
+                    GVRFakeDevice device = new GVRFakeDevice("fake" + i, "Fake")
+                            .setTimeScale(FAKE_TIME_SCALE)
+                            .setInstallDuration(GVRShardScheduler.DEFAULT_INSTALL_SECONDS);
+                    for (GVRTestCase test : tests) {
+                        device.setDuration(test, timings.estimate(test));
+                    }
+                    devices.add(device);
+                }
+            }
+
+            List<GVRTestResult> results = orchestrator.run(tests, devices);
+            List<GVRTestResult> failures = GVRTestOrchestrator.getFailures(results);
+            System.out.println(results.size() + " tests on " + devices.size() + " devices, "
+                               + failures.size() + " failed, see "
+                               + new File(resultsRoot, GVRTestOrchestrator.SUMMARY_FILE));
+            for (GVRTestResult failure : failures) {
+                System.out.println(failure);
+            }
+            if (!failures.isEmpty()) {
+                System.exit(1);
+            }
+        } else {
+            usage();
+        }
+    }
+
+    private static void usage() {
+        System.err.println("usage: plan <GearVRf-Tests> <TestResults> <devices> [group...]");
+        System.err.println("       run <GearVRf-Tests> <TestResults> <gradle dir> <serial>,<serial>... [group...]");
+        System.err.println("       fake <GearVRf-Tests> <TestResults> <devices> [group...]");
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright (c) 2016. Samsung Electronics Co., LTD
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf.testshard;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Durations of tests in earlier runs, used to estimate the cost of the next one.
+ * <p>
+ * The timings are kept in a tab separated file with one line per test:
+ * group, class, method, mean seconds and the number of runs averaged. The mean
+ * is over at most {@link #MAX_RUNS} runs, so it follows tests that get slower
+ * or faster. Tests without timings are estimated from the other tests of their
+ * class, then of their group, then {@link #DEFAULT_SECONDS}.
+ */
+public final class GVRTestTimings {
+    public static final String FILE_NAME = "test-timings.tsv";
+    public static final double DEFAULT_SECONDS = 30.0;
+    static final int MAX_RUNS = 10;
+
+    private final Map<String, Entry> mEntries = new TreeMap<String, Entry>();
+
+    private static final class Entry {
+        final String group;
+        final String className;
+        final String method;
+        double seconds;
+        int runs;
+
+        Entry(String group, String className, String method, double seconds, int runs) {
+            this.group = group;
+            this.className = className;
+            this.method = method;
+            this.seconds = seconds;
+            this.runs = runs;
+        }
+    }
+
+    /**
+     * Reads the timings, or returns empty timings if the file does not exist.
+     */
+    public static GVRTestTimings read(File file) throws IOException {
+        GVRTestTimings timings = new GVRTestTimings();
+        if (!file.exists()) {
+            return timings;
+        }
+
+        BufferedReader reader = new BufferedReader(new FileReader(file));
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] fields = line.split("\t");
+                if (fields.length != 5) {
+                    throw new IOException("bad line in " + file + ": " + line);
+                }
+                try {
+                    Entry e = new Entry(fields[0], fields[1], fields[2], Double.parseDouble(fields[3]),
+                                        Integer.parseInt(fields[4]));
+                    timings.mEntries.put(new GVRTestCase(e.group, e.className, e.method).getId(), e);
+                } catch (NumberFormatException ex) {
+                    throw new IOException("bad line in " + file + ": " + line);
+                }
+            }
+        } finally {
+            reader.close();
+        }
+        return timings;
+    }
+
+    public void write(File file) throws IOException {
+        Writer writer = new FileWriter(file);
+        try {
+            writer.write("# group\tclass\tmethod\tseconds\truns\n");
+            for (Entry e : mEntries.values()) {
+                writer.write(String.format(Locale.US, "%s\t%s\t%s\t%.3f\t%d\n", e.group, e.className,
+                                           e.method, e.seconds, e.runs));
+            }
+        } finally {
+            writer.close();
+        }
+    }
+
+    public int size() {
+        return mEntries.size();
+    }
+
+    /**
+     * Returns the mean duration of the test in seconds, or a negative value if it
+     * has not been timed.
+     */
+    public double get(GVRTestCase test) {
+        Entry e = mEntries.get(test.getId());
+        return (e != null) ? e.seconds : -1;
+    }
+
+    /**
+     * Adds the duration of one run of a test.
+     */
+    public void add(GVRTestCase test, double seconds) {
+        Entry e = mEntries.get(test.getId());
+        if (e == null) {
+            mEntries.put(test.getId(), new Entry(test.getGroup(), test.getClassName(), test.getMethod(),
+                                                 seconds, 1));
+            return;
+        }
+        e.runs = Math.min(e.runs + 1, MAX_RUNS);
+        e.seconds += (seconds - e.seconds) / e.runs;
+    }
+
+    /**
+     * Estimates the duration of a test in seconds.
+     */
+    public double estimate(GVRTestCase test) {
+        double seconds = get(test);
+        if (seconds >= 0) {
+            return seconds;
+        }
+
+        double classTotal = 0;
+        int classCount = 0;
+        double groupTotal = 0;
+        int groupCount = 0;
+        for (Entry e : mEntries.values()) {
+            if (e.group.equals(test.getGroup())) {
+                groupTotal += e.seconds;
+                ++groupCount;
+                if (e.className.equals(test.getClassName())) {
+                    classTotal += e.seconds;
+                    ++classCount;
+                }
+            }
+        }
+        if (classCount > 0) {
+            return classTotal / classCount;
+        }
+        return (groupCount > 0) ? groupTotal / groupCount : DEFAULT_SECONDS;
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2016. Samsung Electronics Co., LTD
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf.testshard;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class GVRShardSchedulerTest
+{
+    private static List<GVRTestCase> tests(GVRTestTimings timings, String group, double... seconds)
+    {
+        List<GVRTestCase> tests = new ArrayList<GVRTestCase>();
+        for (int i = 0; i < seconds.length; ++i)
+        {
+            GVRTestCase test = new GVRTestCase(group, "org.gearvrf.tester.Tests", "test" + i);
+            timings.add(test, seconds[i]);
+            tests.add(test);
+        }
+        return tests;
+    }
+
+    @Test
+    public void balancesTimedTests()
+    {
+        GVRTestTimings timings = new GVRTestTimings();
+        List<GVRTestCase> tests = tests(timings, "framework-tests", 50, 40, 30, 30, 20, 20, 10);
+        List<GVRShardScheduler.Shard> shards = new GVRShardScheduler(timings)
+                .setInstallSeconds(0).schedule(tests, 2);
+
+        assertEquals(2, shards.size());
+        assertEquals(100.0, shards.get(0).getEstimatedSeconds(), 1e-9);
+        assertEquals(100.0, shards.get(1).getEstimatedSeconds(), 1e-9);
+        assertEquals(100.0, GVRShardScheduler.getMakespan(shards), 1e-9);
+
+        Set<GVRTestCase> scheduled = new HashSet<GVRTestCase>();
+        for (GVRShardScheduler.Shard shard : shards)
+        {
+            scheduled.addAll(shard.getTests());
+        }
+        assertEquals(new HashSet<GVRTestCase>(tests), scheduled);
+    }
+
+    @Test
+    public void keepsGroupsTogether()
+    {
+        GVRTestTimings timings = new GVRTestTimings();
+        List<GVRTestCase> tests = tests(timings, "framework-tests", 10, 10, 10, 10);
+        tests.addAll(tests(timings, "asset-tests", 10, 10, 10, 10));
+
+        // with expensive installs each device should get one group
+        List<GVRShardScheduler.Shard> shards = new GVRShardScheduler(timings)
+                .setInstallSeconds(100).schedule(tests, 2);
+        assertEquals(1, shards.get(0).getGroups().size());
+        assertEquals(1, shards.get(1).getGroups().size());
+        assertEquals(140.0, GVRShardScheduler.getMakespan(shards), 1e-9);
+
+        // without install cost the groups get mixed to balance the load
+        shards = new GVRShardScheduler(timings).setInstallSeconds(0).schedule(tests, 2);
+        assertEquals(40.0, GVRShardScheduler.getMakespan(shards), 1e-9);
+    }
+
+    @Test
+    public void moreDevicesThanTests()
+    {
+        GVRTestTimings timings = new GVRTestTimings();
+        List<GVRTestCase> tests = tests(timings, "framework-tests", 10);
+        List<GVRShardScheduler.Shard> shards = new GVRShardScheduler(timings).schedule(tests, 3);
+
+        assertEquals(3, shards.size());
+        int empty = 0;
+        for (GVRShardScheduler.Shard shard : shards)
+        {
+            if (shard.getTests().isEmpty())
+            {
+                ++empty;
+            }
+        }
+        assertEquals(2, empty);
+    }
+
+    @Test
+    public void estimatesUntimedTests()
+    {
+        GVRTestTimings timings = new GVRTestTimings();
+        timings.add(new GVRTestCase("asset-tests", "org.gearvrf.tester.A", "a"), 10);
+        timings.add(new GVRTestCase("asset-tests", "org.gearvrf.tester.A", "b"), 20);
+        timings.add(new GVRTestCase("asset-tests", "org.gearvrf.tester.B", "a"), 60);
+
+        assertEquals(15.0, timings.estimate(new GVRTestCase("asset-tests", "org.gearvrf.tester.A", "c")), 1e-9);
+        assertEquals(30.0, timings.estimate(new GVRTestCase("asset-tests", "org.gearvrf.tester.C", "a")), 1e-9);
+        assertEquals(GVRTestTimings.DEFAULT_SECONDS,
+                     timings.estimate(new GVRTestCase("physics-tests", "org.gearvrf.tester.A", "a")), 1e-9);
+    }
+
+    @Test
+    public void timingsFollowRecentRuns()
+    {
+        GVRTestTimings timings = new GVRTestTimings();
+        GVRTestCase test = new GVRTestCase("framework-tests", "org.gearvrf.tester.MiscTests", "a");
+        for (int i = 0; i < 100; ++i)
+        {
+            timings.add(test, 10);
+        }
+        for (int i = 0; i < 30; ++i)
+        {
+            timings.add(test, 100);
+        }
+        assertTrue(timings.get(test) > 90);
+    }
+}
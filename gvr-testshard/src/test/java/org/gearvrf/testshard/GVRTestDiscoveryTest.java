@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2016. Samsung Electronics Co., LTD
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf.testshard;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class GVRTestDiscoveryTest
+{
+    @Test
+    public void findsAnnotatedMethods() throws Exception
+    {
+        String source = "package org.gearvrf.tester;\n"
+                        + "\n"
+                        + "@RunWith(AndroidJUnit4.class)\n"
+                        + "public class SomeTests\n"
+                        + "{\n"
+                        + "    @Before\n"
+                        + "    public void setUp() { }\n"
+                        + "\n"
+                        + "    @Test\n"
+                        + "    public void first() throws Exception { }\n"
+                        + "\n"
+                        + "    @Ignore(\"flaky\")\n"
+                        + "    @Test\n"
+                        + "    public void ignored() { }\n"
+                        + "\n"
+                        + "    @Test\n"
+                        + "    // just a comment\n"
+                        + "    public void second()\n"
+                        + "    {\n"
+                        + "    }\n"
+                        + "\n"
+                        + "    public void helper() { }\n"
+                        + "}\n";
+        List<GVRTestCase> tests = GVRTestDiscovery.parse("framework-tests", new StringReader(source));
+
+        assertEquals(Arrays.asList(new GVRTestCase("framework-tests", "org.gearvrf.tester.SomeTests", "first"),
+                                   new GVRTestCase("framework-tests", "org.gearvrf.tester.SomeTests", "second")),
+                     tests);
+        assertEquals("org.gearvrf.tester.SomeTests#first", tests.get(0).getInstrumentationName());
+        assertEquals("SomeTests", tests.get(0).getSimpleClassName());
+    }
+
+    @Test
+    public void skipsAbstractAndIgnoredClasses() throws Exception
+    {
+        String base = "package org.gearvrf.tester;\n"
+                      + "public abstract class BaseTests {\n"
+                      + "    @Test\n"
+                      + "    public void inherited() { }\n"
+                      + "}\n";
+        String ignored = "package org.gearvrf.tester;\n"
+                         + "@Ignore\n"
+                         + "public class IgnoredTests {\n"
+                         + "    @Test\n"
+                         + "    public void test() { }\n"
+                         + "}\n";
+        assertTrue(GVRTestDiscovery.parse("framework-tests", new StringReader(base)).isEmpty());
+        assertTrue(GVRTestDiscovery.parse("framework-tests", new StringReader(ignored)).isEmpty());
+    }
+
+    @Test
+    public void findsFrameworkTests() throws Exception
+    {
+        File testsRoot = new File("..");
+        if (!new File(testsRoot, "framework-tests").isDirectory())
+        {
+            return;
+        }
+        List<GVRTestCase> tests = GVRTestDiscovery.discover(testsRoot, "framework-tests");
+        assertTrue(tests.contains(new GVRTestCase("framework-tests", "org.gearvrf.tester.MiscTests",
+                                                  "testSendEvents")));
+    }
+}
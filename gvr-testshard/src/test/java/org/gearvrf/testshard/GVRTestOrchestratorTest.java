@@ -0,0 +1,211 @@
+/*
+ * Copyright (c) 2016. Samsung Electronics Co., LTD
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf.testshard;
+
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Properties;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class GVRTestOrchestratorTest
+{
+    private static File createResultsDir() throws Exception
+    {
+        File dir = File.createTempFile("TestResults", "");
+        dir.delete();
+        dir.mkdirs();
+        return dir;
+    }
+
+    private static List<String> readLines(File file) throws Exception
+    {
+        List<String> lines = new ArrayList<String>();
+        BufferedReader reader = new BufferedReader(new FileReader(file));
+        try
+        {
+            String line;
+            while ((line = reader.readLine()) != null)
+            {
+                lines.add(line);
+            }
+        }
+        finally
+        {
+            reader.close();
+        }
+        return lines;
+    }
+
+    @Test
+    public void runsAllTestsOnFakeDevices() throws Exception
+    {
+        File results = createResultsDir();
+        List<GVRTestCase> tests = new ArrayList<GVRTestCase>();
+        for (int i = 0; i < 6; ++i)
+        {
+            tests.add(new GVRTestCase("framework-tests", "org.gearvrf.tester.RenderTests", "render" + i));
+            tests.add(new GVRTestCase("asset-tests", "org.gearvrf.tester.AssetImportTests", "load" + i));
+        }
+        GVRTestCase failing = tests.get(3);
+        List<GVRFakeDevice> devices = Arrays.asList(new GVRFakeDevice("serial0", "SM-G935F"),
+                                                    new GVRFakeDevice("serial1", "SM-G935F"),
+                                                    new GVRFakeDevice("serial2", "SM-N920C"));
+        for (GVRFakeDevice device : devices)
+        {
+            device.setDefaultDuration(2.0).setFailing(failing);
+        }
+
+        List<GVRTestResult> run = new GVRTestOrchestrator(results).run(tests, devices);
+
+        assertEquals(tests.size(), run.size());
+        List<GVRTestCase> executed = new ArrayList<GVRTestCase>();
+        for (GVRFakeDevice device : devices)
+        {
+            executed.addAll(device.getExecuted());
+            // one install per group
+            assertEquals(device.getInstalls().size(), new HashSet<String>(device.getInstalls()).size());
+        }
+        assertEquals(tests.size(), executed.size());
+        assertTrue(executed.containsAll(tests));
+
+        for (int i = 0; i < tests.size(); ++i)
+        {
+            GVRTestResult result = run.get(i);
+            assertEquals(tests.get(i), result.getTest());
+            assertEquals((i == 3) ? GVRTestResult.Status.FAILED : GVRTestResult.Status.PASSED,
+                         result.getStatus());
+
+            String model = result.getDevice().equals("serial2") ? "SM-N920C" : "SM-G935F";
+            File testDir = new File(results, model + "/" + result.getTest().getGroup() + "/"
+                                             + result.getTest().getSimpleClassName() + "/"
+                                             + result.getTest().getMethod());
+            assertTrue(new File(testDir, "logcat.txt").isFile());
+            assertTrue(readLines(new File(testDir, GVRTestOrchestrator.RESULT_FILE))
+                               .contains("status=" + result.getStatus()));
+        }
+        assertEquals(Arrays.asList(run.get(3)), GVRTestOrchestrator.getFailures(run));
+        assertTrue(new File(results, "SM-G935F/runlog").isFile());
+        assertTrue(new File(results, GVRTestOrchestrator.SUMMARY_FILE).isFile());
+
+        GVRTestTimings timings = GVRTestTimings.read(new File(results, GVRTestTimings.FILE_NAME));
+        assertEquals(tests.size(), timings.size());
+        assertEquals(2.0, timings.get(tests.get(0)), 1e-6);
+    }
+
+    @Test
+    public void failedInstallFailsItsGroup() throws Exception
+    {
+        File results = createResultsDir();
+        List<GVRTestCase> tests = Arrays.asList(
+                new GVRTestCase("framework-tests", "org.gearvrf.tester.RenderTests", "a"),
+                new GVRTestCase("framework-tests", "org.gearvrf.tester.RenderTests", "b"));
+        GVRDevice broken = new GVRDevice()
+        {
+            @Override
+            public String getSerial()
+            {
+                return "broken";
+            }
+
+            @Override
+            public String getModel()
+            {
+                return "Broken";
+            }
+
+            @Override
+            public void install(String group, File resultDir) throws IOException
+            {
+                throw new IOException("no space left");
+            }
+
+            @Override
+            public GVRTestResult run(GVRTestCase test, File resultDir)
+            {
+                throw new AssertionError("ran without install");
+            }
+        };
+
+        List<GVRTestResult> run = new GVRTestOrchestrator(results).run(tests, Arrays.asList(broken));
+        assertEquals(2, GVRTestOrchestrator.getFailures(run).size());
+        for (GVRTestResult result : run)
+        {
+            assertEquals(GVRTestResult.Status.ERROR, result.getStatus());
+            assertTrue(result.getMessage().contains("no space left"));
+        }
+        // errors are not timings
+        assertFalse(new GVRTestOrchestrator(results).getTimings().get(tests.get(0)) >= 0);
+    }
+
+    @Test
+    public void parsesInstrumentationOutput()
+    {
+        GVRTestCase test = new GVRTestCase("framework-tests", "org.gearvrf.tester.MiscTests", "testSendEvents");
+        List<String> passed = Arrays.asList(
+                "INSTRUMENTATION_STATUS: class=org.gearvrf.tester.MiscTests",
+                "INSTRUMENTATION_STATUS: test=testSendEvents",
+                "INSTRUMENTATION_STATUS_CODE: 1",
+                "INSTRUMENTATION_STATUS: class=org.gearvrf.tester.MiscTests",
+                "INSTRUMENTATION_STATUS: test=testSendEvents",
+                "INSTRUMENTATION_STATUS_CODE: 0",
+                "INSTRUMENTATION_RESULT: stream=",
+                "OK (1 test)",
+                "INSTRUMENTATION_CODE: -1");
+        assertEquals(GVRTestResult.Status.PASSED,
+                     GVRAdbDevice.parseInstrumentation(test, "s", 1, passed).getStatus());
+
+        List<String> failed = Arrays.asList(
+                "INSTRUMENTATION_STATUS_CODE: 1",
+                "INSTRUMENTATION_STATUS: stack=java.lang.AssertionError: expected:<1> but was:<2>",
+                "\tat org.junit.Assert.fail(Assert.java:88)",
+                "INSTRUMENTATION_STATUS: test=testSendEvents",
+                "INSTRUMENTATION_STATUS_CODE: -2",
+                "INSTRUMENTATION_CODE: -1");
+        GVRTestResult result = GVRAdbDevice.parseInstrumentation(test, "s", 1, failed);
+        assertEquals(GVRTestResult.Status.FAILED, result.getStatus());
+        assertTrue(result.getMessage().startsWith("java.lang.AssertionError: expected:<1>"));
+        assertTrue(result.getMessage().contains("Assert.java:88"));
+
+        List<String> crashed = Arrays.asList(
+                "INSTRUMENTATION_STATUS_CODE: 1",
+                "INSTRUMENTATION_RESULT: shortMsg=Process crashed.",
+                "INSTRUMENTATION_CODE: 0");
+        assertEquals(GVRTestResult.Status.ERROR,
+                     GVRAdbDevice.parseInstrumentation(test, "s", 1, crashed).getStatus());
+    }
+
+    @Test
+    public void runPropertiesMatchRuntest() throws IOException
+    {
+        Properties properties = new Properties();
+        properties.load(new StringReader(GVRAdbDevice.formatRunProperties("20161118093000", "abc", "def")));
+        assertEquals("20161118093000", properties.getProperty("run"));
+        assertEquals("abc", properties.getProperty("gearvrf.commit"));
+        assertEquals("def", properties.getProperty("gearvrf-tests.commit"));
+    }
+}
@@ -0,0 +1,271 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf.unittestutils;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Result of loading one asset, handed out by {@link GVRAssetTracker}.
+ * <p>
+ * The future completes with the loaded model or texture, or fails with the
+ * error the asset loader reported, in which case {@link #get()} throws an
+ * {@link ExecutionException}. {@link #allOf(List)} and {@link #anyOf(List)}
+ * combine futures so that a test can start several loads and wait for all of
+ * them or for the first one.
+ */
+public final class GVRAssetFuture<T> implements Future<T> {
+    private final String mPath;
+    private final List<Runnable> mListeners = new ArrayList<Runnable>();
+    private boolean mDone;
+    private boolean mCancelled;
+    private T mValue;
+    private String mError;
+
+    public GVRAssetFuture(String path) {
+        mPath = path;
+    }
+
+    /**
+     * Path of the asset, as requested from the tracker.
+     */
+    public String getPath() {
+        return mPath;
+    }
+
+    /**
+     * Completes the future with the loaded asset.
+     * @return false if the future was already complete.
+     */
+    public boolean complete(T value) {
+        return finish(value, null, false);
+    }
+
+    /**
+     * Completes the future with a load error.
+     * @return false if the future was already complete.
+     */
+    public boolean fail(String error) {
+        return finish(null, (error != null) ? error : "cannot load " + mPath, false);
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        return finish(null, null, true);
+    }
+
+    private boolean finish(T value, String error, boolean cancelled) {
+        List<Runnable> listeners;
+        synchronized (this) {
+            if (mDone) {
+                return false;
+            }
+            mDone = true;
+            mValue = value;
+            mError = error;
+            mCancelled = cancelled;
+            notifyAll();
+            listeners = new ArrayList<Runnable>(mListeners);
+            mListeners.clear();
+        }
+        for (Runnable listener : listeners) {
+            listener.run();
+        }
+        return true;
+    }
+
+    /**
+     * Runs the listener once the future is complete, at once if it already is
+     * or else on the thread which completes it.
+     */
+    public void addListener(Runnable listener) {
+        synchronized (this) {
+            if (!mDone) {
+                mListeners.add(listener);
+                return;
+            }
+        }
+        listener.run();
+    }
+
+    @Override
+    public synchronized boolean isCancelled() {
+        return mCancelled;
+    }
+
+    @Override
+    public synchronized boolean isDone() {
+        return mDone;
+    }
+
+    /**
+     * Returns true if the asset could not be loaded.
+     */
+    public synchronized boolean isFailed() {
+        return mDone && (mError != null);
+    }
+
+    /**
+     * Returns the error of a failed load, null if the load did not fail.
+     */
+    public synchronized String getError() {
+        return mError;
+    }
+
+    @Override
+    public synchronized T get() throws InterruptedException, ExecutionException {
+        while (!mDone) {
+            wait();
+        }
+        return getValue();
+    }
+
+    @Override
+    public synchronized T get(long timeout, TimeUnit unit)
+            throws InterruptedException, ExecutionException, TimeoutException {
+        final long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (!mDone) {
+            final long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                throw new TimeoutException(mPath + " not loaded in " + unit.toMillis(timeout) + " ms");
+            }
+            TimeUnit.NANOSECONDS.timedWait(this, remaining);
+        }
+        return getValue();
+    }
+
+    private T getValue() throws ExecutionException {
+        if (mCancelled) {
+            throw new CancellationException(mPath);
+        }
+        if (mError != null) {
+            throw new ExecutionException(new IOException(mPath + ": " + mError));
+        }
+        return mValue;
+    }
+
+    /**
+     * Returns a future which completes with the values of all futures, in
+     * their order, once all of them completed. It fails as soon as one of them
+     * fails or is cancelled.
+     */
+    public static <T> GVRAssetFuture<List<T>> allOf(List<? extends GVRAssetFuture<? extends T>> futures) {
+        final List<GVRAssetFuture<? extends T>> inputs = new ArrayList<GVRAssetFuture<? extends T>>(futures);
+        final GVRAssetFuture<List<T>> all = new GVRAssetFuture<List<T>>(describe(inputs));
+        final AtomicInteger remaining = new AtomicInteger(inputs.size());
+
+        if (inputs.isEmpty()) {
+            all.complete(Collections.<T>emptyList());
+            return all;
+        }
+        for (final GVRAssetFuture<? extends T> future : inputs) {
+            future.addListener(new Runnable() {
+                @Override
+                public void run() {
+                    if (future.isCancelled() || future.isFailed()) {
+                        all.fail(future.getPath() + ": " + (future.isCancelled() ? "cancelled" : future.getError()));
+                    } else if (remaining.decrementAndGet() == 0) {
+                        List<T> values = new ArrayList<T>(inputs.size());
+                        for (GVRAssetFuture<? extends T> input : inputs) {
+                            values.add(input.getCompletedValue());
+                        }
+                        all.complete(values);
+                    }
+                }
+            });
+        }
+        return all;
+    }
+
+    /**
+     * See {@link #allOf(List)}.
+     */
+    @SafeVarargs
+    public static <T> GVRAssetFuture<List<T>> allOf(GVRAssetFuture<? extends T>... futures) {
+        return allOf(Arrays.asList(futures));
+    }
+
+    /**
+     * Returns a future which completes like the first of the futures to
+     * complete, with its value or its error.
+     */
+    public static <T> GVRAssetFuture<T> anyOf(List<? extends GVRAssetFuture<? extends T>> futures) {
+        final List<GVRAssetFuture<? extends T>> inputs = new ArrayList<GVRAssetFuture<? extends T>>(futures);
+        final GVRAssetFuture<T> any = new GVRAssetFuture<T>(describe(inputs));
+
+        if (inputs.isEmpty()) {
+            throw new IllegalArgumentException("no futures");
+        }
+        for (final GVRAssetFuture<? extends T> future : inputs) {
+            future.addListener(new Runnable() {
+                @Override
+                public void run() {
+                    if (future.isCancelled()) {
+                        any.fail(future.getPath() + ": cancelled");
+                    } else if (future.isFailed()) {
+                        any.fail(future.getPath() + ": " + future.getError());
+                    } else {
+                        any.complete(future.getCompletedValue());
+                    }
+                }
+            });
+        }
+        return any;
+    }
+
+    /**
+     * See {@link #anyOf(List)}.
+     */
+    @SafeVarargs
+    public static <T> GVRAssetFuture<T> anyOf(GVRAssetFuture<? extends T>... futures) {
+        return anyOf(Arrays.asList(futures));
+    }
+
+    private synchronized T getCompletedValue() {
+        return mValue;
+    }
+
+    private static String describe(List<? extends GVRAssetFuture<?>> futures) {
+        StringBuilder sb = new StringBuilder();
+        for (GVRAssetFuture<?> future : futures) {
+            if (sb.length() > 0) {
+                sb.append(", ");
+            }
+            sb.append(future.getPath());
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public synchronized String toString() {
+        if (!mDone) {
+            return mPath + " loading";
+        }
+        if (mCancelled) {
+            return mPath + " cancelled";
+        }
+        return (mError != null) ? mPath + " failed: " + mError : mPath + " loaded";
+    }
+}
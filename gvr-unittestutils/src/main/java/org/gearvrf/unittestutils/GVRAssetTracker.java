@@ -0,0 +1,211 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf.unittestutils;
+
+import org.gearvrf.GVRAndroidResource;
+import org.gearvrf.GVRContext;
+import org.gearvrf.GVRSceneObject;
+import org.gearvrf.GVRTexture;
+import org.gearvrf.IAssetEvents;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Hands out a {@link GVRAssetFuture} for every asset a test loads, keyed by the
+ * path of the asset.
+ * <p>
+ * Request the future before starting the load, then wait for it, or for several
+ * loads with {@link GVRAssetFuture#allOf(List)}, so that loads can run in
+ * parallel and none of their completions gets lost:
+ * <pre>
+ *     GVRAssetFuture&lt;GVRTexture&gt; sun = tracker.expectTexture("sunmap.astc");
+ *     GVRAssetFuture&lt;GVRTexture&gt; moon = tracker.expectTexture("moonmap.astc");
+ *     ... start both loads ...
+ *     GVRAssetFuture.allOf(sun, moon).get(10, TimeUnit.SECONDS);
+ * </pre>
+ * The tracker must receive the asset events: {@link GVRTestUtils} registers its
+ * tracker with the event receiver of the context, a load with its own handler
+ * can pass the tracker as the handler. An event completes the oldest pending
+ * future with the same path, or else one with the same file name, since the
+ * loader reports some assets by their file name only. Events nobody is waiting
+ * for are dropped, so the tracker holds no asset a test did not ask for and an
+ * old load cannot complete a later request; a future requested after its load
+ * finished waits for the next load of the path. A model completes when all of
+ * its textures are loaded.
+ */
+public class GVRAssetTracker implements IAssetEvents {
+    private final Channel<GVRTexture> mTextures = new Channel<GVRTexture>();
+    private final Channel<GVRSceneObject> mModels = new Channel<GVRSceneObject>();
+    // paths of models which failed to load, the loader may still call onAssetLoaded for them
+    private final List<String> mFailedModels = new ArrayList<String>();
+
+    /**
+     * Pending futures of one kind of asset.
+     */
+    private static final class Channel<T> {
+        private final List<GVRAssetFuture<T>> mPending = new ArrayList<GVRAssetFuture<T>>();
+
+        synchronized GVRAssetFuture<T> expect(String path) {
+            GVRAssetFuture<T> future = new GVRAssetFuture<T>(path);
+            mPending.add(future);
+            return future;
+        }
+
+        /**
+         * @return false if no future waited for the asset.
+         */
+        boolean complete(String path, T value, String error) {
+            GVRAssetFuture<T> future;
+            synchronized (this) {
+                future = remove(mPending, path);
+            }
+            if (future == null) {
+                return false;
+            }
+            if (error != null) {
+                future.fail(error);
+            } else {
+                future.complete(value);
+            }
+            return true;
+        }
+
+        synchronized void clear() {
+            for (GVRAssetFuture<T> future : mPending) {
+                future.cancel(false);
+            }
+            mPending.clear();
+        }
+
+        synchronized int getPendingCount() {
+            return mPending.size();
+        }
+
+        private static <T> GVRAssetFuture<T> remove(List<GVRAssetFuture<T>> futures, String path) {
+            GVRAssetFuture<T> match = null;
+            for (GVRAssetFuture<T> future : futures) {
+                if (future.getPath().equals(path)) {
+                    match = future;
+                    break;
+                }
+            }
+            if (match == null) {
+                final String name = getFileName(path);
+                for (GVRAssetFuture<T> future : futures) {
+                    if (getFileName(future.getPath()).equals(name)) {
+                        match = future;
+                        break;
+                    }
+                }
+            }
+            if (match != null) {
+                futures.remove(match);
+            }
+            return match;
+        }
+    }
+
+    static String getFileName(String path) {
+        if (path == null) {
+            return "";
+        }
+        final int slash = Math.max(path.lastIndexOf('/'), path.lastIndexOf('\\'));
+        return path.substring(slash + 1);
+    }
+
+    /**
+     * Returns a future for the next texture loaded from the path.
+     */
+    public GVRAssetFuture<GVRTexture> expectTexture(String path) {
+        return mTextures.expect(path);
+    }
+
+    /**
+     * Returns a future for the next texture loaded from the resource.
+     */
+    public GVRAssetFuture<GVRTexture> expectTexture(GVRAndroidResource resource) {
+        return mTextures.expect(resource.getResourceFilename());
+    }
+
+    /**
+     * Returns a future for the next model loaded from the path. It completes
+     * once the model and all of its textures are loaded.
+     */
+    public GVRAssetFuture<GVRSceneObject> expectModel(String path) {
+        return mModels.expect(path);
+    }
+
+    /**
+     * Returns the number of futures which wait for their asset.
+     */
+    public int getPendingCount() {
+        return mTextures.getPendingCount() + mModels.getPendingCount();
+    }
+
+    /**
+     * Cancels the pending futures.
+     */
+    public void reset() {
+        mTextures.clear();
+        mModels.clear();
+        synchronized (mFailedModels) {
+            mFailedModels.clear();
+        }
+    }
+
+    @Override
+    public void onTextureLoaded(GVRContext context, GVRTexture texture, String filePath) {
+        mTextures.complete(filePath, texture, null);
+    }
+
+    @Override
+    public void onTextureError(GVRContext context, String error, String filePath) {
+        mTextures.complete(filePath, null, error);
+    }
+
+    @Override
+    public void onModelLoaded(GVRContext context, GVRSceneObject model, String filePath) {
+    }
+
+    @Override
+    public void onModelError(GVRContext context, String error, String filePath) {
+        if (mModels.complete(filePath, null, error)) {
+            synchronized (mFailedModels) {
+                mFailedModels.add(filePath);
+            }
+        }
+    }
+
+    @Override
+    public void onAssetLoaded(GVRContext context, GVRSceneObject model, String filePath, String errors) {
+        if (model == null) {
+            synchronized (mFailedModels) {
+                // the model error completed the future already
+                for (Iterator<String> it = mFailedModels.iterator(); it.hasNext(); ) {
+                    if (getFileName(it.next()).equals(getFileName(filePath))) {
+                        it.remove();
+                        return;
+                    }
+                }
+            }
+            mModels.complete(filePath, null, (errors != null) ? errors : "no model");
+            return;
+        }
+        mModels.complete(filePath, model, null);
+    }
+}
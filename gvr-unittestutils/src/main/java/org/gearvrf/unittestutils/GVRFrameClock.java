@@ -0,0 +1,195 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gearvrf.unittestutils;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Counts the frames rendered and wakes up threads waiting for a frame or for
+ * an amount of render time.
+ * <p>
+ * {@link #onFrame(long)} is called by the render thread once per frame. It
+ * increments an atomic frame counter and looks at the earliest target of the
+ * waiting threads, so a frame nobody waits for costs no lock and no allocation.
+ * A waiting thread registers its target in a lock-free skip list sorted by the
+ * target and parks until the render thread releases it, its timeout expires or
+ * it is interrupted. Any number of threads can wait for different targets at
+ * the same time.
+ */
+public final class GVRFrameClock {
+    private final AtomicLong mFrame = new AtomicLong();
+    private final AtomicLong mSequence = new AtomicLong();
+    private volatile long mFrameTime;
+    private final ConcurrentSkipListMap<Target, Boolean> mFrameTargets =
+            new ConcurrentSkipListMap<Target, Boolean>();
+    private final ConcurrentSkipListMap<Target, Boolean> mTimeTargets =
+            new ConcurrentSkipListMap<Target, Boolean>();
+
+    /**
+     * A waiting thread and the frame number or frame timestamp it waits for.
+     * Targets with the same value are released in the order they were added.
+     */
+    private static final class Target implements Comparable<Target> {
+        final long mAt;
+        final long mSequence;
+        final Thread mThread;
+        volatile boolean mReleased = false;
+
+        Target(long at, long sequence) {
+            mAt = at;
+            mSequence = sequence;
+            mThread = Thread.currentThread();
+        }
+
+        void release() {
+            mReleased = true;
+            LockSupport.unpark(mThread);
+        }
+
+        @Override
+        public int compareTo(Target other) {
+            if (mAt != other.mAt) {
+                return (mAt < other.mAt) ? -1 : 1;
+            }
+            return (mSequence < other.mSequence) ? -1 : ((mSequence == other.mSequence) ? 0 : 1);
+        }
+    }
+
+    /**
+     * Counts a frame and releases the threads whose target it reaches. Must be
+     * called from the render thread only.
+     * @param timestamp {@link System#nanoTime()} at the start of the frame.
+     * @return the number of frames rendered including this one.
+     */
+    public long onFrame(long timestamp) {
+        // the timestamp is published before the frame so waiters that see the frame see its time
+        mFrameTime = timestamp;
+        final long frame = mFrame.incrementAndGet();
+        release(mFrameTargets, frame);
+        release(mTimeTargets, timestamp);
+        return frame;
+    }
+
+    private static void release(ConcurrentSkipListMap<Target, Boolean> targets, long now) {
+        Map.Entry<Target, Boolean> first;
+        while ((first = targets.firstEntry()) != null && first.getKey().mAt - now <= 0) {
+            final Target target = first.getKey();
+            // a waiter which timed out may have removed its target first
+            if (targets.remove(target) != null) {
+                target.release();
+            }
+        }
+    }
+
+    /**
+     * Returns the number of frames rendered so far.
+     */
+    public long getFrame() {
+        return mFrame.get();
+    }
+
+    /**
+     * Returns the number of threads waiting for a frame or for render time.
+     */
+    public int getWaiterCount() {
+        return mFrameTargets.size() + mTimeTargets.size();
+    }
+
+    /**
+     * Waits until frame number "frame" has been rendered. Returns at once if it
+     * already has. This is a blocking call.
+     * @param frame   frame number as returned by {@link #getFrame()}.
+     * @param timeout how long to wait at most, {@link Long#MAX_VALUE} to wait forever.
+     * @return the number of frames rendered when the thread resumes, at least "frame".
+     * @throws TimeoutException if the frame was not rendered in time.
+     */
+    public long awaitFrame(long frame, long timeout, TimeUnit unit)
+            throws InterruptedException, TimeoutException {
+        if (mFrame.get() >= frame) {
+            return mFrame.get();
+        }
+        await(mFrameTargets, new Target(frame, mSequence.getAndIncrement()), false, timeout, unit);
+        return mFrame.get();
+    }
+
+    /**
+     * Waits until "frames" more frames have been rendered. This is a blocking call.
+     * @see #awaitFrame(long, long, TimeUnit)
+     */
+    public long awaitFrames(int frames, long timeout, TimeUnit unit)
+            throws InterruptedException, TimeoutException {
+        return awaitFrame(mFrame.get() + frames, timeout, unit);
+    }
+
+    /**
+     * Waits until the render thread starts a frame "time" after this call, so
+     * that the scene has been rendered for at least that long. This is a
+     * blocking call.
+     * @param time     render time to wait for.
+     * @param timeUnit unit of "time".
+     * @param timeout  how long to wait at most, {@link Long#MAX_VALUE} to wait forever.
+     * @return the number of frames rendered when the thread resumes.
+     * @throws TimeoutException if no frame was started in time, e.g. because
+     * rendering is paused.
+     */
+    public long awaitRenderTime(long time, TimeUnit timeUnit, long timeout, TimeUnit unit)
+            throws InterruptedException, TimeoutException {
+        final long at = System.nanoTime() + timeUnit.toNanos(time);
+        await(mTimeTargets, new Target(at, mSequence.getAndIncrement()), true, timeout, unit);
+        return mFrame.get();
+    }
+
+    private void await(ConcurrentSkipListMap<Target, Boolean> targets, Target target, boolean byTime,
+                       long timeout, TimeUnit unit) throws InterruptedException, TimeoutException {
+        final long start = System.nanoTime();
+        final long nanos = unit.toNanos(timeout);
+
+        targets.put(target, Boolean.TRUE);
+        try {
+            // the render thread may have passed the target before it was added
+            while (!target.mReleased && !isReached(target.mAt, byTime)) {
+                if (Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
+                final long left = nanos - (System.nanoTime() - start);
+                if (left <= 0) {
+                    throw new TimeoutException(String.format(Locale.US,
+                            "%s not reached in %d ms, %d frames rendered",
+                            byTime ? "render time" : "frame " + target.mAt,
+                            unit.toMillis(timeout), mFrame.get()));
+                }
+                LockSupport.parkNanos(this, left);
+            }
+        } finally {
+            targets.remove(target);
+        }
+    }
+
+    private boolean isReached(long at, boolean byTime) {
+        final long frame = mFrame.get();
+        if (byTime) {
+            return (frame > 0) && (mFrameTime - at >= 0);
+        }
+        return frame >= at;
+    }
+}
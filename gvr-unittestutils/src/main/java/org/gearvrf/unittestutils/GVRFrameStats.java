@@ -0,0 +1,180 @@
+/*
+ * Copyright (c) 2016. Samsung Electronics Co., LTD
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf.unittestutils;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Summary of the frame times of a measurement made with
+ * {@link GVRTestUtils#measureFrames(int, int)}.
+ * <p>
+ * Frame times are in milliseconds. A frame which took longer than one and a half
+ * frame budgets (1 / refresh rate) is counted as a drop; the number of dropped frames
+ * is the number of vsync intervals it missed.
+ */
+public final class GVRFrameStats {
+    private final int mFrameCount;
+    private final float mFrameBudget;
+    private final float mMean;
+    private final float mP50;
+    private final float mP90;
+    private final float mP99;
+    private final float mMax;
+    private final float mFps;
+    private final int mDroppedFrames;
+    private final int mSlowFrames;
+    private final float[] mFrameTimes;
+
+    GVRFrameStats(long[] deltas, float refreshRate) {
+        final long budgetNanos = (long) (1e9 / refreshRate);
+        long total = 0;
+        int dropped = 0;
+        int slow = 0;
+
+        for (long delta : deltas) {
+            total += delta;
+            if (delta > budgetNanos + budgetNanos / 2) {
+                ++slow;
+                dropped += (int) ((delta + budgetNanos / 2) / budgetNanos) - 1;
+            }
+        }
+
+        mFrameTimes = new float[deltas.length];
+        for (int i = 0; i < deltas.length; ++i) {
+            mFrameTimes[i] = toMillis(deltas[i]);
+        }
+
+        Arrays.sort(deltas);
+        mFrameCount = deltas.length;
+        mFrameBudget = toMillis(budgetNanos);
+        mMean = (deltas.length == 0) ? 0.0f : toMillis(total / deltas.length);
+        mP50 = toMillis(percentile(deltas, 50));
+        mP90 = toMillis(percentile(deltas, 90));
+        mP99 = toMillis(percentile(deltas, 99));
+        mMax = (deltas.length == 0) ? 0.0f : toMillis(deltas[deltas.length - 1]);
+        mFps = (total == 0) ? 0.0f : (float) (1e9 * deltas.length / total);
+        mDroppedFrames = dropped;
+        mSlowFrames = slow;
+    }
+
+    /**
+     * Returns the nearest rank percentile of sorted samples, 50 for the median.
+     * @param sorted  samples in ascending order.
+     * @param percent 0 to 100.
+     * @return the sample, 0 if there are none.
+     */
+    public static long percentile(long[] sorted, int percent) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        return sorted[rank(sorted.length, percent)];
+    }
+
+    /**
+     * Returns the nearest rank percentile of sorted samples, 50 for the median.
+     * @param sorted  samples in ascending order.
+     * @param percent 0 to 100.
+     * @return the sample, 0 if there are none.
+     */
+    public static float percentile(float[] sorted, int percent) {
+        if (sorted.length == 0) {
+            return 0.0f;
+        }
+        return sorted[rank(sorted.length, percent)];
+    }
+
+    private static int rank(int count, int percent) {
+        int rank = (int) Math.ceil(percent / 100.0 * count);
+        return Math.max(1, Math.min(count, rank)) - 1;
+    }
+
+    private static float toMillis(long nanos) {
+        return nanos / 1e6f;
+    }
+
+    /**
+     * Number of frames measured after the warmup.
+     */
+    public int getFrameCount() {
+        return mFrameCount;
+    }
+
+    /**
+     * Time available for one frame at the refresh rate, in milliseconds.
+     */
+    public float getFrameBudget() {
+        return mFrameBudget;
+    }
+
+    public float getMean() {
+        return mMean;
+    }
+
+    public float getP50() {
+        return mP50;
+    }
+
+    public float getP90() {
+        return mP90;
+    }
+
+    public float getP99() {
+        return mP99;
+    }
+
+    public float getMax() {
+        return mMax;
+    }
+
+    /**
+     * Frames per second over the measured frames, excluding the warmup.
+     */
+    public float getFps() {
+        return mFps;
+    }
+
+    /**
+     * Number of vsync intervals missed by slow frames.
+     */
+    public int getDroppedFrames() {
+        return mDroppedFrames;
+    }
+
+    /**
+     * Number of frames which took longer than one and a half frame budgets.
+     */
+    public int getSlowFrames() {
+        return mSlowFrames;
+    }
+
+    /**
+     * Returns the time of every measured frame in milliseconds, in the order they
+     * were rendered.
+     */
+    public float[] getFrameTimes() {
+        return mFrameTimes.clone();
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.US,
+                "frames = %d, FPS = %.2f, mean = %.2f ms, p50 = %.2f ms, p90 = %.2f ms, "
+                + "p99 = %.2f ms, max = %.2f ms, slow = %d, dropped = %d (budget %.2f ms)",
+                mFrameCount, mFps, mMean, mP50, mP90, mP99, mMax, mSlowFrames, mDroppedFrames,
+                mFrameBudget);
+    }
+}
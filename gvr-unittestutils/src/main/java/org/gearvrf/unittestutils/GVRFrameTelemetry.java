@@ -0,0 +1,317 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf.unittestutils;
+
+import android.os.Debug;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Per frame telemetry of the render thread, recorded by {@link GVRTestableMain}
+ * into preallocated ring buffers.
+ * <p>
+ * Every frame records one sample in each channel: the wall time since the
+ * previous frame, the CPU time the render thread used since the previous frame,
+ * the Java heap in use, and the number of garbage collections and of objects
+ * allocated by the render thread since the previous frame. {@link #record(long)}
+ * only stores primitives, so recording does not allocate or take a lock.
+ * <p>
+ * A test opens a {@link Window} with {@link #openWindow()}, runs its workload,
+ * closes the window and reads the {@link Stats} of a channel. Garbage
+ * collections and allocations are only counted while a window which asked for
+ * them is open, as counting them slows the runtime down. If a window is longer
+ * than the buffers only its most recent frames are summarized.
+ */
+public final class GVRFrameTelemetry {
+    /** nanoseconds between the start of this frame and the previous one */
+    public static final int WALL_TIME = 0;
+    /** nanoseconds of render thread CPU time since the previous frame */
+    public static final int CPU_TIME = 1;
+    /** bytes of Java heap in use at the start of the frame */
+    public static final int HEAP_USED = 2;
+    /** garbage collections since the previous frame */
+    public static final int GC_COUNT = 3;
+    /** objects allocated by the render thread since the previous frame */
+    public static final int ALLOCATIONS = 4;
+    public static final int CHANNEL_COUNT = 5;
+
+    private static final String[] CHANNEL_NAMES = { "wall_time", "cpu_time", "heap_used", "gc_count",
+                                                    "allocations" };
+
+    private final long[][] mSamples;
+    private final int mMask;
+    private final Runtime mRuntime = Runtime.getRuntime();
+    private long mLastTimestamp = 0;
+    private long mLastCpuTime = 0;
+    private int mLastGcCount = 0;
+    private int mLastAllocCount = 0;
+    private volatile int mCount = 0;
+    private int mOpenWindows = 0;
+
+    /**
+     * @param capacity number of frames kept, rounded up to a power of two.
+     */
+    public GVRFrameTelemetry(int capacity) {
+        int size = Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1;
+        mSamples = new long[CHANNEL_COUNT][size];
+        mMask = size - 1;
+    }
+
+    public static String getChannelName(int channel) {
+        return CHANNEL_NAMES[channel];
+    }
+
+    /**
+     * Records a frame. Must be called from the render thread only.
+     * @param timestamp {@link System#nanoTime()} at the start of the frame.
+     */
+    public void record(long timestamp) {
+        final long cpuTime = Debug.threadCpuTimeNanos();
+        // deprecated, but the only per thread counters on the API levels the tests run on
+        @SuppressWarnings("deprecation")
+        final int gcCount = Debug.getGlobalGcInvocationCount();
+        @SuppressWarnings("deprecation")
+        final int allocCount = Debug.getThreadAllocCount();
+
+        if (mLastTimestamp != 0) {
+            final int count = mCount;
+            final int slot = count & mMask;
+            mSamples[WALL_TIME][slot] = timestamp - mLastTimestamp;
+            // threadCpuTimeNanos() is -1 where it is not supported
+            mSamples[CPU_TIME][slot] = (cpuTime >= 0 && mLastCpuTime >= 0) ? cpuTime - mLastCpuTime : 0;
+            mSamples[HEAP_USED][slot] = mRuntime.totalMemory() - mRuntime.freeMemory();
+            // the counters restart when counting is started again
+            mSamples[GC_COUNT][slot] = Math.max(gcCount - mLastGcCount, 0);
+            mSamples[ALLOCATIONS][slot] = Math.max(allocCount - mLastAllocCount, 0);
+            mCount = count + 1;
+        }
+        mLastTimestamp = timestamp;
+        mLastCpuTime = cpuTime;
+        mLastGcCount = gcCount;
+        mLastAllocCount = allocCount;
+    }
+
+    /**
+     * Returns the number of frames recorded so far.
+     */
+    public int getFrameCount() {
+        return mCount;
+    }
+
+    /**
+     * Starts a measurement at the next recorded frame, counting garbage
+     * collections and allocations.
+     */
+    public Window openWindow() {
+        return openWindow(true);
+    }
+
+    /**
+     * Starts a measurement at the next recorded frame.
+     * @param countAllocations false to leave the {@link #GC_COUNT} and
+     *                         {@link #ALLOCATIONS} channels at 0 and the runtime
+     *                         undisturbed, e.g. to measure frame times only.
+     */
+    public Window openWindow(boolean countAllocations) {
+        if (countAllocations) {
+            synchronized (this) {
+                if (mOpenWindows++ == 0) {
+                    setAllocCounting(true);
+                }
+            }
+        }
+        return new Window(mCount, countAllocations);
+    }
+
+    private void windowClosed() {
+        synchronized (this) {
+            if (--mOpenWindows == 0) {
+                setAllocCounting(false);
+            }
+        }
+    }
+
+    // deprecated, but the only per thread counters on the API levels the tests run on
+    @SuppressWarnings("deprecation")
+    private static void setAllocCounting(boolean on) {
+        if (on) {
+            Debug.startAllocCounting();
+        } else {
+            Debug.stopAllocCounting();
+        }
+    }
+
+    /**
+     * Frames recorded between opening and closing a window.
+     */
+    public final class Window {
+        private final int mStart;
+        private final boolean mCountsAllocations;
+        private int mEnd = -1;
+
+        Window(int start, boolean countsAllocations) {
+            mStart = start;
+            mCountsAllocations = countsAllocations;
+        }
+
+        /**
+         * Ends the measurement at the last recorded frame. Closing a window twice
+         * has no effect.
+         */
+        public void close() {
+            if (mEnd < 0) {
+                mEnd = mCount;
+                if (mCountsAllocations) {
+                    windowClosed();
+                }
+            }
+        }
+
+        public boolean isOpen() {
+            return mEnd < 0;
+        }
+
+        /**
+         * Number of frames in the window so far.
+         */
+        public int getFrameCount() {
+            return ((mEnd < 0) ? mCount : mEnd) - mStart;
+        }
+
+        /**
+         * Summarizes one channel over the frames of the window still in the buffers.
+         * @param channel one of {@link #WALL_TIME}, {@link #CPU_TIME},
+         *                {@link #HEAP_USED}, {@link #GC_COUNT} or {@link #ALLOCATIONS}.
+         */
+        public Stats getStats(int channel) {
+            return new Stats(channel, getSamples(channel));
+        }
+
+        /**
+         * Returns the samples of a channel in the order they were recorded.
+         */
+        public long[] getSamples(int channel) {
+            final int end = (mEnd < 0) ? mCount : mEnd;
+            // the slot after the newest may be being overwritten right now
+            final int first = Math.max(mStart, mCount - mSamples[channel].length + 1);
+            final int n = Math.max(end - first, 0);
+            final long[] samples = new long[n];
+
+            for (int i = 0; i < n; ++i) {
+                samples[i] = mSamples[channel][(first + i) & mMask];
+            }
+            return samples;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder s = new StringBuilder();
+            for (int channel = 0; channel < CHANNEL_COUNT; ++channel) {
+                s.append(getStats(channel)).append('\n');
+            }
+            return s.toString();
+        }
+    }
+
+    /**
+     * Summary statistics of one channel, in the unit of the channel.
+     */
+    public static final class Stats {
+        private final int mChannel;
+        private final int mCount;
+        private final long mTotal;
+        private final long mFirst;
+        private final long mLast;
+        private final long mMin;
+        private final long mP50;
+        private final long mP90;
+        private final long mP99;
+        private final long mMax;
+
+        Stats(int channel, long[] samples) {
+            long total = 0;
+            for (long sample : samples) {
+                total += sample;
+            }
+            mChannel = channel;
+            mCount = samples.length;
+            mTotal = total;
+            mFirst = (samples.length == 0) ? 0 : samples[0];
+            mLast = (samples.length == 0) ? 0 : samples[samples.length - 1];
+
+            long[] sorted = samples.clone();
+            Arrays.sort(sorted);
+            mMin = (sorted.length == 0) ? 0 : sorted[0];
+            mP50 = GVRFrameStats.percentile(sorted, 50);
+            mP90 = GVRFrameStats.percentile(sorted, 90);
+            mP99 = GVRFrameStats.percentile(sorted, 99);
+            mMax = (sorted.length == 0) ? 0 : sorted[sorted.length - 1];
+        }
+
+        public int getChannel() {
+            return mChannel;
+        }
+
+        public int getCount() {
+            return mCount;
+        }
+
+        public long getTotal() {
+            return mTotal;
+        }
+
+        public double getMean() {
+            return (mCount == 0) ? 0.0 : (double) mTotal / mCount;
+        }
+
+        /**
+         * Last sample minus the first, e.g. the heap growth over the window.
+         */
+        public long getGrowth() {
+            return mLast - mFirst;
+        }
+
+        public long getMin() {
+            return mMin;
+        }
+
+        public long getP50() {
+            return mP50;
+        }
+
+        public long getP90() {
+            return mP90;
+        }
+
+        public long getP99() {
+            return mP99;
+        }
+
+        public long getMax() {
+            return mMax;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US,
+                    "%s: frames = %d, total = %d, mean = %.1f, min = %d, p50 = %d, p90 = %d, "
+                    + "p99 = %d, max = %d, growth = %d",
+                    getChannelName(mChannel), mCount, mTotal, getMean(), mMin, mP50, mP90, mP99,
+                    mMax, getGrowth());
+        }
+    }
+}
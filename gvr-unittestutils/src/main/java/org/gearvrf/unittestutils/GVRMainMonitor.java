@@ -23,6 +23,5 @@ import org.gearvrf.GVRSceneObject;
 interface GVRMainMonitor {
     void onInitCalled(GVRContext context, GVRScene scene);
     void onSceneRendered();
-    void xFramesRendered();
     void onAssetLoaded(GVRSceneObject asset);
 }
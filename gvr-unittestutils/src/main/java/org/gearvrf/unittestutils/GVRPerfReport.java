@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2016. Samsung Electronics Co., LTD
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf.unittestutils;
+
+import android.os.Build;
+import android.os.Environment;
+
+import org.gearvrf.perfresults.GVRPerfRecord;
+import org.gearvrf.perfresults.GVRPerfRun;
+import org.gearvrf.utility.Log;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.Properties;
+
+/**
+ * Appends benchmark results to /sdcard/GearVRFTests/perf/results.csv and results.jsonl.
+ * <p>
+ * Every record carries the run it belongs to. The device model and build
+ * fingerprint come from {@link Build}; the run id and the commits come from
+ * /sdcard/GearVRFTests/run.properties, which scripts/runtest pushes before each
+ * test run. Without that file the run id is the time of the first result.
+ */
+final class GVRPerfReport {
+    private static final String TAG = GVRPerfReport.class.getSimpleName();
+    private static final String RESULTS_DIR = "/GearVRFTests/perf/";
+    private static final String RUN_PROPERTIES = "/GearVRFTests/run.properties";
+
+    private static GVRPerfRun sRun;
+
+    private GVRPerfReport() {
+    }
+
+    static synchronized GVRPerfRun getRun() {
+        if (sRun == null) {
+            final String sdcard = Environment.getExternalStorageDirectory().getAbsolutePath();
+            final Properties properties = new Properties();
+            final File file = new File(sdcard + RUN_PROPERTIES);
+
+            if (file.exists()) {
+                try {
+                    InputStream in = new FileInputStream(file);
+                    try {
+                        properties.load(in);
+                    } finally {
+                        in.close();
+                    }
+                } catch (IOException e) {
+                    Log.e(TAG, "Cannot read %s", file.getPath());
+                }
+            }
+            String id = properties.getProperty("run");
+            if (id == null) {
+                id = new SimpleDateFormat("yyyyMMddHHmmss", Locale.US).format(new Date());
+            }
+            sRun = new GVRPerfRun(id, Build.MODEL, Build.FINGERPRINT,
+                                  properties.getProperty("gearvrf.commit", ""),
+                                  properties.getProperty("gearvrf-tests.commit", ""));
+        }
+        return sRun;
+    }
+
+    /**
+     * Appends a record to the results files.
+     */
+    static synchronized void append(GVRPerfRecord record) {
+        final File dir = new File(Environment.getExternalStorageDirectory().getAbsolutePath()
+                                  + RESULTS_DIR);
+        dir.mkdirs();
+
+        try {
+            final File csv = new File(dir, "results.csv");
+            final boolean isNew = !csv.exists();
+            Writer out = new FileWriter(csv, true);
+            try {
+                if (isNew) {
+                    out.write(GVRPerfRecord.CSV_HEADER);
+                    out.write('\n');
+                }
+                out.write(record.toCsv());
+                out.write('\n');
+            } finally {
+                out.close();
+            }
+
+            out = new FileWriter(new File(dir, "results.jsonl"), true);
+            try {
+                out.write(record.toJson());
+                out.write('\n');
+            } finally {
+                out.close();
+            }
+        } catch (IOException e) {
+            Log.e(TAG, "Cannot write results of %s: %s", record.getBenchmark(), e.getMessage());
+        }
+    }
+}
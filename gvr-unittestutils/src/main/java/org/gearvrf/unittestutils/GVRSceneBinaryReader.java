@@ -0,0 +1,175 @@
+/*
+ * Copyright (c) 2016. Samsung Electronics Co., LTD
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf.unittestutils;
+
+import android.util.ArrayMap;
+
+import org.gearvrf.GVRContext;
+import org.gearvrf.GVRMaterial;
+import org.gearvrf.GVRScene;
+import org.gearvrf.GVRSceneObject;
+import org.gearvrf.GVRTexture;
+import org.gearvrf.sceneformat.GVRSceneBinary;
+import org.gearvrf.utility.Log;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Makes a scene from a {@link GVRSceneBinary} file.
+ * <p>
+ * The file is memory mapped and its geometry arrays are read with one bulk get each,
+ * then handed to {@link GVRSceneMaker#createPolygonMesh} without any conversion. The
+ * small parts of the description (materials, transforms, lights) are turned into
+ * {@link JSONObject}s for the {@link GVRSceneMaker} helpers.
+ */
+final class GVRSceneBinaryReader {
+    private static final String TAG = "SceneMaker";
+
+    private final GVRContext mContext;
+    private final GVRScene mScene;
+    private final ArrayMap<String, GVRTexture> mTextures = new ArrayMap<>();
+    private final ArrayMap<String, GVRMaterial> mMaterials = new ArrayMap<>();
+
+    GVRSceneBinaryReader(GVRContext gvrContext, GVRScene scene) {
+        mContext = gvrContext;
+        mScene = scene;
+    }
+
+    void read(File binaryScene) throws IOException, JSONException {
+        Map<String, Object> root = GVRSceneBinary.read(binaryScene);
+
+        Log.d(TAG, "make scene %s", root.get("id"));
+
+        for (Map<String, Object> texture : getObjects(root, "textures")) {
+            JSONObject jsonTexture = toJSONObject(texture);
+            String id = jsonTexture.optString("id");
+            if (!id.isEmpty()) {
+                mTextures.put(id, GVRSceneMaker.createTexture(mContext, jsonTexture));
+            }
+        }
+        for (Map<String, Object> material : getObjects(root, "materials")) {
+            JSONObject jsonMaterial = toJSONObject(material);
+            String id = jsonMaterial.optString("id");
+            if (!id.isEmpty()) {
+                mMaterials.put(id, GVRSceneMaker.createMaterial(mContext, mTextures, jsonMaterial));
+            }
+        }
+
+        Object bgcolor = root.get("bgcolor");
+        if (bgcolor instanceof Map) {
+            GVRSceneMaker.RGBAColor color =
+                    GVRSceneMaker.getColorCoordinates(toJSONObject(asMap(bgcolor)));
+            mScene.setBackgroundColor(color.r, color.g, color.b, color.a);
+        }
+
+        for (Map<String, Object> light : getObjects(root, "lights")) {
+            GVRSceneObject lightObject = GVRSceneMaker.createLight(mContext, toJSONObject(light));
+            if (lightObject != null) {
+                mScene.getRoot().addChildObject(lightObject);
+            }
+        }
+        for (Map<String, Object> object : getObjects(root, "objects")) {
+            mScene.getRoot().addChildObject(createSceneObject(object));
+        }
+    }
+
+    private GVRSceneObject createSceneObject(Map<String, Object> object) throws JSONException {
+        JSONObject jsonObject = new JSONObject();
+        GVRSceneObject child = null;
+
+        for (Map.Entry<String, Object> entry : object.entrySet()) {
+            if (entry.getKey().equals("geometry") && entry.getValue() instanceof Map) {
+                child = createGeometry(asMap(entry.getValue()));
+            } else {
+                jsonObject.put(entry.getKey(), toJSON(entry.getValue()));
+            }
+        }
+        if (child == null) {
+            child = GVRSceneMaker.createQuad(mContext, null);
+        }
+        GVRSceneMaker.setupChildObject(mContext, mTextures, mMaterials, child, jsonObject);
+        return child;
+    }
+
+    private GVRSceneObject createGeometry(Map<String, Object> geometry) throws JSONException {
+        if ("polygon".equals(geometry.get("type"))) {
+            float[][] texCoords = null;
+            Object sets = geometry.get("texcoords");
+            if (sets instanceof List) {
+                List<?> list = (List<?>) sets;
+                texCoords = list.toArray(new float[list.size()][]);
+            }
+            return new GVRSceneObject(mContext, GVRSceneMaker.createPolygonMesh(mContext,
+                    (float[]) geometry.get("vertices"), (float[]) geometry.get("normals"),
+                    texCoords, (int[]) geometry.get("triangles")));
+        }
+        return GVRSceneMaker.createGeometry(mContext, toJSONObject(geometry));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> asMap(Object value) {
+        return (Map<String, Object>) value;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Map<String, Object>> getObjects(Map<String, Object> root, String name) {
+        Object value = root.get(name);
+        return (value instanceof List) ? (List<Map<String, Object>>) value :
+                Collections.<Map<String, Object>>emptyList();
+    }
+
+    private static JSONObject toJSONObject(Map<String, Object> map) throws JSONException {
+        JSONObject jsonObject = new JSONObject();
+        for (Map.Entry<String, Object> entry : map.entrySet()) {
+            jsonObject.put(entry.getKey(), toJSON(entry.getValue()));
+        }
+        return jsonObject;
+    }
+
+    private static Object toJSON(Object value) throws JSONException {
+        if (value == null) {
+            return JSONObject.NULL;
+        } else if (value instanceof Map) {
+            return toJSONObject(asMap(value));
+        } else if (value instanceof List) {
+            JSONArray jsonArray = new JSONArray();
+            for (Object element : (List<?>) value) {
+                jsonArray.put(toJSON(element));
+            }
+            return jsonArray;
+        } else if (value instanceof float[]) {
+            JSONArray jsonArray = new JSONArray();
+            for (float f : (float[]) value) {
+                jsonArray.put((double) f);
+            }
+            return jsonArray;
+        } else if (value instanceof int[]) {
+            JSONArray jsonArray = new JSONArray();
+            for (int i : (int[]) value) {
+                jsonArray.put(i);
+            }
+            return jsonArray;
+        }
+        return value;
+    }
+}
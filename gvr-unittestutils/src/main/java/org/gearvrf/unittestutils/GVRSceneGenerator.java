@@ -0,0 +1,224 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gearvrf.unittestutils;
+
+import org.gearvrf.GVRContext;
+import org.gearvrf.GVRMaterial;
+import org.gearvrf.GVRMesh;
+import org.gearvrf.GVRSceneObject;
+import org.gearvrf.GVRTransform;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Builds large scene graphs for benchmarks. The same seed and settings always
+ * produce the same hierarchy, names, transforms and sharing, so runs on
+ * different devices and releases time the same scene.
+ * <p>
+ * The nodes are created breadth first. Every node above the maximum depth gets
+ * a number of children between the minimum and the maximum branching until the
+ * requested number of nodes exists; if the levels allowed by the depth fill up
+ * first, the generator goes round the nodes again and adds more children, so
+ * the hierarchy grows wider instead of deeper. A fraction of the nodes is
+ * renderable. Their quads are picked from a pool of meshes and their colors
+ * from a pool of materials; a pool of size 0 gives every renderable node a
+ * mesh or a material of its own.
+ * <pre>
+ *     GVRSceneObject root = new GVRSceneGenerator(ctx, 42)
+ *             .setMaxDepth(12)
+ *             .setBranching(1, 6)
+ *             .generate(10000);
+ *     scene.addSceneObject(root);
+ * </pre>
+ * Node i, counting from 0 for the returned root in creation order, is named
+ * {@link #getNodeName(int)}.
+ */
+public final class GVRSceneGenerator {
+    private static final String NODE_PREFIX = "node";
+    private static final String MESH_DESCRIPTOR = "float3 a_position float2 a_texcoord";
+
+    private final GVRContext mContext;
+    private final long mSeed;
+    private int mMaxDepth = 8;
+    private int mMinBranching = 2;
+    private int mMaxBranching = 4;
+    private int mMeshes = 1;
+    private int mMaterials = 1;
+    private float mRenderable = 1.0f;
+    private int mDepth = 0;
+
+    /**
+     * @param context context the scene objects are created in.
+     * @param seed    seed of the random choices.
+     */
+    public GVRSceneGenerator(GVRContext context, long seed) {
+        mContext = context;
+        mSeed = seed;
+    }
+
+    /**
+     * Deepest level of the hierarchy, the root is at depth 0. Defaults to 8.
+     */
+    public GVRSceneGenerator setMaxDepth(int depth) {
+        if (depth < 1) {
+            throw new IllegalArgumentException("depth must be at least 1");
+        }
+        mMaxDepth = depth;
+        return this;
+    }
+
+    /**
+     * Range of the number of children a node gets. Defaults to 2 to 4.
+     */
+    public GVRSceneGenerator setBranching(int min, int max) {
+        if ((min < 1) || (max < min)) {
+            throw new IllegalArgumentException("invalid branching " + min + " to " + max);
+        }
+        mMinBranching = min;
+        mMaxBranching = max;
+        return this;
+    }
+
+    /**
+     * Number of meshes the renderable nodes share, 0 for a mesh per node.
+     * Defaults to 1.
+     */
+    public GVRSceneGenerator setMeshSharing(int meshes) {
+        mMeshes = meshes;
+        return this;
+    }
+
+    /**
+     * Number of materials the renderable nodes share, 0 for a material per node.
+     * Defaults to 1.
+     */
+    public GVRSceneGenerator setMaterialSharing(int materials) {
+        mMaterials = materials;
+        return this;
+    }
+
+    /**
+     * Fraction of the nodes which have render data, between 0 and 1. The other
+     * nodes only group their children. Defaults to 1.
+     */
+    public GVRSceneGenerator setRenderableFraction(float fraction) {
+        mRenderable = fraction;
+        return this;
+    }
+
+    public static String getNodeName(int index) {
+        return NODE_PREFIX + index;
+    }
+
+    /**
+     * Returns the depth of the deepest node of the last generated hierarchy.
+     */
+    public int getDepth() {
+        return mDepth;
+    }
+
+    /**
+     * Generates a hierarchy. The root is not added to a scene.
+     * @param nodes number of scene objects including the root.
+     * @return the root of the hierarchy.
+     */
+    public GVRSceneObject generate(int nodes) {
+        final Random random = new Random(mSeed);
+        final List<GVRMesh> meshes = new ArrayList<GVRMesh>();
+        final List<GVRMaterial> materials = new ArrayList<GVRMaterial>();
+        final List<GVRSceneObject> created = new ArrayList<GVRSceneObject>(nodes);
+        final int[] depths = new int[nodes];
+
+        for (int i = 0; i < mMeshes; ++i) {
+            meshes.add(createMesh(random));
+        }
+        for (int i = 0; i < mMaterials; ++i) {
+            materials.add(createMaterial(random));
+        }
+
+        GVRSceneObject root = createNode(0, random, meshes, materials);
+        created.add(root);
+        mDepth = 0;
+        int parent = 0;
+        while (created.size() < nodes) {
+            if (parent == created.size()) {
+                // every level the depth allows is full, add more children from the top
+                parent = 0;
+            }
+            if (depths[parent] < mMaxDepth) {
+                int children = mMinBranching + random.nextInt(mMaxBranching - mMinBranching + 1);
+                children = Math.min(children, nodes - created.size());
+                for (int i = 0; i < children; ++i) {
+                    int index = created.size();
+                    GVRSceneObject child = createNode(index, random, meshes, materials);
+                    depths[index] = depths[parent] + 1;
+                    mDepth = Math.max(mDepth, depths[index]);
+                    created.get(parent).addChildObject(child);
+                    created.add(child);
+                }
+            }
+            ++parent;
+        }
+        return root;
+    }
+
+    private GVRSceneObject createNode(int index, Random random, List<GVRMesh> meshes,
+                                      List<GVRMaterial> materials) {
+        GVRSceneObject node;
+
+        if (random.nextFloat() < mRenderable) {
+            GVRMesh mesh = meshes.isEmpty() ? createMesh(random)
+                                            : meshes.get(random.nextInt(meshes.size()));
+            GVRMaterial material = materials.isEmpty() ? createMaterial(random)
+                                                       : materials.get(random.nextInt(materials.size()));
+            node = new GVRSceneObject(mContext, mesh, material);
+        } else {
+            node = new GVRSceneObject(mContext);
+        }
+        node.setName(getNodeName(index));
+
+        GVRTransform transform = node.getTransform();
+        transform.setPosition(random.nextFloat() * 2.0f - 1.0f, random.nextFloat() * 2.0f - 1.0f,
+                              random.nextFloat() * 2.0f - 1.0f);
+        transform.setRotationByAxis(random.nextFloat() * 360.0f, 0, 1, 0);
+        return node;
+    }
+
+    private GVRMesh createMesh(Random random) {
+        GVRMesh mesh = new GVRMesh(mContext, MESH_DESCRIPTOR);
+        float size = 0.1f + random.nextFloat() * 0.4f;
+        mesh.createQuad(size, size);
+        return mesh;
+    }
+
+    private GVRMaterial createMaterial(Random random) {
+        GVRMaterial material = new GVRMaterial(mContext, GVRMaterial.GVRShaderType.Texture.ID);
+        material.setColor(0.3f + random.nextFloat() * 0.7f, 0.3f + random.nextFloat() * 0.7f,
+                          0.3f + random.nextFloat() * 0.7f);
+        return material;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.US, "seed %d, depth %d, branching %d-%d, %d meshes, %d materials, "
+                             + "%.0f%% renderable", mSeed, mMaxDepth, mMinBranching, mMaxBranching,
+                             mMeshes, mMaterials, mRenderable * 100);
+    }
+}
@@ -0,0 +1,302 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gearvrf.unittestutils;
+
+import org.gearvrf.GVRBehavior;
+import org.gearvrf.GVRContext;
+import org.gearvrf.GVRSceneObject;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Finds scene objects by name, and optionally by component type, without
+ * walking the hierarchy.
+ * <p>
+ * Attach the index to the root of the hierarchy to index, e.g. the root of the
+ * scene or of a loaded model. It indexes the hierarchy when it is attached and
+ * drops it when it is detached. Changes made through
+ * {@link #addChildObject(GVRSceneObject, GVRSceneObject)} and
+ * {@link #removeChildObject(GVRSceneObject)} update it incrementally, and
+ * {@link #update(GVRSceneObject)} picks up a renamed object or changed
+ * components.
+ * <pre>
+ *     GVRSceneIndex index = new GVRSceneIndex(ctx, GVRRenderData.getComponentType());
+ *     scene.getRoot().attachComponent(index);
+ *     GVRSceneObject wheel = index.getSceneObjectByName("wheel_front");
+ * </pre>
+ * Objects removed or renamed behind the back of the index are dropped when a
+ * lookup finds them, so lookups never return an object which is no longer
+ * below the owner or no longer has the name. Objects added behind its back are
+ * missing until {@link #update(GVRSceneObject)} is called for them.
+ * Objects with the same name are returned in the order they were indexed. For
+ * a hierarchy indexed at once that is the depth first order in which
+ * {@link GVRSceneObject#getSceneObjectByName(String)} visits them.
+ */
+public class GVRSceneIndex extends GVRBehavior {
+    private static long TYPE_SCENE_INDEX = newComponentType(GVRSceneIndex.class);
+
+    private final long[] mComponentTypes;
+    private final Map<String, Set<GVRSceneObject>> mNames = new HashMap<String, Set<GVRSceneObject>>();
+    private final Map<Long, Set<GVRSceneObject>> mComponents = new HashMap<Long, Set<GVRSceneObject>>();
+    // the name each object was indexed under, to remove it after a rename
+    private final Map<GVRSceneObject, String> mIndexedNames = new HashMap<GVRSceneObject, String>();
+
+    /**
+     * @param context        the context of the scene.
+     * @param componentTypes types of the components to index the objects by,
+     *                       e.g. GVRRenderData.getComponentType().
+     */
+    public GVRSceneIndex(GVRContext context, long... componentTypes) {
+        super(context);
+        mComponentTypes = componentTypes.clone();
+        for (long type : mComponentTypes) {
+            mComponents.put(type, new LinkedHashSet<GVRSceneObject>());
+        }
+    }
+
+    public static long getComponentType() {
+        return TYPE_SCENE_INDEX;
+    }
+
+    @Override
+    public void onAttach(GVRSceneObject newOwner) {
+        super.onAttach(newOwner);
+        synchronized (this) {
+            clearIndex();
+            indexHierarchy(newOwner);
+        }
+    }
+
+    @Override
+    public void onDetach(GVRSceneObject oldOwner) {
+        super.onDetach(oldOwner);
+        synchronized (this) {
+            clearIndex();
+        }
+    }
+
+    /**
+     * Returns the number of objects in the index.
+     */
+    public synchronized int size() {
+        return mIndexedNames.size();
+    }
+
+    /**
+     * Returns the first object with the given name, null if there is none.
+     */
+    public synchronized GVRSceneObject getSceneObjectByName(String name) {
+        Set<GVRSceneObject> objects = mNames.get(name);
+        if ((name == null) || (objects == null)) {
+            return null;
+        }
+        for (Iterator<GVRSceneObject> it = objects.iterator(); it.hasNext(); ) {
+            GVRSceneObject object = it.next();
+            if (isValid(object, name)) {
+                return object;
+            }
+            it.remove();
+            mIndexedNames.remove(object);
+        }
+        return null;
+    }
+
+    /**
+     * Returns all objects with the given name, an empty list if there are none.
+     */
+    public synchronized List<GVRSceneObject> getSceneObjectsByName(String name) {
+        List<GVRSceneObject> found = new ArrayList<GVRSceneObject>();
+        Set<GVRSceneObject> objects = mNames.get(name);
+        if ((name == null) || (objects == null)) {
+            return found;
+        }
+        for (Iterator<GVRSceneObject> it = objects.iterator(); it.hasNext(); ) {
+            GVRSceneObject object = it.next();
+            if (isValid(object, name)) {
+                found.add(object);
+            } else {
+                it.remove();
+                mIndexedNames.remove(object);
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Returns all objects with a component of the given type.
+     * @param type one of the component types passed to the constructor.
+     * @throws IllegalArgumentException if the objects are not indexed by the type.
+     */
+    public synchronized List<GVRSceneObject> getSceneObjectsWith(long type) {
+        Set<GVRSceneObject> objects = mComponents.get(type);
+        if (objects == null) {
+            throw new IllegalArgumentException("component type " + type + " is not indexed");
+        }
+        List<GVRSceneObject> found = new ArrayList<GVRSceneObject>();
+        for (Iterator<GVRSceneObject> it = objects.iterator(); it.hasNext(); ) {
+            GVRSceneObject object = it.next();
+            if (isBelowOwner(object) && (object.getComponent(type) != null)) {
+                found.add(object);
+            } else {
+                it.remove();
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Adds a child to an object below the owner of the index and indexes the
+     * child and its descendants.
+     * @return false if the child could not be added.
+     */
+    public boolean addChildObject(GVRSceneObject parent, GVRSceneObject child) {
+        if (!parent.addChildObject(child)) {
+            return false;
+        }
+        synchronized (this) {
+            if (isBelowOwner(parent)) {
+                indexHierarchy(child);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Removes an object below the owner of the index from its parent and drops
+     * it and its descendants from the index.
+     * @return false if the object has no parent.
+     */
+    public boolean removeChildObject(GVRSceneObject child) {
+        GVRSceneObject parent = child.getParent();
+        if (parent == null) {
+            return false;
+        }
+        synchronized (this) {
+            unindexHierarchy(child);
+        }
+        parent.removeChildObject(child);
+        return true;
+    }
+
+    /**
+     * Indexes an object again after it was renamed, its components changed or
+     * it was added to the hierarchy without {@link #addChildObject(GVRSceneObject, GVRSceneObject)}.
+     * Does not look at its descendants.
+     */
+    public synchronized void update(GVRSceneObject object) {
+        unindex(object);
+        if (isBelowOwner(object)) {
+            index(object);
+        }
+    }
+
+    private void clearIndex() {
+        mNames.clear();
+        mIndexedNames.clear();
+        for (Set<GVRSceneObject> objects : mComponents.values()) {
+            objects.clear();
+        }
+    }
+
+    /*
+     * Visits the hierarchy depth first without recursion, deep hierarchies
+     * would overflow the stack of the calling thread.
+     */
+    private void indexHierarchy(GVRSceneObject root) {
+        Deque<GVRSceneObject> stack = new ArrayDeque<GVRSceneObject>();
+        stack.push(root);
+        while (!stack.isEmpty()) {
+            GVRSceneObject object = stack.pop();
+            index(object);
+            // pushed last to first so the first child is indexed first
+            for (int i = object.getChildrenCount() - 1; i >= 0; --i) {
+                stack.push(object.getChildByIndex(i));
+            }
+        }
+    }
+
+    private void unindexHierarchy(GVRSceneObject root) {
+        Deque<GVRSceneObject> stack = new ArrayDeque<GVRSceneObject>();
+        stack.push(root);
+        while (!stack.isEmpty()) {
+            GVRSceneObject object = stack.pop();
+            unindex(object);
+            for (int i = object.getChildrenCount() - 1; i >= 0; --i) {
+                stack.push(object.getChildByIndex(i));
+            }
+        }
+    }
+
+    private void index(GVRSceneObject object) {
+        String name = object.getName();
+        if (name == null) {
+            name = "";
+        }
+        Set<GVRSceneObject> objects = mNames.get(name);
+        if (objects == null) {
+            objects = new LinkedHashSet<GVRSceneObject>();
+            mNames.put(name, objects);
+        }
+        objects.add(object);
+        mIndexedNames.put(object, name);
+        for (long type : mComponentTypes) {
+            if (object.getComponent(type) != null) {
+                mComponents.get(type).add(object);
+            }
+        }
+    }
+
+    private void unindex(GVRSceneObject object) {
+        String name = mIndexedNames.remove(object);
+        if (name != null) {
+            Set<GVRSceneObject> objects = mNames.get(name);
+            objects.remove(object);
+            if (objects.isEmpty()) {
+                mNames.remove(name);
+            }
+        }
+        for (Set<GVRSceneObject> objects : mComponents.values()) {
+            objects.remove(object);
+        }
+    }
+
+    private boolean isValid(GVRSceneObject object, String name) {
+        String current = object.getName();
+        return name.equals((current != null) ? current : "") && isBelowOwner(object);
+    }
+
+    private boolean isBelowOwner(GVRSceneObject object) {
+        GVRSceneObject owner = getOwnerObject();
+        if (owner == null) {
+            return false;
+        }
+        for (GVRSceneObject o = object; o != null; o = o.getParent()) {
+            if (o == owner) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -22,6 +22,11 @@ import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+
 /*
 
 scene:
@@ -97,7 +102,7 @@ renderconfig:
  * Parse a JSON object to build the equivalent GVRScene.
  */
 public class GVRSceneMaker {
-    private static class RGBAColor {
+    static class RGBAColor {
         public final float r;
         public final float g;
         public final float b;
@@ -147,7 +152,7 @@ public class GVRSceneMaker {
       r: 1, g: 1, b: 1, a: 0
      }
      */
-    private static RGBAColor getColorCoordinates(JSONObject jsonObject) throws
+    static RGBAColor getColorCoordinates(JSONObject jsonObject) throws
             JSONException {
 
         float cordR = (float) jsonObject.optDouble("r", 0.0f);
@@ -167,7 +172,7 @@ public class GVRSceneMaker {
       resourceid: [0-9]+
      }
      */
-    private static GVRTexture createTexture(GVRContext gvrContext, JSONObject jsonTexture) throws JSONException {
+    static GVRTexture createTexture(GVRContext gvrContext, JSONObject jsonTexture) throws JSONException {
         GVRTexture texture = null;
 
         String type = jsonTexture.optString("type");
@@ -188,9 +193,9 @@ public class GVRSceneMaker {
       textures:[...]
      }
      */
-    private static GVRMaterial createMaterial(GVRContext gvrContext,
-                                              ArrayMap<String, GVRTexture> textures,
-                                              JSONObject jsonObject) throws JSONException {
+    static GVRMaterial createMaterial(GVRContext gvrContext,
+                                      ArrayMap<String, GVRTexture> textures,
+                                      JSONObject jsonObject) throws JSONException {
         GVRMaterial material;
         String shader_type = jsonObject.optString("shader", "texture");
 
@@ -416,7 +421,7 @@ public class GVRSceneMaker {
       outerconeangle: [0.0-9.0]+
      }
      */
-    private static GVRSceneObject createLight(GVRContext gvrContext, JSONObject jsonLight) throws
+    static GVRSceneObject createLight(GVRContext gvrContext, JSONObject jsonLight) throws
             JSONException {
 
         GVRSceneObject light = null;
@@ -448,35 +453,57 @@ public class GVRSceneMaker {
      */
     private static GVRMesh createPolygonMesh(GVRContext gvrContext, JSONObject jsonObject)
             throws JSONException {
+        float[][] texCoords = null;
+
+        JSONArray jsonCorrds = jsonObject.optJSONArray("texcoords");
+        if (jsonCorrds != null) {
+            texCoords = new float[jsonCorrds.length()][];
+            for (int i = 0; i < jsonCorrds.length(); i++) {
+                texCoords[i] = jsonToFloatArray(jsonCorrds.optJSONArray(i));
+            }
+        }
+
+        return createPolygonMesh(gvrContext,
+                jsonObject.has("vertices") ? jsonToFloatArray(jsonObject.optJSONArray("vertices")) : null,
+                jsonObject.has("normals") ? jsonToFloatArray(jsonObject.optJSONArray("normals")) : null,
+                texCoords,
+                jsonObject.has("triangles") ? jsonToIntArray(jsonObject.optJSONArray("triangles")) : null);
+    }
+
+    /*
+     * Builds a polygon mesh from arrays which are null when they are not in the
+     * scene description.
+     */
+    static GVRMesh createPolygonMesh(GVRContext gvrContext, float[] vertices, float[] normals,
+                                     float[][] texCoords, int[] triangles) {
         String descriptor = "float3 a_position";
 
-        if (jsonObject.has( "texcoords")) {
+        if (texCoords != null) {
             descriptor += " float2 a_texcoord";
         }
 
-        if (jsonObject.has("normals")) {
+        if (normals != null) {
             descriptor += " float3 a_normal";
         }
 
         GVRMesh mesh = new GVRMesh(gvrContext, descriptor);
 
-        if (jsonObject.has("vertices")) {
-            mesh.setVertices(jsonToFloatArray(jsonObject.optJSONArray("vertices")));
+        if (vertices != null) {
+            mesh.setVertices(vertices);
         }
 
-        if (jsonObject.has("normals")) {
-            mesh.setNormals(jsonToFloatArray(jsonObject.optJSONArray("normals")));
+        if (normals != null) {
+            mesh.setNormals(normals);
         }
 
-        if (jsonObject.has("triangles")) {
-            mesh.setIndices(jsonToIntArray(jsonObject.optJSONArray("triangles")));
+        if (triangles != null) {
+            mesh.setIndices(triangles);
         }
 
-        if (jsonObject.has("texcoords")) {
-            JSONArray jsonCorrds = jsonObject.optJSONArray("texcoords");
-            if (jsonCorrds != null) {
-                for (int i = 0; i < jsonCorrds.length(); i++) {
-                    mesh.setTexCoords(jsonToFloatArray(jsonCorrds.optJSONArray(i)), i);
+        if (texCoords != null) {
+            for (int i = 0; i < texCoords.length; i++) {
+                if (texCoords[i] != null) {
+                    mesh.setTexCoords(texCoords[i], i);
                 }
             }
         }
@@ -484,7 +511,7 @@ public class GVRSceneMaker {
         return mesh;
     }
 
-    private static GVRSceneObject createQuad(GVRContext gvrContext, JSONObject jsonObject)
+    static GVRSceneObject createQuad(GVRContext gvrContext, JSONObject jsonObject)
             throws JSONException {
         float width = 1.0f;
         float height = 1.0f;
@@ -549,7 +576,7 @@ public class GVRSceneMaker {
       bone_indices:  [[0-9]+, ...]
      }
      */
-    private static GVRSceneObject createGeometry(GVRContext gvrContext, JSONObject jsonObject)
+    static GVRSceneObject createGeometry(GVRContext gvrContext, JSONObject jsonObject)
             throws JSONException {
         GVRSceneObject sceneObject = null;
 
@@ -590,6 +617,17 @@ public class GVRSceneMaker {
         GVRSceneObject child = (jsonGeometry != null) ? createGeometry(gvrContext, jsonGeometry) :
                 createQuad(gvrContext, null);
 
+        setupChildObject(gvrContext, textures, materials, child, jsonObject);
+        return child;
+    }
+
+    /*
+     * Applies everything but the geometry of an object description to the scene
+     * object made from its geometry.
+     */
+    static void setupChildObject(GVRContext gvrContext, ArrayMap<String, GVRTexture> textures,
+                                 ArrayMap<String, GVRMaterial> materials, GVRSceneObject child,
+                                 JSONObject jsonObject) throws JSONException {
         String objectName = jsonObject.optString("name");
         if (!objectName.isEmpty()){
             child.setName(objectName);
@@ -611,8 +649,6 @@ public class GVRSceneMaker {
         if (jsonRenderConf != null) {
             setRenderConfig(child.getRenderData(), jsonRenderConf);
         }
-
-        return child;
     }
 
     private static void addChildrenObjects(GVRContext gvrContext, GVRSceneObject root,
@@ -667,7 +703,7 @@ public class GVRSceneMaker {
         ArrayMap<String, GVRTexture> textures = new ArrayMap<>();
         ArrayMap<String, GVRMaterial> materials = new ArrayMap<>();
 
-        Log.d("SceneMaker", jsonScene.toString());
+        Log.d("SceneMaker", "make scene %s", jsonScene.optString("id"));
 
         if (jsonShareables != null) {
             createShareables(gvrContext, textures, materials, jsonShareables);
@@ -696,12 +732,49 @@ public class GVRSceneMaker {
 
     public static void makeScene(GVRContext gvrContext, GVRScene scene,
                                  String jsonScene) throws JSONException {
-        makeScene(gvrContext, scene, new JSONObject(jsonScene), null);
+        makeScene(gvrContext, scene, jsonScene, null);
     }
 
+    /*
+     * Scene descriptions given as text are streamed, see makeScene(GVRContext, GVRScene,
+     * Reader, Reader).
+     */
     public static void makeScene(GVRContext gvrContext, GVRScene scene,
                                  String jsonScene, String jsonShareables) throws JSONException {
-        makeScene(gvrContext, scene, new JSONObject(jsonScene), new JSONObject(jsonShareables));
+        try {
+            makeScene(gvrContext, scene, new StringReader(jsonScene),
+                    (jsonShareables != null) ? new StringReader(jsonShareables) : null);
+        } catch (IOException e) {
+            throw new JSONException(e.getMessage());
+        } catch (IllegalStateException | NumberFormatException e) {
+            // JsonReader reports unexpected tokens with IllegalStateException
+            throw new JSONException(e.getMessage());
+        }
+    }
+
+    /**
+     * Streams a scene description with the schema above and adds its lights and
+     * objects to the scene. Only one object description is parsed at
+     * a time and the geometry arrays are read straight into primitive arrays, so this
+     * is the way to load large scenes. Shared textures and materials may come in any
+     * order, before or after the objects using them. The reader is not closed.
+     * @param jsonScene      scene description.
+     * @param jsonShareables optional description of shared textures and materials.
+     */
+    public static void makeScene(GVRContext gvrContext, GVRScene scene, Reader jsonScene,
+                                 Reader jsonShareables) throws IOException, JSONException {
+        new GVRSceneStreamReader(gvrContext, scene).read(jsonScene, jsonShareables);
+    }
+
+    /**
+     * Makes a scene from a description converted to the binary format of
+     * {@link org.gearvrf.sceneformat.GVRSceneBinary} (see gvr-sceneformat). The file
+     * is memory mapped and its geometry arrays are used without parsing any text.
+     * @param binaryScene scene description written by GVRSceneConverter json2bin.
+     */
+    public static void makeScene(GVRContext gvrContext, GVRScene scene,
+                                 File binaryScene) throws IOException, JSONException {
+        new GVRSceneBinaryReader(gvrContext, scene).read(binaryScene);
     }
 
     /*
@@ -0,0 +1,291 @@
+/*
+ * Copyright (c) 2016. Samsung Electronics Co., LTD
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf.unittestutils;
+
+import android.util.ArrayMap;
+import android.util.JsonReader;
+import android.util.JsonToken;
+
+import org.gearvrf.GVRContext;
+import org.gearvrf.GVRMaterial;
+import org.gearvrf.GVRScene;
+import org.gearvrf.GVRSceneObject;
+import org.gearvrf.GVRTexture;
+import org.gearvrf.utility.Log;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Reads a {@link GVRSceneMaker} scene description token by token with a
+ * {@link JsonReader} and creates the lights and objects as soon as each one has been
+ * read.
+ * <p>
+ * Shared textures and materials may come anywhere in either document, as with
+ * {@link GVRSceneMaker#makeScene(GVRContext, GVRScene, JSONObject, JSONObject)}: the
+ * shared materials and the material, transform and name of every object are only
+ * applied once both documents have been read. Until then an object keeps its
+ * geometry and the small {@link JSONObject} of its other keys.
+ * <p>
+ * The small parts of a description (materials, transforms, lights) are read into
+ * {@link JSONObject}s and handed to the {@link GVRSceneMaker} helpers. The vertices,
+ * normals, texture coordinates and triangles of polygon geometry are read straight
+ * into primitive arrays through a reused scratch buffer, so no value is boxed and no
+ * document tree is built.
+ */
+final class GVRSceneStreamReader {
+    private static final String TAG = "SceneMaker";
+
+    private final GVRContext mContext;
+    private final GVRScene mScene;
+    private final ArrayMap<String, GVRTexture> mTextures = new ArrayMap<>();
+    private final ArrayMap<String, GVRMaterial> mMaterials = new ArrayMap<>();
+    private final List<JSONObject> mSharedMaterials = new ArrayList<>();
+    private final List<GVRSceneObject> mObjects = new ArrayList<>();
+    private final List<JSONObject> mObjectKeys = new ArrayList<>();
+    private float[] mFloats = new float[1024];
+    private int[] mInts = new int[1024];
+
+    GVRSceneStreamReader(GVRContext gvrContext, GVRScene scene) {
+        mContext = gvrContext;
+        mScene = scene;
+    }
+
+    void read(Reader jsonScene, Reader jsonShareables) throws IOException, JSONException {
+        if (jsonShareables != null) {
+            readDocument(jsonShareables);
+        }
+        readDocument(jsonScene);
+
+        // every shared id is known now
+        for (JSONObject jsonMaterial : mSharedMaterials) {
+            mMaterials.put(jsonMaterial.optString("id"),
+                    GVRSceneMaker.createMaterial(mContext, mTextures, jsonMaterial));
+        }
+        for (int i = 0; i < mObjects.size(); i++) {
+            GVRSceneObject child = mObjects.get(i);
+            GVRSceneMaker.setupChildObject(mContext, mTextures, mMaterials, child,
+                    mObjectKeys.get(i));
+            mScene.getRoot().addChildObject(child);
+        }
+        mObjects.clear();
+        mObjectKeys.clear();
+        mSharedMaterials.clear();
+    }
+
+    private void readDocument(Reader in) throws IOException, JSONException {
+        JsonReader reader = new JsonReader(in);
+        // the scene descriptions in the tests do not quote names
+        reader.setLenient(true);
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+
+            if (name.equals("id")) {
+                Log.d(TAG, "make scene %s", reader.nextString());
+            } else if (name.equals("bgcolor")) {
+                GVRSceneMaker.RGBAColor color = GVRSceneMaker.getColorCoordinates(readObject(reader));
+                mScene.setBackgroundColor(color.r, color.g, color.b, color.a);
+            } else if (name.equals("textures")) {
+                reader.beginArray();
+                while (reader.hasNext()) {
+                    JSONObject jsonTexture = readObject(reader);
+                    String id = jsonTexture.optString("id");
+                    if (!id.isEmpty()) {
+                        mTextures.put(id, GVRSceneMaker.createTexture(mContext, jsonTexture));
+                    }
+                }
+                reader.endArray();
+            } else if (name.equals("materials")) {
+                reader.beginArray();
+                while (reader.hasNext()) {
+                    JSONObject jsonMaterial = readObject(reader);
+                    String id = jsonMaterial.optString("id");
+                    if (!id.isEmpty()) {
+                        mSharedMaterials.add(jsonMaterial);
+                    }
+                }
+                reader.endArray();
+            } else if (name.equals("lights")) {
+                reader.beginArray();
+                while (reader.hasNext()) {
+                    GVRSceneObject light = GVRSceneMaker.createLight(mContext, readObject(reader));
+                    if (light != null) {
+                        mScene.getRoot().addChildObject(light);
+                    }
+                }
+                reader.endArray();
+            } else if (name.equals("objects")) {
+                reader.beginArray();
+                while (reader.hasNext()) {
+                    readSceneObject(reader);
+                }
+                reader.endArray();
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+    }
+
+    /*
+     * Reads one object description; everything but the geometry is collected and
+     * applied by read() because the keys, and the shared materials, may come in any
+     * order.
+     */
+    private void readSceneObject(JsonReader reader) throws IOException, JSONException {
+        JSONObject jsonObject = new JSONObject();
+        GVRSceneObject child = null;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+
+            if (name.equals("geometry")) {
+                child = readGeometry(reader);
+            } else {
+                jsonObject.put(name, readValue(reader));
+            }
+        }
+        reader.endObject();
+
+        if (child == null) {
+            child = GVRSceneMaker.createQuad(mContext, null);
+        }
+        mObjects.add(child);
+        mObjectKeys.add(jsonObject);
+    }
+
+    private GVRSceneObject readGeometry(JsonReader reader) throws IOException, JSONException {
+        JSONObject jsonGeometry = new JSONObject();
+        float[] vertices = null;
+        float[] normals = null;
+        float[][] texCoords = null;
+        int[] triangles = null;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+
+            if (name.equals("vertices")) {
+                vertices = readFloats(reader);
+            } else if (name.equals("normals")) {
+                normals = readFloats(reader);
+            } else if (name.equals("triangles")) {
+                triangles = readInts(reader);
+            } else if (name.equals("texcoords")) {
+                List<float[]> sets = new ArrayList<>();
+                reader.beginArray();
+                while (reader.hasNext()) {
+                    sets.add(readFloats(reader));
+                }
+                reader.endArray();
+                texCoords = sets.toArray(new float[sets.size()][]);
+            } else if (name.equals("bone_weights") || name.equals("bone_indices")) {
+                // part of the schema but not used by GVRSceneMaker either
+                reader.skipValue();
+            } else {
+                jsonGeometry.put(name, readValue(reader));
+            }
+        }
+        reader.endObject();
+
+        if (jsonGeometry.optString("type").equals("polygon")) {
+            return new GVRSceneObject(mContext, GVRSceneMaker.createPolygonMesh(mContext,
+                    vertices, normals, texCoords, triangles));
+        }
+        return GVRSceneMaker.createGeometry(mContext, jsonGeometry);
+    }
+
+    private float[] readFloats(JsonReader reader) throws IOException {
+        int n = 0;
+
+        reader.beginArray();
+        while (reader.hasNext()) {
+            if (n == mFloats.length) {
+                mFloats = Arrays.copyOf(mFloats, n * 2);
+            }
+            mFloats[n++] = (float) reader.nextDouble();
+        }
+        reader.endArray();
+        return Arrays.copyOf(mFloats, n);
+    }
+
+    private int[] readInts(JsonReader reader) throws IOException {
+        int n = 0;
+
+        reader.beginArray();
+        while (reader.hasNext()) {
+            if (n == mInts.length) {
+                mInts = Arrays.copyOf(mInts, n * 2);
+            }
+            mInts[n++] = reader.nextInt();
+        }
+        reader.endArray();
+        return Arrays.copyOf(mInts, n);
+    }
+
+    private static JSONObject readObject(JsonReader reader) throws IOException, JSONException {
+        JSONObject jsonObject = new JSONObject();
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            jsonObject.put(name, readValue(reader));
+        }
+        reader.endObject();
+        return jsonObject;
+    }
+
+    private static Object readValue(JsonReader reader) throws IOException, JSONException {
+        JsonToken token = reader.peek();
+
+        switch (token) {
+            case BEGIN_OBJECT:
+                return readObject(reader);
+            case BEGIN_ARRAY:
+                JSONArray jsonArray = new JSONArray();
+                reader.beginArray();
+                while (reader.hasNext()) {
+                    jsonArray.put(readValue(reader));
+                }
+                reader.endArray();
+                return jsonArray;
+            case BOOLEAN:
+                return reader.nextBoolean();
+            case NULL:
+                reader.nextNull();
+                return JSONObject.NULL;
+            case NUMBER:
+                String number = reader.nextString();
+                try {
+                    return Integer.parseInt(number);
+                } catch (NumberFormatException e) {
+                    return Double.parseDouble(number);
+                }
+            default:
+                // unquoted values such as "1.0f" stay strings, JSONObject converts them
+                return reader.nextString();
+        }
+    }
+}
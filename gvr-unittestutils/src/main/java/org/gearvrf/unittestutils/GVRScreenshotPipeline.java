@@ -0,0 +1,276 @@
+/*
+ * Copyright (c) 2016. Samsung Electronics Co., LTD
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf.unittestutils;
+
+import android.graphics.Bitmap;
+import android.os.Environment;
+
+import net.jodah.concurrentunit.Waiter;
+
+import org.gearvrf.imagediff.GVRCompareResult;
+import org.gearvrf.imagediff.GVRImageComparators;
+import org.gearvrf.imagediff.GVRImageDiff;
+import org.gearvrf.imagediff.GVRPixelImage;
+import org.gearvrf.utility.Log;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Processes captured screenshots in stages so the capture callback and the test
+ * thread do not wait for the PNG encoding.
+ * <p>
+ * {@link #submit} copies the capture into a pooled pixel buffer and hands it to two
+ * stages running on their own threads: one encodes and writes the PNG to
+ * /sdcard/GearVRFTests/$category$/$testname$.png, the other compares it with the
+ * golden master and resumes the {@link Waiter} with the verdict. Diff images are
+ * written by the write stage as well. The queues between the stages are bounded and
+ * capture blocks while all pixel buffers are in use, so a slow sdcard cannot make
+ * the pipeline grow without limit. Use {@link #drain(long)} to wait until all
+ * screenshots are on disk.
+ */
+final class GVRScreenshotPipeline {
+    private static final String TAG = GVRScreenshotPipeline.class.getSimpleName();
+    private static final int POOL_SIZE = 4;
+    private static final int QUEUE_CAPACITY = 2;
+
+    private final BlockingQueue<int[]> mPool = new ArrayBlockingQueue<int[]>(POOL_SIZE);
+    private final BlockingQueue<Frame> mWriteQueue = new ArrayBlockingQueue<Frame>(QUEUE_CAPACITY);
+    private final BlockingQueue<Frame> mCompareQueue = new ArrayBlockingQueue<Frame>(QUEUE_CAPACITY);
+    private final Object mDrainLock = new Object();
+    private int mPendingWrites = 0;
+    private Bitmap mWriteBitmap;
+
+    GVRScreenshotPipeline() {
+        for (int i = 0; i < POOL_SIZE; ++i) {
+            mPool.add(new int[0]);
+        }
+        startStage("GVRScreenshotWriter", mWriteQueue, new Stage() {
+            @Override
+            public void process(Frame frame) {
+                write(frame);
+            }
+        });
+        startStage("GVRScreenshotCompare", mCompareQueue, new Stage() {
+            @Override
+            public void process(Frame frame) {
+                compare(frame);
+            }
+        });
+    }
+
+    /**
+     * Hands a captured screenshot to the pipeline. The bitmap is recycled before
+     * returning. If {@code compare} is false the waiter is resumed right away,
+     * otherwise it is resumed once the comparison is done.
+     * @param bitmap   captured screenshot.
+     * @param category directory to store the screenshot in.
+     * @param testname the name of the test method.
+     * @param waiter   instance of the {@link Waiter} class.
+     * @param compare  flag used to turn on/off comparison of screenshots.
+     */
+    void submit(Bitmap bitmap, String category, String testname, Waiter waiter, boolean compare)
+            throws InterruptedException {
+        final int width = bitmap.getWidth();
+        final int height = bitmap.getHeight();
+        final int[] pixels = acquire(width * height);
+
+        bitmap.getPixels(pixels, 0, width, 0, 0, width, height);
+        bitmap.recycle();
+
+        Frame frame = new Frame(category, testname, testname + ".png", waiter, pixels, width,
+                                height, compare ? 2 : 1);
+        enqueueWrite(frame);
+        if (compare) {
+            mCompareQueue.put(frame);
+        } else {
+            waiter.resume();
+        }
+    }
+
+    /**
+     * Waits until all submitted screenshots and diff images are written.
+     * @param timeout maximum time to wait in milliseconds.
+     * @return true if everything was written, false on timeout.
+     */
+    boolean drain(long timeout) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + timeout;
+
+        synchronized (mDrainLock) {
+            while (mPendingWrites > 0) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    return false;
+                }
+                mDrainLock.wait(remaining);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Takes a buffer from the pool, waiting for one to be released if all are in use.
+     */
+    private int[] acquire(int size) throws InterruptedException {
+        int[] pixels = mPool.take();
+        return (pixels.length < size) ? new int[size] : pixels;
+    }
+
+    private void release(Frame frame) {
+        if (frame.refs.decrementAndGet() == 0) {
+            // buffers allocated beyond the pool size are dropped here
+            mPool.offer(frame.pixels);
+        }
+    }
+
+    private void enqueueWrite(Frame frame) throws InterruptedException {
+        synchronized (mDrainLock) {
+            ++mPendingWrites;
+        }
+        mWriteQueue.put(frame);
+    }
+
+    private void write(Frame frame) {
+        try {
+            File dir = new File(Environment.getExternalStorageDirectory().getAbsolutePath()
+                                + "/GearVRFTests/" + frame.category + "/");
+            dir.mkdirs();
+
+            // only the write stage uses this bitmap, keep it while the size does not change
+            if ((mWriteBitmap == null) || (mWriteBitmap.getWidth() != frame.width)
+                    || (mWriteBitmap.getHeight() != frame.height)) {
+                if (mWriteBitmap != null) {
+                    mWriteBitmap.recycle();
+                }
+                mWriteBitmap = Bitmap.createBitmap(frame.width, frame.height,
+                                                   Bitmap.Config.ARGB_8888);
+            }
+            mWriteBitmap.setPixels(frame.pixels, 0, frame.width, 0, 0, frame.width,
+                                   frame.height);
+
+            OutputStream out = new BufferedOutputStream(
+                    new FileOutputStream(new File(dir, frame.filename)));
+            try {
+                mWriteBitmap.compress(Bitmap.CompressFormat.PNG, 100, out);
+            } finally {
+                out.close();
+            }
+            Log.d(frame.category, "Saved screenshot of %s", frame.filename);
+        } catch (Exception ex) {
+            Log.e(frame.category, "Could not save screenshot of %s", frame.filename);
+            frame.waiter.fail(ex);
+        } finally {
+            release(frame);
+            synchronized (mDrainLock) {
+                --mPendingWrites;
+                mDrainLock.notifyAll();
+            }
+        }
+    }
+
+    private void compare(Frame frame) {
+        final Waiter waiter = frame.waiter;
+
+        try {
+            GVRPixelImage golden = GVRTestUtils.loadGoldenMaster(frame.category, frame.testname);
+            final int width = golden.getWidth();
+            final int height = golden.getHeight();
+            final int size = width * height;
+
+            waiter.assertEquals(width, frame.width);
+            waiter.assertEquals(height, frame.height);
+
+            final GVRImageDiff buffers = GVRImageComparators.getSharedEngine();
+            final int[] goldenPixels = buffers.getGoldenBuffer(size);
+            // the cached master is shared, compare a copy
+            System.arraycopy(golden.getPixels(), 0, goldenPixels, 0, size);
+
+            GVRCompareResult result = GVRImageComparators.forCategory(frame.category)
+                    .compare(goldenPixels, frame.pixels, width, height);
+            Log.e(frame.category, "RESULT: %s %s %s = %f", frame.category, frame.testname,
+                  result.getMetric(), result.getScore());
+
+            if (result.needsDiffImage()) {
+                // never wait for the pool here, the frames holding it may wait for this stage
+                int[] diff = mPool.poll();
+                if ((diff == null) || (diff.length < size)) {
+                    diff = new int[size];
+                }
+                System.arraycopy(goldenPixels, 0, diff, 0, size);
+                enqueueWrite(new Frame(frame.category, frame.testname,
+                                       "diff_" + frame.filename, waiter, diff, width, height, 1));
+            }
+            waiter.assertTrue(result.passed());
+        } catch (Throwable t) {
+            Log.d(frame.category, "Exception while comparing screenshot for %s", frame.testname);
+            waiter.fail(t);
+        } finally {
+            release(frame);
+            waiter.resume();
+        }
+    }
+
+    private interface Stage {
+        void process(Frame frame);
+    }
+
+    private static void startStage(String name, final BlockingQueue<Frame> queue,
+                                   final Stage stage) {
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                while (true) {
+                    try {
+                        stage.process(queue.take());
+                    } catch (InterruptedException e) {
+                        Log.e(TAG, "", e);
+                        return;
+                    }
+                }
+            }
+        }, name);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private static final class Frame {
+        final String category;
+        final String testname;
+        final String filename;
+        final Waiter waiter;
+        final int[] pixels;
+        final int width;
+        final int height;
+        final AtomicInteger refs;
+
+        Frame(String category, String testname, String filename, Waiter waiter, int[] pixels,
+              int width, int height, int refs) {
+            this.category = category;
+            this.testname = testname;
+            this.filename = filename;
+            this.waiter = waiter;
+            this.pixels = pixels;
+            this.width = width;
+            this.height = height;
+            this.refs = new AtomicInteger(refs);
+        }
+    }
+}
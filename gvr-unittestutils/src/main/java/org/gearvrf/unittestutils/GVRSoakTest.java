@@ -0,0 +1,323 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf.unittestutils;
+
+import android.os.Build;
+import android.os.Debug;
+
+import org.gearvrf.utility.Log;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Runs a scenario many times and checks that memory does not grow with the
+ * number of iterations.
+ * <p>
+ * Every few iterations the harness collects garbage, runs the finalizers, lets
+ * a few frames render so GearVRf can release the native objects of the
+ * collected Java objects, and then samples the Java heap, the native heap and,
+ * on Android M and later, the graphics memory of the process. After the run
+ * it fits a least squares line to each kind of memory over the iterations
+ * after the warmup. A slope above the budget of that kind of memory means
+ * every iteration leaks, even when each leak is too small to crash the run.
+ * <pre>
+ *     GVRSoakTest.Result result = new GVRSoakTest(testUtils, "renderPass")
+ *             .setIterations(2000)
+ *             .setNativeHeapBudget(1024)
+ *             .run(scenario);
+ *     waiter.assertTrue(result.isWithinBudget());
+ * </pre>
+ */
+public final class GVRSoakTest {
+    private static final String TAG = GVRSoakTest.class.getSimpleName();
+
+    public static final int JAVA_HEAP = 0;
+    public static final int NATIVE_HEAP = 1;
+    public static final int GRAPHICS = 2;
+    public static final int MEMORY_KINDS = 3;
+
+    private static final String[] MEMORY_NAMES = { "java_heap", "native_heap", "graphics" };
+    /** frames rendered before sampling so native objects of collected ones are freed */
+    private static final int SETTLE_FRAMES = 2;
+    private static final long UNBOUNDED = Long.MAX_VALUE;
+
+    /**
+     * Work done in every iteration of the soak test.
+     */
+    public interface Scenario {
+        /**
+         * @param iteration number of the iteration, starting at 0.
+         */
+        void iterate(int iteration) throws Exception;
+    }
+
+    private final GVRTestUtils mTestUtils;
+    private final String mName;
+    private int mIterations = 1000;
+    private int mWarmupIterations = 100;
+    private int mSampleInterval = 0;
+    private final double[] mBudgets = { UNBOUNDED, UNBOUNDED, UNBOUNDED };
+
+    /**
+     * @param testUtils utilities of the test, used to wait for frames.
+     * @param name      name of the scenario, used in the log and the result.
+     */
+    public GVRSoakTest(GVRTestUtils testUtils, String name) {
+        mTestUtils = testUtils;
+        mName = name;
+    }
+
+    public static String getMemoryName(int kind) {
+        return MEMORY_NAMES[kind];
+    }
+
+    public GVRSoakTest setIterations(int iterations) {
+        mIterations = iterations;
+        return this;
+    }
+
+    /**
+     * Iterations at the start of the run left out of the fit, while caches and
+     * pools fill up. Defaults to 100.
+     */
+    public GVRSoakTest setWarmupIterations(int iterations) {
+        mWarmupIterations = iterations;
+        return this;
+    }
+
+    /**
+     * Iterations between two memory samples. Sampling collects garbage and waits
+     * for frames, so it is expensive. Defaults to one fiftieth of the iterations.
+     */
+    public GVRSoakTest setSampleInterval(int iterations) {
+        mSampleInterval = iterations;
+        return this;
+    }
+
+    /**
+     * Largest growth of the Java heap allowed, in bytes per iteration.
+     */
+    public GVRSoakTest setJavaHeapBudget(double bytesPerIteration) {
+        mBudgets[JAVA_HEAP] = bytesPerIteration;
+        return this;
+    }
+
+    /**
+     * Largest growth of the native heap allowed, in bytes per iteration.
+     */
+    public GVRSoakTest setNativeHeapBudget(double bytesPerIteration) {
+        mBudgets[NATIVE_HEAP] = bytesPerIteration;
+        return this;
+    }
+
+    /**
+     * Largest growth of the graphics memory allowed, in bytes per iteration.
+     * Not checked where the platform does not report graphics memory.
+     */
+    public GVRSoakTest setGraphicsBudget(double bytesPerIteration) {
+        mBudgets[GRAPHICS] = bytesPerIteration;
+        return this;
+    }
+
+    /**
+     * Runs the scenario on the calling thread, which must not be the render
+     * thread. Exceptions thrown by the scenario end the run and are passed on.
+     */
+    public Result run(Scenario scenario) throws Exception {
+        final int interval = (mSampleInterval > 0) ? mSampleInterval : Math.max(mIterations / 50, 1);
+        final int maxSamples = mIterations / interval + 2;
+        final int[] iterations = new int[maxSamples];
+        final long[][] samples = new long[MEMORY_KINDS][maxSamples];
+        int count = 0;
+
+        for (int i = 0; i < mIterations; ++i) {
+            if (i >= mWarmupIterations && (i - mWarmupIterations) % interval == 0) {
+                sample(samples, count);
+                iterations[count++] = i;
+            }
+            scenario.iterate(i);
+        }
+        sample(samples, count);
+        iterations[count++] = mIterations;
+
+        Result result = new Result(mName, Arrays.copyOf(iterations, count), samples, count, mBudgets);
+        Log.d(TAG, "%s", result.toString());
+        return result;
+    }
+
+    private void sample(long[][] samples, int index) {
+        Runtime runtime = Runtime.getRuntime();
+
+        runtime.gc();
+        System.runFinalization();
+        runtime.gc();
+        mTestUtils.waitForXFrames(SETTLE_FRAMES);
+
+        samples[JAVA_HEAP][index] = runtime.totalMemory() - runtime.freeMemory();
+        samples[NATIVE_HEAP][index] = Debug.getNativeHeapAllocatedSize();
+        samples[GRAPHICS][index] = getGraphicsMemory();
+    }
+
+    /*
+     * Graphics memory of the process in bytes, -1 if the platform does not
+     * report it.
+     */
+    private static long getGraphicsMemory() {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.M) {
+            return -1;
+        }
+        Debug.MemoryInfo info = new Debug.MemoryInfo();
+        Debug.getMemoryInfo(info);
+        String graphics = info.getMemoryStat("summary.graphics");
+        try {
+            return (graphics != null) ? Long.parseLong(graphics) * 1024 : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Memory samples of a soak test and the lines fitted to them.
+     */
+    public static final class Result {
+        private final String mName;
+        private final int[] mIterations;
+        private final long[][] mSamples = new long[MEMORY_KINDS][];
+        private final double[] mSlopes = new double[MEMORY_KINDS];
+        private final double[] mIntercepts = new double[MEMORY_KINDS];
+        private final double[] mBudgets;
+
+        Result(String name, int[] iterations, long[][] samples, int count, double[] budgets) {
+            mName = name;
+            mIterations = iterations;
+            mBudgets = budgets.clone();
+            for (int kind = 0; kind < MEMORY_KINDS; ++kind) {
+                mSamples[kind] = Arrays.copyOf(samples[kind], count);
+                fit(kind);
+            }
+        }
+
+        /*
+         * Least squares line through the samples of one kind of memory.
+         */
+        private void fit(int kind) {
+            final long[] y = mSamples[kind];
+            final int n = y.length;
+            if (n < 2 || !isAvailable(kind)) {
+                return;
+            }
+            double meanX = 0;
+            double meanY = 0;
+            for (int i = 0; i < n; ++i) {
+                meanX += mIterations[i];
+                meanY += y[i];
+            }
+            meanX /= n;
+            meanY /= n;
+
+            double sxy = 0;
+            double sxx = 0;
+            for (int i = 0; i < n; ++i) {
+                final double dx = mIterations[i] - meanX;
+                sxy += dx * (y[i] - meanY);
+                sxx += dx * dx;
+            }
+            mSlopes[kind] = (sxx > 0) ? sxy / sxx : 0;
+            mIntercepts[kind] = meanY - mSlopes[kind] * meanX;
+        }
+
+        public String getName() {
+            return mName;
+        }
+
+        /**
+         * Iterations before which the samples were taken.
+         */
+        public int[] getIterations() {
+            return mIterations.clone();
+        }
+
+        /**
+         * Memory in bytes of one kind at each sampled iteration.
+         * @param kind {@link #JAVA_HEAP}, {@link #NATIVE_HEAP} or {@link #GRAPHICS}.
+         */
+        public long[] getSamples(int kind) {
+            return mSamples[kind].clone();
+        }
+
+        /**
+         * True if the platform reported the memory of this kind.
+         */
+        public boolean isAvailable(int kind) {
+            for (long sample : mSamples[kind]) {
+                if (sample < 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Growth of the memory of one kind in bytes per iteration.
+         */
+        public double getSlope(int kind) {
+            return mSlopes[kind];
+        }
+
+        /**
+         * Memory of one kind the fitted line predicts before the first iteration.
+         */
+        public double getIntercept(int kind) {
+            return mIntercepts[kind];
+        }
+
+        public boolean isWithinBudget(int kind) {
+            return !isAvailable(kind) || mSlopes[kind] <= mBudgets[kind];
+        }
+
+        /**
+         * True if no kind of memory grew faster than its budget.
+         */
+        public boolean isWithinBudget() {
+            for (int kind = 0; kind < MEMORY_KINDS; ++kind) {
+                if (!isWithinBudget(kind)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder s = new StringBuilder(mName).append(":");
+            for (int kind = 0; kind < MEMORY_KINDS; ++kind) {
+                if (!isAvailable(kind)) {
+                    s.append(String.format(Locale.US, " %s n/a;", MEMORY_NAMES[kind]));
+                    continue;
+                }
+                s.append(String.format(Locale.US, " %s %.1f B/iteration", MEMORY_NAMES[kind],
+                                       mSlopes[kind]));
+                if (mBudgets[kind] != UNBOUNDED) {
+                    s.append(String.format(Locale.US, " (budget %.1f%s)", mBudgets[kind],
+                                           isWithinBudget(kind) ? "" : ", EXCEEDED"));
+                }
+                s.append(';');
+            }
+            return s.toString();
+        }
+    }
+}
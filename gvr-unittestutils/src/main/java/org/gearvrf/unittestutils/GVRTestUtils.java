@@ -17,8 +17,6 @@ package org.gearvrf.unittestutils;
 
 import android.graphics.Bitmap;
 import android.graphics.BitmapFactory;
-import android.graphics.Color;
-import android.mtp.MtpConstants;
 import android.os.Build;
 import android.os.Environment;
 
@@ -29,20 +27,23 @@ import org.gearvrf.GVRMain;
 import org.gearvrf.GVRScene;
 import org.gearvrf.GVRSceneObject;
 import org.gearvrf.GVRScreenshotCallback;
+import org.gearvrf.imagediff.GVRGoldenMasterStore;
+import org.gearvrf.imagediff.GVRPixelImage;
+import org.gearvrf.perfresults.GVRPerfRecord;
 import org.gearvrf.utility.Log;
-import org.gearvrf.utility.Threads;
 
 import java.io.BufferedReader;
-import java.io.ByteArrayOutputStream;
 import java.io.File;
-import java.io.FileOutputStream;
+import java.io.FileInputStream;
+import java.io.FileWriter;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.Writer;
 import java.net.URL;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
-import java.util.concurrent.locks.ReentrantLock;
 
 
 /**
@@ -51,25 +52,38 @@ import java.util.concurrent.locks.ReentrantLock;
 public class GVRTestUtils implements GVRMainMonitor {
     private static final String TAG = GVRTestUtils.class.getSimpleName();
     private static final String DEFAULT_DEVICE_TYPE = "S7Edge";
-    public static final String DEVICE_TYPE = GetDeviceType();
     public static final String GITHUB_URL = "https://raw.githubusercontent.com/gearvrf/GearVRf-Tests/master/";
     private static final String GOLDEN_MASTERS_BASE_URL = GITHUB_URL + "golden_masters/";
-    public static final String GOLDEN_MASTERS_URL = GOLDEN_MASTERS_BASE_URL + DEVICE_TYPE;
+
+    /**
+     * Local copy of the golden_masters directory of this repository. When present the
+     * golden masters are read from here instead of being fetched from {@link #GITHUB_URL}.
+     * Copy it with "adb push golden_masters /sdcard/".
+     */
+    public static final String GOLDEN_MASTERS_DIR =
+            Environment.getExternalStorageDirectory().getAbsolutePath() + "/golden_masters";
+    private static final long GOLDEN_MASTERS_CACHE_BYTES = 64L * 1024 * 1024;
+
+    private static final GVRScreenshotPipeline sScreenshotPipeline = new GVRScreenshotPipeline();
+    private static GVRGoldenMasterStore sGoldenMasters;
+    private static String sDeviceType;
 
     protected static final int SCREENSHOT_TEST_TIMEOUT = 80000;
+    private static final float DEFAULT_REFRESH_RATE = 60.0f;
+    private static final String PERF_TABLE_DIR = "/GearVRFTests/performance/";
 
     private GVRContext gvrContext;
     private final CountDownLatch onInitLatch = new CountDownLatch(1);
     private final CountDownLatch onStepLatch = new CountDownLatch(1);
     private final Object onScreenshotLock;
-    private final Object xFramesLock;
-    private boolean mFramesLockDone = true;
     private final Object onAssetLock;
     private GVRTestableMain testableMain;
     private GVRScene mainScene;
     private OnInitCallback onInitCallback;
-    private OnRenderCallback onRenderCallback;
-    private boolean mAssetIsLoaded = false;
+    private volatile OnRenderCallback onRenderCallback;
+    private int mAssetsLoaded = 0;
+    private final GVRAssetTracker mAssetTracker = new GVRAssetTracker();
+    private boolean mAssetTrackerAttached = false;
 
     /**
      * Constructor, needs an instance of {@link GVRTestableActivity}.
@@ -85,7 +99,6 @@ public class GVRTestUtils implements GVRMainMonitor {
      */
     public GVRTestUtils(GVRTestableActivity testableGVRActivity, OnInitCallback onInitCallback) {
         gvrContext = null;
-        xFramesLock = new Object();
         onScreenshotLock = new Object();
         onAssetLock = new Object();
         this.onInitCallback = onInitCallback;
@@ -101,13 +114,94 @@ public class GVRTestUtils implements GVRMainMonitor {
 
     }
 
-    private static String GetDeviceType() {
+    private static synchronized GVRGoldenMasterStore getGoldenMasterStore() {
+        if (sGoldenMasters == null) {
+            sGoldenMasters = new GVRGoldenMasterStore(new File(GOLDEN_MASTERS_DIR),
+                    new GVRGoldenMasterStore.Decoder() {
+                        @Override
+                        public GVRPixelImage decode(File file) throws IOException {
+                            final InputStream inputStream = new FileInputStream(file);
+                            try {
+                                return decodePixels(inputStream);
+                            } finally {
+                                inputStream.close();
+                            }
+                        }
+                    }, GOLDEN_MASTERS_CACHE_BYTES);
+        }
+        return sGoldenMasters;
+    }
+
+    /**
+     * Returns the name of the golden master directory used for this device. Device
+     * models without their own directory are redirected by a file named after the
+     * model. The local golden masters are used if present, otherwise the redirect is
+     * fetched from {@link #GITHUB_URL}.
+     */
+    public static synchronized String getDeviceType() {
+        if (sDeviceType != null) {
+            return sDeviceType;
+        }
+        GVRGoldenMasterStore store = getGoldenMasterStore();
+        if (store.exists()) {
+            try {
+                sDeviceType = store.resolveDeviceType(Build.MODEL, DEFAULT_DEVICE_TYPE);
+                return sDeviceType;
+            } catch (IOException ex) {
+                Log.e(TAG, "Cannot read golden master redirect for " + Build.MODEL, ex);
+            }
+        }
+
         String TryUrl = GOLDEN_MASTERS_BASE_URL + Build.MODEL;
         try {
-            return new BufferedReader(new InputStreamReader(new URL(TryUrl).openStream())).readLine().trim();
+            BufferedReader reader = new BufferedReader(new InputStreamReader(new URL(TryUrl).openStream()));
+            try {
+                sDeviceType = reader.readLine().trim();
+            } finally {
+                reader.close();
+            }
         } catch (Exception ex) {
             Log.e(TAG,"Golden master redirect not found: " + TryUrl);
-            return DEFAULT_DEVICE_TYPE;
+            sDeviceType = DEFAULT_DEVICE_TYPE;
+        }
+        return sDeviceType;
+    }
+
+    private static GVRPixelImage decodePixels(InputStream inputStream) throws IOException {
+        Bitmap bitmap = BitmapFactory.decodeStream(inputStream);
+        if (bitmap == null) {
+            throw new IOException("Cannot decode golden master");
+        }
+        try {
+            final int width = bitmap.getWidth();
+            final int height = bitmap.getHeight();
+            final int[] pixels = new int[width * height];
+            bitmap.getPixels(pixels, 0, width, 0, 0, width, height);
+            return new GVRPixelImage(width, height, pixels);
+        } finally {
+            bitmap.recycle();
+        }
+    }
+
+    /**
+     * Returns the golden master of a test, from the local golden masters if present
+     * or else from {@link #GITHUB_URL}.
+     */
+    static GVRPixelImage loadGoldenMaster(String category, String testname)
+            throws IOException {
+        GVRGoldenMasterStore store = getGoldenMasterStore();
+        if (store.exists()) {
+            return store.getMaster(getDeviceType(), category, testname);
+        }
+
+        URL url = new URL(GOLDEN_MASTERS_BASE_URL + getDeviceType() + "/" + category + "/"
+                + testname + ".png");
+        Log.v(TAG, "Fetching golden master " + url.toString());
+        final InputStream inputStream = url.openStream();
+        try {
+            return decodePixels(inputStream);
+        } finally {
+            inputStream.close();
         }
     }
 
@@ -122,6 +216,7 @@ public class GVRTestUtils implements GVRMainMonitor {
             if (testableMain.isOnInitCalled()) {
                 gvrContext = testableMain.getGVRContext();
                 mainScene = gvrContext.getMainScene();
+                attachAssetTracker(gvrContext);
                 return gvrContext;
             }
             try {
@@ -158,9 +253,16 @@ public class GVRTestUtils implements GVRMainMonitor {
         }
     }
 
+    /**
+     * Waits for one call of {@link #onAssetLoaded(GVRSceneObject)} which has not
+     * been waited for yet. Every call is counted, so loads which finish close
+     * together each satisfy one wait. To wait for particular assets, or for
+     * several loads started at once, use the futures of
+     * {@link #getAssetTracker()} instead. This is a blocking call.
+     */
     public void waitForAssetLoad() {
         synchronized (onAssetLock) {
-            while(!mAssetIsLoaded) {
+            while (mAssetsLoaded == 0) {
                 try {
                     Log.d(TAG, "Waiting for OnAssetLoaded");
                     onAssetLock.wait();
@@ -170,7 +272,22 @@ public class GVRTestUtils implements GVRMainMonitor {
                     return;
                 }
             }
-            mAssetIsLoaded = false;
+            --mAssetsLoaded;
+        }
+    }
+
+    /**
+     * Returns the tracker which hands out a future for each asset loaded in the
+     * context of this test, see {@link GVRAssetTracker}.
+     */
+    public GVRAssetTracker getAssetTracker() {
+        return mAssetTracker;
+    }
+
+    private synchronized void attachAssetTracker(GVRContext context) {
+        if (!mAssetTrackerAttached) {
+            context.getEventReceiver().addListener(mAssetTracker);
+            mAssetTrackerAttached = true;
         }
     }
 
@@ -179,25 +296,168 @@ public class GVRTestUtils implements GVRMainMonitor {
      * @param frames number of frames to wait for
      */
     public void waitForXFrames(int frames) {
-        synchronized (xFramesLock) {
-            mFramesLockDone = false;
-            testableMain.notifyAfterXFrames(frames);
-            while(!mFramesLockDone) {
-                try {
-                    xFramesLock.wait();
-                } catch (InterruptedException e) {
-                    Log.e(TAG,"",e);
-                    Thread.currentThread().interrupt();
-                    return;
-                }
-            }
+        try {
+            testableMain.getFrameClock().awaitFrames(frames, Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Log.e(TAG,"",e);
+            Thread.currentThread().interrupt();
+        } catch (TimeoutException e) {
+            // cannot happen without a timeout
+            Log.e(TAG,"",e);
+        }
+    }
+
+    /**
+     * Waits for "frames" number of frames to be rendered before returning. This is a blocking call.
+     * @param frames number of frames to wait for
+     * @param timeout milliseconds to wait at most
+     * @throws TimeoutException if the frames were not rendered in time
+     */
+    public void waitForXFrames(int frames, long timeout) throws TimeoutException {
+        try {
+            testableMain.getFrameClock().awaitFrames(frames, timeout, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Log.e(TAG,"",e);
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Waits until the scene has been rendered for "time" milliseconds from now, i.e.
+     * until the first frame which starts that long after the call. This is a
+     * blocking call.
+     * @param time milliseconds of rendering to wait for
+     * @param timeout milliseconds to wait at most
+     * @throws TimeoutException if no such frame was rendered in time
+     */
+    public void waitForRenderTime(long time, long timeout) throws TimeoutException {
+        try {
+            testableMain.getFrameClock().awaitRenderTime(time, TimeUnit.MILLISECONDS, timeout,
+                    TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Log.e(TAG,"",e);
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Returns the frame counter of the render thread. Threads can wait on it for
+     * their own frame targets, see {@link GVRFrameClock}.
+     */
+    public GVRFrameClock getFrameClock() {
+        return testableMain.getFrameClock();
+    }
+
+    /**
+     * Measures the time between frames while "warmupFrames + frames" frames are rendered.
+     * The frame times are taken with {@link System#nanoTime()} at the start of
+     * {@link GVRMain#onStep()} so they do not include the time it takes to wake up the
+     * waiting thread. This is a blocking call.
+     * @param warmupFrames number of frames rendered before the measurement starts.
+     * @param frames number of frames to measure.
+     * @return the frame time statistics of the measured frames.
+     */
+    public GVRFrameStats measureFrames(int warmupFrames, int frames) {
+        waitForXFrames(warmupFrames);
+        // counting allocations would slow the frames down
+        GVRFrameTelemetry.Window window = getFrameTelemetry().openWindow(false);
+        try {
+            waitForXFrames(frames);
+        } finally {
+            window.close();
+        }
+        return new GVRFrameStats(window.getSamples(GVRFrameTelemetry.WALL_TIME), getRefreshRate());
+    }
+
+    /**
+     * Returns the per frame telemetry of the render thread, see {@link GVRFrameTelemetry}.
+     */
+    public GVRFrameTelemetry getFrameTelemetry() {
+        return testableMain.getFrameTelemetry();
+    }
+
+    /**
+     * Runs a workload on the calling thread inside a telemetry window and lets one
+     * more frame render so the last frame of the workload is recorded. This is a
+     * blocking call.
+     * @param workload code to measure, e.g. changes to the scene.
+     * @return the closed window; read its statistics with
+     * {@link GVRFrameTelemetry.Window#getStats(int)}.
+     */
+    public GVRFrameTelemetry.Window measureWindow(Runnable workload) {
+        GVRFrameTelemetry.Window window = getFrameTelemetry().openWindow();
+        try {
+            workload.run();
+            waitForXFrames(1);
+        } finally {
+            window.close();
+        }
+        return window;
+    }
+
+    /**
+     * Writes the frame times of a measurement to the benchmark results on the sdcard,
+     * see {@link #reportPerf(String, String, String, boolean, float[])}.
+     * @param category name of the test class or suite.
+     * @param testname name of the measurement.
+     * @param stats    result of {@link #measureFrames(int, int)}.
+     */
+    public void reportPerf(String category, String testname, GVRFrameStats stats) {
+        reportPerf(category, testname, "ms", true, stats.getFrameTimes());
+    }
+
+    /**
+     * Writes the samples of a benchmark to /sdcard/GearVRFTests/perf/results.csv and
+     * results.jsonl, keyed by device model, build fingerprint and GearVRf commit. The
+     * host tool in gvr-perfresults merges these files into a history and compares the
+     * runs with each other.
+     * @param category      name of the test class or suite.
+     * @param testname      name of the measurement.
+     * @param unit          unit of the samples.
+     * @param lowerIsBetter true if smaller samples are better.
+     * @param samples       the measured values.
+     */
+    public void reportPerf(String category, String testname, String unit, boolean lowerIsBetter,
+                           float[] samples) {
+        GVRPerfReport.append(new GVRPerfRecord(GVRPerfReport.getRun(), category + "." + testname,
+                                               unit, lowerIsBetter, samples));
+    }
+
+    /**
+     * Writes a table of benchmark results, e.g. a CSV file, to
+     * /sdcard/GearVRFTests/performance/, replacing an older one with the same name.
+     * @param fileName name of the file.
+     * @param table    contents of the file.
+     * @throws IOException if the file cannot be written.
+     */
+    public void writePerfTable(String fileName, String table) throws IOException {
+        File file = new File(Environment.getExternalStorageDirectory().getAbsolutePath()
+                             + PERF_TABLE_DIR + fileName);
+        file.getParentFile().mkdirs();
+        Writer out = new FileWriter(file);
+        try {
+            out.write(table);
+        } finally {
+            out.close();
         }
     }
 
+    /**
+     * Returns the refresh rate of the display in Hz.
+     */
+    public float getRefreshRate() {
+        float rate = 0.0f;
+        if (gvrContext != null) {
+            rate = gvrContext.getActivity().getWindowManager().getDefaultDisplay().getRefreshRate();
+        }
+        return (rate > 0.0f) ? rate : DEFAULT_REFRESH_RATE;
+    }
+
     @Override
     public void onInitCalled(GVRContext context, GVRScene mainScene) {
         this.mainScene = mainScene;
         gvrContext = context;
+        attachAssetTracker(context);
         if (onInitCallback != null) {
             onInitCallback.onInit(gvrContext);
         }
@@ -207,22 +467,16 @@ public class GVRTestUtils implements GVRMainMonitor {
 
     @Override
     public void onSceneRendered() {
-        if (onRenderCallback != null) {
-            onRenderCallback.onSceneRendered();
+        final OnRenderCallback callback = onRenderCallback;
+        if (callback != null) {
+            callback.onSceneRendered();
         }
         onStepLatch.countDown();
     }
 
-    public void xFramesRendered() {
-        synchronized (xFramesLock) {
-            mFramesLockDone = true;
-            xFramesLock.notifyAll();
-        }
-    }
-
     public void onAssetLoaded(GVRSceneObject asset) {
         synchronized (onAssetLock) {
-            mAssetIsLoaded = true;
+            ++mAssetsLoaded;
             onAssetLock.notifyAll();
         }
         Log.d(TAG, "OnAssetLoaded Called");
@@ -289,6 +543,8 @@ public class GVRTestUtils implements GVRMainMonitor {
      * assets directory. This method looks for a file named "diff_$testname$.png" in the assets
      * folder for the reference screenshot of the expected result. The captured screenshots are
      * stored in /sdcard/GearVRfTests/$category$/$testname$.png
+     * The comparison uses the {@link org.gearvrf.imagediff.GVRImageComparator} registered for
+     * the category with {@link org.gearvrf.imagediff.GVRImageComparators}.
      */
     class ScreenShooter implements GVRScreenshotCallback
     {
@@ -312,165 +568,44 @@ public class GVRTestUtils implements GVRMainMonitor {
             mDoCompare = compare;
         }
 
-        private void compareWithGolden(final Bitmap screenshot)
-        {
-            try
-            {
-                Bitmap golden = null;
-                String testname = mTestName + ".png";
-
-                try
-                {
-                    URL url = new URL(GOLDEN_MASTERS_URL + "/" + mCategory + "/" + testname);
-                    Log.v(TAG, "Fetching golden master " + url.toString());
-                    final InputStream inputStream = url.openStream();
-                    try
-                    {
-                        final BitmapFactory.Options options = new BitmapFactory.Options();
-                        options.inMutable = true;
-                        golden = BitmapFactory.decodeStream(inputStream, null, options);
-                    }
-                    finally
-                    {
-                        inputStream.close();
-                    }
-                }
-                catch (Throwable ex)
-                {
-                    mWaiter.fail(ex);
-                }
-                if (golden != null)
-                {
-                    try
-                    {
-                        final float[] diff = {0.0f};
-
-                        final int goldenHeight = golden.getHeight();
-                        final int goldenWidth = golden.getWidth();
-
-                        mWaiter.assertEquals(goldenWidth, screenshot.getWidth());
-                        mWaiter.assertEquals(goldenHeight, screenshot.getHeight());
-
-                        final ReentrantLock lockDiff = new ReentrantLock();
-
-                        try
-                        {
-                            final CountDownLatch cdl = new CountDownLatch(goldenHeight);
-
-                            final int[] goldenPixels = new int[goldenHeight * goldenWidth];
-                            golden.getPixels(goldenPixels, 0, goldenWidth, 0, 0, goldenWidth,
-                                             goldenHeight);
-
-                            final int[] screenshotPixels = new int[goldenHeight * goldenWidth];
-                            screenshot.getPixels(screenshotPixels, 0, goldenWidth, 0, 0,
-                                                 goldenWidth, goldenHeight);
-
-                            for (int y = 0; y < goldenHeight; y++)
-                            {
-                                Threads.spawn(
-                                        new CompareRunnable(goldenWidth, y, goldenPixels, lockDiff,
-                                                            diff, screenshotPixels, cdl));
-                            }
-
-                            cdl.await();
-                            golden.setPixels(goldenPixels, 0, goldenWidth, 0, 0, goldenWidth,
-                                             goldenHeight);
-                            //hints
-                            System.gc();
-                            System.runFinalization();
-                        }
-                        catch (Throwable t)
-                        {
-                            mWaiter.fail(t);
-                        }
-
-                        Log.e(mCategory, "RESULT: %s %s diff = %f", mCategory, mTestName, diff[0]);
-                        if (diff[0] > 2000.0f)
-                        {
-                            writeBitmap(mCategory, "diff_" + testname, golden);
-                        }
-
-                        mWaiter.assertTrue(diff[0] <= 30000.0f);
-                    }
-                    finally
-                    {
-                        golden.recycle();
-                    }
-                }
-            }
-            finally
-            {
-                screenshot.recycle();
-            }
-        }
-
-        protected void writeBitmap(String dir, String filename, Bitmap bitmap)
-        {
-            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
-
-            File sdcard = Environment.getExternalStorageDirectory();
-            dir = sdcard.getAbsolutePath() + "/GearVRFTests/" + dir + "/";
-            File d = new File(dir);
-            d.mkdirs();
-
-            try
-            {
-                bitmap.compress(Bitmap.CompressFormat.PNG, 100, bytes);
-                FileOutputStream fo = new FileOutputStream(new File(d, filename));
-                try {
-                    bytes.writeTo(fo);
-                } finally {
-                    fo.close();
-                }
-            }
-            catch (Throwable ex)
-            {
-                ex.printStackTrace();
-                mWaiter.fail(ex);
-            } finally {
-                try {
-                    bytes.close();
-                } catch (IOException e) {
-                }
-            }
-        }
-
         @Override
         public void onScreenCaptured(Bitmap bitmap)
         {
             synchronized (onScreenshotLock)
             {
-                String basename = mTestName + ".png";
-
                 try
                 {
-                    writeBitmap(mCategory, basename, bitmap);
+                    sScreenshotPipeline.submit(bitmap, mCategory, mTestName, mWaiter, mDoCompare);
                 }
-                catch (Exception e)
+                catch (InterruptedException e)
                 {
-                    Log.e(mCategory, "Could not save screenshot of %s", mTestName);
+                    Log.e(mCategory, "Interrupted while handing off screenshot of %s", mTestName);
+                    Thread.currentThread().interrupt();
                     mWaiter.fail(e);
                 }
-                try
-                {
-                    Log.d(mCategory, "Saved screenshot of %s", mTestName);
-                    if (mDoCompare)
-                    {
-                        compareWithGolden(bitmap);
-                    }
-                }
-                catch (Throwable t)
-                {
-                    Log.d(mCategory, "Exception while comparing screenshot for %s", mTestName);
-                    mWaiter.fail(t);
-                }
-                mWaiter.resume();
             }
         }
     };
 
     ScreenShooter mScreenShooter = new ScreenShooter();
 
+    /**
+     * Waits until the screenshots and diff images of previous screenshot tests are
+     * written to the sdcard. Screenshot tests only wait for the comparison, the files
+     * are written in the background.
+     * @param timeout maximum time to wait in milliseconds.
+     * @return true if all files were written, false on timeout.
+     */
+    public static boolean waitForScreenshotWrites(long timeout) {
+        try {
+            return sScreenshotPipeline.drain(timeout);
+        } catch (InterruptedException e) {
+            Log.e(TAG, "", e);
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
     /**
      * Captures a center screenshot and compares it with a golden screenshot from the
      * assets directory. This method looks for a file named "diff_$testname$.png" in the assets
@@ -510,54 +645,4 @@ public class GVRTestUtils implements GVRMainMonitor {
         gvrContext.captureScreenRight(mScreenShooter);
         waiter.await(SCREENSHOT_TEST_TIMEOUT);
     }
-
-    final static class CompareRunnable implements Runnable {
-        private final int y;
-        private int[] goldenPixels;
-        private ReentrantLock lockDiff;
-        private float[] diff;
-        private int[] screenshotPixels;
-        private CountDownLatch cdl;
-        private final int goldenWidth;
-
-        CompareRunnable(final int goldenWidth, final int y, final int[] goldenPixels, final ReentrantLock lockDiff, final float[] diff,
-                        final int[] screenshotPixels, final CountDownLatch cdl) {
-            this.y = y;
-            this.goldenPixels = goldenPixels;
-            this.lockDiff = lockDiff;
-            this.diff = diff;
-            this.screenshotPixels = screenshotPixels;
-            this.cdl = cdl;
-            this.goldenWidth = goldenWidth;
-        }
-
-        @Override
-        public void run() {
-            try {
-                for (int x = 0; x < goldenWidth; x++) {
-                    int p1 = goldenPixels[x*goldenWidth + y];
-                    int p2 = screenshotPixels[x*goldenWidth + y];
-                    int r = Math.abs(Color.red(p1) - Color.red(p2));
-                    int g = Math.abs(Color.green(p1) - Color.green(p2));
-                    int b = Math.abs(Color.blue(p1) - Color.blue(p2));
-                    goldenPixels[x*goldenWidth + y] = Color.argb(255, r, g, b);
-
-                    lockDiff.lock();
-                    try {
-                        diff[0] += (float) r / 255.0f + g / 255.0f + b / 255.0f;
-                    } finally {
-                        lockDiff.unlock();
-                    }
-                }
-            } finally {
-                cdl.countDown();
-
-                goldenPixels = null;
-                screenshotPixels = null;
-                lockDiff = null;
-                cdl = null;
-                diff = null;
-            }
-        }
-    }
 }
@@ -72,6 +72,9 @@ public class GVRTestableActivity extends GVRActivity {
     @Override
     protected void onDestroy() {
         Log.d(TAG, "OnDestroy called");
+        if (!GVRTestUtils.waitForScreenshotWrites(SCREENSHOT_WRITE_TIMEOUT)) {
+            Log.e(TAG, "Screenshots still being written");
+        }
         super.onDestroy();
     }
 
@@ -98,4 +101,5 @@ public class GVRTestableActivity extends GVRActivity {
     }
 
     private final static int REQUEST_EXTERNAL_STORAGE = 1;
+    private final static long SCREENSHOT_WRITE_TIMEOUT = 5000;
 }
@@ -29,15 +29,14 @@ import org.gearvrf.utility.Log;
 class GVRTestableMain extends GVRMain{
 
     private static final String TAG = GVRTestableMain.class.getSimpleName();
-    private static final int WAIT_DISABLED = -1;
+    private static final int FRAME_TIME_CAPACITY = 8192;
     private GVRContext gvrContext;
     private volatile GVRScene mainScene;
     private GVRMainMonitor mainMonitor;
     private boolean sceneRendered = false;
-    private int framesRendered = 0;
-    private final Object waitXFramesLock = new Object();
     private final Object waitForMonitor = new Object();
-    private int waitForXFrames = WAIT_DISABLED;
+    private final GVRFrameClock frameClock = new GVRFrameClock();
+    private final GVRFrameTelemetry telemetry = new GVRFrameTelemetry(FRAME_TIME_CAPACITY);
 
     @Override
     public void onInit(GVRContext gvrContext) {
@@ -62,17 +61,10 @@ class GVRTestableMain extends GVRMain{
 
     @Override
     public void onStep() {
+        final long now = System.nanoTime();
+        telemetry.record(now);
         sceneRendered = true;
-        synchronized (waitXFramesLock) {
-            if (waitForXFrames != WAIT_DISABLED) {
-                framesRendered++;
-                if (framesRendered >= waitForXFrames) {
-                    mainMonitor.xFramesRendered();
-                    waitForXFrames = WAIT_DISABLED;
-                    framesRendered = 0;
-                }
-            }
-        }
+        frameClock.onFrame(now);
         mainMonitor.onSceneRendered();
     }
 
@@ -91,12 +83,12 @@ class GVRTestableMain extends GVRMain{
         return sceneRendered;
     }
 
-    public void notifyAfterXFrames(int frames) {
-        synchronized (waitXFramesLock) {
-            waitForXFrames = frames;
-            framesRendered = 0;
-        }
+    public GVRFrameClock getFrameClock() {
+        return frameClock;
+    }
 
+    public GVRFrameTelemetry getFrameTelemetry() {
+        return telemetry;
     }
 
     public GVRTexture getSplashTexture(GVRContext gvrContext) {
@@ -68,6 +68,10 @@ public class MainScript extends GVRScript {
 
         scene = gvrContext.getMainScene();
 
+        // the focus sets are static and may still hold the controls of the
+        // scene of a previous activity
+        ControlSceneObjectBehavior.reset();
+
         gvrContext.getMainScene().getMainCameraRig().getRightCamera()
                 .setBackgroundColor(Color.GREEN);
         gvrContext.getMainScene().getMainCameraRig().getLeftCamera()
@@ -375,7 +375,7 @@ public class Test01MainScript extends GVRScript {
     public void onStep() {
         //worm.chainMove(mGVRContext);
 
-        //GamepadInput.process();
+        GamepadInput.process();
 
         //GamepadInput.interactWithDPad(worm);
         //ControlSceneObjectBehavior.process(mGVRContext);
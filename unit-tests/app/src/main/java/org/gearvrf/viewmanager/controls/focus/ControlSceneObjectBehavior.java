@@ -19,36 +19,59 @@ import org.gearvrf.GVREyePointeeHolder;
 import org.gearvrf.GVRPicker;
 import org.gearvrf.GVRSceneObject;
 
-import java.util.ArrayList;
-
+/**
+ * Dispatches focus to the {@link ControlSceneObject}s picked by the eye each
+ * frame.
+ * <p>
+ * The controls that had focus last frame are kept, so each frame only the
+ * picked objects are visited: picked controls get focus and
+ * {@link ControlSceneObject#dispatchInFocus()}, and the previously focused
+ * ones that are no longer picked lose it. Nothing is allocated once the sets
+ * have grown to the largest number of controls focused at once. Call it from
+ * the GL thread only.
+ */
 public class ControlSceneObjectBehavior {
 
+    private static ControlSceneObjectSet focused = new ControlSceneObjectSet();
+    private static ControlSceneObjectSet picked = new ControlSceneObjectSet();
+
     public static void process(GVRContext context) {
 
         GVREyePointeeHolder[] eyePointeeHolders = GVRPicker.pickScene(context.getMainScene());
 
-        ArrayList<GVRSceneObject> needToDisableFocus = new ArrayList<GVRSceneObject>();
-
-        for (GVRSceneObject obj : context.getMainScene().getWholeSceneObjects()) {
-            needToDisableFocus.add(obj);
-        }
-
+        picked.clear();
         for (GVREyePointeeHolder holder : eyePointeeHolders) {
+            GVRSceneObject owner = holder.getOwnerObject();
 
-            if (ControlSceneObject.hasFocusMethods(holder.getOwnerObject())) {
-                ControlSceneObject controlObject = (ControlSceneObject) holder.getOwnerObject();
-                controlObject.setFocus(true);
-                controlObject.dispatchInFocus();
-                needToDisableFocus.remove(controlObject);
+            if (ControlSceneObject.hasFocusMethods(owner)) {
+                ControlSceneObject controlObject = (ControlSceneObject) owner;
+                if (picked.add(controlObject)) {
+                    controlObject.setFocus(true);
+                    controlObject.dispatchInFocus();
+                }
             }
         }
 
-        for (GVRSceneObject obj : needToDisableFocus) {
-            if (ControlSceneObject.hasFocusMethods(obj)) {
-                ControlSceneObject control = (ControlSceneObject) obj;
+        for (int i = 0; i < focused.size(); ++i) {
+            ControlSceneObject control = focused.get(i);
+            if (!picked.contains(control)) {
                 control.setFocus(false);
             }
         }
 
+        ControlSceneObjectSet previous = focused;
+        focused = picked;
+        picked = previous;
+    }
+
+    /**
+     * Takes the focus from every control, e.g. when the main scene changes.
+     */
+    public static void reset() {
+        for (int i = 0; i < focused.size(); ++i) {
+            focused.get(i).setFocus(false);
+        }
+        focused.clear();
+        picked.clear();
     }
 }
@@ -0,0 +1,101 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gearvrf.viewmanager.controls.focus;
+
+/**
+ * Identity set of controls that does not allocate once it has grown to the
+ * largest number of controls it has held.
+ * <p>
+ * Members are kept in an open addressing table for lookup and in a dense
+ * array for iteration, so clearing and walking the set cost O(size) rather
+ * than O(capacity).
+ */
+class ControlSceneObjectSet {
+
+    private ControlSceneObject[] table = new ControlSceneObject[16];
+    private ControlSceneObject[] members = new ControlSceneObject[8];
+    private int size = 0;
+
+    int size() {
+        return size;
+    }
+
+    ControlSceneObject get(int index) {
+        return members[index];
+    }
+
+    boolean contains(ControlSceneObject control) {
+        final int mask = table.length - 1;
+        for (int i = hash(control) & mask; table[i] != null; i = (i + 1) & mask) {
+            if (table[i] == control) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return true if the control was not in the set yet.
+     */
+    boolean add(ControlSceneObject control) {
+        if (contains(control)) {
+            return false;
+        }
+        if (size == members.length) {
+            grow();
+        }
+        members[size++] = control;
+        insert(table, control);
+        return true;
+    }
+
+    void clear() {
+        final int mask = table.length - 1;
+        // only the slots reachable from the members need clearing
+        for (int m = 0; m < size; ++m) {
+            for (int i = hash(members[m]) & mask; table[i] != null; i = (i + 1) & mask) {
+                table[i] = null;
+            }
+            members[m] = null;
+        }
+        size = 0;
+    }
+
+    private void grow() {
+        ControlSceneObject[] newMembers = new ControlSceneObject[members.length * 2];
+        ControlSceneObject[] newTable = new ControlSceneObject[table.length * 2];
+
+        System.arraycopy(members, 0, newMembers, 0, size);
+        for (int m = 0; m < size; ++m) {
+            insert(newTable, members[m]);
+        }
+        members = newMembers;
+        table = newTable;
+    }
+
+    private static void insert(ControlSceneObject[] table, ControlSceneObject control) {
+        final int mask = table.length - 1;
+        int i = hash(control) & mask;
+        while (table[i] != null) {
+            i = (i + 1) & mask;
+        }
+        table[i] = control;
+    }
+
+    private static int hash(ControlSceneObject control) {
+        int h = System.identityHashCode(control);
+        return h ^ (h >>> 16);
+    }
+}
@@ -24,75 +24,131 @@ import org.gearvrf.viewmanager.controls.Worm;
 import org.gearvrf.viewmanager.controls.Worm.MovementDirection;
 
 import java.util.ArrayList;
-
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Gamepad state shared between the input thread, which calls the
+ * {@code input} methods, and the GL thread, which calls {@link #process()}
+ * once per frame and then polls the buttons and axes.
+ * <p>
+ * The input thread applies events to a private {@link GamepadState} and
+ * publishes a copy through a triple buffer: the three snapshots are
+ * preallocated and the index of the one in the middle is exchanged
+ * atomically, so neither side waits for the other, no snapshot is read while
+ * it is written, and nothing is allocated per event or per frame.
+ */
 public final class GamepadInput {
 
-    private static GamepadMap newGamepadMap = new GamepadMap();
-
-    private static GamepadMap oldGamepadMap = new GamepadMap();
-
+    private static final int INDEX_MASK = 3;
+    private static final int DIRTY = 4;
+
+    private static final GamepadState[] states = {
+            new GamepadState(), new GamepadState(), new GamepadState()
+    };
+
+    /** index of the snapshot between the threads, DIRTY if not read yet */
+    private static final AtomicInteger middle = new AtomicInteger(1);
+
+    // input thread only, guarded by writeLock
+    private static final Object writeLock = new Object();
+    private static final GamepadState working = new GamepadState();
+    private static int back = 0;
+
+    // GL thread only
+    private static int front = 2;
+    private static final long[] lastPressParity = new long[GamepadState.WORDS];
+    private static final long[] lastReleaseParity = new long[GamepadState.WORDS];
+    private static final long[] downBits = new long[GamepadState.WORDS];
+    private static final long[] upBits = new long[GamepadState.WORDS];
+    private static final GamepadMap gamepadMap = new GamepadMap();
+    private static final int[] keyCodes = toArray(gamepadMap.buttonsKeyCode);
+
+    /**
+     * Takes the latest snapshot from the input thread and works out which
+     * buttons went down or up since the previous call.
+     */
     public static void process() {
 
-        newGamepadMap.resetIntermadiateState();
-
-        for (Integer key : oldGamepadMap.buttonsKeyCode) {
-            GamePadButton oldButton = oldGamepadMap.buttons.get(key);
-            GamePadButton newButton = newGamepadMap.buttons.get(key);
-
-            updateIntermiteStates(newButton, oldButton);
+        if ((middle.get() & DIRTY) != 0) {
+            front = middle.getAndSet(front) & INDEX_MASK;
+        }
+        GamepadState state = states[front];
 
+        for (int i = 0; i < GamepadState.WORDS; ++i) {
+            downBits[i] = state.pressParity[i] ^ lastPressParity[i];
+            upBits[i] = state.releaseParity[i] ^ lastReleaseParity[i];
+            lastPressParity[i] = state.pressParity[i];
+            lastReleaseParity[i] = state.releaseParity[i];
         }
 
+        for (int key : keyCodes) {
+            GamePadButton button = gamepadMap.buttons.get(key);
+            button.pressed = state.isPressed(key);
+            button.down = GamepadState.isSet(downBits, key);
+            button.up = GamepadState.isSet(upBits, key);
+        }
     }
 
-    private static void updateIntermiteStates(GamePadButton newButton, GamePadButton oldButton) {
+    /**
+     * Returns the snapshot taken by the last {@link #process()}.
+     */
+    public static GamepadState getState() {
+        return states[front];
+    }
 
-        if (oldButton.pressed != newButton.pressed) {
-            newButton.down = newButton.pressed;
-            newButton.up = !newButton.pressed;
+    private static int[] toArray(ArrayList<Integer> list) {
+        int[] array = new int[list.size()];
+        for (int i = 0; i < array.length; ++i) {
+            array[i] = list.get(i);
         }
+        return array;
+    }
 
-        oldButton.replicateValues(newButton);
+    // call with writeLock held
+    private static void publish() {
+        ++working.sequence;
+        states[back].copyFrom(working);
+        back = middle.getAndSet(back | DIRTY) & INDEX_MASK;
     }
 
     public static void input(MotionEvent event) {
 
-        newGamepadMap.axisX = event.getAxisValue(MotionEvent.AXIS_X);
-        newGamepadMap.axisY = event.getAxisValue(MotionEvent.AXIS_Y);
-        newGamepadMap.axisHatX = event.getAxisValue(MotionEvent.AXIS_HAT_X);
-        newGamepadMap.axisHatY = event.getAxisValue(MotionEvent.AXIS_HAT_Y);
-        newGamepadMap.axisRX = event.getAxisValue(MotionEvent.AXIS_RX);
-        newGamepadMap.axisRY = event.getAxisValue(MotionEvent.AXIS_RY);
-
+        synchronized (writeLock) {
+            working.axes[GamepadState.AXIS_X] = event.getAxisValue(MotionEvent.AXIS_X);
+            working.axes[GamepadState.AXIS_Y] = event.getAxisValue(MotionEvent.AXIS_Y);
+            working.axes[GamepadState.AXIS_HAT_X] = event.getAxisValue(MotionEvent.AXIS_HAT_X);
+            working.axes[GamepadState.AXIS_HAT_Y] = event.getAxisValue(MotionEvent.AXIS_HAT_Y);
+            working.axes[GamepadState.AXIS_RX] = event.getAxisValue(MotionEvent.AXIS_RX);
+            working.axes[GamepadState.AXIS_RY] = event.getAxisValue(MotionEvent.AXIS_RY);
+            publish();
+        }
     }
 
     public static void input(KeyEvent event) {
 
-        if (event.getAction() == KeyEvent.ACTION_DOWN) {
-            newGamepadMap.buttons.get(event.getKeyCode()).pressed = true;
-
+        if (event.getAction() != KeyEvent.ACTION_DOWN && event.getAction() != KeyEvent.ACTION_UP) {
+            return;
         }
-        if (event.getAction() == KeyEvent.ACTION_UP) {
-            newGamepadMap.buttons.get(event.getKeyCode()).pressed = false;
-
+        synchronized (writeLock) {
+            working.setPressed(event.getKeyCode(), event.getAction() == KeyEvent.ACTION_DOWN);
+            publish();
         }
-
     }
 
     public static boolean getKeyDown(int key) {
-        return newGamepadMap.buttons.get(key).down;
+        return GamepadState.isSet(downBits, key);
     }
 
     public static boolean getKeyUp(int key) {
-        return newGamepadMap.buttons.get(key).up;
+        return GamepadState.isSet(upBits, key);
     }
 
     public static boolean getKey(int key) {
-        return newGamepadMap.buttons.get(key).pressed;
+        return states[front].isPressed(key);
     }
 
     public static GamePadButton getButton(int key) {
-        return newGamepadMap.buttons.get(key);
+        return gamepadMap.buttons.get(key);
     }
 
     // getCenteredAxis() and some other code are referenced from:
@@ -152,58 +208,31 @@ public final class GamepadInput {
         float ry = getCenteredAxis(event, mInputDevice, MotionEvent.AXIS_RY,
                 historyPos);
 
-        newGamepadMap.centeredAxisX = x;
-        newGamepadMap.centeredAxisY = y;
+        synchronized (writeLock) {
+            working.centeredAxes[GamepadState.AXIS_X] = x;
+            working.centeredAxes[GamepadState.AXIS_Y] = y;
 
-        newGamepadMap.centeredAxisHatX = hatx;
-        newGamepadMap.centeredAxisHatY = haty;
+            working.centeredAxes[GamepadState.AXIS_HAT_X] = hatx;
+            working.centeredAxes[GamepadState.AXIS_HAT_Y] = haty;
 
-        newGamepadMap.centeredAxisRX = rx;
-        newGamepadMap.centeredAxisRY = ry;
+            working.centeredAxes[GamepadState.AXIS_RX] = rx;
+            working.centeredAxes[GamepadState.AXIS_RY] = ry;
+            publish();
+        }
 
         return true;
     }
 
     public static float getAxis(int axis) {
-        switch (axis) {
-            case MotionEvent.AXIS_X:
-                return newGamepadMap.axisX;
-            case MotionEvent.AXIS_Y:
-                return newGamepadMap.axisY;
-            case MotionEvent.AXIS_HAT_X:
-                return newGamepadMap.axisHatX;
-            case MotionEvent.AXIS_HAT_Y:
-                return newGamepadMap.axisHatY;
-            case MotionEvent.AXIS_RX:
-                return newGamepadMap.axisRX;
-            case MotionEvent.AXIS_RY:
-                return newGamepadMap.axisRY;
-            default:
-                return 0f;
-        }
+        return states[front].getAxis(axis);
     }
 
     public static float getCenteredAxis(int axis) {
-        switch (axis) {
-            case MotionEvent.AXIS_X:
-                return newGamepadMap.centeredAxisX;
-            case MotionEvent.AXIS_Y:
-                return newGamepadMap.centeredAxisY;
-            case MotionEvent.AXIS_HAT_X:
-                return newGamepadMap.centeredAxisHatX;
-            case MotionEvent.AXIS_HAT_Y:
-                return newGamepadMap.centeredAxisHatY;
-            case MotionEvent.AXIS_RX:
-                return newGamepadMap.centeredAxisRX;
-            case MotionEvent.AXIS_RY:
-                return newGamepadMap.centeredAxisRY;
-            default:
-                return 0f;
-        }
+        return states[front].getCenteredAxis(axis);
     }
 
     public static ArrayList<Integer> getKeyCodeMap() {
-        return newGamepadMap.buttonsKeyCode;
+        return gamepadMap.buttonsKeyCode;
     }
 
     public static void interactWithDPad(Worm worm) {
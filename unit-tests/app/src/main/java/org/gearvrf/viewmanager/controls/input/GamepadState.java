@@ -0,0 +1,125 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf.viewmanager.controls.input;
+
+import android.view.MotionEvent;
+
+/**
+ * Snapshot of the gamepad buttons and axes.
+ * <p>
+ * Buttons are bits indexed by key code. Besides the pressed state every
+ * press and release flips a parity bit, so a reader comparing two snapshots
+ * sees a tap that started and ended between them. Snapshots are preallocated
+ * by {@link GamepadInput} and handed between the input and the GL thread;
+ * the one returned by {@link GamepadInput#getState()} does not change until
+ * the next {@link GamepadInput#process()}.
+ */
+public final class GamepadState {
+
+    /** key codes at or above this are ignored */
+    public static final int MAX_KEY_CODE = 512;
+    static final int WORDS = MAX_KEY_CODE / 64;
+
+    static final int AXIS_X = 0;
+    static final int AXIS_Y = 1;
+    static final int AXIS_HAT_X = 2;
+    static final int AXIS_HAT_Y = 3;
+    static final int AXIS_RX = 4;
+    static final int AXIS_RY = 5;
+    static final int AXIS_COUNT = 6;
+
+    final long[] pressed = new long[WORDS];
+    final long[] pressParity = new long[WORDS];
+    final long[] releaseParity = new long[WORDS];
+    final float[] axes = new float[AXIS_COUNT];
+    final float[] centeredAxes = new float[AXIS_COUNT];
+    long sequence = 0;
+
+    GamepadState() {
+    }
+
+    public boolean isPressed(int keyCode) {
+        return isSet(pressed, keyCode);
+    }
+
+    public float getAxis(int axis) {
+        int slot = slot(axis);
+        return (slot < 0) ? 0f : axes[slot];
+    }
+
+    public float getCenteredAxis(int axis) {
+        int slot = slot(axis);
+        return (slot < 0) ? 0f : centeredAxes[slot];
+    }
+
+    /**
+     * Number of input events applied to the state, increasing with every event.
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    void setPressed(int keyCode, boolean down) {
+        if (keyCode < 0 || keyCode >= MAX_KEY_CODE) {
+            return;
+        }
+        final int word = keyCode >>> 6;
+        final long bit = 1L << keyCode;
+
+        if (down && (pressed[word] & bit) == 0) {
+            pressed[word] |= bit;
+            pressParity[word] ^= bit;
+        } else if (!down && (pressed[word] & bit) != 0) {
+            pressed[word] &= ~bit;
+            releaseParity[word] ^= bit;
+        }
+    }
+
+    void copyFrom(GamepadState state) {
+        System.arraycopy(state.pressed, 0, pressed, 0, WORDS);
+        System.arraycopy(state.pressParity, 0, pressParity, 0, WORDS);
+        System.arraycopy(state.releaseParity, 0, releaseParity, 0, WORDS);
+        System.arraycopy(state.axes, 0, axes, 0, AXIS_COUNT);
+        System.arraycopy(state.centeredAxes, 0, centeredAxes, 0, AXIS_COUNT);
+        sequence = state.sequence;
+    }
+
+    static boolean isSet(long[] bits, int keyCode) {
+        if (keyCode < 0 || keyCode >= MAX_KEY_CODE) {
+            return false;
+        }
+        return (bits[keyCode >>> 6] & (1L << keyCode)) != 0;
+    }
+
+    static int slot(int axis) {
+        switch (axis) {
+            case MotionEvent.AXIS_X:
+                return AXIS_X;
+            case MotionEvent.AXIS_Y:
+                return AXIS_Y;
+            case MotionEvent.AXIS_HAT_X:
+                return AXIS_HAT_X;
+            case MotionEvent.AXIS_HAT_Y:
+                return AXIS_HAT_Y;
+            case MotionEvent.AXIS_RX:
+                return AXIS_RX;
+            case MotionEvent.AXIS_RY:
+                return AXIS_RY;
+            default:
+                return -1;
+        }
+    }
+}
@@ -27,6 +27,7 @@ import org.gearvrf.animation.GVRPositionAnimation;
 import org.gearvrf.tests.R;
 import org.gearvrf.viewmanager.controls.focus.ControlSceneObject;
 import org.gearvrf.viewmanager.controls.focus.FocusListener;
+import org.gearvrf.viewmanager.controls.util.GVRTextAtlas;
 import org.gearvrf.viewmanager.controls.util.GVRTextBitmapFactory;
 import org.gearvrf.viewmanager.controls.util.Text;
 
@@ -64,23 +65,38 @@ class MenuItem extends GVRSceneObject implements FocusListener {
 
     private void createMenuItems() {
 
-        motion = getMenuItem(new Text(this.gvrContext.getContext().getResources()
-                .getString(R.string.motion), Align.CENTER, TEXT_FONT_SIZE, Color.BLACK,
-                Color.WHITE,
-                TEXT_MAX_LENGHT));
-
-        color = getMenuItem(new Text(this.gvrContext.getContext().getResources()
-                .getString(R.string.color), Align.CENTER, TEXT_FONT_SIZE, Color.BLACK,
-                Color.RED, TEXT_MAX_LENGHT));
-
-        scale = getMenuItem(new Text(this.gvrContext.getContext().getResources()
-                .getString(R.string.scale), Align.CENTER, TEXT_FONT_SIZE, Color.BLACK, Color.WHITE,
-                TEXT_MAX_LENGHT));
+        Text[] texts = {
+                new Text(this.gvrContext.getContext().getResources()
+                        .getString(R.string.motion), Align.CENTER, TEXT_FONT_SIZE, Color.BLACK,
+                        Color.WHITE,
+                        TEXT_MAX_LENGHT),
+                new Text(this.gvrContext.getContext().getResources()
+                        .getString(R.string.color), Align.CENTER, TEXT_FONT_SIZE, Color.BLACK,
+                        Color.RED, TEXT_MAX_LENGHT),
+                new Text(this.gvrContext.getContext().getResources()
+                        .getString(R.string.scale), Align.CENTER, TEXT_FONT_SIZE, Color.BLACK,
+                        Color.WHITE,
+                        TEXT_MAX_LENGHT),
+                new Text(this.gvrContext.getContext().getResources()
+                        .getString(R.string.rotatation), Align.CENTER, TEXT_FONT_SIZE, Color.BLACK,
+                        Color.WHITE,
+                        TEXT_MAX_LENGHT)
+        };
+
+        // a page takes no more labels once its texture exists, so every label is
+        // put into the atlas before the first texture is fetched
+        GVRTextAtlas.Region[] regions = new GVRTextAtlas.Region[texts.length];
+        if (GVRTextBitmapFactory.atlasOn) {
+            for (int i = 0; i < texts.length; i++) {
+                regions[i] = GVRTextBitmapFactory.createRegion(gvrContext.getContext(),
+                        TEXT_TEXTURE_WIDTH, TEXT_TEXTURE_HEIGHT, texts[i], 0);
+            }
+        }
 
-        rotation = getMenuItem(new Text(this.gvrContext.getContext().getResources()
-                .getString(R.string.rotatation), Align.CENTER, TEXT_FONT_SIZE, Color.BLACK,
-                Color.WHITE,
-                TEXT_MAX_LENGHT));
+        motion = getMenuItem(texts[0], regions[0]);
+        color = getMenuItem(texts[1], regions[1]);
+        scale = getMenuItem(texts[2], regions[2]);
+        rotation = getMenuItem(texts[3], regions[3]);
 
         float itemPositionX = 0f;
         float itemPositionY = 0f;
@@ -105,7 +121,7 @@ class MenuItem extends GVRSceneObject implements FocusListener {
 
     }
 
-    private GVRSceneObject getMenuItem(Text text) {
+    private GVRSceneObject getMenuItem(Text text, GVRTextAtlas.Region region) {
 
         GVRMaterial material = new GVRMaterial(gvrContext);
         GVRRenderData renderData = new GVRRenderData(gvrContext);
@@ -118,11 +134,16 @@ class MenuItem extends GVRSceneObject implements FocusListener {
 
         sceneObject.attachRenderData(renderData);
         sceneObject.getRenderData().setRenderingOrder(1110);
-        GVRBitmapTexture bitmap = new GVRBitmapTexture(gvrContext,
-                GVRTextBitmapFactory.create(gvrContext.getContext(), TEXT_TEXTURE_WIDTH,
-                        TEXT_TEXTURE_HEIGHT, text, 0));
-
-        sceneObject.getRenderData().getMaterial().setMainTexture(bitmap);
+        if (region != null) {
+            region.mapTexCoords(mesh);
+            sceneObject.getRenderData().getMaterial().setMainTexture(region.getTexture(gvrContext));
+        } else {
+            GVRBitmapTexture bitmap = new GVRBitmapTexture(gvrContext,
+                    GVRTextBitmapFactory.create(gvrContext.getContext(), TEXT_TEXTURE_WIDTH,
+                            TEXT_TEXTURE_HEIGHT, text, 0));
+
+            sceneObject.getRenderData().getMaterial().setMainTexture(bitmap);
+        }
         sceneObject.attachEyePointeeHolder();
 
         return sceneObject;
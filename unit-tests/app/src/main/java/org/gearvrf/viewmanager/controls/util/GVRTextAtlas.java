@@ -0,0 +1,191 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gearvrf.viewmanager.controls.util;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+
+import org.gearvrf.GVRBitmapTexture;
+import org.gearvrf.GVRContext;
+import org.gearvrf.GVRMesh;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Packs text labels into shared pages so that many labels use one bitmap and
+ * one texture upload.
+ * <p>
+ * Labels are placed on shelves, left to right and top to bottom. A page is
+ * sealed once its texture has been created, later labels go on a new page.
+ * Identical labels share their region.
+ */
+public class GVRTextAtlas {
+
+    public static final int DEFAULT_PAGE_SIZE = 1024;
+    // keeps linear filtering from bleeding neighbouring labels into each other
+    private static final int PADDING = 2;
+
+    private final int pageSize;
+    private final List<Page> pages = new ArrayList<Page>();
+    private final HashMap<Object, Region> regions = new HashMap<Object, Region>();
+
+    public GVRTextAtlas() {
+        this(DEFAULT_PAGE_SIZE);
+    }
+
+    public GVRTextAtlas(int pageSize) {
+        this.pageSize = pageSize;
+    }
+
+    /**
+     * Where a label is in the atlas.
+     */
+    public static class Region {
+        private final Page page;
+        public final int left;
+        public final int top;
+        public final int width;
+        public final int height;
+
+        Region(Page page, int left, int top, int width, int height) {
+            this.page = page;
+            this.left = left;
+            this.top = top;
+            this.width = width;
+            this.height = height;
+        }
+
+        public Bitmap getBitmap() {
+            return page.bitmap;
+        }
+
+        /**
+         * Returns the texture of the page the label is on. The page takes no
+         * more labels once this has been called.
+         */
+        public GVRBitmapTexture getTexture(GVRContext context) {
+            return page.getTexture(context);
+        }
+
+        /**
+         * Maps texture coordinates in [0, 1], like the ones of
+         * {@link GVRContext#createQuad(float, float)}, to this region.
+         */
+        public void mapTexCoords(GVRMesh mesh) {
+            float[] texCoords = mesh.getTexCoords();
+            float pageWidth = page.bitmap.getWidth();
+            float pageHeight = page.bitmap.getHeight();
+
+            for (int i = 0; i < texCoords.length; i += 2) {
+                texCoords[i] = (left + texCoords[i] * width) / pageWidth;
+                texCoords[i + 1] = (top + texCoords[i + 1] * height) / pageHeight;
+            }
+            mesh.setTexCoords(texCoords);
+        }
+    }
+
+    interface Painter {
+        void paint(Canvas canvas);
+    }
+
+    private static class Page {
+        final Bitmap bitmap;
+        final Canvas canvas;
+        int shelfTop = 0;
+        int shelfLeft = 0;
+        int shelfHeight = 0;
+        GVRBitmapTexture texture = null;
+
+        Page(int width, int height) {
+            bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+            canvas = new Canvas(bitmap);
+        }
+
+        synchronized GVRBitmapTexture getTexture(GVRContext context) {
+            if (texture == null) {
+                texture = new GVRBitmapTexture(context, bitmap);
+            }
+            return texture;
+        }
+
+        synchronized boolean isSealed() {
+            return texture != null;
+        }
+
+        /**
+         * @return the top left corner of the space reserved, or null if the
+         * label does not fit.
+         */
+        int[] reserve(int width, int height) {
+            final int w = width + PADDING;
+            final int h = height + PADDING;
+
+            if (shelfLeft + w > bitmap.getWidth()) {
+                shelfTop += shelfHeight;
+                shelfLeft = 0;
+                shelfHeight = 0;
+            }
+            if (shelfLeft + w > bitmap.getWidth() || shelfTop + h > bitmap.getHeight()) {
+                return null;
+            }
+            int[] corner = { shelfLeft, shelfTop };
+            shelfLeft += w;
+            shelfHeight = Math.max(shelfHeight, h);
+            return corner;
+        }
+    }
+
+    /**
+     * Returns the region of the label with the given key, painting it with the
+     * painter if the atlas does not have it yet. The painter draws into a
+     * canvas clipped and translated to the region.
+     */
+    synchronized Region add(Object key, int width, int height, Painter painter) {
+        Region region = regions.get(key);
+        if (region != null) {
+            return region;
+        }
+
+        Page page = pages.isEmpty() ? null : pages.get(pages.size() - 1);
+        int[] corner = null;
+        if (page != null && !page.isSealed()) {
+            corner = page.reserve(width, height);
+        }
+        if (corner == null) {
+            page = new Page(Math.max(pageSize, width + PADDING), Math.max(pageSize, height + PADDING));
+            pages.add(page);
+            corner = page.reserve(width, height);
+        }
+
+        region = new Region(page, corner[0], corner[1], width, height);
+        page.canvas.save();
+        page.canvas.clipRect(region.left, region.top, region.left + width, region.top + height);
+        page.canvas.translate(region.left, region.top);
+        painter.paint(page.canvas);
+        page.canvas.restore();
+        regions.put(key, region);
+        return region;
+    }
+
+    public synchronized int getPageCount() {
+        return pages.size();
+    }
+
+    public synchronized int getRegionCount() {
+        return regions.size();
+    }
+}
@@ -24,9 +24,20 @@ import android.graphics.Paint.Align;
 import android.graphics.Paint.Style;
 import android.graphics.Rect;
 import android.graphics.Typeface;
+import android.util.LruCache;
+
+import java.util.HashMap;
 
 /**
  * A class which creates Bitmaps with texts on them.
+ * <p>
+ * While {@link #cacheOn} is set the Bitmaps are kept in an LRU cache of
+ * {@link #CACHE_SIZE} bytes and the same Bitmap is returned for the same text,
+ * size, alignment, colors, typeface and dimensions. Cached Bitmaps are shared,
+ * so callers must neither modify nor recycle them. The {@code createRegion}
+ * methods put the texts into a {@link GVRTextAtlas} instead, so many labels
+ * share one texture; callers that can map texture coordinates use them while
+ * {@link #atlasOn} is set.
  *
  * @author hanseul
  */
@@ -34,9 +45,88 @@ public class GVRTextBitmapFactory {
 
     public static boolean cacheOn = true;
 
+    public static boolean atlasOn = false;
+
+    public static final int CACHE_SIZE = 8 * 1024 * 1024;
+
+    private static final String SPINNER_TYPEFACE = "fonts/futura-condensed-normal.ttf";
+
+    private static final int STYLE_CHARACTER = 0;
+    private static final int STYLE_TEXT = 1;
+    private static final int STYLE_SPINNER = 2;
+
+    private static final LruCache<Key, Bitmap> cache = new LruCache<Key, Bitmap>(CACHE_SIZE) {
+        @Override
+        protected int sizeOf(Key key, Bitmap bitmap) {
+            return bitmap.getByteCount();
+        }
+    };
+
+    private static final HashMap<String, Typeface> typefaces = new HashMap<String, Typeface>();
+
+    private static GVRTextAtlas atlas = null;
+
     private GVRTextBitmapFactory() {
     }
 
+    /**
+     * Everything the pixels of a text Bitmap depend on.
+     */
+    private static final class Key {
+        final int style;
+        final int width;
+        final int height;
+        final String text;
+        final int textSize;
+        final Align textAlign;
+        final int textColor;
+        final int backgroundColor;
+        final String typeface;
+
+        Key(int style, float width, float height, String text, int textSize, Align textAlign,
+                int textColor, int backgroundColor, String typeface) {
+            this.style = style;
+            this.width = (int) width;
+            this.height = (int) height;
+            this.text = text;
+            this.textSize = textSize;
+            this.textAlign = textAlign;
+            this.textColor = textColor;
+            this.backgroundColor = backgroundColor;
+            this.typeface = typeface;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key k = (Key) o;
+            return style == k.style && width == k.width && height == k.height
+                    && textSize == k.textSize && textAlign == k.textAlign
+                    && textColor == k.textColor && backgroundColor == k.backgroundColor
+                    && equal(text, k.text) && equal(typeface, k.typeface);
+        }
+
+        @Override
+        public int hashCode() {
+            int h = style;
+            h = 31 * h + width;
+            h = 31 * h + height;
+            h = 31 * h + (text != null ? text.hashCode() : 0);
+            h = 31 * h + textSize;
+            h = 31 * h + (textAlign != null ? textAlign.hashCode() : 0);
+            h = 31 * h + textColor;
+            h = 31 * h + backgroundColor;
+            h = 31 * h + (typeface != null ? typeface.hashCode() : 0);
+            return h;
+        }
+
+        private static boolean equal(Object a, Object b) {
+            return (a == null) ? (b == null) : a.equals(b);
+        }
+    }
+
     /**
      * Creates a Bitmap with texts.
      *
@@ -52,74 +142,139 @@ public class GVRTextBitmapFactory {
     public static Bitmap create(float width, float height, String character, int textSize,
             Align textAlign, int textColor, int backgroundColor, Context context) {
 
-        Bitmap bitmap = Bitmap.createBitmap((int) width, (int) height, Bitmap.Config.ARGB_8888);
-
-        Canvas canvas = new Canvas(bitmap);
+        return create(new Key(STYLE_CHARACTER, width, height, character, textSize, textAlign,
+                textColor, backgroundColor, null), null);
+    }
 
-        Paint paint = new Paint();
+    public static Bitmap create(float width, float height, Text text) {
 
-        paint.setTextSize(textSize);
-        paint.setTextAlign(textAlign);
-        paint.setFakeBoldText(true);
-        paint.setColor(textColor);
+        return create(textKey(width, height, text), null);
+    }
 
-        canvas.drawColor(backgroundColor);
-        canvas.drawText(character, width / 2, height / 1.6f, paint);
+    public static Bitmap create(Context context, float width, float height, Text text, int test) { // spinner
 
-        return bitmap;
+        return create(spinnerKey(width, height, text), context);
     }
 
-    public static Bitmap create(float width, float height, Text text) {
+    /**
+     * Puts the text of {@link #create(float, float, Text)} into the shared atlas.
+     */
+    public static GVRTextAtlas.Region createRegion(float width, float height, Text text) {
 
-        Bitmap bitmap = Bitmap.createBitmap((int) width, (int) height, Bitmap.Config.ARGB_8888);
-        Canvas canvas = new Canvas(bitmap);
+        return createRegion(textKey(width, height, text), null);
+    }
 
-        Paint paint = new Paint();
+    /**
+     * Puts the text of {@link #create(Context, float, float, Text, int)} into the
+     * shared atlas.
+     */
+    public static GVRTextAtlas.Region createRegion(Context context, float width, float height,
+            Text text, int test) { // spinner
 
-        paint.setTextSize(text.textSize);
-        paint.setTextAlign(text.align);
-        paint.setFakeBoldText(true);
-        paint.setColor(text.textColor);
+        return createRegion(spinnerKey(width, height, text), context);
+    }
 
-        canvas.drawColor(text.backgroundColor);
+    public static synchronized GVRTextAtlas getAtlas() {
+        if (atlas == null) {
+            atlas = new GVRTextAtlas();
+        }
+        return atlas;
+    }
 
-        if (text.align == Align.CENTER) {
+    /**
+     * Drops the cached Bitmaps and starts a new atlas. Regions handed out before
+     * stay valid.
+     */
+    public static synchronized void clearCache() {
+        cache.evictAll();
+        atlas = null;
+    }
 
-            canvas.drawText(text.text, width / 2, height / 1.6f, paint);
+    private static Key textKey(float width, float height, Text text) {
+        return new Key(STYLE_TEXT, width, height, text.text, text.textSize, text.align,
+                text.textColor, text.backgroundColor, null);
+    }
+
+    private static Key spinnerKey(float width, float height, Text text) {
+        return new Key(STYLE_SPINNER, width, height, text.text, text.textSize, text.align,
+                text.textColor, text.backgroundColor, SPINNER_TYPEFACE);
+    }
 
-        } else if (text.align == Align.LEFT) {
+    private static Bitmap create(Key key, Context context) {
 
-            canvas.drawText(text.text, 0, height / 1.6f, paint);
+        Bitmap bitmap = cacheOn ? cache.get(key) : null;
+        if (bitmap != null) {
+            return bitmap;
         }
 
+        bitmap = Bitmap.createBitmap(key.width, key.height, Bitmap.Config.ARGB_8888);
+        draw(new Canvas(bitmap), key, context);
+        if (cacheOn) {
+            cache.put(key, bitmap);
+        }
         return bitmap;
     }
 
-    public static Bitmap create(Context context, float width, float height, Text text, int test) { // spinner
+    private static GVRTextAtlas.Region createRegion(final Key key, final Context context) {
 
-        Typeface myTypeface = Typeface.createFromAsset(context.getAssets(), "fonts/futura-condensed-normal.ttf");
+        return getAtlas().add(key, key.width, key.height, new GVRTextAtlas.Painter() {
+            @Override
+            public void paint(Canvas canvas) {
+                draw(canvas, key, context);
+            }
+        });
+    }
 
-        Bitmap bitmap = Bitmap.createBitmap((int) width, (int) height, Bitmap.Config.ARGB_8888);
+    private static Typeface getTypeface(Context context, String path) {
+        synchronized (typefaces) {
+            Typeface typeface = typefaces.get(path);
+            if (typeface == null) {
+                typeface = Typeface.createFromAsset(context.getAssets(), path);
+                typefaces.put(path, typeface);
+            }
+            return typeface;
+        }
+    }
 
-        Canvas canvas = new Canvas(bitmap);
+    private static void draw(Canvas canvas, Key key, Context context) {
 
+        float width = key.width;
+        float height = key.height;
         Paint paint = new Paint();
-        paint.setTypeface(myTypeface);
-        paint.setFlags(Paint.ANTI_ALIAS_FLAG);
-        paint.setStyle(Style.FILL);
-        paint.setTextSize(text.textSize);
+
+        if (key.style == STYLE_SPINNER) {
+            paint.setTypeface(getTypeface(context, key.typeface));
+            paint.setFlags(Paint.ANTI_ALIAS_FLAG);
+            paint.setStyle(Style.FILL);
+            paint.setTextSize(key.textSize);
+            paint.setFakeBoldText(true);
+            paint.setColor(key.textColor);
+            paint.setFilterBitmap(true);
+
+            Rect rectText = new Rect();
+            paint.getTextBounds(key.text, 0, key.text.length(), rectText);
+
+            canvas.drawColor(key.backgroundColor);
+
+            canvas.drawText(key.text, width / 2 - rectText.exactCenterX(), height / 2 - rectText.exactCenterY(), paint);
+            return;
+        }
+
+        paint.setTextSize(key.textSize);
+        paint.setTextAlign(key.textAlign);
         paint.setFakeBoldText(true);
-        paint.setColor(text.textColor);
-        paint.setFilterBitmap(true);
+        paint.setColor(key.textColor);
 
-        Rect rectText = new Rect();
-        paint.getTextBounds(text.text, 0, text.text.length(), rectText);
+        canvas.drawColor(key.backgroundColor);
 
-        canvas.drawColor(text.backgroundColor);
+        if (key.style == STYLE_CHARACTER || key.textAlign == Align.CENTER) {
 
-        canvas.drawText(text.text, width / 2 - rectText.exactCenterX(), height / 2 - rectText.exactCenterY(), paint);
+            canvas.drawText(key.text, width / 2, height / 1.6f, paint);
 
-        return bitmap;
+        } else if (key.textAlign == Align.LEFT) {
+
+            canvas.drawText(key.text, 0, height / 1.6f, paint);
+        }
     }
 
 }